@@ -58,16 +58,16 @@ public class DataSeeder implements ApplicationRunner {
             if (user.getUserType() == UserType.EMPLOYEE)
                 return;
             Random random = new Random();
-            // Create default accounts
+            // Create default accounts, the amounts are in cents
             Account account = new Account();
             account.setIban(null);
             account.setUser(user);
             account.setUserId(user.getId());
             account.setName(user.getFirstName() + " " + user.getLastName() + " $avings account");
-            account.setDailyLimit(500f);
-            account.setTransactionLimit(100f);
-            account.setAbsoluteLimit(-50f);
-            account.setBalance(400f);
+            account.setDailyLimit(50000L);
+            account.setTransactionLimit(10000L);
+            account.setAbsoluteLimit(-5000L);
+            account.setBalance(40000L);
             account.setIsSavings(true);
             account.setCreatedAt(new Date());
             account.setIsActive(true);
@@ -79,10 +79,10 @@ public class DataSeeder implements ApplicationRunner {
             account1.setUser(user);
             account1.setUserId(user.getId());
             account1.setName(user.getFirstName() + " " + user.getLastName() + " payment account");
-            account1.setDailyLimit(500f);
-            account1.setTransactionLimit(100f);
-            account1.setAbsoluteLimit(-50f);
-            account1.setBalance(1000f);
+            account1.setDailyLimit(50000L);
+            account1.setTransactionLimit(10000L);
+            account1.setAbsoluteLimit(-5000L);
+            account1.setBalance(100000L);
             account1.setIsSavings(false);
             account1.setCreatedAt(new Date());
             account1.setIsActive(true);
@@ -94,10 +94,10 @@ public class DataSeeder implements ApplicationRunner {
             account2.setUser(user);
             account2.setUserId(user.getId());
             account2.setName(user.getFirstName() + " " + user.getLastName() + " payment account 2");
-            account2.setDailyLimit(200f);
-            account2.setTransactionLimit(100f);
-            account2.setAbsoluteLimit(-50f);
-            account2.setBalance(400f);
+            account2.setDailyLimit(20000L);
+            account2.setTransactionLimit(10000L);
+            account2.setAbsoluteLimit(-5000L);
+            account2.setBalance(40000L);
             account2.setIsSavings(false);
             account2.setCreatedAt(new Date());
             account2.setIsActive(true);
@@ -106,14 +106,14 @@ public class DataSeeder implements ApplicationRunner {
             TransactionRequestDTO transaction = new TransactionRequestDTO();
             transaction.setTransactionType("DEPOSIT");
             transaction.setToAccountIban(account.getIban());
-            transaction.setAmount(180f);
+            transaction.setAmount(18000L);
             transaction.setLabel("Initial deposit");
             transaction.setDescription("Initial deposit");
 
             TransactionRequestDTO transaction2 = new TransactionRequestDTO();
             transaction2.setTransactionType("WITHDRAW");
             transaction2.setFromAccountIban(account.getIban());
-            transaction2.setAmount(40f);
+            transaction2.setAmount(4000L);
             transaction2.setLabel("Initial withdraw");
             transaction2.setDescription("Initial withdraw");
 
@@ -126,10 +126,10 @@ public class DataSeeder implements ApplicationRunner {
         banksAccount.setUser(null);
         banksAccount.setUserId(null);
         banksAccount.setName("Bank account");
-        banksAccount.setDailyLimit(10000000f);
-        banksAccount.setTransactionLimit(10000000f);
-        banksAccount.setAbsoluteLimit(0f);
-        banksAccount.setBalance(100000000f);
+        banksAccount.setDailyLimit(1000000000L);
+        banksAccount.setTransactionLimit(1000000000L);
+        banksAccount.setAbsoluteLimit(0L);
+        banksAccount.setBalance(10000000000L);
         banksAccount.setIsSavings(false);
         banksAccount.setCreatedAt(new Date());
         banksAccount.setIsActive(true);
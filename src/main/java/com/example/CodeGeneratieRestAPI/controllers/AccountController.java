@@ -5,26 +5,23 @@ import com.example.CodeGeneratieRestAPI.dtos.AccountRequestDTO;
 import com.example.CodeGeneratieRestAPI.dtos.AccountResponseDTO;
 import com.example.CodeGeneratieRestAPI.exceptions.*;
 import com.example.CodeGeneratieRestAPI.helpers.LoggedInUserHelper;
+import com.example.CodeGeneratieRestAPI.helpers.QueryBudget;
 import com.example.CodeGeneratieRestAPI.models.Account;
 import com.example.CodeGeneratieRestAPI.models.ApiResponse;
 import com.example.CodeGeneratieRestAPI.models.User;
 import com.example.CodeGeneratieRestAPI.services.AccountService;
 import jakarta.annotation.Nullable;
-import org.modelmapper.ModelMapper;
-import org.modelmapper.PropertyMap;
-import org.modelmapper.config.Configuration;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Arrays;
 import java.util.List;
 
 @RestController
 @RequestMapping("/accounts")
 public class AccountController {
-    private final ModelMapper modelMapper;
     @Autowired
     private final LoggedInUserHelper loggedInUserHelper;
     @Autowired
@@ -32,17 +29,6 @@ public class AccountController {
 
     public AccountController() {
         this.loggedInUserHelper = new LoggedInUserHelper();
-        modelMapper = new ModelMapper();
-
-        //  Set the field matching to strict
-        modelMapper.getConfiguration().setFieldMatchingEnabled(true).setFieldAccessLevel(Configuration.AccessLevel.PRIVATE);
-        PropertyMap<Account, AccountResponseDTO> accountMap = new PropertyMap<>() {
-            protected void configure() {
-                map().setUserId(source.getUser().getId());
-            }
-        };
-        modelMapper.addMappings(accountMap);
-
     }
 
     //  POST mappings
@@ -65,17 +51,19 @@ public class AccountController {
     }
 
     //  GET mappings
+    //  The page of accounts and the count of all the accounts that match
     @GetMapping()
-    public ResponseEntity<ApiResponse> getAllAccounts(@RequestParam(required = false) String search, @Nullable @RequestParam(required = false, defaultValue = "") Boolean active) {
+    @QueryBudget(2)
+    public ResponseEntity<ApiResponse> getAllAccounts(@RequestParam(required = false) String search, @Nullable @RequestParam(required = false, defaultValue = "") Boolean active, @RequestParam(defaultValue = "0") int page_number, @RequestParam(defaultValue = "50") int page_size) {
         try {
             //  Get the logged-in user
             User user = loggedInUserHelper.getLoggedInUser();
 
             //  Retrieve the data
-            List<Account> accounts = accountService.getAllAccounts(search, active, user);
+            Page<AccountResponseDTO> accounts = accountService.getAllAccounts(search, active, page_number, page_size, user);
 
             //  Return the data
-            return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse(true, accounts.stream().count() + " Accounts retrieved", Arrays.asList(modelMapper.map(accounts, AccountResponseDTO[].class))));
+            return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse(true, accounts.getTotalElements() + " Accounts retrieved", accounts.getContent()));
         } catch (UserNotFoundException e) {
             return ResponseEntity.status(e.getStatusCode()).body(new ApiResponse<>(false, e.getMessage()));
         } catch (Exception e) {
@@ -90,10 +78,10 @@ public class AccountController {
             User user = loggedInUserHelper.getLoggedInUser();
 
             //  Retrieve the data
-            List<Account> accounts = accountService.getAllAccountsByUserId(userId, user);
+            List<AccountResponseDTO> accounts = accountService.getAllAccountsByUserId(userId, user);
 
             //  Return the data
-            return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse(true, accounts.stream().count() + " Accounts retrieved", Arrays.asList(modelMapper.map(accounts, AccountResponseDTO[].class))));
+            return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse(true, accounts.stream().count() + " Accounts retrieved", accounts));
         } catch (AccountNotFoundException | UserNotFoundException | AccountNotAccessibleException e) {
             return ResponseEntity.status(e.getStatusCode()).body(new ApiResponse<>(false, e.getMessage()));
         } catch (Exception e) {
@@ -0,0 +1,84 @@
+package com.example.CodeGeneratieRestAPI.controllers;
+
+import com.example.CodeGeneratieRestAPI.dtos.HoldRequestDTO;
+import com.example.CodeGeneratieRestAPI.dtos.HoldResponseDTO;
+import com.example.CodeGeneratieRestAPI.helpers.LoggedInUserHelper;
+import com.example.CodeGeneratieRestAPI.helpers.Money;
+import com.example.CodeGeneratieRestAPI.models.ApiResponse;
+import com.example.CodeGeneratieRestAPI.models.Hold;
+import com.example.CodeGeneratieRestAPI.models.User;
+import com.example.CodeGeneratieRestAPI.services.HoldService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+
+@RestController
+@RequestMapping("/transactions/holds")
+public class HoldController {
+
+    @Autowired
+    private HoldService holdService;
+    @Autowired
+    private LoggedInUserHelper loggedInUserHelper;
+
+    public HoldController() {
+        loggedInUserHelper = new LoggedInUserHelper();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse> getById(@PathVariable Long id) {
+        try {
+            User user = loggedInUserHelper.getLoggedInUser();
+
+            Hold hold = holdService.getById(user, id);
+
+            return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, "Hold retrieved", new HoldResponseDTO(hold)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse<>(false, e.getMessage()));
+        }
+    }
+
+    @PostMapping
+    public ResponseEntity<ApiResponse> place(@Valid @RequestBody(required = true) HoldRequestDTO holdIn) {
+        try {
+            User user = loggedInUserHelper.getLoggedInUser();
+
+            Hold hold = holdService.place(user, holdIn);
+
+            return ResponseEntity.status(HttpStatus.CREATED).body(new ApiResponse<>(true, "Hold placed", new HoldResponseDTO(hold)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse<>(false, e.getMessage()));
+        }
+    }
+
+    //  Without an amount the full amount of the hold is captured
+    @PostMapping("/{id}/capture")
+    public ResponseEntity<ApiResponse> capture(@PathVariable Long id, @RequestParam(required = false) BigDecimal amount) {
+        try {
+            User user = loggedInUserHelper.getLoggedInUser();
+
+            Hold hold = holdService.capture(user, id, Money.toCentsOrNull(amount));
+
+            return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, "Hold captured", new HoldResponseDTO(hold)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse<>(false, e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{id}/release")
+    public ResponseEntity<ApiResponse> release(@PathVariable Long id) {
+        try {
+            User user = loggedInUserHelper.getLoggedInUser();
+
+            Hold hold = holdService.release(user, id);
+
+            return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, "Hold released", new HoldResponseDTO(hold)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse<>(false, e.getMessage()));
+        }
+    }
+}
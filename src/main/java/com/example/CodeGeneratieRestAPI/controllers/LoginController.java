@@ -2,18 +2,25 @@ package com.example.CodeGeneratieRestAPI.controllers;
 
 import com.example.CodeGeneratieRestAPI.dtos.LoginRequestDTO;
 import com.example.CodeGeneratieRestAPI.dtos.LoginResponseDTO;
+import com.example.CodeGeneratieRestAPI.exceptions.CustomExceptionBase;
 import com.example.CodeGeneratieRestAPI.exceptions.InvalidTokenException;
 import com.example.CodeGeneratieRestAPI.exceptions.LoginDTOException;
 import com.example.CodeGeneratieRestAPI.exceptions.PasswordValidationException;
+import com.example.CodeGeneratieRestAPI.exceptions.RetryAfterExceptionBase;
 import com.example.CodeGeneratieRestAPI.exceptions.UserNotFoundException;
 import com.example.CodeGeneratieRestAPI.models.ApiResponse;
 import com.example.CodeGeneratieRestAPI.models.UserType;
 import com.example.CodeGeneratieRestAPI.services.LoginService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @RestController
 @RequestMapping("/login")
 public class LoginController {
@@ -32,14 +39,28 @@ public class LoginController {
         }
     }
 
+    //  The request thread is released while the password is hashed, the response is written when the hashing is done
     @PostMapping
-    public ResponseEntity<ApiResponse<LoginResponseDTO>> login(@RequestBody LoginRequestDTO req) {
+    public CompletableFuture<ResponseEntity<ApiResponse<LoginResponseDTO>>> login(@RequestBody LoginRequestDTO req, HttpServletRequest request) {
         try {
-            return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, "User logged in!", loginService.login(req)));
-        } catch (LoginDTOException | PasswordValidationException | UserNotFoundException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(new ApiResponse<>(false, e.getMessage()));
+            return loginService.login(req, request.getRemoteAddr())
+                    .thenApply(response -> ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, "User logged in!", response)))
+                    .exceptionally(this::loginFailed);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse<>(false, e.getMessage()));
+            return CompletableFuture.completedFuture(loginFailed(e));
+        }
+    }
+
+    private ResponseEntity<ApiResponse<LoginResponseDTO>> loginFailed(Throwable throwable) {
+        Throwable e = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        //  The hashing pool is full or the attempts are over their limit, the client is told when to try again
+        if (e instanceof RetryAfterExceptionBase retryable) {
+            return ResponseEntity.status(retryable.getStatusCode()).header(HttpHeaders.RETRY_AFTER, String.valueOf(retryable.getRetryAfterSeconds()))
+                    .body(new ApiResponse<>(false, e.getMessage()));
+        }
+        if (e instanceof LoginDTOException || e instanceof PasswordValidationException || e instanceof UserNotFoundException) {
+            return ResponseEntity.status(((CustomExceptionBase) e).getStatusCode()).body(new ApiResponse<>(false, e.getMessage()));
         }
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse<>(false, e.getMessage()));
     }
 }
\ No newline at end of file
@@ -1,24 +1,38 @@
 package com.example.CodeGeneratieRestAPI.controllers;
 
+import com.example.CodeGeneratieRestAPI.dtos.CursorPageDTO;
+import com.example.CodeGeneratieRestAPI.dtos.SlicePageDTO;
+import com.example.CodeGeneratieRestAPI.dtos.TransactionBatchResultDTO;
 import com.example.CodeGeneratieRestAPI.dtos.TransactionRequestDTO;
 import com.example.CodeGeneratieRestAPI.dtos.TransactionResponseDTO;
+import com.example.CodeGeneratieRestAPI.dtos.TransactionStatusDTO;
+import com.example.CodeGeneratieRestAPI.exceptions.IdempotencyKeyInUseException;
 import com.example.CodeGeneratieRestAPI.helpers.LoggedInUserHelper;
+import com.example.CodeGeneratieRestAPI.helpers.Money;
+import com.example.CodeGeneratieRestAPI.helpers.QueryBudget;
+import com.example.CodeGeneratieRestAPI.helpers.TransactionExportFormat;
+import com.example.CodeGeneratieRestAPI.helpers.TransactionExportWriter;
 import com.example.CodeGeneratieRestAPI.models.ApiResponse;
 import com.example.CodeGeneratieRestAPI.models.Transaction;
 import com.example.CodeGeneratieRestAPI.models.User;
+import com.example.CodeGeneratieRestAPI.services.IdempotencyService;
 import com.example.CodeGeneratieRestAPI.services.TransactionService;
 import jakarta.annotation.Nullable;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
-import org.modelmapper.ModelMapper;
-import org.modelmapper.config.Configuration;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
 
@@ -26,39 +40,92 @@ import java.util.List;
 @RequestMapping("/transactions")
 public class TransactionController {
 
-    ModelMapper modelMapper;
     @Autowired
     private TransactionService transactionService;
     @Autowired
     private LoggedInUserHelper loggedInUserHelper;
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     public TransactionController() {
         loggedInUserHelper = new LoggedInUserHelper();
-        modelMapper = new ModelMapper();
-        modelMapper.getConfiguration().setFieldMatchingEnabled(true).setFieldAccessLevel(Configuration.AccessLevel.PRIVATE);
     }
 
+    //  The page and the count of all the transactions, the logged-in user comes from the token
     @GetMapping
-    public ResponseEntity<ApiResponse> getAll(@RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") Date start_date, @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") Date end_date, @RequestParam String iban, @RequestParam String amount_relation, @Nullable @RequestParam(defaultValue = "0") Float amount, @RequestParam int page_number, @RequestParam int page_size) {
+    @QueryBudget(2)
+    public ResponseEntity<ApiResponse> getAll(@RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") Date start_date, @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") Date end_date, @RequestParam String iban, @RequestParam String amount_relation, @Nullable @RequestParam(defaultValue = "0") BigDecimal amount, @RequestParam(defaultValue = "0") int page_number, @RequestParam int page_size, @Nullable @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "false") boolean approximate_count) {
         try {
             User user = loggedInUserHelper.getLoggedInUser();
 
-            Page<Transaction> transactions = transactionService.getAll(user, start_date, end_date, iban, amount_relation, amount, page_number, page_size);
+            //  With a cursor the transactions are paginated with a cursor instead of a page number, an empty cursor asks for the first page and the next_cursor of a page is sent as the cursor of the next request
+            if (cursor != null) {
+                CursorPageDTO<TransactionResponseDTO> transactions = transactionService.getAllAfterCursor(user, start_date, end_date, iban, amount_relation, Money.toCents(amount), cursor, page_size);
+                return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, "Transactions retrieved", transactions));
+            }
+
+            //  The page is read without a count, the total is the last count of these filters and is counted again in the background
+            if (approximate_count) {
+                SlicePageDTO<TransactionResponseDTO> transactions = transactionService.getAllWithApproximateCount(user, start_date, end_date, iban, amount_relation, Money.toCents(amount), page_number, page_size);
+                return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, "Transactions retrieved", transactions));
+            }
 
-            return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, "" + transactions.getTotalElements(), Arrays.asList(modelMapper.map(transactions.getContent(), TransactionResponseDTO[].class))));
+            Page<TransactionResponseDTO> transactions = transactionService.getAll(user, start_date, end_date, iban, amount_relation, Money.toCents(amount), page_number, page_size);
+
+            return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, "" + transactions.getTotalElements(), transactions.getContent()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse<>(false, e.getMessage()));
         }
     }
 
+    //  Streams all the transactions that match the filters, without pages or counts, the rows are written to the client while they are read
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") Date start_date, @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") Date end_date, @RequestParam(defaultValue = "") String iban, @RequestParam(defaultValue = "") String amount_relation, @Nullable @RequestParam(defaultValue = "0") BigDecimal amount, @RequestParam(defaultValue = "ndjson") String format) {
+        try {
+            User user = loggedInUserHelper.getLoggedInUser();
+            TransactionExportFormat exportFormat = TransactionExportFormat.of(format);
+            long amountInCents = Money.toCents(amount);
+            transactionService.validateExport(user, amount_relation, amountInCents);
+
+            StreamingResponseBody body = outputStream -> {
+                TransactionExportWriter writer = new TransactionExportWriter(exportFormat, outputStream, objectMapper);
+                transactionService.export(start_date, end_date, iban, amount_relation, amountInCents, transaction -> {
+                    try {
+                        writer.write(transaction);
+                    } catch (IOException e) {
+                        //  The client went away, this stops the export and closes the cursor
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.flush();
+            };
+
+            return ResponseEntity.status(HttpStatus.OK)
+                    .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions." + exportFormat.getFileExtension() + "\"")
+                    .body(body);
+        } catch (Exception e) {
+            //  The body of the export is a StreamingResponseBody, so the error is written as the same JSON as the other endpoints
+            ApiResponse<String> error = new ApiResponse<>(false, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(outputStream -> objectMapper.writeValue(outputStream, error));
+        }
+    }
+
+    //  A query for the sent and one for the received transactions
+    //  The transactions are paginated with a cursor, the next_cursor of a page is sent as the cursor of the next request
     @GetMapping("/user")
-    public ResponseEntity<ApiResponse> getAllByUserId() {
+    @QueryBudget(2)
+    public ResponseEntity<ApiResponse> getAllByUserId(@Nullable @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date start_date, @Nullable @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date end_date, @RequestParam(defaultValue = "") String type, @Nullable @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "50") int page_size) {
         try {
             User user = loggedInUserHelper.getLoggedInUser();
 
-            List<Transaction> transactions = transactionService.getAllByUser(user);
+            CursorPageDTO<TransactionResponseDTO> transactions = transactionService.getAllByUser(user, start_date, end_date, type, cursor, page_size);
 
-            return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, "All transactions retrieved", Arrays.asList(modelMapper.map(transactions, TransactionResponseDTO[].class))));
+            return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, "All transactions retrieved", transactions));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse<>(false, e.getMessage()));
         }
@@ -78,13 +145,38 @@ public class TransactionController {
         }
     }
 
+    @GetMapping("/{id}/status")
+    public ResponseEntity<ApiResponse> getStatus(@PathVariable Long id) {
+        try {
+            User user = loggedInUserHelper.getLoggedInUser();
+
+            Transaction transaction = transactionService.getStatus(user, id);
+
+            return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, "Transaction status retrieved", new TransactionStatusDTO(transaction)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse<>(false, e.getMessage()));
+        }
+    }
+
+    //  The owner of the account, the page and the count
     @GetMapping("/accounts/{iban}")
-    public ResponseEntity<ApiResponse> getAllByAccountIban(@PathVariable String iban, @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") Date start_date, @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") Date end_date, @RequestParam String search_iban, @RequestParam String amount_relation, @Nullable @RequestParam(defaultValue = "0") Float amount, @RequestParam int page_number, @RequestParam int page_size) {
+    @QueryBudget(3)
+    public ResponseEntity<ApiResponse> getAllByAccountIban(@PathVariable String iban, @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") Date start_date, @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") Date end_date, @RequestParam String search_iban, @RequestParam String amount_relation, @Nullable @RequestParam(defaultValue = "0") BigDecimal amount, @RequestParam(defaultValue = "0") int page_number, @RequestParam int page_size, @Nullable @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "false") boolean approximate_count) {
         try {
             User user = loggedInUserHelper.getLoggedInUser();
 
-            Page<Transaction> transactions = transactionService.getAllByAccountIban(user, iban, start_date, end_date, search_iban, amount_relation, amount, page_number, page_size);
-            return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, "" + transactions.getTotalElements(), Arrays.asList(modelMapper.map(transactions.getContent(), TransactionResponseDTO[].class))));
+            if (cursor != null) {
+                CursorPageDTO<TransactionResponseDTO> transactions = transactionService.getAllByAccountIbanAfterCursor(user, iban, start_date, end_date, search_iban, amount_relation, Money.toCents(amount), cursor, page_size);
+                return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, "Transactions retrieved", transactions));
+            }
+
+            if (approximate_count) {
+                SlicePageDTO<TransactionResponseDTO> transactions = transactionService.getAllByAccountIbanWithApproximateCount(user, iban, start_date, end_date, search_iban, amount_relation, Money.toCents(amount), page_number, page_size);
+                return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, "Transactions retrieved", transactions));
+            }
+
+            Page<TransactionResponseDTO> transactions = transactionService.getAllByAccountIban(user, iban, start_date, end_date, search_iban, amount_relation, Money.toCents(amount), page_number, page_size);
+            return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, "" + transactions.getTotalElements(), transactions.getContent()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse<>(false, e.getMessage()));
         }
@@ -104,10 +196,58 @@ public class TransactionController {
     }
 
     @PostMapping
-    public ResponseEntity<ApiResponse> add(@Valid @RequestBody(required = true) TransactionRequestDTO transactionIn) {
+    public ResponseEntity<ApiResponse> add(@Valid @RequestBody(required = true) TransactionRequestDTO transactionIn, @RequestParam(defaultValue = "false") boolean async, @Nullable @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        try {
+            User user = loggedInUserHelper.getLoggedInUser();
+
+            if (idempotencyKey == null) {
+                return add(user, transactionIn, async);
+            }
+
+            //  A retry with the same Idempotency-Key gets the stored response, the transaction is not run again
+            List<Object> request = List.of(transactionIn, async);
+            IdempotencyService.StoredResponse storedResponse = idempotencyService.begin(user, idempotencyKey, request);
+            if (storedResponse != null) {
+                return ResponseEntity.status(storedResponse.statusCode()).header("Idempotent-Replayed", "true").body((ApiResponse) storedResponse.body());
+            }
+
+            ResponseEntity<ApiResponse> response = null;
+            try {
+                response = add(user, transactionIn, async);
+            } finally {
+                idempotencyService.complete(user, idempotencyKey, request, response);
+            }
+            return response;
+        } catch (IdempotencyKeyInUseException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ApiResponse<>(false, e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse<>(false, e.getMessage()));
+        }
+    }
+
+    //  Add up to transactions.batch.max-size transactions in one request, the result of every item is returned in the same order
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse> addBatch(@Valid @RequestBody(required = true) List<TransactionRequestDTO> transactionsIn) {
         try {
             User user = loggedInUserHelper.getLoggedInUser();
 
+            List<TransactionBatchResultDTO> results = transactionService.addBatch(user, transactionsIn);
+
+            long added = results.stream().filter(TransactionBatchResultDTO::isSuccess).count();
+            return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, added + " of " + results.size() + " transactions added", results));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse<>(false, e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<ApiResponse> add(User user, TransactionRequestDTO transactionIn, boolean async) {
+        try {
+            //  In async mode the transaction is only stored as PENDING, the status can be followed with GET /transactions/{id}/status
+            if (async) {
+                Transaction pendingTransaction = transactionService.addPending(user, transactionIn);
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(new ApiResponse<>(true, "Transaction accepted", new TransactionResponseDTO(pendingTransaction)));
+            }
+
             //  Retrieve the data
             Transaction transaction = transactionService.add(user, transactionIn);
 
@@ -3,10 +3,12 @@ package com.example.CodeGeneratieRestAPI.controllers;
 import com.example.CodeGeneratieRestAPI.dtos.UserRequestDTO;
 import com.example.CodeGeneratieRestAPI.dtos.UserResponseDTO;
 import com.example.CodeGeneratieRestAPI.exceptions.*;
+import com.example.CodeGeneratieRestAPI.helpers.QueryBudget;
 import com.example.CodeGeneratieRestAPI.models.ApiResponse;
 import com.example.CodeGeneratieRestAPI.services.UserService;
-import jakarta.annotation.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -20,10 +22,14 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    //  The page of users and the count of all the users
     @GetMapping
-    public ResponseEntity<ApiResponse<List<UserResponseDTO>>> getAll(@Nullable @RequestParam(required = false, defaultValue = "") Boolean hasNoAccounts) {
+    @QueryBudget(2)
+    public ResponseEntity<ApiResponse<List<UserResponseDTO>>> getAll(@RequestParam(defaultValue = "false") boolean hasNoAccounts, @RequestParam(defaultValue = "0") int page_number, @RequestParam(defaultValue = "50") int page_size) {
         try {
-            return ResponseEntity.status(HttpStatus.FOUND).body(new ApiResponse<>(true, "Users found!", userService.getAll(hasNoAccounts)));
+            Page<UserResponseDTO> users = userService.getAll(hasNoAccounts, page_number, page_size);
+
+            return ResponseEntity.status(HttpStatus.FOUND).body(new ApiResponse<>(true, users.getTotalElements() + " Users found!", users.getContent()));
         } catch (UserNotFoundException e) {
             return ResponseEntity.status(e.getStatusCode()).body(new ApiResponse<>(false, e.getMessage()));
         } catch (Exception e) {
@@ -57,6 +63,8 @@ public class UserController {
     public ResponseEntity<ApiResponse<UserResponseDTO>> add(@RequestBody UserRequestDTO user) {
         try {
             return ResponseEntity.status(HttpStatus.CREATED).body(new ApiResponse<>(true, "User created!", userService.add(user)));
+        } catch (PasswordHashingBusyException e) {
+            return ResponseEntity.status(e.getStatusCode()).header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds())).body(new ApiResponse<>(false, e.getMessage()));
         } catch (UserDTOException | UserUpdateException | UserAlreadyExistsException e) {
             return ResponseEntity.status(e.getStatusCode()).body(new ApiResponse<>(false, e.getMessage()));
         } catch (Exception e) {
@@ -68,6 +76,8 @@ public class UserController {
     public ResponseEntity<ApiResponse<UserResponseDTO>> update(@PathVariable Long id, @RequestBody UserRequestDTO user) {
         try {
             return ResponseEntity.status(HttpStatus.OK).body(new ApiResponse<>(true, "User updated!", userService.update(id, user)));
+        } catch (PasswordHashingBusyException e) {
+            return ResponseEntity.status(e.getStatusCode()).header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds())).body(new ApiResponse<>(false, e.getMessage()));
         } catch (UserDTOException | UserNotFoundException e) {
             return ResponseEntity.status(e.getStatusCode()).body(new ApiResponse<>(false, e.getMessage()));
         } catch (Exception e) {
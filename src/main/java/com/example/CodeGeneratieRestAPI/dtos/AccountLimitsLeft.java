@@ -1,22 +1,29 @@
 package com.example.CodeGeneratieRestAPI.dtos;
 
+import com.example.CodeGeneratieRestAPI.helpers.MoneySerializer;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Data;
 
 // Class representing the JSON object
 @Data
 public class AccountLimitsLeft {
+    //  The amounts are in cents, in JSON they are written as decimal amounts
     @JsonProperty("dailyLimitLeft")
-    private float dailyLimitLeft;
+    @JsonSerialize(using = MoneySerializer.class)
+    private long dailyLimitLeft;
 
     @JsonProperty("transactionLimit")
-    private float transactionLimit;
+    @JsonSerialize(using = MoneySerializer.class)
+    private long transactionLimit;
 
     @JsonProperty("amountSpendableOnNextTransaction")
-    private float amountSpendableOnNextTransaction;
+    @JsonSerialize(using = MoneySerializer.class)
+    private long amountSpendableOnNextTransaction;
 
     @JsonProperty("differenceBalanceAndAbsoluteLimit")
-    private float differenceBalanceAndAbsoluteLimit;
+    @JsonSerialize(using = MoneySerializer.class)
+    private long differenceBalanceAndAbsoluteLimit;
 
 
 }
\ No newline at end of file
@@ -1,5 +1,9 @@
 package com.example.CodeGeneratieRestAPI.dtos;
 
+import com.example.CodeGeneratieRestAPI.helpers.MoneyDeserializer;
+import com.example.CodeGeneratieRestAPI.helpers.MoneySerializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Data;
 
 @Data
@@ -7,17 +11,26 @@ public class AccountRequestDTO {
     private Long userId;
     private String iban;
     private String name;
-    private Float dailyLimit;
-    private Float transactionLimit;
-    private Float absoluteLimit;
-    private Float balance;
+    //  The amounts are in cents, in JSON they are written as decimal amounts
+    @JsonSerialize(using = MoneySerializer.class)
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    private Long dailyLimit;
+    @JsonSerialize(using = MoneySerializer.class)
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    private Long transactionLimit;
+    @JsonSerialize(using = MoneySerializer.class)
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    private Long absoluteLimit;
+    @JsonSerialize(using = MoneySerializer.class)
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    private Long balance;
     private Boolean isSavings;
     private Boolean isActive;
 
     public AccountRequestDTO() {
     }
 
-    public AccountRequestDTO(Long userId, String iban, String accountName, Float dailyLimit, Float transactionLimit, Float absoluteLimit, Float balance, Boolean isSavings, Boolean isActive) {
+    public AccountRequestDTO(Long userId, String iban, String accountName, Long dailyLimit, Long transactionLimit, Long absoluteLimit, Long balance, Boolean isSavings, Boolean isActive) {
         this.userId = userId;
         this.iban = iban;
         this.name = accountName;
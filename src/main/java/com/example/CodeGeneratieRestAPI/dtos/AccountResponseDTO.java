@@ -1,6 +1,8 @@
 package com.example.CodeGeneratieRestAPI.dtos;
 
 import com.example.CodeGeneratieRestAPI.models.Account;
+import com.example.CodeGeneratieRestAPI.helpers.MoneySerializer;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Data;
 
 @Data
@@ -8,10 +10,15 @@ public class AccountResponseDTO {
     private Long userId;
     private String iban;
     private String name;
-    private Float dailyLimit;
-    private Float transactionLimit;
-    private Float absoluteLimit;
-    private Float balance;
+    //  The amounts are in cents, in JSON they are written as decimal amounts
+    @JsonSerialize(using = MoneySerializer.class)
+    private long dailyLimit;
+    @JsonSerialize(using = MoneySerializer.class)
+    private long transactionLimit;
+    @JsonSerialize(using = MoneySerializer.class)
+    private long absoluteLimit;
+    @JsonSerialize(using = MoneySerializer.class)
+    private long balance;
     private Boolean isSavings;
     private Boolean isActive;
 
@@ -32,7 +39,20 @@ public class AccountResponseDTO {
         this.isActive = account.getIsActive();
     }
 
-    private Float calculateLimitRemaining() {
+    //  Used by the list queries, they select these columns directly instead of loading the accounts and their users
+    public AccountResponseDTO(Long userId, String iban, String name, long dailyLimit, long transactionLimit, long absoluteLimit, long balance, Boolean isSavings, Boolean isActive) {
+        this.userId = userId;
+        this.iban = iban;
+        this.name = name;
+        this.dailyLimit = dailyLimit;
+        this.transactionLimit = transactionLimit;
+        this.absoluteLimit = absoluteLimit;
+        this.balance = balance;
+        this.isSavings = isSavings;
+        this.isActive = isActive;
+    }
+
+    private long calculateLimitRemaining() {
         //  Get the lowest limit of all the limits
         return Math.min(Math.min(transactionLimit, dailyLimit), this.balance - this.absoluteLimit);
     }
@@ -0,0 +1,23 @@
+package com.example.CodeGeneratieRestAPI.dtos;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+//  A page of a list that is paginated with a cursor, next_cursor is empty on the last page
+@Data
+public class CursorPageDTO<T> {
+    private List<T> items;
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+
+    // Empty constructor
+    public CursorPageDTO() {
+    }
+
+    public CursorPageDTO(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.CodeGeneratieRestAPI.dtos;
+
+import com.example.CodeGeneratieRestAPI.helpers.MoneyDeserializer;
+import com.example.CodeGeneratieRestAPI.helpers.MoneySerializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.Data;
+
+@Data
+public class HoldRequestDTO {
+    private String fromAccountIban;
+    //  Optional, when it is filled the hold is captured as a transfer to this account
+    private String toAccountIban;
+    //  In cents, in JSON it is written as a decimal amount
+    @JsonSerialize(using = MoneySerializer.class)
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    private Long amount;
+    private String description;
+    //  Optional, the default expiry is used when it is empty
+    private Long expiresInSeconds;
+
+    public HoldRequestDTO() {
+    }
+
+    public HoldRequestDTO(String fromAccountIban, String toAccountIban, Long amount, String description, Long expiresInSeconds) {
+        this.fromAccountIban = fromAccountIban;
+        this.toAccountIban = toAccountIban;
+        this.amount = amount;
+        this.description = description;
+        this.expiresInSeconds = expiresInSeconds;
+    }
+}
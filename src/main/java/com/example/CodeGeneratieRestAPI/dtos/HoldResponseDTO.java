@@ -0,0 +1,43 @@
+package com.example.CodeGeneratieRestAPI.dtos;
+
+import com.example.CodeGeneratieRestAPI.models.Hold;
+import com.example.CodeGeneratieRestAPI.models.HoldStatus;
+import com.example.CodeGeneratieRestAPI.helpers.MoneySerializer;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.Data;
+
+import java.util.Date;
+
+@Data
+public class HoldResponseDTO {
+    private Long id;
+    private String fromAccountIban;
+    private String toAccountIban;
+    //  The amounts are in cents, in JSON they are written as decimal amounts
+    @JsonSerialize(using = MoneySerializer.class)
+    private long amount;
+    @JsonSerialize(using = MoneySerializer.class)
+    private long capturedAmount;
+    private String description;
+    private HoldStatus status;
+    private Long transactionId;
+    private Date createdAt;
+    private Date expiresAt;
+
+    // Empty constructor
+    public HoldResponseDTO() {
+    }
+
+    public HoldResponseDTO(Hold hold) {
+        this.id = hold.getId();
+        this.fromAccountIban = hold.getFromAccount() != null ? hold.getFromAccount().getIban() : null;
+        this.toAccountIban = hold.getToAccount() != null ? hold.getToAccount().getIban() : null;
+        this.amount = hold.getAmount();
+        this.capturedAmount = hold.getCapturedAmount();
+        this.description = hold.getDescription();
+        this.status = hold.getStatus();
+        this.transactionId = hold.getTransaction() != null ? hold.getTransaction().getId() : null;
+        this.createdAt = hold.getCreatedAt();
+        this.expiresAt = hold.getExpiresAt();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.CodeGeneratieRestAPI.dtos;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+//  A page of a list that is paginated without counting, approximate_total is the last known count and is empty until it has been counted once
+@Data
+public class SlicePageDTO<T> {
+    private List<T> items;
+    @JsonProperty("has_next")
+    private boolean hasNext;
+    @JsonProperty("approximate_total")
+    private Long approximateTotal;
+
+    // Empty constructor
+    public SlicePageDTO() {
+    }
+
+    public SlicePageDTO(List<T> items, boolean hasNext, Long approximateTotal) {
+        this.items = items;
+        this.hasNext = hasNext;
+        this.approximateTotal = approximateTotal;
+    }
+}
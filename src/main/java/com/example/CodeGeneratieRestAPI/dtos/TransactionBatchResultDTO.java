@@ -0,0 +1,22 @@
+package com.example.CodeGeneratieRestAPI.dtos;
+
+import lombok.Data;
+
+//  The result of one item of POST /transactions/batch, the index is the position of the item in the request
+@Data
+public class TransactionBatchResultDTO {
+    private int index;
+    private boolean success;
+    private String message;
+    private TransactionResponseDTO transaction;
+
+    // Empty constructor
+    public TransactionBatchResultDTO() {
+    }
+
+    public TransactionBatchResultDTO(int index, boolean success, String message) {
+        this.index = index;
+        this.success = success;
+        this.message = message;
+    }
+}
@@ -1,5 +1,9 @@
 package com.example.CodeGeneratieRestAPI.dtos;
 
+import com.example.CodeGeneratieRestAPI.helpers.MoneyDeserializer;
+import com.example.CodeGeneratieRestAPI.helpers.MoneySerializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Data;
 
 @Data
@@ -7,14 +11,17 @@ public class TransactionRequestDTO {
     private String fromAccountIban;
     private String toAccountIban;
     private String transactionType;
-    private Float amount;
+    //  In cents, in JSON it is written as a decimal amount
+    @JsonSerialize(using = MoneySerializer.class)
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    private Long amount;
     private String label;
     private String description;
 
     public TransactionRequestDTO() {
     }
 
-    public TransactionRequestDTO(String fromAccountIban, String toAccountIban, String transactionType, Float amount, String label, String description) {
+    public TransactionRequestDTO(String fromAccountIban, String toAccountIban, String transactionType, Long amount, String label, String description) {
         this.fromAccountIban = fromAccountIban;
         this.toAccountIban = toAccountIban;
         this.transactionType = transactionType;
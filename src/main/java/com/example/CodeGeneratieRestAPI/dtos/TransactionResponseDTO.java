@@ -1,7 +1,10 @@
 package com.example.CodeGeneratieRestAPI.dtos;
 
 import com.example.CodeGeneratieRestAPI.models.Transaction;
+import com.example.CodeGeneratieRestAPI.models.TransactionStatus;
 import com.example.CodeGeneratieRestAPI.models.TransactionType;
+import com.example.CodeGeneratieRestAPI.helpers.MoneySerializer;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Data;
 
 import java.util.Date;
@@ -12,10 +15,13 @@ public class TransactionResponseDTO {
     private String fromAccountIban;
     private String toAccountIban;
     private TransactionType transactionType;
-    private Float amount;
+    //  In cents, in JSON it is written as a decimal amount
+    @JsonSerialize(using = MoneySerializer.class)
+    private long amount;
     private String label;
     private String description;
     private Date createdAt;
+    private TransactionStatus status;
 
     // Empty constructor
     public TransactionResponseDTO() {
@@ -30,5 +36,19 @@ public class TransactionResponseDTO {
         this.label = transaction.getLabel();
         this.description = transaction.getDescription();
         this.createdAt = transaction.getCreatedAt();
+        this.status = transaction.getStatus();
+    }
+
+    //  Used by the list queries, they select these columns directly instead of loading the transactions and their accounts
+    public TransactionResponseDTO(Long id, String fromAccountIban, String toAccountIban, TransactionType transactionType, long amount, String label, String description, Date createdAt, TransactionStatus status) {
+        this.id = id;
+        this.fromAccountIban = fromAccountIban;
+        this.toAccountIban = toAccountIban;
+        this.transactionType = transactionType;
+        this.amount = amount;
+        this.label = label;
+        this.description = description;
+        this.createdAt = createdAt;
+        this.status = status;
     }
 }
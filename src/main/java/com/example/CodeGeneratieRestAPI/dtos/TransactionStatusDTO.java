@@ -0,0 +1,22 @@
+package com.example.CodeGeneratieRestAPI.dtos;
+
+import com.example.CodeGeneratieRestAPI.models.Transaction;
+import com.example.CodeGeneratieRestAPI.models.TransactionStatus;
+import lombok.Data;
+
+@Data
+public class TransactionStatusDTO {
+    private Long id;
+    private TransactionStatus status;
+    private String failureReason;
+
+    // Empty constructor
+    public TransactionStatusDTO() {
+    }
+
+    public TransactionStatusDTO(Transaction transaction) {
+        this.id = transaction.getId();
+        this.status = transaction.getStatus();
+        this.failureReason = transaction.getFailureReason();
+    }
+}
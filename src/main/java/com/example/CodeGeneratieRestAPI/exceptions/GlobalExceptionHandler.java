@@ -3,6 +3,7 @@ package com.example.CodeGeneratieRestAPI.exceptions;
 import com.example.CodeGeneratieRestAPI.models.ApiResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
@@ -109,6 +110,17 @@ public class GlobalExceptionHandler {
                 .body(new ApiResponse<>(false, "Error whilst creating the user: " + e.getMessage()));
     }
 
+    //  An amount in the request body that is not valid is thrown by the MoneyDeserializer, Jackson wraps it in the exception of the unreadable body
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ApiResponse<String>> handleHttpMessageNotReadableException(HttpMessageNotReadableException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransactionAmountNotValidException amountNotValidException) {
+                return handleTransactionAmountNotValidException(amountNotValidException);
+            }
+        }
+        return handleException(e);
+    }
+
     // Handle all exceptions that are not handled by other handlers
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiResponse<String>> handleException(Exception e) {
@@ -0,0 +1,16 @@
+package com.example.CodeGeneratieRestAPI.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Hold is not active")
+public class HoldNotActiveException extends RuntimeException implements CustomExceptionBase {
+    public HoldNotActiveException(String message) {
+        super(message);
+    }
+
+    @Override
+    public HttpStatus getStatusCode() {
+        return HttpStatus.BAD_REQUEST;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.CodeGeneratieRestAPI.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.NOT_FOUND, reason = "Hold not found")
+public class HoldNotFoundException extends RuntimeException implements CustomExceptionBase {
+    public HoldNotFoundException(String message) {
+        super(message);
+    }
+
+    @Override
+    public HttpStatus getStatusCode() {
+        return HttpStatus.NOT_FOUND;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.CodeGeneratieRestAPI.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT, reason = "Idempotency key in use")
+public class IdempotencyKeyInUseException extends RuntimeException implements CustomExceptionBase {
+    public IdempotencyKeyInUseException(String message) {
+        super(message);
+    }
+
+    @Override
+    public HttpStatus getStatusCode() {
+        return HttpStatus.CONFLICT;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.CodeGeneratieRestAPI.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Idempotency key not valid")
+public class IdempotencyKeyNotValidException extends RuntimeException implements CustomExceptionBase {
+    public IdempotencyKeyNotValidException(String message) {
+        super(message);
+    }
+
+    @Override
+    public HttpStatus getStatusCode() {
+        return HttpStatus.BAD_REQUEST;
+    }
+}
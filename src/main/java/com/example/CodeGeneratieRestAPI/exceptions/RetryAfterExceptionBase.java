@@ -0,0 +1,6 @@
+package com.example.CodeGeneratieRestAPI.exceptions;
+
+//  An exception for a request that can be sent again later, the seconds are sent to the client in the Retry-After header
+public interface RetryAfterExceptionBase extends CustomExceptionBase {
+    public long getRetryAfterSeconds();
+}
@@ -0,0 +1,133 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class AccountLockManager {
+    //  The amount of stripes is a power of two so the stripe can be picked with a bit mask
+    //  More stripes than cores keeps the chance that two unrelated accounts share a stripe small
+    private static final int MIN_STRIPES = 64;
+    private static final int STRIPES_PER_CORE = 16;
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    //  Lock-wait metrics, LongAdder is used so that recording the metrics does not become a point of contention itself
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contendedAcquisitions = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public AccountLockManager() {
+        this(Runtime.getRuntime().availableProcessors() * STRIPES_PER_CORE);
+    }
+
+    public AccountLockManager(int requestedStripes) {
+        int stripeCount = Integer.highestOneBit(Math.max(MIN_STRIPES, requestedStripes) - 1) << 1;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = stripeCount - 1;
+    }
+
+    //  Lock all the given accounts, null keys (e.g. the missing side of a deposit) are ignored
+    //  The stripes are always locked in ascending order, so two transfers A -> B and B -> A can never deadlock
+    public AccountLock lock(String... accountKeys) {
+        int[] stripeIndexes = Arrays.stream(accountKeys)
+                .filter(Objects::nonNull)
+                .mapToInt(this::stripeFor)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        int locked = 0;
+        try {
+            for (int stripeIndex : stripeIndexes) {
+                acquire(stripes[stripeIndex]);
+                locked++;
+            }
+        } catch (RuntimeException e) {
+            unlock(stripeIndexes, locked);
+            throw e;
+        }
+        return new AccountLock(stripeIndexes);
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    public long getContendedAcquisitions() {
+        return contendedAcquisitions.sum();
+    }
+
+    public long getTotalWaitNanos() {
+        return totalWaitNanos.sum();
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    int stripeFor(String accountKey) {
+        //  Spread the hash so IBANs that only differ in the last digits still end up on different stripes
+        int hash = accountKey.hashCode();
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        return hash & mask;
+    }
+
+    private void acquire(ReentrantLock lock) {
+        acquisitions.increment();
+        //  The fast path does not touch the clock at all
+        if (lock.tryLock()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        lock.lock();
+        long waited = System.nanoTime() - start;
+
+        contendedAcquisitions.increment();
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+    }
+
+    private void unlock(int[] stripeIndexes, int count) {
+        //  Release in the reverse order of acquiring
+        for (int i = count - 1; i >= 0; i--) {
+            stripes[stripeIndexes[i]].unlock();
+        }
+    }
+
+    //  The handle that is returned when locking accounts, it is meant to be used in a try-with-resources block
+    public class AccountLock implements AutoCloseable {
+        private final int[] stripeIndexes;
+        private boolean released;
+
+        private AccountLock(int[] stripeIndexes) {
+            this.stripeIndexes = stripeIndexes;
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            unlock(stripeIndexes, stripeIndexes.length);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+//  A count-min sketch: estimates how often a key was seen in a fixed amount of memory, however many different keys there are
+//  Every key has a counter in each row, the estimate is the lowest of them, so it can be too high but never too low
+//  After a sample of increments all the counters are halved, the keys that were seen recently weigh more than the old ones
+//  The counters are updated with atomic operations, nothing is locked
+public class FrequencySketch {
+    private static final int ROWS = 4;
+    private static final int[] SEEDS = {0x97cb3127, 0xb1d3f2a5, 0x3c6ef372, 0x7f4a7c15};
+
+    private final AtomicIntegerArray counters;
+    private final int mask;
+    private final long sampleSize;
+    private final AtomicLong increments = new AtomicLong();
+
+    public FrequencySketch(int expectedKeys) {
+        //  A power of two so the counter can be picked with a bit mask
+        int width = Integer.highestOneBit(Math.max(2, expectedKeys) - 1) << 1;
+        this.counters = new AtomicIntegerArray(ROWS * width);
+        this.mask = width - 1;
+        this.sampleSize = 10L * width;
+    }
+
+    public void increment(Object key) {
+        int hash = key.hashCode();
+        for (int row = 0; row < ROWS; row++) {
+            counters.getAndUpdate(index(hash, row), count -> count < Integer.MAX_VALUE ? count + 1 : count);
+        }
+        if (increments.incrementAndGet() % sampleSize == 0) {
+            age();
+        }
+    }
+
+    public int frequency(Object key) {
+        int hash = key.hashCode();
+        int frequency = Integer.MAX_VALUE;
+        for (int row = 0; row < ROWS; row++) {
+            frequency = Math.min(frequency, counters.get(index(hash, row)));
+        }
+        return frequency;
+    }
+
+    private void age() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >>> 1);
+        }
+    }
+
+    //  Every row mixes the hash with its own seed, two keys that share a counter in one row are unlikely to share it in the others
+    private int index(int hash, int row) {
+        int mixed = (hash ^ SEEDS[row]) * 0x9e3779b9;
+        mixed ^= mixed >>> 16;
+        return row * (mask + 1) + (mixed & mask);
+    }
+}
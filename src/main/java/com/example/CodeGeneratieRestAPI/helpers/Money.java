@@ -0,0 +1,38 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import com.example.CodeGeneratieRestAPI.exceptions.TransactionAmountNotValidException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+//  Money is stored and calculated as a whole number of cents in a long, so there is no float rounding and no boxing in the limit checks
+//  Only at the edges of the API (JSON and query parameters) it is converted from and to a decimal amount
+public final class Money {
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    //  An amount with a fraction of a cent is refused instead of rounded, so the amount that is booked is always the amount that was sent
+    public static long toCents(BigDecimal amount) {
+        BigDecimal cents;
+        try {
+            cents = amount.setScale(SCALE, RoundingMode.UNNECESSARY);
+        } catch (ArithmeticException e) {
+            throw new TransactionAmountNotValidException("The amount can't have more than two decimals.");
+        }
+        try {
+            return cents.unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new TransactionAmountNotValidException("The amount is too large.");
+        }
+    }
+
+    public static Long toCentsOrNull(BigDecimal amount) {
+        return amount != null ? toCents(amount) : null;
+    }
+
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+}
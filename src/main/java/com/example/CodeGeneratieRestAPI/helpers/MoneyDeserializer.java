@@ -0,0 +1,32 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+//  Reads a decimal amount (e.g. 10.50 or "10.50") as cents, an amount with more than two decimals is not valid
+public class MoneyDeserializer extends StdDeserializer<Long> {
+    public MoneyDeserializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            String text = parser.getText().trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            try {
+                return Money.toCents(new BigDecimal(text));
+            } catch (NumberFormatException e) {
+                return (Long) context.handleWeirdStringValue(Long.class, text, "not a valid amount");
+            }
+        }
+        return Money.toCents(parser.getDecimalValue());
+    }
+}
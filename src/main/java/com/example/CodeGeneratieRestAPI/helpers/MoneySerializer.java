@@ -0,0 +1,19 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+//  Writes an amount in cents as a decimal number, e.g. 1050 becomes 10.50
+public class MoneySerializer extends StdSerializer<Long> {
+    public MoneySerializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public void serialize(Long cents, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeNumber(Money.toDecimal(cents));
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//  The maximum amount of SQL statements a request to this endpoint may run, it is checked by the QueryBudgetInterceptor
+//  The statements of the JWT filter are not counted, they run before the request reaches the controller
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+    int value();
+}
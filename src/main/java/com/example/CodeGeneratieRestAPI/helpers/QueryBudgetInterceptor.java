@@ -0,0 +1,53 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+//  Counts the statements of every request and warns when an endpoint runs more statements than its @QueryBudget
+//  The count (and the budget) are left on the request, so the tests can fail on a request that is over its budget
+@Component
+public class QueryBudgetInterceptor implements AsyncHandlerInterceptor {
+    public static final String COUNT_ATTRIBUTE = QueryBudgetInterceptor.class.getName() + ".count";
+    public static final String BUDGET_ATTRIBUTE = QueryBudgetInterceptor.class.getName() + ".budget";
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryBudgetInterceptor.class);
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            QueryCounter.start();
+        }
+        return true;
+    }
+
+    //  The rest of an async request runs on another thread, the counter of this thread is not used anymore
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryCounter.stop();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception exception) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return;
+        }
+
+        QueryCounter.Count count = QueryCounter.stop();
+        request.setAttribute(COUNT_ATTRIBUTE, count);
+
+        QueryBudget budget = handlerMethod.getMethodAnnotation(QueryBudget.class);
+        if (budget == null) {
+            return;
+        }
+        request.setAttribute(BUDGET_ATTRIBUTE, budget.value());
+
+        if (count.getStatements() > budget.value()) {
+            logger.warn("{} {} ran {} SQL statements ({} ms), the budget is {}", request.getMethod(), request.getRequestURI(), count.getStatements(), count.getJdbcMillis(), budget.value());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+//  Counts the SQL statements that are run on the current thread between start and stop, and the time the database spent on them
+//  The counts are kept up to date by the QueryCountingSessionListener, nothing is counted on a thread without a started counter
+public final class QueryCounter {
+    private static final ThreadLocal<Count> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    public static void start() {
+        CURRENT.set(new Count());
+    }
+
+    public static Count stop() {
+        Count count = CURRENT.get();
+        CURRENT.remove();
+        return count != null ? count : new Count();
+    }
+
+    static Count current() {
+        return CURRENT.get();
+    }
+
+    public static class Count {
+        private int statements;
+        private long jdbcNanos;
+        private long executeStartedAt;
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getJdbcMillis() {
+            return jdbcNanos / 1_000_000;
+        }
+
+        void statementPrepared() {
+            statements++;
+        }
+
+        void executeStarted() {
+            executeStartedAt = System.nanoTime();
+        }
+
+        void executeEnded() {
+            jdbcNanos += System.nanoTime() - executeStartedAt;
+        }
+    }
+}
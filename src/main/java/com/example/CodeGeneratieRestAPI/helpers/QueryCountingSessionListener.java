@@ -0,0 +1,50 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import org.hibernate.BaseSessionEventListener;
+
+//  Hibernate adds this listener to every session (hibernate.session.events.auto), it reports the statements to the QueryCounter of the thread
+//  A JDBC batch is prepared once, so the inserts of a batch count as one statement
+public class QueryCountingSessionListener extends BaseSessionEventListener {
+
+    @Override
+    public void jdbcPrepareStatementEnd() {
+        QueryCounter.Count count = QueryCounter.current();
+        if (count != null) {
+            count.statementPrepared();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStarted();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        executeEnded();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executeStarted();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        executeEnded();
+    }
+
+    private void executeStarted() {
+        QueryCounter.Count count = QueryCounter.current();
+        if (count != null) {
+            count.executeStarted();
+        }
+    }
+
+    private void executeEnded() {
+        QueryCounter.Count count = QueryCounter.current();
+        if (count != null) {
+            count.executeEnded();
+        }
+    }
+}
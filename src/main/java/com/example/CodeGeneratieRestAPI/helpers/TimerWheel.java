@@ -0,0 +1,68 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+//  A hashed timer wheel, used to expire items at a deadline without scanning all of them
+//  Time is divided into ticks and every tick has a bucket, an item is put in the bucket of the tick its deadline falls in
+//  Deadlines further away than one turn of the wheel share the bucket and are skipped until their own turn comes
+//  Scheduling is O(1) and every tick only looks at the items of one bucket
+public class TimerWheel<T> {
+    private final long tickMillis;
+    private final long startMillis;
+    private final List<Entry<T>>[] buckets;
+    private final int mask;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(int requestedBuckets, long tickMillis, long startMillis) {
+        //  A power of two so the bucket can be picked with a bit mask
+        int bucketCount = Integer.highestOneBit(Math.max(2, requestedBuckets) - 1) << 1;
+        this.buckets = new List[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            this.buckets[i] = new ArrayList<>();
+        }
+        this.mask = bucketCount - 1;
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+    }
+
+    //  A deadline that has already passed expires on the next tick
+    public synchronized void schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.max(currentTick + 1, Math.floorDiv(deadlineMillis - startMillis + tickMillis - 1, tickMillis));
+        buckets[(int) (deadlineTick & mask)].add(new Entry<>(item, deadlineTick));
+        size++;
+    }
+
+    //  Move the wheel forward to the given time and return the items whose deadline has passed
+    public synchronized List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long nowTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        while (currentTick < nowTick) {
+            currentTick++;
+            Iterator<Entry<T>> iterator = buckets[(int) (currentTick & mask)].iterator();
+            while (iterator.hasNext()) {
+                Entry<T> entry = iterator.next();
+                if (entry.deadlineTick <= currentTick) {
+                    expired.add(entry.item);
+                    iterator.remove();
+                    size--;
+                }
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int getBucketCount() {
+        return buckets.length;
+    }
+
+    private record Entry<T>(T item, long deadlineTick) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import com.example.CodeGeneratieRestAPI.dtos.TransactionResponseDTO;
+import com.example.CodeGeneratieRestAPI.exceptions.TransactionCursorNotValidException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Date;
+
+//  The position in a list of transactions that is ordered by (created_at, id), newest first
+//  It is sent to the client as an opaque token, the next page starts right after the transaction it points to
+public record TransactionCursor(Date createdAt, Long id) {
+
+    public static TransactionCursor of(TransactionResponseDTO transaction) {
+        return new TransactionCursor(transaction.getCreatedAt(), transaction.getId());
+    }
+
+    //  The created at is written with its nanoseconds, so the cursor matches the stored timestamp exactly
+    public String encode() {
+        Timestamp timestamp = createdAt instanceof Timestamp ? (Timestamp) createdAt : new Timestamp(createdAt.getTime());
+        String value = Math.floorDiv(timestamp.getTime(), 1000) + ":" + timestamp.getNanos() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException();
+            }
+            Timestamp createdAt = new Timestamp(Long.parseLong(parts[0]) * 1000);
+            createdAt.setNanos(Integer.parseInt(parts[1]));
+            return new TransactionCursor(createdAt, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new TransactionCursorNotValidException("The cursor is not valid.");
+        }
+    }
+}
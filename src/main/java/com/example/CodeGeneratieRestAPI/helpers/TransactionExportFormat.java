@@ -0,0 +1,34 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import com.example.CodeGeneratieRestAPI.exceptions.TransactionExportFormatNotValidException;
+
+//  NDJSON writes every transaction as a JSON object on its own line, so a client can read the export line by line as well
+public enum TransactionExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String fileExtension;
+
+    TransactionExportFormat(String mediaType, String fileExtension) {
+        this.mediaType = mediaType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    public static TransactionExportFormat of(String format) {
+        for (TransactionExportFormat exportFormat : values()) {
+            if (exportFormat.fileExtension.equalsIgnoreCase(format)) {
+                return exportFormat;
+            }
+        }
+        throw new TransactionExportFormatNotValidException("The export format has to be ndjson or csv.");
+    }
+}
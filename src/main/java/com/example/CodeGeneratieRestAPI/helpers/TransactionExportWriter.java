@@ -0,0 +1,69 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import com.example.CodeGeneratieRestAPI.dtos.TransactionResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+//  Writes the transactions of an export one at a time, nothing is kept after a row is written
+//  The rows go through a small buffer to the response, the buffer is written to the client whenever it is full
+public class TransactionExportWriter {
+    private static final String CSV_HEADER = "id,from_account_iban,to_account_iban,transaction_type,amount,label,description,created_at,status";
+
+    private final TransactionExportFormat format;
+    private final Writer writer;
+    private final ObjectMapper objectMapper;
+
+    public TransactionExportWriter(TransactionExportFormat format, OutputStream outputStream, ObjectMapper objectMapper) throws IOException {
+        this.format = format;
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        this.objectMapper = objectMapper;
+
+        if (format == TransactionExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+    }
+
+    public void write(TransactionResponseDTO transaction) throws IOException {
+        if (format == TransactionExportFormat.NDJSON) {
+            //  The same JSON as the other endpoints, so the amount is a decimal amount here as well
+            writer.write(objectMapper.writeValueAsString(transaction));
+        } else {
+            writer.write(String.valueOf(transaction.getId()));
+            writeCsvField(transaction.getFromAccountIban());
+            writeCsvField(transaction.getToAccountIban());
+            writeCsvField(transaction.getTransactionType() != null ? transaction.getTransactionType().name() : null);
+            writeCsvField(Money.toDecimal(transaction.getAmount()).toPlainString());
+            writeCsvField(transaction.getLabel());
+            writeCsvField(transaction.getDescription());
+            writeCsvField(transaction.getCreatedAt() != null ? transaction.getCreatedAt().toInstant().toString() : null);
+            writeCsvField(transaction.getStatus() != null ? transaction.getStatus().name() : null);
+        }
+        writer.write('\n');
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    //  A field with a comma, a quote or a line break is quoted, the quotes in it are doubled
+    private void writeCsvField(String value) throws IOException {
+        writer.write(',');
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -46,6 +46,10 @@ public class JwTokenFilter extends OncePerRequestFilter {
 
             // Set the context, at this point, the user is authenticated
             SecurityContextHolder.getContext().setAuthentication(authentication);
+            // The services after the filter read the claims from here instead of parsing the token again
+            if (authentication.getPrincipal() instanceof JwtPrincipal principal) {
+                RequestClaims.set(bearerToken, principal);
+            }
 
             // The exception handling below is not mandatory. If we leave it out, the client will simply receive a 403 status code
             // The method below gives us a bit more control, by immediately writing a response and then ending the processing of the request
@@ -65,7 +69,11 @@ public class JwTokenFilter extends OncePerRequestFilter {
             return;
         }
 
-        // Continue along the filter chain
-        filterChain.doFilter(request, response);
+        // Continue along the filter chain, the claims are only kept for the time of the request
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestClaims.clear();
+        }
     }
 }
@@ -1,15 +1,12 @@
 package com.example.CodeGeneratieRestAPI.jwt;
 
 import com.example.CodeGeneratieRestAPI.models.UserType;
-import com.example.CodeGeneratieRestAPI.services.MyUserDetailService;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.util.Date;
@@ -21,7 +18,7 @@ public class JwTokenProvider {
     JwtKeyProvider keyProvider;
 
     @Autowired
-    MyUserDetailService myUserDetailService;
+    VerifiedTokenCache verifiedTokenCache;
 
     public String createToken(Long id, String username, UserType role) throws JwtException {
         Claims claims = Jwts.claims().setSubject(username);
@@ -34,13 +31,24 @@ public class JwTokenProvider {
                 .compact();
     }
 
+    //  The principal is made from the claims of the token, so authenticating a request doesn't read the user from the database
+    //  A token that was verified before is taken from the cache, only the first request with a token verifies its signature
     public Authentication getAuthentication(String token) {
+        Authentication cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            Jws<Claims> claims = Jwts.parserBuilder().setSigningKey(keyProvider.getPrivateKey()).build()
-                    .parseClaimsJws(token);
-            String username = claims.getBody().getSubject();
-            UserDetails userDetails = myUserDetailService.loadUserByUsername(username);
-            return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+            Claims claims = keyProvider.getParser().parseClaimsJws(token).getBody();
+            Number userId = claims.get("userId", Number.class);
+            String role = claims.get("role", String.class);
+            if (userId == null || role == null || claims.getSubject() == null) {
+                throw new JwtException("Bearer token not valid");
+            }
+            JwtPrincipal principal = new JwtPrincipal(userId.longValue(), claims.getSubject(), UserType.valueOf(role));
+            Authentication authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+            verifiedTokenCache.put(token, authentication, claims.getExpiration());
+            return authentication;
         } catch (JwtException | IllegalArgumentException e) {
             throw new JwtException("Bearer token not valid");
         }
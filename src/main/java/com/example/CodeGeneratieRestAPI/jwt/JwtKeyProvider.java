@@ -1,5 +1,7 @@
 package com.example.CodeGeneratieRestAPI.jwt;
 
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
@@ -23,6 +25,9 @@ public class JwtKeyProvider {
 
     private Key privateKey;
 
+    //  The parser is immutable and thread-safe, so one is built for the key and shared by every request
+    private JwtParser parser;
+
     @PostConstruct
     protected void init() {
         try {
@@ -30,6 +35,7 @@ public class JwtKeyProvider {
             KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
             keyStore.load(resource.getInputStream(), password.toCharArray());
             privateKey = keyStore.getKey(alias, password.toCharArray());
+            parser = Jwts.parserBuilder().setSigningKey(privateKey).build();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -38,5 +44,9 @@ public class JwtKeyProvider {
     public Key getPrivateKey() {
         return privateKey;
     }
+
+    public JwtParser getParser() {
+        return parser;
+    }
 }
 
@@ -0,0 +1,77 @@
+package com.example.CodeGeneratieRestAPI.jwt;
+
+import com.example.CodeGeneratieRestAPI.models.User;
+import com.example.CodeGeneratieRestAPI.models.UserType;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+//  The logged-in user as it is in the claims of the verified JWT, the user is not read from the database for it
+//  The claims are signed by this application, so they can be trusted until the token expires
+public class JwtPrincipal implements UserDetails {
+    private final Long id;
+    private final String username;
+    private final UserType userType;
+
+    public JwtPrincipal(Long id, String username, UserType userType) {
+        this.id = id;
+        this.username = username;
+        this.userType = userType;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public UserType getUserType() {
+        return userType;
+    }
+
+    //  A user with only the fields of the claims, that is all the services check
+    //  It has the id of the user, so a transaction or a hold can reference it without loading the user
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setUserType(userType);
+        return user;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(userType);
+    }
+
+    //  The password is checked when the token is made, it is not part of the token
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
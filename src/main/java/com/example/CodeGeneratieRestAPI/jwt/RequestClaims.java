@@ -0,0 +1,27 @@
+package com.example.CodeGeneratieRestAPI.jwt;
+
+//  The claims of the JWT of the current request, JwTokenFilter parses the token once and the services after it read the claims from here
+//  They are kept on the thread of the request and removed by the filter when the request is done
+public final class RequestClaims {
+    private static final ThreadLocal<Current> CURRENT = new ThreadLocal<>();
+
+    private RequestClaims() {
+    }
+
+    static void set(String token, JwtPrincipal principal) {
+        CURRENT.set(new Current(token, principal));
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    //  Returns the claims when the token is the one of the current request, or null when it has to be parsed
+    public static JwtPrincipal get(String token) {
+        Current current = CURRENT.get();
+        return current != null && current.token().equals(token) ? current.principal() : null;
+    }
+
+    private record Current(String token, JwtPrincipal principal) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.CodeGeneratieRestAPI.jwt;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+
+//  Remembers the tokens whose signature was already verified, so the next request with the same token skips the verification
+//  The tokens are stored as a SHA-256 hash, the cache never holds a token that could be used again
+//  An entry is never returned after the token expires, it is removed when it is looked up or when the cache needs room
+//  The entries are also kept ordered by expiration, a full cache evicts the token that expires first without looking at the others
+@Component
+public class VerifiedTokenCache {
+    private static final Comparator<Expiration> EXPIRATION_ORDER = Comparator.comparingLong(Expiration::expiresAt).thenComparing(Expiration::key);
+
+    private final int maxEntries;
+    private final Map<String, VerifiedToken> tokens = new ConcurrentHashMap<>();
+    private final NavigableSet<Expiration> expirations = new ConcurrentSkipListSet<>(EXPIRATION_ORDER);
+
+    //  Metrics, LongAdder is used so that recording them does not become a point of contention on every request
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expiredEvictions = new LongAdder();
+    private final LongAdder capacityEvictions = new LongAdder();
+
+    public VerifiedTokenCache(@Value("${jwt.verified-token-cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    //  Returns the authentication of a token that was verified before and has not expired, or null
+    public Authentication get(String token) {
+        String key = hash(token);
+        VerifiedToken verifiedToken = tokens.get(key);
+        if (verifiedToken == null) {
+            misses.increment();
+            return null;
+        }
+        if (System.currentTimeMillis() >= verifiedToken.expiresAt()) {
+            if (tokens.remove(key, verifiedToken)) {
+                expirations.remove(new Expiration(verifiedToken.expiresAt(), key));
+                expiredEvictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return verifiedToken.authentication();
+    }
+
+    //  A token without an expiration is not cached, it would never be evicted
+    public void put(String token, Authentication authentication, Date expiration) {
+        if (maxEntries < 1 || expiration == null || expiration.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        if (tokens.size() >= maxEntries) {
+            makeRoom();
+        }
+        String key = hash(token);
+        VerifiedToken verifiedToken = new VerifiedToken(authentication, expiration.getTime());
+        VerifiedToken previous = tokens.put(key, verifiedToken);
+        //  The token is added to the order after the map, an entry in the order without a token is skipped when it comes first
+        if (previous != null && previous.expiresAt() != verifiedToken.expiresAt()) {
+            expirations.remove(new Expiration(previous.expiresAt(), key));
+        }
+        expirations.add(new Expiration(verifiedToken.expiresAt(), key));
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    //  The part of the lookups that skipped the verification, 0 before the first lookup
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    public long getExpiredEvictions() {
+        return expiredEvictions.sum();
+    }
+
+    public long getCapacityEvictions() {
+        return capacityEvictions.sum();
+    }
+
+    public int getSize() {
+        return tokens.size();
+    }
+
+    //  The token that expires first is evicted, that is an expired token when there is one
+    //  Otherwise it is the token that would have been cached the shortest, it is only verified again on its next request
+    private void makeRoom() {
+        long now = System.currentTimeMillis();
+        Expiration first;
+        while (tokens.size() >= maxEntries && (first = expirations.pollFirst()) != null) {
+            VerifiedToken verifiedToken = tokens.get(first.key());
+            //  The token could have been put again with another expiration in the meantime, then it has another entry in the order
+            if (verifiedToken == null || verifiedToken.expiresAt() != first.expiresAt() || !tokens.remove(first.key(), verifiedToken)) {
+                continue;
+            }
+            if (now >= first.expiresAt()) {
+                expiredEvictions.increment();
+            } else {
+                capacityEvictions.increment();
+            }
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record VerifiedToken(Authentication authentication, long expiresAt) {
+    }
+
+    private record Expiration(long expiresAt, String key) {
+    }
+}
@@ -5,7 +5,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.Date;
 import java.util.List;
@@ -23,26 +25,35 @@ public class Account {
     private Long id;
     @Column(unique = true)
     private String iban;
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "USER_ID", nullable = true)
     @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User user;
     // The User object can optionally be filled, but the username is always filled
     @Column(name = "USER_ID", nullable = true, insertable = false, updatable = false)
     private Long userId;
     private String name;
-    private Float dailyLimit;
-    private Float transactionLimit;
-    private Float absoluteLimit;
-    private Float balance;
+    //  All the amounts are in cents
+    private long dailyLimit;
+    private long transactionLimit;
+    private long absoluteLimit;
+    private long balance;
+    //  The balance minus the money that is reserved by active holds, this is what the absolute limit is checked against
+    private long availableBalance;
     private Boolean isSavings;
     private Date createdAt;
     private Boolean isActive;
-    @OneToMany(cascade = CascadeType.ALL, mappedBy = "fromAccount")
+    @OneToMany(cascade = CascadeType.ALL, mappedBy = "fromAccount", fetch = FetchType.LAZY)
     @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<Transaction> sentTransactions;
-    @OneToMany(cascade = CascadeType.ALL, mappedBy = "toAccount")
+    @OneToMany(cascade = CascadeType.ALL, mappedBy = "toAccount", fetch = FetchType.LAZY)
     @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<Transaction> receivedTransactions;
 
 
@@ -54,7 +65,7 @@ public class Account {
         this.dailyLimit = accountRequestDTO.getDailyLimit();
         this.transactionLimit = accountRequestDTO.getTransactionLimit();
         this.absoluteLimit = accountRequestDTO.getAbsoluteLimit();
-        this.balance = accountRequestDTO.getBalance();
+        this.setBalance(accountRequestDTO.getBalance());
         this.isSavings = accountRequestDTO.getIsSavings();
         this.isActive = accountRequestDTO.getIsActive();
     }
@@ -67,7 +78,7 @@ public class Account {
         this.dailyLimit = accountRequestDTO.getDailyLimit();
         this.transactionLimit = accountRequestDTO.getTransactionLimit();
         this.absoluteLimit = accountRequestDTO.getAbsoluteLimit();
-        this.balance = accountRequestDTO.getBalance();
+        this.setBalance(accountRequestDTO.getBalance());
         this.isSavings = accountRequestDTO.getIsSavings();
         this.isActive = accountRequestDTO.getIsActive();
         this.user = user;
@@ -84,6 +95,12 @@ public class Account {
         this.userId = userId;
     }
 
+    //  Setting the balance moves the available balance along with it, the money that is held stays held
+    public void setBalance(long balance) {
+        this.availableBalance += balance - this.balance;
+        this.balance = balance;
+    }
+
     public void setIban(String iban) {
         if (this.iban == null || this.iban.isEmpty()) {
             this.iban = iban;
@@ -179,6 +196,7 @@ public class Account {
                 ", transactionLimit=" + transactionLimit +
                 ", absoluteLimit=" + absoluteLimit +
                 ", balance=" + balance +
+                ", availableBalance=" + availableBalance +
                 ", isSavings=" + isSavings +
                 ", createdAt=" + createdAt +
                 ", isActive=" + isActive +
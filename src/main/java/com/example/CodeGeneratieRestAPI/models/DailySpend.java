@@ -0,0 +1,38 @@
+package com.example.CodeGeneratieRestAPI.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+//  The amount that was taken from an account on one day, used for the daily limit
+//  It is updated in the same database transaction as the balance, so it always matches the completed transactions of that day
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@IdClass(DailySpend.Key.class)
+
+@Table(name = "\"daily_spend\"")
+public class DailySpend {
+    @Id
+    private String iban;
+
+    @Id
+    @Column(name = "spend_date")
+    private LocalDate date;
+
+    //  In cents
+    private long amount;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private String iban;
+        private LocalDate date;
+    }
+}
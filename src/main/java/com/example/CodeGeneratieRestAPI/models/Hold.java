@@ -0,0 +1,78 @@
+package com.example.CodeGeneratieRestAPI.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.Date;
+
+//  A reservation of money on an account, it lowers the available balance of the account until it is captured, released or expires
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+@Table(name = "\"holds\"")
+public class Hold {
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "USER_ID", nullable = true)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "from_iban", nullable = false)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Account fromAccount;
+
+    //  Only filled when the hold is captured as a transfer, otherwise it is captured as a withdrawal
+    @ManyToOne(fetch = FetchType.LAZY, optional = true)
+    @JoinColumn(name = "to_iban", nullable = true)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Account toAccount;
+
+    //  The transaction that was created when the hold was captured
+    @OneToOne(fetch = FetchType.LAZY, optional = true)
+    @JoinColumn(name = "transaction_id", nullable = true)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Transaction transaction;
+
+    //  The amounts are in cents
+    private long amount;
+    private long capturedAmount;
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    private HoldStatus status = HoldStatus.ACTIVE;
+
+    @Column(name = "created_at")
+    private Date createdAt;
+
+    @Column(name = "expires_at")
+    private Date expiresAt;
+
+    public Hold(User user, Account fromAccount, Account toAccount, long amount, String description, Date expiresAt) {
+        this.user = user;
+        this.fromAccount = fromAccount;
+        this.toAccount = toAccount;
+        this.amount = amount;
+        this.description = description;
+        this.createdAt = new Date();
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.CodeGeneratieRestAPI.models;
+
+public enum HoldStatus {
+    ACTIVE,
+    CAPTURED,
+    RELEASED,
+    EXPIRED
+}
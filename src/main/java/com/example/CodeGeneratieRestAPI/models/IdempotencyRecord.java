@@ -0,0 +1,38 @@
+package com.example.CodeGeneratieRestAPI.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+//  The stored response of a request that was sent with an Idempotency-Key header
+//  The id is the id of the user and the key, so two users can use the same key
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+@Table(name = "\"idempotency_keys\"")
+public class IdempotencyRecord {
+    @Id
+    private String id;
+
+    //  A hash of the request body, a key can only be used again for the same request
+    @Column(name = "request_hash", nullable = false)
+    private String requestHash;
+
+    @Column(name = "status_code")
+    private int statusCode;
+
+    @Lob
+    @Column(name = "response_body")
+    private String responseBody;
+
+    @Column(name = "created_at")
+    private Date createdAt;
+
+    @Column(name = "expires_at")
+    private Date expiresAt;
+}
@@ -4,7 +4,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.Date;
 
@@ -21,18 +23,25 @@ public class Transaction {
     @GeneratedValue
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    //  The associations are loaded when they are used, the repository methods name the ones they need with an entity graph
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "USER_ID", nullable = true)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User user;
 
-    @ManyToOne(fetch = FetchType.EAGER, optional = true)
+    @ManyToOne(fetch = FetchType.LAZY, optional = true)
     @JoinColumn(name = "from_iban", nullable = true)
     @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Account fromAccount;
 
-    @ManyToOne(fetch = FetchType.EAGER, optional = true)
+    @ManyToOne(fetch = FetchType.LAZY, optional = true)
     @JoinColumn(name = "to_iban", nullable = true)
     @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Account toAccount;
 
     @Enumerated(EnumType.STRING)
@@ -41,13 +50,20 @@ public class Transaction {
 
     private String label;
     private String description;
-    private Float amount;
-    private Float balance_before;
+    //  The amounts are in cents
+    private long amount;
+    private long balance_before;
 
     @Column(name = "created_at")
     private Date createdAt;
 
-    public Transaction(Account fromAccount, Account toAccount, Float amount, String label, String description, TransactionType transactionType) {
+    //  Transactions that are submitted asynchronously are PENDING until they are settled
+    @Enumerated(EnumType.STRING)
+    private TransactionStatus status = TransactionStatus.COMPLETED;
+
+    private String failureReason;
+
+    public Transaction(Account fromAccount, Account toAccount, long amount, String label, String description, TransactionType transactionType) {
         this.fromAccount = fromAccount;
         this.toAccount = toAccount;
         this.amount = amount;
@@ -0,0 +1,7 @@
+package com.example.CodeGeneratieRestAPI.models;
+
+public enum TransactionStatus {
+    PENDING,
+    COMPLETED,
+    FAILED
+}
@@ -1,18 +1,30 @@
 package com.example.CodeGeneratieRestAPI.repositories;
 
+import com.example.CodeGeneratieRestAPI.dtos.AccountResponseDTO;
 import com.example.CodeGeneratieRestAPI.models.Account;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AccountRepository extends CrudRepository<Account, Long> {
+    //  The transactions check the owner of the account, so the user is fetched with it
+    @EntityGraph(attributePaths = "user")
     Account findByIban(String iban);
 
+    @EntityGraph(attributePaths = "user")
+    List<Account> findAllByIbanIn(Collection<String> ibans);
+
     @Query("SELECT a FROM Account a WHERE a.iban = :iban")
     Optional<Account> getAccountByIban(String iban);
 
@@ -37,23 +49,25 @@ public interface AccountRepository extends CrudRepository<Account, Long> {
 //             "OR a.iban ILIKE %:search%)")
 //     List<Account> findAllBySearchTerm(String search, Boolean isActive);
 
-    @Query("SELECT a FROM Account a WHERE (:isActive IS NULL OR a.isActive = :isActive) AND " +
+    //  The lists only select the columns of the AccountResponseDTO, the accounts and their users are never loaded
+    //  The lists are paginated and sorted by the database, the count only has the filters and leaves out the columns
+    String SEARCH_FILTER = "(:isActive IS NULL OR a.isActive = :isActive) AND " +
             "(COALESCE(:search, '') = '' OR a.user.username ILIKE %:search% " +
             "OR a.user.firstName ILIKE %:search% " +
             "OR a.user.lastName ILIKE %:search% " +
             "OR a.name ILIKE %:search% " +
-            "OR a.iban ILIKE %:search%)")
-//    @Query("SELECT a FROM Account a")
-    List<Account> findAllBySearchTerm(String search, Boolean isActive);
+            "OR a.iban ILIKE %:search%)";
 
-    @Query("SELECT a FROM Account a WHERE a.user.id = :userId AND (:isActive IS NULL OR a.isActive = :isActive) AND (a.user.username ILIKE %:search% " +
-            "OR a.user.firstName ILIKE %:search% " +
-            "OR a.user.lastName ILIKE %:search% " +
-            "OR a.name ILIKE %:search% " +
-            "OR a.iban ILIKE %:search%)")
-    List<Account> findAllBySearchTermAndUserId(String search, Boolean isActive, Long userId);
+    @Query(value = "SELECT new com.example.CodeGeneratieRestAPI.dtos.AccountResponseDTO(a.userId, a.iban, a.name, a.dailyLimit, a.transactionLimit, a.absoluteLimit, a.balance, a.isSavings, a.isActive) FROM Account a WHERE " + SEARCH_FILTER,
+            countQuery = "SELECT COUNT(a) FROM Account a WHERE " + SEARCH_FILTER)
+    Page<AccountResponseDTO> findAllBySearchTerm(String search, Boolean isActive, Pageable pageable);
+
+    @Query(value = "SELECT new com.example.CodeGeneratieRestAPI.dtos.AccountResponseDTO(a.userId, a.iban, a.name, a.dailyLimit, a.transactionLimit, a.absoluteLimit, a.balance, a.isSavings, a.isActive) FROM Account a WHERE a.userId = :userId AND " + SEARCH_FILTER,
+            countQuery = "SELECT COUNT(a) FROM Account a WHERE a.userId = :userId AND " + SEARCH_FILTER)
+    Page<AccountResponseDTO> findAllBySearchTermAndUserId(String search, Boolean isActive, Long userId, Pageable pageable);
 
-    List<Account> findAllByUserId(Long userId);
+    @Query("SELECT new com.example.CodeGeneratieRestAPI.dtos.AccountResponseDTO(a.userId, a.iban, a.name, a.dailyLimit, a.transactionLimit, a.absoluteLimit, a.balance, a.isSavings, a.isActive) FROM Account a WHERE a.userId = :userId")
+    List<AccountResponseDTO> findAllByUserId(Long userId);
 
     List<Account> findByUserUsernameContainingIgnoreCaseOrUserFirstNameContainingIgnoreCaseOrUserLastNameContainingIgnoreCaseOrNameContainingIgnoreCaseOrIbanContainingIgnoreCaseAndIsActive(String username, String firstName, String lastName, String name, String iban, Boolean isActive);
 
@@ -62,4 +76,43 @@ public interface AccountRepository extends CrudRepository<Account, Long> {
     @Query("SELECT COUNT(a) > 0 FROM Account a WHERE a.iban = :iban AND a.user.id = :userId")
     boolean checkIfAccountBelongsToUser(@Param("iban") String iban, @Param("userId") Long userId);
 
+    //  Debit and credit the balance in a single statement, the database does the read-modify-write so no update can get lost
+    //  The debit only succeeds if the available balance stays above the absolute limit, it returns 0 (rows updated) otherwise
+    @Transactional
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance - :amount, a.availableBalance = a.availableBalance - :amount WHERE a.iban = :iban AND a.availableBalance - :amount >= a.absoluteLimit")
+    int debitBalance(@Param("iban") String iban, @Param("amount") long amount);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, a.availableBalance = a.availableBalance + :amount WHERE a.iban = :iban")
+    int creditBalance(@Param("iban") String iban, @Param("amount") long amount);
+
+    //  Placing a hold only lowers the available balance, the balance itself stays the same until the hold is captured
+    @Transactional
+    @Modifying
+    @Query("UPDATE Account a SET a.availableBalance = a.availableBalance - :amount WHERE a.iban = :iban AND a.availableBalance - :amount >= a.absoluteLimit")
+    int reserveBalance(@Param("iban") String iban, @Param("amount") long amount);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Account a SET a.availableBalance = a.availableBalance + :amount WHERE a.iban = :iban")
+    int releaseReservedBalance(@Param("iban") String iban, @Param("amount") long amount);
+
+    //  The captured amount leaves the balance, the part of the hold that was not captured becomes available again
+    @Transactional
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance - :capturedAmount, a.availableBalance = a.availableBalance + :heldAmount - :capturedAmount WHERE a.iban = :iban")
+    int captureReservedBalance(@Param("iban") String iban, @Param("heldAmount") long heldAmount, @Param("capturedAmount") long capturedAmount);
+
+    //  An account update only writes the columns that can be edited, a balance that was read before would overwrite the debits and credits since then
+    @Transactional
+    @Modifying
+    @Query("UPDATE Account a SET a.dailyLimit = :dailyLimit, a.transactionLimit = :transactionLimit, a.absoluteLimit = :absoluteLimit, a.name = :name, a.isSavings = :isSavings WHERE a.iban = :iban")
+    int updateSettings(@Param("iban") String iban, @Param("dailyLimit") long dailyLimit, @Param("transactionLimit") long transactionLimit, @Param("absoluteLimit") long absoluteLimit, @Param("name") String name, @Param("isSavings") Boolean isSavings);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Account a SET a.isActive = false WHERE a.iban = :iban AND a.isActive = true")
+    int deactivate(@Param("iban") String iban);
 }
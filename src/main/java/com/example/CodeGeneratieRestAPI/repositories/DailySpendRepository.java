@@ -0,0 +1,24 @@
+package com.example.CodeGeneratieRestAPI.repositories;
+
+import com.example.CodeGeneratieRestAPI.models.DailySpend;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface DailySpendRepository extends CrudRepository<DailySpend, DailySpend.Key> {
+    @Query("SELECT d.amount FROM DailySpend d WHERE d.iban = :iban AND d.date = :date")
+    Optional<Long> findAmount(@Param("iban") String iban, @Param("date") LocalDate date);
+
+    //  Returns 0 when there is no row for this account and day yet
+    @Modifying
+    @Transactional
+    @Query("UPDATE DailySpend d SET d.amount = d.amount + :amount WHERE d.iban = :iban AND d.date = :date")
+    int addAmount(@Param("iban") String iban, @Param("date") LocalDate date, @Param("amount") long amount);
+}
@@ -0,0 +1,19 @@
+package com.example.CodeGeneratieRestAPI.repositories;
+
+import com.example.CodeGeneratieRestAPI.models.Hold;
+import com.example.CodeGeneratieRestAPI.models.HoldStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HoldRepository extends CrudRepository<Hold, Long> {
+    //  The IBANs of the accounts are needed to lock them, also by the sweeper which has no session to load them later
+    @EntityGraph(attributePaths = {"fromAccount", "toAccount"})
+    Optional<Hold> findById(Long id);
+
+    List<Hold> findAllByStatus(HoldStatus status);
+}
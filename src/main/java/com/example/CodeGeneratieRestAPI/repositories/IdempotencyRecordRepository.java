@@ -0,0 +1,36 @@
+package com.example.CodeGeneratieRestAPI.repositories;
+
+import com.example.CodeGeneratieRestAPI.models.IdempotencyRecord;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+@Repository
+public interface IdempotencyRecordRepository extends CrudRepository<IdempotencyRecord, String> {
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteAllExpired(@Param("now") Date now);
+
+    //  Claims a key with a row without a response, the primary key makes the insert fail when the key was already claimed (also by another instance)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO \"idempotency_keys\" (id, request_hash, status_code, created_at, expires_at) VALUES (:id, :requestHash, 0, :createdAt, :expiresAt)", nativeQuery = true)
+    int insertClaim(@Param("id") String id, @Param("requestHash") String requestHash, @Param("createdAt") Date createdAt, @Param("expiresAt") Date expiresAt);
+
+    //  Only a claim is deleted, a stored response stays until it expires
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.statusCode = 0")
+    int deleteClaim(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.expiresAt <= :now")
+    int deleteExpired(@Param("id") String id, @Param("now") Date now);
+}
@@ -1,27 +1,34 @@
 package com.example.CodeGeneratieRestAPI.repositories;
 
+import com.example.CodeGeneratieRestAPI.dtos.TransactionResponseDTO;
 import com.example.CodeGeneratieRestAPI.models.Transaction;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import com.example.CodeGeneratieRestAPI.models.TransactionStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
+//  The filtered listings are built with TransactionSpecifications, see TransactionRepositoryCustom
 @Repository
-public interface TransactionRepository extends CrudRepository<Transaction, Long> {
+public interface TransactionRepository extends CrudRepository<Transaction, Long>, TransactionRepositoryCustom {
     List<Transaction> findAllByCreatedAtLessThanEqualAndCreatedAtGreaterThanEqualAndFromAccountIbanAndDescriptionContainingOrLabelContaining(Date startDate, Date endDate, String fromAccountIban, String description, String label);
 
-    @Query("SELECT t FROM Transaction t LEFT JOIN t.toAccount LEFT JOIN t.fromAccount LEFT JOIN t.toAccount.user LEFT JOIN t.fromAccount.user WHERE t.fromAccount.user.id = :id OR t.toAccount.user.id = :id")
-    List<Transaction> findAllByUserId(Long id);
+    //  The IBANs of the accounts are shown, the owners of the accounts are only compared by id
+    @EntityGraph(attributePaths = {"fromAccount", "toAccount"})
+    Optional<Transaction> findWithAccountsById(Long id);
 
-    @Query("SELECT t FROM Transaction t LEFT JOIN t.toAccount LEFT JOIN t.fromAccount WHERE t.createdAt <= :endDate AND t.createdAt >= :startDate AND (:amountRelation is null OR :amountRelation = '' OR (:amountRelation = '<' AND t.amount < :amount) OR (:amountRelation = '>' AND t.amount > :amount) OR (:amountRelation = '=' AND t.amount = :amount)) AND (:iban = '' OR :iban is null OR (t.fromAccount IS NOT null AND t.fromAccount.iban = :iban ) OR (t.toAccount IS NOT null and t.toAccount.iban = :iban))")
-    Page<Transaction> findAll(Date endDate, Date startDate, String iban, String amountRelation, Float amount, Pageable pageable);
+    //  Settling checks the user that made the transaction and the owners of both accounts, the settlement worker has no session to load them later
+    @EntityGraph(attributePaths = {"user", "fromAccount.user", "toAccount.user"})
+    Optional<Transaction> findForSettlementById(Long id);
 
-    @Query("SELECT t FROM Transaction t LEFT JOIN t.toAccount LEFT JOIN t.fromAccount WHERE t.createdAt <= :endDate AND t.createdAt >= :startDate AND (:amountRelation is null OR :amountRelation = '' OR (:amountRelation = '<' AND t.amount < :amount) OR (:amountRelation = '>' AND t.amount > :amount) OR (:amountRelation = '=' AND t.amount = :amount)) AND ((t.fromAccount IS NOT null AND t.fromAccount.iban = :iban ) OR (t.toAccount IS NOT null and t.toAccount.iban = :iban)) AND (:searchIban = '' OR :searchIban is null OR (t.fromAccount IS NOT null AND t.fromAccount.iban = :searchIban ) OR (t.toAccount IS NOT null and t.toAccount.iban = :searchIban))")
-    Page<Transaction> findAllByIban(Date endDate, Date startDate, String iban, String searchIban, String amountRelation, Float amount, Pageable pageable);
+    @EntityGraph(attributePaths = {"user", "fromAccount.user", "toAccount.user"})
+    List<Transaction> findAllForSettlementByIdIn(Collection<Long> ids);
 
-    List<Transaction> findAllByCreatedAtBetweenAndFromAccountIban(Date startOfDay, Date endOfDay, String search);
+    @Query("SELECT t.id FROM Transaction t WHERE t.status = :status")
+    List<Long> findAllIdsByStatus(TransactionStatus status);
 }
@@ -0,0 +1,28 @@
+package com.example.CodeGeneratieRestAPI.repositories;
+
+import com.example.CodeGeneratieRestAPI.dtos.TransactionResponseDTO;
+import com.example.CodeGeneratieRestAPI.models.Transaction;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+//  The listings only select the columns of the TransactionResponseDTO, the transactions and their accounts and users are never loaded
+public interface TransactionRepositoryCustom {
+    Page<TransactionResponseDTO> findAllResponses(Specification<Transaction> specification, Pageable pageable);
+
+    //  Reads one transaction more than the page size to know if there is a next page, this never runs a count query
+    Slice<TransactionResponseDTO> findSliceOfResponses(Specification<Transaction> specification, Pageable pageable);
+
+    long count(Specification<Transaction> specification);
+
+    //  Reads at most limit transactions, this never runs a count query
+    List<TransactionResponseDTO> findAllResponses(Specification<Transaction> specification, Sort sort, int limit);
+
+    //  Reads the transactions with a forward-only cursor and hands them to the consumer one by one, it has to run in a database transaction
+    void scrollResponses(Specification<Transaction> specification, Sort sort, int fetchSize, Consumer<TransactionResponseDTO> consumer);
+}
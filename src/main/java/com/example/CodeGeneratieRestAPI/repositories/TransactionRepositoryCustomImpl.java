@@ -0,0 +1,106 @@
+package com.example.CodeGeneratieRestAPI.repositories;
+
+import com.example.CodeGeneratieRestAPI.dtos.TransactionResponseDTO;
+import com.example.CodeGeneratieRestAPI.models.Account;
+import com.example.CodeGeneratieRestAPI.models.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public class TransactionRepositoryCustomImpl implements TransactionRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<TransactionResponseDTO> findAllResponses(Specification<Transaction> specification, Pageable pageable) {
+        TypedQuery<TransactionResponseDTO> query = createResponseQuery(specification, pageable.getSort());
+        query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+
+        //  The count is skipped when the first page is not full
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(specification));
+    }
+
+    @Override
+    public Slice<TransactionResponseDTO> findSliceOfResponses(Specification<Transaction> specification, Pageable pageable) {
+        TypedQuery<TransactionResponseDTO> query = createResponseQuery(specification, pageable.getSort());
+        query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize() + 1);
+
+        List<TransactionResponseDTO> transactions = query.getResultList();
+        boolean hasNext = transactions.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? transactions.subList(0, pageable.getPageSize()) : transactions, pageable, hasNext);
+    }
+
+    @Override
+    public List<TransactionResponseDTO> findAllResponses(Specification<Transaction> specification, Sort sort, int limit) {
+        return createResponseQuery(specification, sort).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public void scrollResponses(Specification<Transaction> specification, Sort sort, int fetchSize, Consumer<TransactionResponseDTO> consumer) {
+        //  The fetch size makes the driver read the rows in chunks instead of reading the whole result before the first row is returned
+        //  The rows are DTOs and not entities, so the persistence context stays empty however many rows are read
+        Query<TransactionResponseDTO> query = createResponseQuery(specification, sort).unwrap(Query.class);
+        try (ScrollableResults<TransactionResponseDTO> results = query.setFetchSize(fetchSize).setReadOnly(true).scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept(results.get());
+            }
+        }
+    }
+
+    private TypedQuery<TransactionResponseDTO> createResponseQuery(Specification<Transaction> specification, Sort sort) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionResponseDTO> query = builder.createQuery(TransactionResponseDTO.class);
+        Root<Transaction> root = query.from(Transaction.class);
+
+        //  The accounts are joined before the filters are added, so the IBAN filters use the same joins
+        Join<Transaction, Account> fromAccount = root.join("fromAccount", JoinType.LEFT);
+        Join<Transaction, Account> toAccount = root.join("toAccount", JoinType.LEFT);
+        query.select(builder.construct(TransactionResponseDTO.class,
+                root.get("id"), fromAccount.get("iban"), toAccount.get("iban"), root.get("transactionType"), root.get("amount"),
+                root.get("label"), root.get("description"), root.get("createdAt"), root.get("status")));
+
+        Predicate predicate = specification != null ? specification.toPredicate(root, query, builder) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, builder));
+
+        return entityManager.createQuery(query);
+    }
+
+    @Override
+    public long count(Specification<Transaction> specification) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<Transaction> root = query.from(Transaction.class);
+
+        Predicate predicate = specification != null ? specification.toPredicate(root, query, builder) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(builder.count(root));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.CodeGeneratieRestAPI.repositories;
+
+import com.example.CodeGeneratieRestAPI.models.Account;
+import com.example.CodeGeneratieRestAPI.models.Transaction;
+import com.example.CodeGeneratieRestAPI.models.TransactionType;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Date;
+
+//  The filters of the transaction listings, every filter is only added to the query when it is actually supplied
+//  So every combination of filters gets its own query with only the predicates it needs, instead of one query full of (:x is null OR ...)
+public final class TransactionSpecifications {
+
+    private TransactionSpecifications() {
+    }
+
+    //  All the filters of the listings, the empty ones are left out
+    public static Specification<Transaction> matching(Date startDate, Date endDate, String iban, String amountRelation, Long amount) {
+        return Specification.where(createdBetween(startDate, endDate))
+                .and(hasAmount(amountRelation, amount))
+                .and(involvesIban(iban));
+    }
+
+    public static Specification<Transaction> createdBetween(Date startDate, Date endDate) {
+        if (startDate == null && endDate == null) {
+            return null;
+        }
+        return (root, query, builder) -> {
+            if (startDate == null) {
+                return builder.lessThanOrEqualTo(root.get("createdAt"), endDate);
+            }
+            if (endDate == null) {
+                return builder.greaterThanOrEqualTo(root.get("createdAt"), startDate);
+            }
+            return builder.between(root.get("createdAt"), startDate, endDate);
+        };
+    }
+
+    //  The relation is one of <, > or =, it is validated by the service
+    public static Specification<Transaction> hasAmount(String amountRelation, Long amount) {
+        if (amountRelation == null || amountRelation.isEmpty() || amount == null) {
+            return null;
+        }
+        return (root, query, builder) -> switch (amountRelation) {
+            case "<" -> builder.lessThan(root.get("amount"), amount);
+            case ">" -> builder.greaterThan(root.get("amount"), amount);
+            case "=" -> builder.equal(root.get("amount"), amount);
+            default -> throw new IllegalArgumentException("The transaction amount relation is not valid.");
+        };
+    }
+
+    //  The transaction is sent from or to the account with this IBAN
+    //  The OR over the two joined accounts can't use an index, a listing that has to be fast reads sentFromIban and receivedOnIban separately
+    public static Specification<Transaction> involvesIban(String iban) {
+        if (iban == null || iban.isEmpty()) {
+            return null;
+        }
+        return (root, query, builder) -> builder.or(
+                builder.equal(join(root, "fromAccount").get("iban"), iban),
+                builder.equal(join(root, "toAccount").get("iban"), iban));
+    }
+
+    public static Specification<Transaction> hasType(TransactionType transactionType) {
+        if (transactionType == null) {
+            return null;
+        }
+        return (root, query, builder) -> builder.equal(root.get("transactionType"), transactionType);
+    }
+
+    //  The transaction is sent from one of the accounts of the user
+    //  The account column is compared with the ids of the accounts of the user, so the index on the column is used
+    public static Specification<Transaction> sentByUser(Long userId) {
+        return (root, query, builder) -> root.get("fromAccount").get("id").in(accountIdsOfUser(userId, query, builder));
+    }
+
+    //  The transaction is sent to one of the accounts of the user
+    public static Specification<Transaction> receivedByUser(Long userId) {
+        return (root, query, builder) -> root.get("toAccount").get("id").in(accountIdsOfUser(userId, query, builder));
+    }
+
+    //  The transaction is sent from the account with this IBAN, the account column is compared with the id of the account so its index is used
+    public static Specification<Transaction> sentFromIban(String iban) {
+        return (root, query, builder) -> root.get("fromAccount").get("id").in(accountIdsWithIban(iban, query, builder));
+    }
+
+    //  The transaction is sent to the account with this IBAN
+    public static Specification<Transaction> receivedOnIban(String iban) {
+        return (root, query, builder) -> root.get("toAccount").get("id").in(accountIdsWithIban(iban, query, builder));
+    }
+
+    //  Keyset pagination: only the transactions after the cursor, ordered by (created_at, id) with the newest first
+    public static Specification<Transaction> after(Date cursorCreatedAt, Long cursorId) {
+        if (cursorCreatedAt == null || cursorId == null) {
+            return null;
+        }
+        return (root, query, builder) -> builder.or(
+                builder.lessThan(root.get("createdAt"), cursorCreatedAt),
+                builder.and(builder.equal(root.get("createdAt"), cursorCreatedAt), builder.lessThan(root.get("id"), cursorId)));
+    }
+
+    private static Subquery<Long> accountIdsOfUser(Long userId, CriteriaQuery<?> query, CriteriaBuilder builder) {
+        Subquery<Long> accountIds = query.subquery(Long.class);
+        Root<Account> account = accountIds.from(Account.class);
+        return accountIds.select(account.get("id")).where(builder.equal(account.get("userId"), userId));
+    }
+
+    private static Subquery<Long> accountIdsWithIban(String iban, CriteriaQuery<?> query, CriteriaBuilder builder) {
+        Subquery<Long> accountIds = query.subquery(Long.class);
+        Root<Account> account = accountIds.from(Account.class);
+        return accountIds.select(account.get("id")).where(builder.equal(account.get("iban"), iban));
+    }
+
+    //  The accounts are left joined, a deposit has no from account and a withdrawal has no to account
+    //  A join that was already made for another filter is used again, so filtering on two IBANs doesn't join the accounts twice
+    @SuppressWarnings("unchecked")
+    private static Join<Transaction, Account> join(From<?, Transaction> root, String attribute) {
+        for (Join<Transaction, ?> join : root.getJoins()) {
+            if (join.getAttribute().getName().equals(attribute) && join.getJoinType() == JoinType.LEFT) {
+                return (Join<Transaction, Account>) join;
+            }
+        }
+        return root.join(attribute, JoinType.LEFT);
+    }
+}
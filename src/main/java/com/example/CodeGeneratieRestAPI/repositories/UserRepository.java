@@ -1,6 +1,10 @@
 package com.example.CodeGeneratieRestAPI.repositories;
 
+import com.example.CodeGeneratieRestAPI.dtos.UserResponseDTO;
 import com.example.CodeGeneratieRestAPI.models.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,5 +15,17 @@ public interface UserRepository extends CrudRepository<User, Long> {
     Optional<User> findUserByUsername(String username);
 
     Optional<User> findUserByEmail(String email);
+
+    //  The lists only select the columns of the UserResponseDTO, the page is sorted by the database
+    @Query(value = "SELECT new com.example.CodeGeneratieRestAPI.dtos.UserResponseDTO(u.id, u.firstName, u.lastName, u.username, u.email, u.userType) FROM User u",
+            countQuery = "SELECT COUNT(u) FROM User u")
+    Page<UserResponseDTO> findAllResponses(Pageable pageable);
+
+    //  The customers without an account, the database checks the accounts per user with the index on the user id of the accounts
+    @Query(value = "SELECT new com.example.CodeGeneratieRestAPI.dtos.UserResponseDTO(u.id, u.firstName, u.lastName, u.username, u.email, u.userType) FROM User u " +
+            "WHERE u.userType <> com.example.CodeGeneratieRestAPI.models.UserType.EMPLOYEE AND NOT EXISTS (SELECT a.id FROM Account a WHERE a.userId = u.id)",
+            countQuery = "SELECT COUNT(u) FROM User u " +
+                    "WHERE u.userType <> com.example.CodeGeneratieRestAPI.models.UserType.EMPLOYEE AND NOT EXISTS (SELECT a.id FROM Account a WHERE a.userId = u.id)")
+    Page<UserResponseDTO> findAllResponsesWithoutAccounts(Pageable pageable);
 }
 
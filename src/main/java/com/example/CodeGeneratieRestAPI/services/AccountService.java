@@ -6,6 +6,7 @@ import com.example.CodeGeneratieRestAPI.dtos.AccountRequestDTO;
 import com.example.CodeGeneratieRestAPI.dtos.AccountResponseDTO;
 import com.example.CodeGeneratieRestAPI.dtos.UserRequestDTO;
 import com.example.CodeGeneratieRestAPI.exceptions.*;
+import com.example.CodeGeneratieRestAPI.helpers.AccountLockManager;
 import com.example.CodeGeneratieRestAPI.helpers.IBANGenerator;
 import com.example.CodeGeneratieRestAPI.helpers.LoggedInUserHelper;
 import com.example.CodeGeneratieRestAPI.helpers.ServiceHelper;
@@ -16,6 +17,10 @@ import com.example.CodeGeneratieRestAPI.models.UserType;
 import com.example.CodeGeneratieRestAPI.repositories.AccountRepository;
 import com.example.CodeGeneratieRestAPI.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.lang.reflect.Field;
@@ -28,6 +33,7 @@ import java.util.Optional;
 
 @Service
 public class AccountService {
+    private static final Sort LIST_SORT = Sort.by("iban");
     @Autowired
     private AccountRepository accountRepository;
     @Autowired
@@ -38,6 +44,12 @@ public class AccountService {
     private IBANGenerator ibanGenerator;
     @Autowired
     private TransactionService transactionService;
+    @Autowired
+    private DailySpendService dailySpendService;
+    @Autowired
+    private AccountLockManager accountLockManager;
+    @Autowired
+    private LedgerEngine ledgerEngine;
 
     @Autowired
     private LoggedInUserHelper loggedInUserHelper;
@@ -103,7 +115,7 @@ public class AccountService {
             throw new IllegalArgumentException("The provided data cannot be null");
         }
         //  The balance must always be 0 when creating a new account
-        accountRequestDTO.setBalance(0.0F);
+        accountRequestDTO.setBalance(0L);
 
         //  Check if all fields other than iban and userId are set, if not, throw an exception because the required fields are not set
         //  This code can throw an IllegalAccessException, which is why this piece of code is in a try catch block
@@ -174,14 +186,23 @@ public class AccountService {
         return account;
     }
 
-    public List<Account> getAllAccounts(String search, Boolean active, User loggedInUser) {
+    public Page<AccountResponseDTO> getAllAccounts(String search, Boolean active, Integer pageNumber, Integer pageSize, User loggedInUser) {
+        //  Check the page
+        if (pageNumber == null || pageNumber < 0) {
+            throw new RuntimeException("The page number can not be negative.");
+        }
+        if (pageSize == null || pageSize < 1) {
+            throw new RuntimeException("The page size has to be more than zero.");
+        }
+        Pageable pageable = PageRequest.of(pageNumber, pageSize, LIST_SORT);
+
         // Check if the user is an employee
         if (loggedInUser.getUserType().getAuthority().equals("EMPLOYEE")) {
             //  Get all accounts
-            return accountRepository.findAllBySearchTerm(search, active);
+            return accountRepository.findAllBySearchTerm(search, active, pageable);
         } else {
             //  Get all accounts of the user
-            return accountRepository.findAllBySearchTermAndUserId(search, active, loggedInUser.getId());
+            return accountRepository.findAllBySearchTermAndUserId(search, active, loggedInUser.getId(), pageable);
         }
     }
 
@@ -191,22 +212,21 @@ public class AccountService {
 
         //  Get the account limits left
         AccountLimitsLeft accountLimitsLeft = new AccountLimitsLeft();
-        Double doubleValue = transactionService.getTodaysAccumulatedTransactionAmount(account.getIban());
-        Float floatValue = doubleValue != null ? doubleValue.floatValue() : 0F;
+        long spentToday = dailySpendService.getSpentToday(account.getIban());
 
         //  Set the account limits left
-        accountLimitsLeft.setDailyLimitLeft(account.getDailyLimit() - floatValue);
+        accountLimitsLeft.setDailyLimitLeft(account.getDailyLimit() - spentToday);
         accountLimitsLeft.setTransactionLimit(account.getTransactionLimit());
 
         //  The amount spendable on the next transaction is the minimum of the daily limit left, the transaction limit and the balance minus the absolute limit
-        accountLimitsLeft.setDifferenceBalanceAndAbsoluteLimit(account.getBalance() - account.getAbsoluteLimit());
+        accountLimitsLeft.setDifferenceBalanceAndAbsoluteLimit(account.getAvailableBalance() - account.getAbsoluteLimit());
         accountLimitsLeft.setAmountSpendableOnNextTransaction(Math.min(Math.min(accountLimitsLeft.getDailyLimitLeft(), accountLimitsLeft.getTransactionLimit()), accountLimitsLeft.getDifferenceBalanceAndAbsoluteLimit()));
 
         //  Return an AccountData object which contains the account (converted to an AccountResponseDTO object) and the account limits left
         return new AccountData(new AccountResponseDTO(account), accountLimitsLeft);
     }
 
-    public List<Account> getAllAccountsByUserId(Long userId, User loggedInUser) {
+    public List<AccountResponseDTO> getAllAccountsByUserId(Long userId, User loggedInUser) {
         //  Check if the userId matches the id of the logged-in user and throw an exception if it doesn't unless the user is an employee
         if (!loggedInUser.getUserType().getAuthority().equals("EMPLOYEE") && !userId.equals(loggedInUser.getId())) {
             throw new AccountNotAccessibleException("You cannot access the accounts of another user");
@@ -218,17 +238,21 @@ public class AccountService {
         // Check if the accountRequestDTO is valid
         this.checkIfAccountRequestDTOIsValidForUpdate(account);
 
-        // Check if the account exists and get the account
-        Account accountToUpdate = checkAndGetAccount(account.getIban(), loggedInUser);
+        //  The lock keeps the limits from changing while a transaction of the account checks them
+        try (AccountLockManager.AccountLock ignored = accountLockManager.lock(account.getIban())) {
+            // Check if the account exists and get the account
+            Account accountToUpdate = checkAndGetAccount(account.getIban(), loggedInUser);
 
-        // Update the account
-        Account updatedAccount = getUpdatedAccount(account, accountToUpdate);
+            // Update the account
+            Account updatedAccount = getUpdatedAccount(account, accountToUpdate);
 
-        // Save the account
-        accountRepository.save(updatedAccount);
+            //  Only the editable columns are written, the balances are left to the atomic updates of the transactions and holds
+            accountRepository.updateSettings(updatedAccount.getIban(), updatedAccount.getDailyLimit(), updatedAccount.getTransactionLimit(), updatedAccount.getAbsoluteLimit(), updatedAccount.getName(), updatedAccount.getIsSavings());
+            invalidateLedger(updatedAccount.getIban());
 
-        // Create a response object and return it
-        return updatedAccount;
+            // Create a response object and return it
+            return updatedAccount;
+        }
     }
     private Account getUpdatedAccount(AccountRequestDTO accountWithNewValues, Account accountToUpdate) {
         //  Update all the fields unless it's null
@@ -250,20 +274,28 @@ public class AccountService {
     }
 
     public String delete(String iban, User loggedInUser) {
+        try (AccountLockManager.AccountLock ignored = accountLockManager.lock(iban)) {
+            // Check account and get the account
+            Account account = this.checkAndGetAccount(iban, loggedInUser);
 
-        // Check account and get the account
-        Account account = this.checkAndGetAccount(iban, loggedInUser);
+            // Check if the account is active
+            if (!account.getIsActive()) {
+                throw new AccountCannotBeDeletedException("Account with IBAN: " + iban + " is already inactive");
+            }
 
-        // Check if the account is active
-        if (!account.getIsActive()) {
-            throw new AccountCannotBeDeletedException("Account with IBAN: " + iban + " is already inactive");
-        }
+            //  Delete the account, only the active flag is written so the balances are not overwritten
+            accountRepository.deactivate(iban);
+            invalidateLedger(iban);
 
-        // Delete the account
-        account.setIsActive(false);
-        accountRepository.save(account);
+            return "Account with IBAN: " + iban + " has been set to inactive";
+        }
+    }
 
-        return "Account with IBAN: " + iban + " has been set to inactive";
+    //  In the partitioned mode the engine caches the state of the account, so it has to read the account again after it changed
+    private void invalidateLedger(String iban) {
+        if (ledgerEngine.isEnabled()) {
+            ledgerEngine.invalidate(iban).join();
+        }
     }
 
     public void addSeededAccount(String iban, Account account) {
@@ -0,0 +1,133 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.models.DailySpend;
+import com.example.CodeGeneratieRestAPI.repositories.DailySpendRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//  Keeps track of the amount that was taken from every account today, so the daily limit check doesn't have to add up the transactions of the day
+//  The counters are stored in the daily_spend table and cached in memory, the cache only takes a value after the database transaction is committed
+//  A change that is not committed yet is only visible to the database transaction that made it
+@Service
+public class DailySpendService {
+
+    @Autowired
+    private DailySpendRepository dailySpendRepository;
+
+    private final Map<String, CachedSpend> cache = new ConcurrentHashMap<>();
+
+    public long getSpentToday(String iban) {
+        LocalDate today = LocalDate.now();
+        Map<String, PendingSpend> pendingSpends = getPendingSpends();
+        PendingSpend pendingSpend = pendingSpends != null ? pendingSpends.get(iban) : null;
+        if (pendingSpend != null && pendingSpend.date.equals(today)) {
+            return pendingSpend.committedAmount + pendingSpend.amount;
+        }
+        return getCommitted(iban, today);
+    }
+
+    //  Add to the counter of today, a negative amount gives money back (e.g. when a debit is compensated)
+    //  Has to be called in the database transaction that changes the balance
+    public void add(String iban, long amount) {
+        if (amount == 0) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            //  Without a database transaction the update is committed right away
+            long committedAmount = getCommitted(iban, today);
+            update(iban, today, amount);
+            cache.put(iban, new CachedSpend(today, committedAmount + amount));
+            return;
+        }
+
+        Map<String, PendingSpend> pendingSpends = getPendingSpends();
+        if (pendingSpends == null) {
+            pendingSpends = new HashMap<>();
+            bindPendingSpends(pendingSpends);
+        }
+        //  The committed amount has to be read before the update, afterwards the database returns the amount of this transaction too
+        PendingSpend pendingSpend = pendingSpends.get(iban);
+        if (pendingSpend == null || !pendingSpend.date.equals(today)) {
+            pendingSpend = new PendingSpend(today, getCommitted(iban, today));
+            pendingSpends.put(iban, pendingSpend);
+        }
+        update(iban, today, amount);
+        pendingSpend.amount += amount;
+    }
+
+    //  Read the counters that were changed in this database transaction again, after a savepoint with some of those changes was rolled back
+    public void reloadPending() {
+        Map<String, PendingSpend> pendingSpends = getPendingSpends();
+        if (pendingSpends == null) {
+            return;
+        }
+        pendingSpends.forEach((iban, pendingSpend) -> pendingSpend.amount = dailySpendRepository.findAmount(iban, pendingSpend.date).orElse(0L) - pendingSpend.committedAmount);
+    }
+
+    //  Forget the cached counter of an account, the next read gets it from the database again
+    public void evict(String iban) {
+        cache.remove(iban);
+    }
+
+    private long getCommitted(String iban, LocalDate today) {
+        CachedSpend cachedSpend = cache.get(iban);
+        if (cachedSpend != null && cachedSpend.date.equals(today)) {
+            return cachedSpend.amount;
+        }
+        long amount = dailySpendRepository.findAmount(iban, today).orElse(0L);
+        //  A counter that was committed in the meantime is newer than the one that was just read, so it is not overwritten
+        CachedSpend loaded = new CachedSpend(today, amount);
+        return cache.compute(iban, (key, current) -> current != null && current.date.equals(today) ? current : loaded).amount;
+    }
+
+    private void update(String iban, LocalDate date, long amount) {
+        //  The accounts are locked while their counters are changed, so two transactions can't both insert the first row of a day
+        if (dailySpendRepository.addAmount(iban, date, amount) == 0) {
+            dailySpendRepository.save(new DailySpend(iban, date, amount));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, PendingSpend> getPendingSpends() {
+        return (Map<String, PendingSpend>) TransactionSynchronizationManager.getResource(this);
+    }
+
+    private void bindPendingSpends(Map<String, PendingSpend> pendingSpends) {
+        TransactionSynchronizationManager.bindResource(this, pendingSpends);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(DailySpendService.this);
+                if (status == STATUS_COMMITTED) {
+                    pendingSpends.forEach((iban, pendingSpend) -> cache.put(iban, new CachedSpend(pendingSpend.date, pendingSpend.committedAmount + pendingSpend.amount)));
+                } else if (status == STATUS_UNKNOWN) {
+                    //  The outcome of the transaction is unknown, so the counters are read from the database again
+                    pendingSpends.keySet().forEach(cache::remove);
+                }
+            }
+        });
+    }
+
+    private record CachedSpend(LocalDate date, long amount) {
+    }
+
+    private static final class PendingSpend {
+        private final LocalDate date;
+        private final long committedAmount;
+        private long amount;
+
+        private PendingSpend(LocalDate date, long committedAmount) {
+            this.date = date;
+            this.committedAmount = committedAmount;
+        }
+    }
+}
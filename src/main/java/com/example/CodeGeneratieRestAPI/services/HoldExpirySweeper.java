@@ -0,0 +1,79 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.helpers.TimerWheel;
+import com.example.CodeGeneratieRestAPI.models.Hold;
+import com.example.CodeGeneratieRestAPI.models.HoldStatus;
+import com.example.CodeGeneratieRestAPI.repositories.HoldRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//  Releases the holds that were not captured or released before they expired
+//  The holds are kept in a timer wheel, so the sweeper never has to scan the holds table to find the expired ones
+@Service
+public class HoldExpirySweeper {
+    //  The HoldService also uses this sweeper, @Lazy breaks the circular dependency
+    @Autowired
+    @Lazy
+    private HoldService holdService;
+
+    @Autowired
+    private HoldRepository holdRepository;
+
+    private final TimerWheel<Long> timerWheel;
+    private final ScheduledExecutorService executor;
+
+    public HoldExpirySweeper(@Value("${transactions.holds.sweeper.tick-ms:1000}") long tickMillis,
+                             @Value("${transactions.holds.sweeper.buckets:512}") int buckets) {
+        this.timerWheel = new TimerWheel<>(buckets, tickMillis, System.currentTimeMillis());
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hold-expiry-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleAtFixedRate(this::sweep, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    //  A hold that is captured or released before it expires stays in the wheel, it is skipped when its deadline comes
+    public void schedule(Hold hold) {
+        timerWheel.schedule(hold.getId(), hold.getExpiresAt().getTime());
+    }
+
+    public int getScheduledCount() {
+        return timerWheel.size();
+    }
+
+    //  The wheel only lives in memory, so the holds that are still active are put back in it after a restart
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleActiveHolds() {
+        holdRepository.findAllByStatus(HoldStatus.ACTIVE).forEach(this::schedule);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void sweep() {
+        List<Long> expiredHoldIds = timerWheel.advance(System.currentTimeMillis());
+        if (expiredHoldIds.isEmpty()) {
+            return;
+        }
+        try {
+            //  The holds that could not be expired now are tried again on the next tick
+            long retryAt = System.currentTimeMillis();
+            holdService.expire(expiredHoldIds).forEach(id -> timerWheel.schedule(id, retryAt));
+        } catch (RuntimeException e) {
+            //  Keep the sweeper running, a scheduled task that throws is never run again
+        }
+    }
+}
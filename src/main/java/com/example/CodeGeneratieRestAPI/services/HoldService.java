@@ -0,0 +1,211 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.dtos.HoldRequestDTO;
+import com.example.CodeGeneratieRestAPI.exceptions.*;
+import com.example.CodeGeneratieRestAPI.helpers.AccountLockManager;
+import com.example.CodeGeneratieRestAPI.models.*;
+import com.example.CodeGeneratieRestAPI.repositories.AccountRepository;
+import com.example.CodeGeneratieRestAPI.repositories.HoldRepository;
+import com.example.CodeGeneratieRestAPI.repositories.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+//  Holds reserve money on an account (authorize) and are later captured as a transaction or released
+//  A hold lowers the available balance of the account right away, the balance itself only changes when the hold is captured
+//  The amount of a hold counts towards the daily limit of the day it was placed, the daily spend counter of that day is raised when it is placed
+@Service
+public class HoldService {
+
+    @Autowired
+    private HoldRepository holdRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    @Autowired
+    private HoldExpirySweeper holdExpirySweeper;
+
+    @Autowired
+    private DailySpendService dailySpendService;
+
+    @Value("${transactions.holds.default-expiry-seconds:900}")
+    private long defaultExpirySeconds;
+
+    public Hold place(User user, HoldRequestDTO holdIn) {
+        Account fromAccount = holdIn.getFromAccountIban() != null ? accountRepository.findByIban(holdIn.getFromAccountIban()) : null;
+        Account toAccount = holdIn.getToAccountIban() != null ? accountRepository.findByIban(holdIn.getToAccountIban()) : null;
+        TransactionType transactionType = holdIn.getToAccountIban() != null ? TransactionType.TRANSFER : TransactionType.WITHDRAW;
+        if (holdIn.getAmount() == null) {
+            throw new TransactionAmountNotValidException("The transaction amount can't be empty.");
+        }
+        long amount = holdIn.getAmount();
+        Transaction transaction = new Transaction(fromAccount, toAccount, amount, null, holdIn.getDescription(), transactionType);
+
+        long expiresInSeconds = holdIn.getExpiresInSeconds() != null ? holdIn.getExpiresInSeconds() : defaultExpirySeconds;
+        if (expiresInSeconds <= 0) {
+            throw new TransactionAmountNotValidException("The expiry of a hold has to be in the future.");
+        }
+        Date expiresAt = new Date(System.currentTimeMillis() + expiresInSeconds * 1000);
+
+        Hold hold;
+        try (AccountLockManager.AccountLock ignored = accountLockManager.lock(holdIn.getFromAccountIban())) {
+            hold = transactionTemplate.execute(status -> {
+                transactionService.validateHold(user, transaction);
+
+                //  The absolute limit is checked again by the update itself, this catches a balance that changed after it was read
+                if (accountRepository.reserveBalance(fromAccount.getIban(), amount) == 0) {
+                    throw new TransactionExceededAbsoluteLimitException("This transaction exceeds the absolute limit of this account.");
+                }
+                dailySpendService.add(fromAccount.getIban(), amount);
+
+                return holdRepository.save(new Hold(user, fromAccount, toAccount, amount, holdIn.getDescription(), expiresAt));
+            });
+        }
+
+        invalidateLedger(hold);
+        holdExpirySweeper.schedule(hold);
+        return hold;
+    }
+
+    //  Capture the hold as a withdrawal (or a transfer when the hold has a to account), the amount can be lower than the amount of the hold
+    public Hold capture(User user, Long id, Long amount) {
+        Hold hold = getById(user, id);
+        long capturedAmount = amount != null ? amount : hold.getAmount();
+        if (capturedAmount <= 0 || capturedAmount > hold.getAmount()) {
+            throw new TransactionAmountNotValidException("The captured amount has to be more than zero and can't be more than the amount of the hold.");
+        }
+
+        Account toAccount = hold.getToAccount();
+        Hold capturedHold;
+        try (AccountLockManager.AccountLock ignored = accountLockManager.lock(hold.getFromAccount().getIban(), toAccount != null ? toAccount.getIban() : null)) {
+            capturedHold = transactionTemplate.execute(status -> {
+                Hold activeHold = getActiveHold(id);
+
+                accountRepository.captureReservedBalance(activeHold.getFromAccount().getIban(), activeHold.getAmount(), capturedAmount);
+                //  The hold was already counted on the day it was placed, only the part that was not captured is given back on that same day
+                if (isPlacedToday(activeHold)) {
+                    dailySpendService.add(activeHold.getFromAccount().getIban(), capturedAmount - activeHold.getAmount());
+                }
+                if (toAccount != null && accountRepository.creditBalance(toAccount.getIban(), capturedAmount) == 0) {
+                    throw new TransactionAccountNotValidException("The to account does not exist.");
+                }
+
+                TransactionType transactionType = toAccount != null ? TransactionType.TRANSFER : TransactionType.WITHDRAW;
+                Transaction transaction = new Transaction(activeHold.getFromAccount(), toAccount, capturedAmount, null, activeHold.getDescription(), transactionType);
+                transaction.setUser(activeHold.getUser());
+                transaction.setCreatedAt(java.sql.Timestamp.valueOf(LocalDateTime.now()));
+
+                activeHold.setTransaction(transactionRepository.save(transaction));
+                activeHold.setCapturedAmount(capturedAmount);
+                activeHold.setStatus(HoldStatus.CAPTURED);
+                return holdRepository.save(activeHold);
+            });
+        }
+
+        invalidateLedger(capturedHold);
+        return capturedHold;
+    }
+
+    public Hold release(User user, Long id) {
+        Hold hold = getById(user, id);
+        return finish(hold, HoldStatus.RELEASED);
+    }
+
+    //  Called by the sweeper with the holds whose expiry has passed, holds that were captured or released in the meantime are skipped
+    //  The holds that could not be expired are returned, so they can be tried again
+    public List<Long> expire(List<Long> ids) {
+        List<Long> failedIds = new ArrayList<>();
+        for (Long id : ids) {
+            try {
+                holdRepository.findById(id)
+                        .filter(hold -> hold.getStatus() == HoldStatus.ACTIVE)
+                        .ifPresent(hold -> finish(hold, HoldStatus.EXPIRED));
+            } catch (HoldNotActiveException e) {
+                //  The hold was captured or released while it was being expired
+            } catch (RuntimeException e) {
+                failedIds.add(id);
+            }
+        }
+        return failedIds;
+    }
+
+    public Hold getById(User user, Long id) {
+        Hold hold = holdRepository.findById(id).orElseThrow(() -> new HoldNotFoundException("This hold does not exist."));
+
+        if (!user.getUserType().equals(UserType.EMPLOYEE) && (hold.getUser() == null || !hold.getUser().getId().equals(user.getId()))) {
+            throw new TransactionNotOwnedException("This user does not own the specified hold");
+        }
+
+        return hold;
+    }
+
+    //  Give the reserved money back to the available balance of the account
+    private Hold finish(Hold hold, HoldStatus status) {
+        Hold finishedHold;
+        try (AccountLockManager.AccountLock ignored = accountLockManager.lock(hold.getFromAccount().getIban())) {
+            finishedHold = transactionTemplate.execute(transactionStatus -> {
+                Hold activeHold = getActiveHold(hold.getId());
+
+                accountRepository.releaseReservedBalance(activeHold.getFromAccount().getIban(), activeHold.getAmount());
+                //  A hold of an earlier day only counted on that day, so there is nothing to give back today
+                if (isPlacedToday(activeHold)) {
+                    dailySpendService.add(activeHold.getFromAccount().getIban(), -activeHold.getAmount());
+                }
+
+                activeHold.setStatus(status);
+                return holdRepository.save(activeHold);
+            });
+        }
+
+        invalidateLedger(finishedHold);
+        return finishedHold;
+    }
+
+    //  Read the hold again under the lock of the account, so a hold can't be captured and released at the same time
+    private Hold getActiveHold(Long id) {
+        Hold hold = holdRepository.findById(id).orElseThrow(() -> new HoldNotFoundException("This hold does not exist."));
+        if (hold.getStatus() != HoldStatus.ACTIVE) {
+            throw new HoldNotActiveException("This hold is already " + hold.getStatus().name().toLowerCase() + ".");
+        }
+        return hold;
+    }
+
+    private boolean isPlacedToday(Hold hold) {
+        return LocalDate.ofInstant(hold.getCreatedAt().toInstant(), ZoneId.systemDefault()).equals(LocalDate.now());
+    }
+
+    //  In the partitioned mode the engine caches the available balance, so it has to read the account again after a hold changed it
+    private void invalidateLedger(Hold hold) {
+        if (!ledgerEngine.isEnabled()) {
+            return;
+        }
+        ledgerEngine.invalidate(hold.getFromAccount().getIban()).join();
+        if (hold.getToAccount() != null) {
+            ledgerEngine.invalidate(hold.getToAccount().getIban()).join();
+        }
+    }
+}
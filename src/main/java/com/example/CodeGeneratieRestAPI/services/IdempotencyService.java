@@ -0,0 +1,246 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.exceptions.IdempotencyKeyInUseException;
+import com.example.CodeGeneratieRestAPI.exceptions.IdempotencyKeyNotValidException;
+import com.example.CodeGeneratieRestAPI.models.ApiResponse;
+import com.example.CodeGeneratieRestAPI.models.IdempotencyRecord;
+import com.example.CodeGeneratieRestAPI.models.User;
+import com.example.CodeGeneratieRestAPI.repositories.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//  Remembers the responses of the requests that were sent with an Idempotency-Key header, so a retry gets the same response
+//  The most recent keys are kept in a bounded LRU map, the table keeps them after they are evicted or after a restart
+//  A key is claimed by inserting its row before the request is run, the primary key lets only one request (on any instance) claim it
+//  Keys expire after transactions.idempotency.ttl-seconds, the expired rows are deleted in the background
+@Service
+public class IdempotencyService {
+    public static final int MAX_KEY_LENGTH = 255;
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    //  The status code of a row that is claimed, but has no response yet
+    private static final int CLAIMED = 0;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final long ttlMillis;
+    private final long claimTimeoutMillis;
+    private final long purgeIntervalSeconds;
+    private final Map<String, StoredResponse> cache;
+    private ObjectReader bodyReader;
+    private ScheduledExecutorService executor;
+
+    public IdempotencyService(@Value("${transactions.idempotency.max-entries:10000}") int maxEntries,
+                              @Value("${transactions.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                              @Value("${transactions.idempotency.claim-timeout-seconds:60}") long claimTimeoutSeconds,
+                              @Value("${transactions.idempotency.purge-interval-seconds:600}") long purgeIntervalSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.claimTimeoutMillis = claimTimeoutSeconds * 1000;
+        this.purgeIntervalSeconds = purgeIntervalSeconds;
+        //  An access ordered LinkedHashMap drops the least recently used key when it is full
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @PostConstruct
+    public void start() {
+        bodyReader = objectMapper.copy()
+                .setNodeFactory(JsonNodeFactory.withExactBigDecimals(true))
+                .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                .reader();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-key-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::purge, purgeIntervalSeconds, purgeIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    //  Returns the stored response when the key was used before, otherwise the key is claimed until complete is called
+    public StoredResponse begin(User user, String key, Object request) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IdempotencyKeyNotValidException("The Idempotency-Key has to be between 1 and " + MAX_KEY_LENGTH + " characters.");
+        }
+        String id = getId(user, key);
+        String requestHash = hash(request);
+
+        StoredResponse storedResponse = find(id);
+        if (storedResponse != null) {
+            return checkRequestHash(storedResponse, requestHash);
+        }
+        if (!claim(id, requestHash)) {
+            //  The other request could have finished between the lookup and claiming the key
+            storedResponse = find(id);
+            if (storedResponse != null) {
+                return checkRequestHash(storedResponse, requestHash);
+            }
+            throw new IdempotencyKeyInUseException("A request with this Idempotency-Key is still being processed.");
+        }
+        return null;
+    }
+
+    //  Only successful responses are stored, a request that failed did not change anything and can simply be run again
+    public void complete(User user, String key, Object request, ResponseEntity<?> response) {
+        String id = getId(user, key);
+        if (response == null || !response.getStatusCode().is2xxSuccessful()) {
+            release(id);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        StoredResponse storedResponse = new StoredResponse(hash(request), response.getStatusCode().value(), response.getBody(), now + ttlMillis);
+        synchronized (cache) {
+            cache.put(id, storedResponse);
+        }
+        try {
+            //  The claimed row gets the response
+            idempotencyRecordRepository.save(new IdempotencyRecord(id, storedResponse.requestHash(), storedResponse.statusCode(),
+                    objectMapper.writeValueAsString(response.getBody()), new Date(now), new Date(storedResponse.expiresAt())));
+        } catch (JsonProcessingException | RuntimeException e) {
+            //  The transaction is already done, failing the request now would only make the client retry it
+            //  The key is still remembered in memory, other instances see the claim until it times out and can run the request again after that
+            logger.warn("The response of Idempotency-Key {} could not be stored, it is only remembered by this instance", id, e);
+        }
+    }
+
+    public int getCachedCount() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    //  Returns false when the key is claimed or has a response already
+    private boolean claim(String id, String requestHash) {
+        long now = System.currentTimeMillis();
+        try {
+            idempotencyRecordRepository.insertClaim(id, requestHash, new Date(now), new Date(now + claimTimeoutMillis));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            //  A claim that timed out (e.g. the instance stopped) or a response that expired but was not purged yet is deleted, then the key is claimed again
+            if (idempotencyRecordRepository.deleteExpired(id, new Date(now)) == 0) {
+                return false;
+            }
+        }
+        try {
+            idempotencyRecordRepository.insertClaim(id, requestHash, new Date(now), new Date(now + claimTimeoutMillis));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    //  A request that failed did not change anything, so its key is free again
+    private void release(String id) {
+        try {
+            idempotencyRecordRepository.deleteClaim(id);
+        } catch (RuntimeException e) {
+            logger.warn("The claim of Idempotency-Key {} could not be released, the key can only be used again after the claim timed out", id, e);
+        }
+    }
+
+    private StoredResponse find(String id) {
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            StoredResponse storedResponse = cache.get(id);
+            if (storedResponse != null) {
+                if (storedResponse.expiresAt() > now) {
+                    return storedResponse;
+                }
+                cache.remove(id);
+                return null;
+            }
+        }
+
+        //  The key is not in memory (anymore), look it up in the table and keep it in memory again
+        IdempotencyRecord record = idempotencyRecordRepository.findById(id).orElse(null);
+        if (record == null || record.getStatusCode() == CLAIMED || record.getExpiresAt().getTime() <= now) {
+            return null;
+        }
+        StoredResponse storedResponse = new StoredResponse(record.getRequestHash(), record.getStatusCode(), readBody(record.getResponseBody()), record.getExpiresAt().getTime());
+        synchronized (cache) {
+            cache.put(id, storedResponse);
+        }
+        return storedResponse;
+    }
+
+    private StoredResponse checkRequestHash(StoredResponse storedResponse, String requestHash) {
+        if (!storedResponse.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyNotValidException("This Idempotency-Key was already used for a different request.");
+        }
+        return storedResponse;
+    }
+
+    //  The stored body is read back as a tree, the exact decimals keep the amounts written the same way (e.g. 10.50)
+    private ApiResponse<JsonNode> readBody(String responseBody) {
+        try {
+            JsonNode body = bodyReader.readTree(responseBody);
+            return new ApiResponse<>(body.path("success").asBoolean(), body.path("message").asText(null), body.get("data"));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("The stored response of an Idempotency-Key can't be read", e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("The request can't be hashed", e);
+        }
+    }
+
+    private String getId(User user, String key) {
+        return user.getId() + ":" + key;
+    }
+
+    private void purge() {
+        try {
+            long now = System.currentTimeMillis();
+            synchronized (cache) {
+                cache.values().removeIf(storedResponse -> storedResponse.expiresAt() <= now);
+            }
+            idempotencyRecordRepository.deleteAllExpired(new Date(now));
+        } catch (RuntimeException e) {
+            //  Keep the purge running, a scheduled task that throws is never run again
+            logger.warn("Purging the expired Idempotency-Keys failed", e);
+        }
+    }
+
+    public record StoredResponse(String requestHash, int statusCode, Object body, long expiresAt) {
+    }
+}
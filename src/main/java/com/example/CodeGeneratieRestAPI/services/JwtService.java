@@ -1,71 +1,57 @@
 package com.example.CodeGeneratieRestAPI.services;
 
-import com.example.CodeGeneratieRestAPI.jwt.JwtKeyProvider;
+import com.example.CodeGeneratieRestAPI.jwt.JwTokenProvider;
+import com.example.CodeGeneratieRestAPI.jwt.JwtPrincipal;
+import com.example.CodeGeneratieRestAPI.jwt.RequestClaims;
 import com.example.CodeGeneratieRestAPI.models.UserType;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Date;
-
 @Service
 public class JwtService {
 
     @Autowired
-    JwtKeyProvider keyProvider;
+    JwTokenProvider tokenProvider;
 
     // Returns the userId from the JWT token or -1 if the token is invalid
     public Long getUserIdFromJwtToken(String bearerToken) {
-        String token = getJwtToken(bearerToken);
-        if (token != null) {
-            return Jwts.parserBuilder().setSigningKey(keyProvider.getPrivateKey()).build().parseClaimsJws(token)
-                    .getBody().get("userId", Double.class).longValue();
-        }
-        return -1L;
+        JwtPrincipal principal = getPrincipalFromJwtToken(bearerToken);
+        return principal != null ? principal.getId() : -1L;
     }
 
     // Returns the username from the JWT token or null if the token is invalid
     public String getUsernameFromJwtToken(String bearerToken) {
-        String token = getJwtToken(bearerToken);
-        if (token != null) {
-            return Jwts.parserBuilder().setSigningKey(keyProvider.getPrivateKey()).build().parseClaimsJws(token)
-                    .getBody().getSubject();
-        }
-        return null;
+        JwtPrincipal principal = getPrincipalFromJwtToken(bearerToken);
+        return principal != null ? principal.getUsername() : null;
     }
 
     public Enum<UserType> getUserTypeFromJwtToken(String bearerToken) {
-        String token = getJwtToken(bearerToken);
-        if (token == null) {
-            return null;
-        }
-
-        String userType = Jwts.parserBuilder()
-                .setSigningKey(keyProvider.getPrivateKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("role", String.class);
-
-        return UserType.valueOf(userType);
+        JwtPrincipal principal = getPrincipalFromJwtToken(bearerToken);
+        return principal != null ? principal.getUserType() : null;
     }
 
     // Returns true if the JWT token is valid
     public boolean validateJwtToken(String bearerToken) {
+        try {
+            return getPrincipalFromJwtToken(bearerToken) != null;
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new JwtException("Expired or invalid JWT token");
+        }
+    }
+
+    //  Returns the claims of the JWT token or null if the header has no token
+    //  The token of the current request was already parsed by the filter, any other token is verified by the token provider
+    public JwtPrincipal getPrincipalFromJwtToken(String bearerToken) {
         String token = getJwtToken(bearerToken);
-        if (token != null) {
-            try {
-                Jws<Claims> claims = Jwts.parserBuilder().setSigningKey(keyProvider.getPrivateKey()).build()
-                        .parseClaimsJws(token);
-                return !claims.getBody().getExpiration().before(new Date());
-            } catch (JwtException | IllegalArgumentException e) {
-                throw new JwtException("Expired or invalid JWT token");
-            }
+        if (token == null) {
+            return null;
+        }
+        JwtPrincipal principal = RequestClaims.get(token);
+        if (principal != null) {
+            return principal;
         }
-        return false;
+        return (JwtPrincipal) tokenProvider.getAuthentication(token).getPrincipal();
     }
 
     // Returns the JWT token from the Authorization header or null if the token is
@@ -0,0 +1,403 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.models.Account;
+import com.example.CodeGeneratieRestAPI.models.Transaction;
+import com.example.CodeGeneratieRestAPI.repositories.AccountRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.PersistenceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+
+//  The partitioned ledger engine, enabled with transactions.engine=partitioned
+//  Every account is owned by exactly one partition (based on the hash of the IBAN) and a partition is a single thread
+//  Only that thread reads or writes the balance of the account, so no locks are needed and the state stays in the cache of one core
+//  The database is still written through on every change, the in-memory state is only used to make the decisions
+//  The commands that are waiting for a partition are run as one group in one database transaction, like in the group commit pipeline
+//  Their futures only complete after the group is committed, so a transaction is stored after its balances and a transfer between two partitions is two commits
+//  A failure in between is compensated (reverse, refund), but a crash in between leaves the first commit without the second
+//  Every path that changes an account outside of the engine (holds, batches, account updates) has to invalidate the account
+@Service
+public class LedgerEngine {
+    public static final String MODE_PARTITIONED = "partitioned";
+
+    private final AccountRepository accountRepository;
+    private final DailySpendService dailySpendService;
+    private final TransactionTemplate transactionTemplate;
+    private final SavepointRunner savepointRunner;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final Partition[] partitions;
+
+    public LedgerEngine(AccountRepository accountRepository, DailySpendService dailySpendService, TransactionTemplate transactionTemplate,
+                        SavepointRunner savepointRunner,
+                        @Value("${transactions.engine:jpa}") String mode,
+                        @Value("${transactions.engine.partitions:0}") int partitionCount,
+                        @Value("${transactions.engine.max-batch-size:64}") int maxBatchSize) {
+        this.accountRepository = accountRepository;
+        this.dailySpendService = dailySpendService;
+        this.transactionTemplate = transactionTemplate;
+        this.savepointRunner = savepointRunner;
+        this.enabled = MODE_PARTITIONED.equalsIgnoreCase(mode);
+        this.maxBatchSize = maxBatchSize;
+
+        //  One partition per core, unless configured otherwise
+        int count = partitionCount > 0 ? partitionCount : Runtime.getRuntime().availableProcessors();
+        this.partitions = new Partition[enabled ? count : 0];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(i);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    //  Add money to an account, used for deposits
+    public CompletableFuture<LedgerResult> credit(String iban, long amount) {
+        return partitionFor(iban).submit(state -> state.credit(iban, amount));
+    }
+
+    //  Take money from an account, the absolute limit and the daily limit of the account are checked by the owning partition
+    public CompletableFuture<LedgerResult> debit(Account account, long amount) {
+        return partitionFor(account.getIban()).submit(state -> state.debit(account, amount));
+    }
+
+    //  A transfer between two accounts on the same partition is done in one step
+    //  Otherwise the money is first taken from the from account and then sent as a credit to the partition of the to account
+    //  If the credit fails, the debit is compensated on the partition of the from account
+    public CompletableFuture<LedgerResult> transfer(Account fromAccount, Account toAccount, long amount) {
+        Partition fromPartition = partitionFor(fromAccount.getIban());
+        Partition toPartition = partitionFor(toAccount.getIban());
+
+        if (fromPartition == toPartition) {
+            return fromPartition.submit(state -> {
+                LedgerResult debitResult = state.debit(fromAccount, amount);
+                if (debitResult != LedgerResult.OK) {
+                    return debitResult;
+                }
+                LedgerResult creditResult;
+                try {
+                    creditResult = state.credit(toAccount.getIban(), amount);
+                } catch (RuntimeException e) {
+                    state.refund(fromAccount.getIban(), amount);
+                    throw e;
+                }
+                if (creditResult != LedgerResult.OK) {
+                    state.refund(fromAccount.getIban(), amount);
+                }
+                return creditResult;
+            });
+        }
+
+        return fromPartition.submit(state -> state.debit(fromAccount, amount))
+                .thenCompose(debitResult -> {
+                    if (debitResult != LedgerResult.OK) {
+                        return CompletableFuture.completedFuture(debitResult);
+                    }
+                    return toPartition.submit(state -> state.credit(toAccount.getIban(), amount))
+                            .handle((creditResult, throwable) -> {
+                                if (throwable == null && creditResult == LedgerResult.OK) {
+                                    return CompletableFuture.completedFuture(LedgerResult.OK);
+                                }
+                                //  The debit is given back first, then the result of the credit or the error it threw is passed on
+                                return fromPartition.submit(state -> state.refund(fromAccount.getIban(), amount))
+                                        .thenCompose(ignored -> throwable == null
+                                                ? CompletableFuture.completedFuture(creditResult)
+                                                : CompletableFuture.<LedgerResult>failedFuture(unwrap(throwable)));
+                            })
+                            .thenCompose(Function.identity());
+                });
+    }
+
+    //  Undo a transaction that was applied by the engine, but could not be stored afterwards
+    //  Taking a credit back is guarded by the absolute limit like a debit, the money may already have been spent from the to account
+    //  The result is not OK when the transaction could not be undone, the from account of a transfer is then not refunded either
+    public CompletableFuture<LedgerResult> reverse(Transaction transaction) {
+        long amount = transaction.getAmount();
+        Account toAccount = transaction.getToAccount();
+        Account fromAccount = transaction.getFromAccount();
+        return switch (transaction.getTransactionType()) {
+            case DEPOSIT -> partitionFor(toAccount.getIban()).submit(state -> state.reverseCredit(toAccount, amount));
+            case WITHDRAW -> partitionFor(fromAccount.getIban()).submit(state -> state.refund(fromAccount.getIban(), amount));
+            case TRANSFER -> partitionFor(toAccount.getIban()).submit(state -> state.reverseCredit(toAccount, amount))
+                    .thenCompose(reverseResult -> reverseResult != LedgerResult.OK
+                            ? CompletableFuture.completedFuture(reverseResult)
+                            : partitionFor(fromAccount.getIban()).submit(state -> state.refund(fromAccount.getIban(), amount)));
+        };
+    }
+
+    //  Forget the cached state of an account, used when the balance was changed outside of the engine (e.g. by a hold)
+    public CompletableFuture<Void> invalidate(String iban) {
+        return partitionFor(iban).submit(state -> state.accounts.remove(iban)).thenAccept(ignored -> {
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Partition partition : partitions) {
+            partition.running = false;
+            partition.thread.interrupt();
+        }
+    }
+
+    //  The future of a partition wraps the error of a command in a CompletionException
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+    }
+
+    private Partition partitionFor(String iban) {
+        if (!enabled) {
+            throw new IllegalStateException("The partitioned ledger engine is not enabled");
+        }
+        return partitions[Math.floorMod(iban.hashCode(), partitions.length)];
+    }
+
+    public enum LedgerResult {
+        OK,
+        ACCOUNT_NOT_FOUND,
+        ABSOLUTE_LIMIT_EXCEEDED,
+        DAILY_LIMIT_EXCEEDED
+    }
+
+    private interface Command<T> {
+        T execute(PartitionState state);
+    }
+
+    private final class Partition {
+        private final PartitionState state = new PartitionState();
+        private final BlockingQueue<PendingCommand<?>> queue = new LinkedBlockingQueue<>();
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private Partition(int index) {
+            this.thread = new Thread(this::run, "ledger-partition-" + index);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        private <T> CompletableFuture<T> submit(Command<T> command) {
+            PendingCommand<T> pendingCommand = new PendingCommand<>(command);
+            queue.add(pendingCommand);
+            return pendingCommand.future;
+        }
+
+        private void run() {
+            List<PendingCommand<?>> group = new ArrayList<>(maxBatchSize);
+            while (running) {
+                try {
+                    //  The commands that came in while the previous group was committed form the next group, a command is never held back to wait for more
+                    group.add(queue.take());
+                    queue.drainTo(group, maxBatchSize - 1);
+                    flush(group);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                } finally {
+                    group.clear();
+                }
+            }
+
+            //  Nothing will run the commands that are still waiting anymore
+            PendingCommand<?> pendingCommand;
+            while ((pendingCommand = queue.poll()) != null) {
+                pendingCommand.future.completeExceptionally(new IllegalStateException("The partitioned ledger engine has been shut down"));
+            }
+        }
+
+        private void flush(List<PendingCommand<?>> group) {
+            try {
+                transactionTemplate.execute(status -> {
+                    for (PendingCommand<?> pendingCommand : group) {
+                        pendingCommand.execute(state);
+                    }
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                //  The group was rolled back, so the cached balances are read again and every command is run again in its own transaction
+                state.accounts.clear();
+                for (PendingCommand<?> pendingCommand : group) {
+                    pendingCommand.reset();
+                    try {
+                        transactionTemplate.execute(status -> {
+                            pendingCommand.execute(state);
+                            return null;
+                        });
+                    } catch (RuntimeException retryException) {
+                        state.accounts.clear();
+                        pendingCommand.failure = retryException;
+                    }
+                }
+            }
+
+            //  Only now the changes of the group are durable, so the callers can continue
+            for (PendingCommand<?> pendingCommand : group) {
+                pendingCommand.complete();
+            }
+        }
+    }
+
+    private final class PendingCommand<T> {
+        private final Command<T> command;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+        private RuntimeException failure;
+
+        private PendingCommand(Command<T> command) {
+            this.command = command;
+        }
+
+        //  Every command runs in its own savepoint, a database error fails the whole group, any other error only rolls back this command
+        private void execute(PartitionState state) {
+            try {
+                result = savepointRunner.run(() -> command.execute(state));
+            } catch (DataAccessException | PersistenceException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                //  The command may have changed the cached balances before it threw
+                state.accounts.clear();
+                failure = e;
+            }
+        }
+
+        private void reset() {
+            result = null;
+            failure = null;
+        }
+
+        private void complete() {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+
+    //  The state of a partition, this is only ever touched by the thread of the partition
+    private final class PartitionState {
+        private final Map<String, LedgerAccount> accounts = new HashMap<>();
+
+        private LedgerResult debit(Account account, long amount) {
+            LedgerAccount ledgerAccount = load(account.getIban());
+            if (ledgerAccount == null) {
+                return LedgerResult.ACCOUNT_NOT_FOUND;
+            }
+            ledgerAccount.rollOver();
+
+            if (account.getAbsoluteLimit() > ledgerAccount.availableBalance - amount) {
+                return LedgerResult.ABSOLUTE_LIMIT_EXCEEDED;
+            }
+            if (account.getDailyLimit() < ledgerAccount.spentToday + amount) {
+                return LedgerResult.DAILY_LIMIT_EXCEEDED;
+            }
+            if (accountRepository.debitBalance(account.getIban(), amount) == 0) {
+                //  The database does not agree with the cached balance, read it again next time
+                accounts.remove(account.getIban());
+                return LedgerResult.ABSOLUTE_LIMIT_EXCEEDED;
+            }
+            //  The daily spend counter is updated in the same database transaction as the balance
+            dailySpendService.add(account.getIban(), amount);
+
+            ledgerAccount.availableBalance -= amount;
+            ledgerAccount.spentToday += amount;
+            return LedgerResult.OK;
+        }
+
+        private LedgerResult credit(String iban, long amount) {
+            if (accountRepository.creditBalance(iban, amount) == 0) {
+                return LedgerResult.ACCOUNT_NOT_FOUND;
+            }
+            //  A credit does not need the current balance, so an account that is not cached yet is not loaded for it
+            LedgerAccount ledgerAccount = accounts.get(iban);
+            if (ledgerAccount != null) {
+                ledgerAccount.availableBalance += amount;
+            }
+            return LedgerResult.OK;
+        }
+
+        //  Take back a credit, money that is taken back was not spent so the daily spend counter stays the same
+        private LedgerResult reverseCredit(Account account, long amount) {
+            LedgerAccount ledgerAccount = load(account.getIban());
+            if (ledgerAccount == null) {
+                return LedgerResult.ACCOUNT_NOT_FOUND;
+            }
+            if (account.getAbsoluteLimit() > ledgerAccount.availableBalance - amount) {
+                return LedgerResult.ABSOLUTE_LIMIT_EXCEEDED;
+            }
+            if (accountRepository.debitBalance(account.getIban(), amount) == 0) {
+                //  The database does not agree with the cached balance, read it again next time
+                accounts.remove(account.getIban());
+                return LedgerResult.ABSOLUTE_LIMIT_EXCEEDED;
+            }
+
+            ledgerAccount.availableBalance -= amount;
+            return LedgerResult.OK;
+        }
+
+        //  Compensate a debit, this also gives back the amount that was counted towards the daily limit
+        private LedgerResult refund(String iban, long amount) {
+            LedgerResult result = credit(iban, amount);
+            if (result != LedgerResult.OK) {
+                return result;
+            }
+            dailySpendService.add(iban, -amount);
+            LedgerAccount ledgerAccount = accounts.get(iban);
+            if (ledgerAccount != null) {
+                ledgerAccount.spentToday -= amount;
+            }
+            return result;
+        }
+
+        private LedgerAccount load(String iban) {
+            LedgerAccount ledgerAccount = accounts.get(iban);
+            if (ledgerAccount == null) {
+                Account account = accountRepository.findByIban(iban);
+                if (account == null) {
+                    return null;
+                }
+                //  The holds that were placed today are part of the daily spend counter
+                ledgerAccount = new LedgerAccount(account.getAvailableBalance(), dailySpendService.getSpentToday(iban));
+                accounts.put(iban, ledgerAccount);
+            }
+            return ledgerAccount;
+        }
+    }
+
+    private static final class LedgerAccount {
+        private long availableBalance;
+        private long spentToday;
+        private LocalDate day;
+
+        private LedgerAccount(long availableBalance, long spentToday) {
+            this.availableBalance = availableBalance;
+            this.spentToday = spentToday;
+            this.day = LocalDate.now();
+        }
+
+        //  The daily limit starts over at midnight
+        private void rollOver() {
+            LocalDate today = LocalDate.now();
+            if (!today.equals(day)) {
+                day = today;
+                spentToday = 0;
+            }
+        }
+    }
+}
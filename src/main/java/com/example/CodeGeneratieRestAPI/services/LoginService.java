@@ -8,12 +8,15 @@ import com.example.CodeGeneratieRestAPI.exceptions.LoginDTOException;
 import com.example.CodeGeneratieRestAPI.exceptions.PasswordValidationException;
 import com.example.CodeGeneratieRestAPI.exceptions.UserNotFoundException;
 import com.example.CodeGeneratieRestAPI.jwt.JwTokenProvider;
+import com.example.CodeGeneratieRestAPI.jwt.JwtPrincipal;
 import com.example.CodeGeneratieRestAPI.models.User;
 import com.example.CodeGeneratieRestAPI.models.UserType;
 import com.example.CodeGeneratieRestAPI.repositories.LoginRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class LoginService {
 
@@ -26,25 +29,37 @@ public class LoginService {
     @Autowired
     JwtService jwtService;
 
-    public LoginResponseDTO login(LoginRequestDTO request) {
+    @Autowired
+    PasswordHashingService passwordHashingService;
+
+    @Autowired
+    LoginThrottle loginThrottle;
+
+    //  The password is checked on the hashing pool, the returned future completes with the token when the password is correct
+    //  An attempt over the limit of the username or the client is refused before the user is read or the password is hashed
+    public CompletableFuture<LoginResponseDTO> login(LoginRequestDTO request, String clientAddress) {
         if (!checkDTOValues(request)) {
             throw new LoginDTOException("Username or password is empty");
         }
+        loginThrottle.acquire(request.getUsername(), clientAddress);
         User user = loginRepository.findByUsername(request.getUsername()).orElseThrow(() -> new UserNotFoundException("User not found"));
-        if (!user.getHashedPassword().validatePassword(request.getPassword())) {
-            throw new PasswordValidationException("Password is incorrect");
-        }
-        String token = tokenProvider.createToken(user.getId(), user.getUsername(), user.getUserType());
-        UserResponseDTO userResponseDTO = new UserResponseDTO(user.getId(), user.getFirstName(), user.getLastName(), user.getUsername(), user.getEmail(), user.getUserType());
-        return new LoginResponseDTO(token, userResponseDTO);
+        return passwordHashingService.validate(user.getHashedPassword(), request.getPassword()).thenApply(valid -> {
+            if (!valid) {
+                throw new PasswordValidationException("Password is incorrect");
+            }
+            String token = tokenProvider.createToken(user.getId(), user.getUsername(), user.getUserType());
+            UserResponseDTO userResponseDTO = new UserResponseDTO(user.getId(), user.getFirstName(), user.getLastName(), user.getUsername(), user.getEmail(), user.getUserType());
+            return new LoginResponseDTO(token, userResponseDTO);
+        });
     }
 
+    //  The claims are read once, for the token of the request they were already parsed by the filter
     public Enum<UserType> validate(String bearerToken) {
-        if (jwtService.validateJwtToken(bearerToken)) {
-            return jwtService.getUserTypeFromJwtToken(bearerToken);
-        } else {
+        JwtPrincipal principal = jwtService.getPrincipalFromJwtToken(bearerToken);
+        if (principal == null) {
             throw new InvalidTokenException("Invalid token");
         }
+        return principal.getUserType();
     }
 
     private boolean checkDTOValues(LoginRequestDTO request) {
@@ -0,0 +1,154 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.exceptions.LoginThrottledException;
+import com.example.CodeGeneratieRestAPI.helpers.FrequencySketch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//  Limits the login attempts per username and per client address, every attempt costs a password hash
+//  Every key has a token bucket, an attempt takes a token and the tokens come back one per interval up to the capacity
+//  The bucket is one AtomicLong with the time it is full again, so taking a token is a compare-and-set without a lock
+//  The amount of buckets is bounded, a FrequencySketch decides which key keeps its bucket when there is no room
+@Service
+public class LoginThrottle {
+    //  The amount of buckets that is looked at to find one to evict
+    private static final int EVICTION_SAMPLE = 16;
+    //  A sketch with very few counters makes every key look frequent, a sketch of this size takes 16 KB
+    private static final int MIN_SKETCH_KEYS = 1024;
+
+    private final Limit usernameLimit;
+    private final Limit clientLimit;
+    private final int maxEntries;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejectedAdmissions = new LongAdder();
+
+    public LoginThrottle(@Value("${login.throttle.username.capacity:10}") int usernameCapacity,
+                         @Value("${login.throttle.username.refill-interval-ms:6000}") long usernameRefillIntervalMs,
+                         @Value("${login.throttle.client.capacity:30}") int clientCapacity,
+                         @Value("${login.throttle.client.refill-interval-ms:2000}") long clientRefillIntervalMs,
+                         @Value("${login.throttle.max-entries:100000}") int maxEntries) {
+        this.usernameLimit = new Limit(usernameCapacity, TimeUnit.MILLISECONDS.toNanos(usernameRefillIntervalMs));
+        this.clientLimit = new Limit(clientCapacity, TimeUnit.MILLISECONDS.toNanos(clientRefillIntervalMs));
+        this.maxEntries = maxEntries;
+        this.sketch = new FrequencySketch(Math.max(maxEntries, MIN_SKETCH_KEYS));
+    }
+
+    //  Takes a token of the client and of the username, throws when one of them has none left
+    //  An attempt that is rejected costs nothing, the token of the client is given back when the username has none left
+    public void acquire(String username, String clientAddress) {
+        long now = System.nanoTime();
+        String clientKey = "client:" + clientAddress;
+        long waitNanos = acquire(clientKey, clientLimit, now);
+        if (waitNanos == 0) {
+            waitNanos = acquire("user:" + username, usernameLimit, now);
+            if (waitNanos > 0) {
+                release(clientKey, clientLimit);
+            }
+        }
+        if (waitNanos > 0) {
+            throttled.increment();
+            throw new LoginThrottledException("Too many login attempts, try again later", Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+        }
+    }
+
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getRejectedAdmissions() {
+        return rejectedAdmissions.sum();
+    }
+
+    public int getSize() {
+        return buckets.size();
+    }
+
+    //  Returns 0 when a token was taken, or the nanoseconds until the next token
+    long acquire(String key, Limit limit, long now) {
+        sketch.increment(key);
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = admit(key, now);
+            if (bucket == null) {
+                //  Not tracked, the bucket of the other key of the attempt still counts it
+                return 0;
+            }
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long newFullAt = Math.max(fullAt, now) + limit.intervalNanos();
+            long waitNanos = newFullAt - now - limit.capacityNanos();
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (bucket.compareAndSet(fullAt, newFullAt)) {
+                return 0;
+            }
+        }
+    }
+
+    //  Gives back a token that was taken, a bucket that was evicted in the meantime is full already
+    void release(String key, Limit limit) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            bucket.addAndGet(-limit.intervalNanos());
+        }
+    }
+
+    private AtomicLong admit(String key, long now) {
+        if (buckets.size() >= maxEntries && !makeRoom(key, now)) {
+            rejectedAdmissions.increment();
+            return null;
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+    }
+
+    //  A full bucket is the same as no bucket, so it is evicted first
+    //  Otherwise the key that was seen the least is evicted, but only when the new key was seen more often than it
+    //  That keeps the keys of an attack in the buckets, however many other keys come by once
+    private boolean makeRoom(String candidate, long now) {
+        String victim = null;
+        int victimFrequency = Integer.MAX_VALUE;
+        Iterator<Map.Entry<String, AtomicLong>> entries = buckets.entrySet().iterator();
+        for (int i = 0; i < EVICTION_SAMPLE && entries.hasNext(); i++) {
+            Map.Entry<String, AtomicLong> entry = entries.next();
+            if (entry.getValue().get() <= now) {
+                entries.remove();
+                evictions.increment();
+                return true;
+            }
+            int frequency = sketch.frequency(entry.getKey());
+            if (frequency < victimFrequency) {
+                victim = entry.getKey();
+                victimFrequency = frequency;
+            }
+        }
+        if (victim != null && sketch.frequency(candidate) > victimFrequency && buckets.remove(victim) != null) {
+            evictions.increment();
+            return true;
+        }
+        return false;
+    }
+
+    //  The capacity is kept as the time it takes to refill a bucket from empty
+    record Limit(int capacity, long intervalNanos) {
+        long capacityNanos() {
+            return capacity * intervalNanos;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.exceptions.PasswordHashingBusyException;
+import com.example.CodeGeneratieRestAPI.models.HashedPassword;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+//  Hashes the passwords on a pool of its own, a PBKDF2 hash takes tens of milliseconds of CPU and should not hold the request threads
+//  The queue is bounded: when it is full the password is not hashed and the request gets a 503 with a Retry-After header
+@Service
+public class PasswordHashingService {
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+    private final LongAdder rejected = new LongAdder();
+
+    public PasswordHashingService(@Value("${passwords.hashing.workers:0}") int workers,
+                                  @Value("${passwords.hashing.queue-size:64}") int queueSize,
+                                  @Value("${passwords.hashing.retry-after-seconds:1}") long retryAfterSeconds) {
+        //  The hashing only uses the CPU, more threads than cores would only make every hash slower
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.retryAfterSeconds = retryAfterSeconds;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<HashedPassword> hash(String password) {
+        return submit(() -> new HashedPassword(password));
+    }
+
+    //  Completes with a PasswordValidationException when the password is incorrect
+    public CompletableFuture<Boolean> validate(HashedPassword hashedPassword, String password) {
+        return submit(() -> hashedPassword.validatePassword(password));
+    }
+
+    //  For the requests that are not asynchronous, the request thread waits but the amount of hashes at the same time is still bounded
+    public HashedPassword hashAndWait(String password) {
+        try {
+            return hash(password).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> hashing) {
+        try {
+            return CompletableFuture.supplyAsync(hashing, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Too many requests at the moment, try again later", retryAfterSeconds);
+        }
+    }
+}
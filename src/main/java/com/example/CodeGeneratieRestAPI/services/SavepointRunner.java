@@ -0,0 +1,53 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.function.Supplier;
+
+//  Runs a piece of work in a savepoint of the current database transaction
+//  When the work throws, everything it changed is rolled back and the rest of the database transaction can still be committed
+//  E.g. a transfer whose credit fails after the debit was done, the debit is undone instead of committed with the other writes
+//  The savepoint is set on the JDBC connection of the session, the JPA transaction manager has no support for nested transactions
+@Service
+public class SavepointRunner {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private DailySpendService dailySpendService;
+
+    //  Has to be called in a database transaction
+    public <T> T run(Supplier<T> work) {
+        Session session = entityManager.unwrap(Session.class);
+        //  The changes from before the savepoint are written first, otherwise they would be written after it and rolled back with it
+        entityManager.flush();
+        Savepoint savepoint = session.doReturningWork(Connection::setSavepoint);
+        try {
+            T result = work.get();
+            //  The entities of the work are written inside the savepoint, so a rollback covers them too
+            entityManager.flush();
+            session.doWork(connection -> connection.releaseSavepoint(savepoint));
+            return result;
+        } catch (RuntimeException e) {
+            session.doWork(connection -> connection.rollback(savepoint));
+            //  The rollback is not known to the persistence context and the daily spend counters, so both are read again
+            entityManager.clear();
+            dailySpendService.reloadPending();
+            throw e;
+        }
+    }
+
+    public void run(Runnable work) {
+        run(() -> {
+            work.run();
+            return null;
+        });
+    }
+}
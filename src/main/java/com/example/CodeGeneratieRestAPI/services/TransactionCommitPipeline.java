@@ -0,0 +1,188 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.PersistenceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+//  The group commit stage, enabled with transactions.group-commit.enabled=true
+//  Writes that are submitted at the same time are collected and committed together in one database transaction
+//  A group is flushed when it has max-batch-size writes or when the first write has waited max-delay-ms, whichever comes first
+//  The callers block until the group they are in has been committed
+@Service
+public class TransactionCommitPipeline {
+    private final TransactionTemplate transactionTemplate;
+    private final SavepointRunner savepointRunner;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingWrite<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private final LongAdder flushedGroups = new LongAdder();
+    private final LongAdder flushedWrites = new LongAdder();
+
+    public TransactionCommitPipeline(TransactionTemplate transactionTemplate,
+                                     SavepointRunner savepointRunner,
+                                     @Value("${transactions.group-commit.enabled:false}") boolean enabled,
+                                     @Value("${transactions.group-commit.max-batch-size:64}") int maxBatchSize,
+                                     @Value("${transactions.group-commit.max-delay-ms:5}") long maxDelayMs) {
+        this.transactionTemplate = transactionTemplate;
+        this.savepointRunner = savepointRunner;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+
+        this.flusher = new Thread(this::run, "transaction-group-commit");
+        this.flusher.setDaemon(true);
+        if (enabled) {
+            this.flusher.start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    //  Run the write as part of the next group and wait until that group is committed
+    //  Every write runs in its own savepoint, a write that throws a business exception (e.g. a limit that is exceeded) is rolled back
+    //  to its savepoint and left out of the group, all the other writes in the group are still committed
+    public <T> T submit(Supplier<T> write) {
+        if (!enabled) {
+            throw new IllegalStateException("The group commit pipeline is not enabled");
+        }
+
+        PendingWrite<T> pendingWrite = new PendingWrite<>(write);
+        queue.add(pendingWrite);
+        try {
+            return pendingWrite.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public long getFlushedGroups() {
+        return flushedGroups.sum();
+    }
+
+    public long getFlushedWrites() {
+        return flushedWrites.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        flusher.interrupt();
+    }
+
+    private void run() {
+        List<PendingWrite<?>> group = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                group.add(queue.take());
+
+                //  Wait for more writes until the group is full or the first write has waited long enough
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (group.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite<?> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+
+                flush(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                group.clear();
+            }
+        }
+
+        //  Nothing will flush the writes that are still waiting anymore
+        PendingWrite<?> pendingWrite;
+        while ((pendingWrite = queue.poll()) != null) {
+            pendingWrite.future.completeExceptionally(new IllegalStateException("The group commit pipeline has been shut down"));
+        }
+    }
+
+    private void flush(List<PendingWrite<?>> group) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (PendingWrite<?> pendingWrite : group) {
+                    pendingWrite.execute(savepointRunner);
+                }
+            });
+        } catch (RuntimeException e) {
+            //  A database error leaves the whole group in an unknown state, so every write is retried in its own transaction
+            for (PendingWrite<?> pendingWrite : group) {
+                pendingWrite.reset();
+                try {
+                    transactionTemplate.executeWithoutResult(status -> pendingWrite.execute(savepointRunner));
+                } catch (RuntimeException retryException) {
+                    pendingWrite.failure = retryException;
+                }
+            }
+        }
+
+        flushedGroups.increment();
+        flushedWrites.add(group.size());
+
+        //  Only now the group is durable, so the callers can continue
+        for (PendingWrite<?> pendingWrite : group) {
+            pendingWrite.complete();
+        }
+    }
+
+    private static final class PendingWrite<T> {
+        private final Supplier<T> write;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+        private RuntimeException failure;
+
+        private PendingWrite(Supplier<T> write) {
+            this.write = write;
+        }
+
+        private void execute(SavepointRunner savepointRunner) {
+            try {
+                result = savepointRunner.run(write);
+            } catch (DataAccessException | PersistenceException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+
+        private void reset() {
+            result = null;
+            failure = null;
+        }
+
+        private void complete() {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
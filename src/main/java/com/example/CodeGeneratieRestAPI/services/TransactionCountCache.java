@@ -0,0 +1,103 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.models.Transaction;
+import com.example.CodeGeneratieRestAPI.repositories.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//  Keeps the count of the transactions per combination of filters, so the pages without a count can still show a total
+//  A request never waits for a count: it gets the count that is cached and an old or missing count is counted again in the background
+@Service
+public class TransactionCountCache {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Map<Key, CachedCount> counts = new ConcurrentHashMap<>();
+    private final Set<Key> refreshing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor;
+
+    public TransactionCountCache(@Value("${transactions.count-cache.ttl-seconds:60}") long ttlSeconds,
+                                 @Value("${transactions.count-cache.max-entries:1000}") int maxEntries,
+                                 @Value("${transactions.count-cache.workers:1}") int workers) {
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.maxEntries = maxEntries;
+        //  The queue is bounded, a count that doesn't fit is left out and asked for again by a later request
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(maxEntries), runnable -> {
+            Thread thread = new Thread(runnable, "transaction-count-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //  Returns the cached count of the filters, or null when they were never counted
+    //  A count that is older than the ttl is still returned, until the new count is done
+    public Long get(Key key, Specification<Transaction> specification) {
+        CachedCount cachedCount = counts.get(key);
+        if (cachedCount == null || System.currentTimeMillis() - cachedCount.countedAt() >= ttlMillis) {
+            refresh(key, specification);
+        }
+        return cachedCount != null ? cachedCount.count() : null;
+    }
+
+    //  A count that is known without counting, e.g. from the last page of a list
+    public void put(Key key, long count) {
+        if (counts.size() >= maxEntries && !counts.containsKey(key)) {
+            //  The filters that were counted the longest ago make room, they are the least likely to be asked for again
+            counts.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().countedAt()))
+                    .ifPresent(entry -> counts.remove(entry.getKey(), entry.getValue()));
+        }
+        counts.put(key, new CachedCount(count, System.currentTimeMillis()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    //  Only one count per filters runs at a time, however many requests ask for it
+    private void refresh(Key key, Specification<Transaction> specification) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    put(key, transactionRepository.count(specification));
+                } catch (RuntimeException e) {
+                    //  The old count stays, the next request that needs it counts again
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    //  The filters of a list, iban is the account of the list and is empty for the list of all the transactions
+    public record Key(String iban, Date startDate, Date endDate, String searchIban, String amountRelation, Long amount) {
+    }
+
+    private record CachedCount(long count, long countedAt) {
+    }
+}
@@ -1,26 +1,63 @@
 package com.example.CodeGeneratieRestAPI.services;
 
+import com.example.CodeGeneratieRestAPI.dtos.CursorPageDTO;
+import com.example.CodeGeneratieRestAPI.dtos.SlicePageDTO;
+import com.example.CodeGeneratieRestAPI.dtos.TransactionBatchResultDTO;
 import com.example.CodeGeneratieRestAPI.dtos.TransactionRequestDTO;
+import com.example.CodeGeneratieRestAPI.dtos.TransactionResponseDTO;
 import com.example.CodeGeneratieRestAPI.exceptions.*;
+import com.example.CodeGeneratieRestAPI.helpers.AccountLockManager;
+import com.example.CodeGeneratieRestAPI.helpers.TransactionCursor;
 import com.example.CodeGeneratieRestAPI.models.*;
 import com.example.CodeGeneratieRestAPI.repositories.AccountRepository;
 import com.example.CodeGeneratieRestAPI.repositories.TransactionRepository;
+import com.example.CodeGeneratieRestAPI.repositories.TransactionSpecifications;
 import com.example.CodeGeneratieRestAPI.repositories.UserRepository;
+import jakarta.persistence.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class TransactionService {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionService.class);
+
+    //  The order of the keyset pagination, the id makes it unique when two transactions are created at the same time
+    private static final Sort CURSOR_SORT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+    private static final Comparator<TransactionResponseDTO> CURSOR_ORDER = Comparator.comparing(TransactionResponseDTO::getCreatedAt)
+            .thenComparing(TransactionResponseDTO::getId).reversed();
+    //  An export is written from the oldest to the newest transaction
+    private static final Sort EXPORT_SORT = Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("id"));
 
     @Autowired
     private TransactionRepository transactionRepository;
@@ -31,16 +68,44 @@ public class TransactionService {
     @Autowired
     private UserRepository userRepository;
 
-    public Page<Transaction> getAll(User user, Date startDate, Date endDate, String iban, String amountRelation, Float amount, Integer pageNumber, Integer pageSize) {
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    @Autowired
+    private TransactionCommitPipeline transactionCommitPipeline;
+
+    @Autowired
+    private TransactionSettlementWorker transactionSettlementWorker;
+
+    @Autowired
+    private SavepointRunner savepointRunner;
+
+    @Autowired
+    private DailySpendService dailySpendService;
+    @Autowired
+    private TransactionCountCache transactionCountCache;
+
+    @Value("${transactions.batch.max-size:5000}")
+    private int maxBatchSize;
+
+    @Value("${transactions.batch.chunk-max-accounts:32}")
+    private int batchChunkMaxAccounts;
+
+    @Value("${transactions.export.fetch-size:500}")
+    private int exportFetchSize;
+
+    public Page<TransactionResponseDTO> getAll(User user, Date startDate, Date endDate, String iban, String amountRelation, Long amount, Integer pageNumber, Integer pageSize) {
 
         Date startOfDay = getStartOfDay(startDate);
         Date endOfDay = getEndOfDay(endDate);
 
-        if (!amountRelation.isEmpty() && !(amountRelation.equals(">") || amountRelation.equals("<") || amountRelation.equals("="))) {
-            throw new RuntimeException("The transaction amount relation is not valid.");
-        } else if (!amountRelation.isEmpty() && amount == 0) {
-            throw new RuntimeException("The amount filter can not be empty with the amount relation.");
-        }
+        validateAmountFilter(amountRelation, amount);
 
         //Check if user is not an employee and if the doesn't user owns the account
         if (!user.getUserType().equals(UserType.EMPLOYEE)) {
@@ -48,20 +113,364 @@ public class TransactionService {
         }
         Pageable pageableRequest = PageRequest.of(pageNumber, pageSize);
 
-        return transactionRepository.findAll(endOfDay, startOfDay, iban, amountRelation, amount, pageableRequest);
+        return transactionRepository.findAllResponses(TransactionSpecifications.matching(startOfDay, endOfDay, iban, amountRelation, amount), pageableRequest);
     }
 
-    public List<Transaction> getAllByUser(User user) {
-        return transactionRepository.findAllByUserId(user.getId());
+    //  The page without a count, the total is the count that is cached for these filters
+    public SlicePageDTO<TransactionResponseDTO> getAllWithApproximateCount(User user, Date startDate, Date endDate, String iban, String amountRelation, Long amount, Integer pageNumber, Integer pageSize) {
+        Date startOfDay = getStartOfDay(startDate);
+        Date endOfDay = getEndOfDay(endDate);
+
+        validateAmountFilter(amountRelation, amount);
+
+        //Check if user is not an employee
+        if (!user.getUserType().equals(UserType.EMPLOYEE)) {
+            throw new EmployeeOnlyException("This user is not an employee.");
+        }
+
+        Specification<Transaction> specification = TransactionSpecifications.matching(startOfDay, endOfDay, iban, amountRelation, amount);
+        TransactionCountCache.Key key = new TransactionCountCache.Key("", startOfDay, endOfDay, iban, amountRelation, amount);
+        return getSlicePage(specification, key, PageRequest.of(pageNumber, pageSize));
+    }
+
+    //  Keyset pagination, ordered by (created_at, id) with the newest first
+    //  Every page costs the same, because the query starts right after the cursor instead of skipping the previous pages
+    public CursorPageDTO<TransactionResponseDTO> getAllAfterCursor(User user, Date startDate, Date endDate, String iban, String amountRelation, Long amount, String cursor, Integer pageSize) {
+        validateAmountFilter(amountRelation, amount);
+
+        //Check if user is not an employee
+        if (!user.getUserType().equals(UserType.EMPLOYEE)) {
+            throw new EmployeeOnlyException("This user is not an employee.");
+        }
+
+        TransactionCursor after = cursor != null && !cursor.isEmpty() ? TransactionCursor.decode(cursor) : null;
+        Specification<Transaction> specification = TransactionSpecifications.matching(getStartOfDay(startDate), getEndOfDay(endDate), iban, amountRelation, amount);
+        return getCursorPage(specification, after, pageSize);
+    }
+
+    //  The filters of an export are checked before the response starts, an export that is already being written can't return an error anymore
+    public void validateExport(User user, String amountRelation, Long amount) {
+        validateAmountFilter(amountRelation, amount);
+
+        if (!user.getUserType().equals(UserType.EMPLOYEE)) {
+            throw new EmployeeOnlyException("This user is not an employee.");
+        }
+    }
+
+    //  Hands the transactions that match the filters to the consumer one by one, without a page size or a count
+    //  This runs on the thread that writes the response, so it opens its own database transaction to keep the cursor open
+    public void export(Date startDate, Date endDate, String iban, String amountRelation, Long amount, Consumer<TransactionResponseDTO> consumer) {
+        Specification<Transaction> specification = TransactionSpecifications.matching(getStartOfDay(startDate), getEndOfDay(endDate), iban, amountRelation, amount);
+        transactionTemplate.executeWithoutResult(status -> transactionRepository.scrollResponses(specification, EXPORT_SORT, exportFetchSize, consumer));
+    }
+
+    //  The transactions the user sent and received are read with two keyset queries, each one can use the index on its own account column
+    //  One query with (from account of the user OR to account of the user) would have to scan all the transactions
+    //  Both queries read one page, so the merged page is complete as well
+    public CursorPageDTO<TransactionResponseDTO> getAllByUser(User user, Date startDate, Date endDate, String type, String cursor, Integer pageSize) {
+        validatePageSize(pageSize);
+
+        TransactionType transactionType = type != null && !type.isEmpty() ? getTransactionType(type) : null;
+        TransactionCursor after = cursor != null && !cursor.isEmpty() ? TransactionCursor.decode(cursor) : null;
+        Specification<Transaction> filters = Specification.where(TransactionSpecifications.createdBetween(startDate != null ? getStartOfDay(startDate) : null, endDate != null ? getEndOfDay(endDate) : null))
+                .and(TransactionSpecifications.hasType(transactionType))
+                .and(after != null ? TransactionSpecifications.after(after.createdAt(), after.id()) : null);
+
+        List<TransactionResponseDTO> sent = transactionRepository.findAllResponses(TransactionSpecifications.sentByUser(user.getId()).and(filters), CURSOR_SORT, pageSize + 1);
+        List<TransactionResponseDTO> received = transactionRepository.findAllResponses(TransactionSpecifications.receivedByUser(user.getId()).and(filters), CURSOR_SORT, pageSize + 1);
+
+        return toMergedCursorPage(sent, received, pageSize);
     }
 
     public Transaction add(User user, TransactionRequestDTO transactionIn) {
+        //  In the partitioned mode the balances are owned by the ledger engine, the accounts don't have to be locked
+        if (ledgerEngine.isEnabled()) {
+            return applyPartitionedTransaction(user, createTransaction(transactionIn));
+        }
+
+        //  The balances are updated atomically by the database, the lock serializes the daily limit check of an account
+        //  Transactions on unrelated accounts use different stripes and are not blocked by this
+        //  The lock is held until the database transaction is committed, so the next transaction sees the committed state
+        try (AccountLockManager.AccountLock ignored = accountLockManager.lock(transactionIn.getFromAccountIban(), transactionIn.getToAccountIban())) {
+            //  With group commit, the transaction is committed together with the other transactions that come in at the same time
+            if (transactionCommitPipeline.isEnabled()) {
+                return transactionCommitPipeline.submit(() -> applyTransaction(user, createTransaction(transactionIn)));
+            }
+            return transactionTemplate.execute(status -> applyTransaction(user, createTransaction(transactionIn)));
+        }
+    }
+
+    //  Add many transactions at once, every item gets its own result so an invalid item doesn't stop the others
+    //  The items are split into chunks of at most transactions.batch.chunk-max-accounts accounts, only the accounts of one chunk are locked at a time
+    //  The accounts of a chunk are read with one query and the items are checked against that state in memory,
+    //  then the balance of every account is updated once and the transactions are inserted in JDBC batches, all in one database transaction per chunk
+    public List<TransactionBatchResultDTO> addBatch(User user, List<TransactionRequestDTO> transactionsIn) {
+        if (transactionsIn == null || transactionsIn.isEmpty()) {
+            throw new TransactionBatchNotValidException("The batch can't be empty.");
+        }
+        if (transactionsIn.size() > maxBatchSize) {
+            throw new TransactionBatchNotValidException("The batch can't contain more than " + maxBatchSize + " transactions.");
+        }
+
+        List<TransactionBatchResultDTO> results = new ArrayList<>(transactionsIn.size());
+        int start = 0;
+        while (start < transactionsIn.size()) {
+            //  A chunk takes items until the next item would bring in too many accounts, an item always fits in an empty chunk
+            Set<String> ibans = new HashSet<>();
+            int end = start;
+            while (end < transactionsIn.size()) {
+                Set<String> itemIbans = getIbans(transactionsIn.get(end));
+                long newIbans = itemIbans.stream().filter(iban -> !ibans.contains(iban)).count();
+                if (end > start && ibans.size() + newIbans > batchChunkMaxAccounts) {
+                    break;
+                }
+                ibans.addAll(itemIbans);
+                end++;
+            }
+            results.addAll(applyBatchChunk(user, transactionsIn.subList(start, end), ibans, start));
+            start = end;
+        }
+        return results;
+    }
+
+    private List<TransactionBatchResultDTO> applyBatchChunk(User user, List<TransactionRequestDTO> transactionsIn, Set<String> ibans, int offset) {
+        List<TransactionBatchResultDTO> results;
+        try (AccountLockManager.AccountLock ignored = accountLockManager.lock(ibans.toArray(String[]::new))) {
+            try {
+                results = transactionTemplate.execute(status -> applyBatch(user, transactionsIn, ibans));
+            } catch (TransactionExceededAbsoluteLimitException e) {
+                //  The items are checked per item, so this is only thrown by the update of the net change of an account
+                //  The balance changed after it was read (e.g. by a capture of a hold), the items are added one by one so only the items that no longer fit fail
+                results = applyBatchItemByItem(user, transactionsIn);
+            } catch (RuntimeException e) {
+                //  The earlier chunks are already committed, so the error is reported per item instead of failing the whole request
+                results = new ArrayList<>(transactionsIn.size());
+                for (int i = 0; i < transactionsIn.size(); i++) {
+                    results.add(new TransactionBatchResultDTO(i, false, e.getMessage()));
+                }
+            }
+        }
+
+        //  The balances were changed without the engine, so it has to read the accounts again
+        if (ledgerEngine.isEnabled()) {
+            ibans.forEach(iban -> ledgerEngine.invalidate(iban).join());
+        }
+        //  The index of a result is the index of the item in the whole batch
+        results.forEach(result -> result.setIndex(result.getIndex() + offset));
+        return results;
+    }
+
+    private Set<String> getIbans(TransactionRequestDTO transactionIn) {
+        return Stream.of(transactionIn.getFromAccountIban(), transactionIn.getToAccountIban()).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    //  A hold has to pass the same checks as the withdrawal or transfer it is captured as later on
+    public void validateHold(User user, Transaction transaction) {
+        validateTransactionAmount(transaction);
+
+        if (transaction.getTransactionType() == TransactionType.TRANSFER) {
+            validateTransfer(user, transaction.getFromAccount(), transaction.getToAccount(), transaction);
+        } else {
+            validateWithdraw(user, transaction.getFromAccount(), transaction);
+        }
+    }
+
+    //  Only do the checks that don't need the transaction history and store the transaction as PENDING
+    //  The balances are changed later on by the settlement worker
+    public Transaction addPending(User user, TransactionRequestDTO transactionIn) {
+        Transaction transaction = createTransaction(transactionIn);
+
+        validateTransactionAmount(transaction);
+
+        switch (transaction.getTransactionType()) {
+            case DEPOSIT -> validateDeposit(user, transaction.getToAccount());
+            case WITHDRAW -> {
+                if (transaction.getFromAccount() == null) {
+                    throw new TransactionAccountNotValidException("The from account can't be empty.");
+                }
+                validateUserOwnsAccount(user, transaction.getFromAccount());
+                validateTransactionLimit(transaction.getFromAccount(), transaction);
+            }
+            case TRANSFER -> {
+                if (transaction.getToAccount() == null || transaction.getFromAccount() == null) {
+                    throw new TransactionAccountNotValidException("The to or from account can't be empty.");
+                }
+                validateUserOwnsAccount(user, transaction.getFromAccount());
+                validateSavingsTransfer(transaction.getFromAccount(), transaction.getToAccount());
+                validateTransactionLimit(transaction.getFromAccount(), transaction);
+            }
+            default -> throw new TransactionTypeNotValidException("The transaction type is not valid.");
+        }
+
+        transaction.setUser(user);
+        transaction.setCreatedAt(java.sql.Timestamp.valueOf(LocalDateTime.now()));
+        transaction.setStatus(TransactionStatus.PENDING);
+
+        Transaction pendingTransaction = transactionRepository.save(transaction);
+        transactionSettlementWorker.enqueue(pendingTransaction.getId());
+        return pendingTransaction;
+    }
+
+    //  Settle a batch of PENDING transactions, a transaction that doesn't pass the checks anymore is marked as FAILED
+    public void settle(List<Long> transactionIds) {
+        List<Transaction> pendingTransactions = new ArrayList<>();
+        transactionRepository.findAllForSettlementByIdIn(transactionIds).forEach(transaction -> {
+            if (transaction.getStatus() == TransactionStatus.PENDING) {
+                pendingTransactions.add(transaction);
+            }
+        });
+        if (pendingTransactions.isEmpty()) {
+            return;
+        }
+
+        if (ledgerEngine.isEnabled()) {
+            //  Every transaction is settled even if another one failed, the first database error is thrown so the worker settles the batch again
+            RuntimeException failure = null;
+            for (Transaction transaction : pendingTransactions) {
+                try {
+                    settlePartitioned(transaction);
+                } catch (RuntimeException settleException) {
+                    if (failure == null) {
+                        failure = settleException;
+                    } else {
+                        failure.addSuppressed(settleException);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return;
+        }
+
+        String[] ibans = pendingTransactions.stream()
+                .flatMap(transaction -> Stream.of(transaction.getFromAccount(), transaction.getToAccount()))
+                .filter(Objects::nonNull)
+                .map(Account::getIban)
+                .toArray(String[]::new);
+
+        //  All the accounts of the batch are locked at once, the lock manager takes care of the order
+        try (AccountLockManager.AccountLock ignored = accountLockManager.lock(ibans)) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> pendingTransactions.forEach(transaction -> settleTransaction(transaction.getId())));
+            } catch (RuntimeException e) {
+                //  A database error rolls back the whole batch, so every transaction is settled on its own instead
+                RuntimeException failure = null;
+                for (Transaction transaction : pendingTransactions) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> settleTransaction(transaction.getId()));
+                    } catch (RuntimeException settleException) {
+                        if (failure == null) {
+                            failure = settleException;
+                        } else {
+                            failure.addSuppressed(settleException);
+                        }
+                    }
+                }
+                //  The transactions that are still PENDING are settled again by the worker, the others are skipped then
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        }
+    }
+
+    public Transaction getStatus(User user, Long id) {
+        Transaction transaction = transactionRepository.findById(id).orElseThrow(() -> new TransactionNotFoundException("This transaction does not exist."));
+
+        if (!user.getUserType().equals(UserType.EMPLOYEE) && (transaction.getUser() == null || !transaction.getUser().getId().equals(user.getId()))) {
+            throw new TransactionNotOwnedException("This user does not own the specified transaction");
+        }
+
+        return transaction;
+    }
+
+    private void settleTransaction(Long id) {
+        //  Read the transaction again in this database transaction, so the balances of the accounts are up to date
+        Transaction transaction = transactionRepository.findForSettlementById(id).orElseThrow(() -> new TransactionNotFoundException("This transaction does not exist."));
+        if (transaction.getStatus() != TransactionStatus.PENDING) {
+            return;
+        }
+
+        try {
+            //  A transaction that fails halfway (e.g. the credit of a transfer after the debit) is rolled back to the savepoint before it is marked as FAILED
+            savepointRunner.run(() -> applyBalances(transaction.getUser(), transaction));
+            transaction.setStatus(TransactionStatus.COMPLETED);
+        } catch (DataAccessException | PersistenceException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            transaction.setStatus(TransactionStatus.FAILED);
+            transaction.setFailureReason(e.getMessage());
+        }
+        transactionRepository.save(transaction);
+    }
+
+    //  A database error leaves the transaction PENDING and is thrown, like in settleTransaction, so the worker settles it again
+    private void settlePartitioned(Transaction transaction) {
+        try {
+            applyPartitionedBalances(transaction.getUser(), transaction);
+            transaction.setStatus(TransactionStatus.COMPLETED);
+        } catch (DataAccessException | PersistenceException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            transaction.setStatus(TransactionStatus.FAILED);
+            transaction.setFailureReason(e.getMessage());
+        }
+
+        try {
+            transactionRepository.save(transaction);
+        } catch (RuntimeException e) {
+            //  The balances were already changed by the engine, they are changed back so the retry starts from the same state
+            if (transaction.getStatus() == TransactionStatus.COMPLETED) {
+                reversePartitioned(transaction, e);
+            }
+            transaction.setStatus(TransactionStatus.PENDING);
+            transaction.setFailureReason(null);
+            throw e;
+        }
+    }
+
+    private Transaction createTransaction(TransactionRequestDTO transactionIn) {
         String transactionToAccount = transactionIn.getToAccountIban();
         String transactionFromAccount = transactionIn.getFromAccountIban();
-        Account fromAccount = transactionFromAccount != null ? accountRepository.findByIban(transactionIn.getFromAccountIban()) : null;
-        Account toAccount = transactionToAccount != null ? accountRepository.findByIban(transactionIn.getToAccountIban()) : null;
+        Account fromAccount = findAccount(transactionFromAccount, "from");
+        Account toAccount = findAccount(transactionToAccount, "to");
         TransactionType transactionType = getTransactionType(transactionIn.getTransactionType());
-        Transaction transaction = new Transaction(fromAccount, toAccount, transactionIn.getAmount(), transactionIn.getLabel(), transactionIn.getDescription(), transactionType);
+        return new Transaction(fromAccount, toAccount, requireAmount(transactionIn.getAmount()), transactionIn.getLabel(), transactionIn.getDescription(), transactionType);
+    }
+
+    //  An IBAN without an account is reported as such, only an IBAN that is left out is an empty account
+    private Account findAccount(String iban, String side) {
+        if (iban == null) {
+            return null;
+        }
+        Account account = accountRepository.findByIban(iban);
+        if (account == null) {
+            throw new TransactionAccountNotValidException("The " + side + " account does not exist.");
+        }
+        return account;
+    }
+
+    private long requireAmount(Long amount) {
+        if (amount == null) {
+            throw new TransactionAmountNotValidException("The transaction amount can't be empty.");
+        }
+        return amount;
+    }
+
+    private Transaction applyTransaction(User user, Transaction transaction) {
+        applyBalances(user, transaction);
+
+        transaction.setUser(user);
+
+        transaction.setCreatedAt(java.sql.Timestamp.valueOf(LocalDateTime.now()));
+
+        return transactionRepository.save(transaction);
+    }
+
+    private void applyBalances(User user, Transaction transaction) {
+        Account fromAccount = transaction.getFromAccount();
+        Account toAccount = transaction.getToAccount();
 
         validateTransactionAmount(transaction);
 
@@ -70,33 +479,223 @@ public class TransactionService {
                 validateDeposit(user, toAccount);
 
                 //Update the account balance
-                toAccount.setBalance(toAccount.getBalance() + transaction.getAmount());
-                accountRepository.save(toAccount);
+                creditBalance(toAccount, transaction);
             }
             case WITHDRAW -> {
                 validateWithdraw(user, fromAccount, transaction);
 
                 //Update the account balance
-                fromAccount.setBalance(fromAccount.getBalance() - transaction.getAmount());
-                accountRepository.save(fromAccount);
+                debitBalance(fromAccount, transaction);
             }
             case TRANSFER -> {
                 validateTransfer(user, fromAccount, toAccount, transaction);
 
-                //Update the account balance
-                fromAccount.setBalance(fromAccount.getBalance() - transaction.getAmount());
-                toAccount.setBalance(toAccount.getBalance() + transaction.getAmount());
-                accountRepository.save(fromAccount);
-                accountRepository.save(toAccount);
+                //Update the account balances, if the credit fails the debit is rolled back together with the rest of the transaction
+                debitBalance(fromAccount, transaction);
+                creditBalance(toAccount, transaction);
+            }
+            default -> throw new TransactionTypeNotValidException("The transaction type is not valid.");
+        }
+    }
+
+    private List<TransactionBatchResultDTO> applyBatch(User user, List<TransactionRequestDTO> transactionsIn, Set<String> ibans) {
+        Map<String, BatchAccount> accounts = new HashMap<>();
+        accountRepository.findAllByIbanIn(ibans).forEach(account -> accounts.put(account.getIban(), new BatchAccount(account, dailySpendService.getSpentToday(account.getIban()))));
+
+        List<TransactionBatchResultDTO> results = new ArrayList<>(transactionsIn.size());
+        List<TransactionBatchResultDTO> addedResults = new ArrayList<>();
+        List<Transaction> transactions = new ArrayList<>();
+        Date createdAt = java.sql.Timestamp.valueOf(LocalDateTime.now());
+
+        for (int i = 0; i < transactionsIn.size(); i++) {
+            try {
+                Transaction transaction = applyBatchItem(user, transactionsIn.get(i), accounts);
+                transaction.setUser(user);
+                transaction.setCreatedAt(createdAt);
+                transactions.add(transaction);
+
+                TransactionBatchResultDTO result = new TransactionBatchResultDTO(i, true, "Transaction added");
+                addedResults.add(result);
+                results.add(result);
+            } catch (RuntimeException e) {
+                results.add(new TransactionBatchResultDTO(i, false, e.getMessage()));
+            }
+        }
+
+        //  One update per account for the net change of the whole batch
+        for (BatchAccount batchAccount : accounts.values()) {
+            String iban = batchAccount.account.getIban();
+            if (batchAccount.balanceChange < 0 && accountRepository.debitBalance(iban, -batchAccount.balanceChange) == 0) {
+                throw new TransactionExceededAbsoluteLimitException("This transaction exceeds the absolute limit of this account.");
+            } else if (batchAccount.balanceChange > 0) {
+                accountRepository.creditBalance(iban, batchAccount.balanceChange);
+            }
+            dailySpendService.add(iban, batchAccount.spent);
+        }
+
+        Iterator<Transaction> savedTransactions = transactionRepository.saveAll(transactions).iterator();
+        for (TransactionBatchResultDTO result : addedResults) {
+            result.setTransaction(new TransactionResponseDTO(savedTransactions.next()));
+        }
+        return results;
+    }
+
+    //  Every item is a batch of its own in its own database transaction, the result keeps the index of the item in the request
+    private List<TransactionBatchResultDTO> applyBatchItemByItem(User user, List<TransactionRequestDTO> transactionsIn) {
+        List<TransactionBatchResultDTO> results = new ArrayList<>(transactionsIn.size());
+        for (int i = 0; i < transactionsIn.size(); i++) {
+            TransactionRequestDTO transactionIn = transactionsIn.get(i);
+            Set<String> ibans = getIbans(transactionIn);
+
+            TransactionBatchResultDTO result;
+            try {
+                result = transactionTemplate.execute(status -> applyBatch(user, List.of(transactionIn), ibans)).get(0);
+                result.setIndex(i);
+            } catch (RuntimeException e) {
+                result = new TransactionBatchResultDTO(i, false, e.getMessage());
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    //  The same checks as a single transaction, but the absolute and daily limit use the state of the batch instead of the database
+    private Transaction applyBatchItem(User user, TransactionRequestDTO transactionIn, Map<String, BatchAccount> accounts) {
+        BatchAccount from = getBatchAccount(accounts, transactionIn.getFromAccountIban(), "from");
+        BatchAccount to = getBatchAccount(accounts, transactionIn.getToAccountIban(), "to");
+        Account fromAccount = from != null ? from.account : null;
+        Account toAccount = to != null ? to.account : null;
+        TransactionType transactionType = getTransactionType(transactionIn.getTransactionType());
+        Transaction transaction = new Transaction(fromAccount, toAccount, requireAmount(transactionIn.getAmount()), transactionIn.getLabel(), transactionIn.getDescription(), transactionType);
+
+        validateTransactionAmount(transaction);
+        long amount = transaction.getAmount();
+
+        switch (transactionType) {
+            case DEPOSIT -> {
+                validateDeposit(user, toAccount);
+                to.balanceChange += amount;
+                to.availableBalance += amount;
+            }
+            case WITHDRAW -> {
+                if (fromAccount == null) {
+                    throw new TransactionAccountNotValidException("The from account can't be empty.");
+                }
+                validateUserOwnsAccount(user, fromAccount);
+                validateTransactionLimit(fromAccount, transaction);
+                from.debit(amount);
+            }
+            case TRANSFER -> {
+                if (toAccount == null || fromAccount == null) {
+                    throw new TransactionAccountNotValidException("The to or from account can't be empty.");
+                }
+                validateUserOwnsAccount(user, fromAccount);
+                validateSavingsTransfer(fromAccount, toAccount);
+                validateTransactionLimit(fromAccount, transaction);
+                from.debit(amount);
+                to.balanceChange += amount;
+                to.availableBalance += amount;
             }
             default -> throw new TransactionTypeNotValidException("The transaction type is not valid.");
         }
+        return transaction;
+    }
+
+    private BatchAccount getBatchAccount(Map<String, BatchAccount> accounts, String iban, String side) {
+        if (iban == null) {
+            return null;
+        }
+        BatchAccount account = accounts.get(iban);
+        if (account == null) {
+            throw new TransactionAccountNotValidException("The " + side + " account does not exist.");
+        }
+        return account;
+    }
+
+    private Transaction applyPartitionedTransaction(User user, Transaction transaction) {
+        applyPartitionedBalances(user, transaction);
 
         transaction.setUser(user);
 
         transaction.setCreatedAt(java.sql.Timestamp.valueOf(LocalDateTime.now()));
 
-        return transactionRepository.save(transaction);
+        try {
+            return transactionRepository.save(transaction);
+        } catch (RuntimeException e) {
+            //  The balances were already changed by the engine, so they have to be changed back
+            reversePartitioned(transaction, e);
+            throw e;
+        }
+    }
+
+    //  A reversal that fails leaves the balances changed without a stored transaction, it is logged and added to the error that is thrown
+    private void reversePartitioned(Transaction transaction, RuntimeException failure) {
+        RuntimeException reverseFailure;
+        try {
+            LedgerEngine.LedgerResult result = ledgerEngine.reverse(transaction).join();
+            if (result == LedgerEngine.LedgerResult.OK) {
+                return;
+            }
+            reverseFailure = new IllegalStateException("The balances could not be changed back: " + result);
+        } catch (CompletionException e) {
+            reverseFailure = e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        logger.error("Reversing the {} of {} cents from {} to {} failed, the balances no longer match the stored transactions", transaction.getTransactionType(), transaction.getAmount(),
+                transaction.getFromAccount() != null ? transaction.getFromAccount().getIban() : null, transaction.getToAccount() != null ? transaction.getToAccount().getIban() : null, reverseFailure);
+        failure.addSuppressed(reverseFailure);
+    }
+
+    private void applyPartitionedBalances(User user, Transaction transaction) {
+        Account fromAccount = transaction.getFromAccount();
+        Account toAccount = transaction.getToAccount();
+
+        validateTransactionAmount(transaction);
+
+        //  The checks that don't depend on the balance are done here, the absolute and daily limit are checked by the partition that owns the account
+        switch (transaction.getTransactionType()) {
+            case DEPOSIT -> {
+                validateDeposit(user, toAccount);
+                awaitLedger(ledgerEngine.credit(toAccount.getIban(), transaction.getAmount()));
+            }
+            case WITHDRAW -> {
+                if (fromAccount == null) {
+                    throw new TransactionAccountNotValidException("The from account can't be empty.");
+                }
+                validateUserOwnsAccount(user, fromAccount);
+                validateTransactionLimit(fromAccount, transaction);
+                awaitLedger(ledgerEngine.debit(fromAccount, transaction.getAmount()));
+            }
+            case TRANSFER -> {
+                if (toAccount == null || fromAccount == null) {
+                    throw new TransactionAccountNotValidException("The to or from account can't be empty.");
+                }
+                validateUserOwnsAccount(user, fromAccount);
+                validateSavingsTransfer(fromAccount, toAccount);
+                validateTransactionLimit(fromAccount, transaction);
+                awaitLedger(ledgerEngine.transfer(fromAccount, toAccount, transaction.getAmount()));
+            }
+            default -> throw new TransactionTypeNotValidException("The transaction type is not valid.");
+        }
+    }
+
+    private void awaitLedger(CompletableFuture<LedgerEngine.LedgerResult> result) {
+        LedgerEngine.LedgerResult ledgerResult;
+        try {
+            ledgerResult = result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
+        switch (ledgerResult) {
+            case OK -> {
+            }
+            case ACCOUNT_NOT_FOUND -> throw new TransactionAccountNotValidException("The account does not exist.");
+            case ABSOLUTE_LIMIT_EXCEEDED -> throw new TransactionExceededAbsoluteLimitException("This transaction exceeds the absolute limit of this account.");
+            case DAILY_LIMIT_EXCEEDED -> throw new TransactionExceededDailyLimitException("This account exceeded the daily limit.");
+        }
     }
 
     public Transaction getById(User user, Long id) {
@@ -104,7 +703,7 @@ public class TransactionService {
     }
 
     public Transaction transactionIsOwnedByUser(User user, Long id) {
-        Transaction transaction = transactionRepository.findById(id).orElseThrow(() -> new TransactionNotFoundException("This transaction does not exist."));
+        Transaction transaction = transactionRepository.findWithAccountsById(id).orElseThrow(() -> new TransactionNotFoundException("This transaction does not exist."));
 
         if (user.getUserType().equals(UserType.EMPLOYEE)) {
             throw new UserOnlyException("This user is not of type USER.");
@@ -119,32 +718,78 @@ public class TransactionService {
         return transaction;
     }
 
-    public Page<Transaction> getAllByAccountIban(User user, String iban, Date startDate, Date endDate, String searchIban, String amountRelation, Float amount, Integer pageNumber, Integer pageSize) {
+    public Page<TransactionResponseDTO> getAllByAccountIban(User user, String iban, Date startDate, Date endDate, String searchIban, String amountRelation, Long amount, Integer pageNumber, Integer pageSize) {
         Date startOfDay = getStartOfDay(startDate);
         Date endOfDay = getEndOfDay(endDate);
 
-        if (!amountRelation.isEmpty() && !(amountRelation.equals(">") || amountRelation.equals("<") || amountRelation.equals("="))) {
-            throw new RuntimeException("The transaction amount relation is not valid.");
-        } else if (!amountRelation.isEmpty() && amount == 0) {
-            throw new RuntimeException("The amount filter can not be empty with the amount relation.");
-        }
+        validateAmountFilter(amountRelation, amount);
 
         Pageable pageableRequest = PageRequest.of(pageNumber, pageSize);
 
         //Check if user is not an employee and if the user doesn't own the account
-        if (!user.getUserType().equals(UserType.EMPLOYEE) && (user.getAccounts() == null || !user.getAccounts().stream().anyMatch(account -> account.getIban().equals(iban)))) {
+        if (!user.getUserType().equals(UserType.EMPLOYEE) && !accountRepository.checkIfAccountBelongsToUser(iban, user.getId())) {
+            throw new AccountNotOwnedException("This user does not own the specified account");
+        }
+
+        Specification<Transaction> specification = Specification.where(TransactionSpecifications.involvesIban(iban))
+                .and(TransactionSpecifications.matching(startOfDay, endOfDay, searchIban, amountRelation, amount));
+        return transactionRepository.findAllResponses(specification, pageableRequest);
+    }
+
+    public SlicePageDTO<TransactionResponseDTO> getAllByAccountIbanWithApproximateCount(User user, String iban, Date startDate, Date endDate, String searchIban, String amountRelation, Long amount, Integer pageNumber, Integer pageSize) {
+        Date startOfDay = getStartOfDay(startDate);
+        Date endOfDay = getEndOfDay(endDate);
+
+        validateAmountFilter(amountRelation, amount);
+
+        //Check if user is not an employee and if the user doesn't own the account
+        if (!user.getUserType().equals(UserType.EMPLOYEE) && !accountRepository.checkIfAccountBelongsToUser(iban, user.getId())) {
             throw new AccountNotOwnedException("This user does not own the specified account");
         }
 
-        return transactionRepository.findAllByIban(endOfDay, startOfDay, iban, searchIban, amountRelation, amount, pageableRequest);
+        Specification<Transaction> specification = Specification.where(TransactionSpecifications.involvesIban(iban))
+                .and(TransactionSpecifications.matching(startOfDay, endOfDay, searchIban, amountRelation, amount));
+        TransactionCountCache.Key key = new TransactionCountCache.Key(iban, startOfDay, endOfDay, searchIban, amountRelation, amount);
+        return getSlicePage(specification, key, PageRequest.of(pageNumber, pageSize));
+    }
+
+    public CursorPageDTO<TransactionResponseDTO> getAllByAccountIbanAfterCursor(User user, String iban, Date startDate, Date endDate, String searchIban, String amountRelation, Long amount, String cursor, Integer pageSize) {
+        validateAmountFilter(amountRelation, amount);
+
+        //Check if user is not an employee and if the user doesn't own the account
+        if (!user.getUserType().equals(UserType.EMPLOYEE) && !accountRepository.checkIfAccountBelongsToUser(iban, user.getId())) {
+            throw new AccountNotOwnedException("This user does not own the specified account");
+        }
+
+        validatePageSize(pageSize);
+
+        //  The transactions sent from and received on the account are read with two keyset queries, like the transactions of a user
+        TransactionCursor after = cursor != null && !cursor.isEmpty() ? TransactionCursor.decode(cursor) : null;
+        Specification<Transaction> filters = Specification.where(TransactionSpecifications.matching(getStartOfDay(startDate), getEndOfDay(endDate), searchIban, amountRelation, amount))
+                .and(after != null ? TransactionSpecifications.after(after.createdAt(), after.id()) : null);
+
+        List<TransactionResponseDTO> sent = transactionRepository.findAllResponses(TransactionSpecifications.sentFromIban(iban).and(filters), CURSOR_SORT, pageSize + 1);
+        List<TransactionResponseDTO> received = transactionRepository.findAllResponses(TransactionSpecifications.receivedOnIban(iban).and(filters), CURSOR_SORT, pageSize + 1);
+
+        return toMergedCursorPage(sent, received, pageSize);
+    }
+
+    public long getHeldAmount(Account account) {
+        return account.getBalance() - account.getAvailableBalance();
     }
 
-    public Double getTodaysAccumulatedTransactionAmount(String iban) {
-        LocalDate today = LocalDate.now();
-        Date startOfDay = Date.from(today.atStartOfDay(ZoneId.systemDefault()).toInstant());
-        Date endOfDay = Date.from(today.atTime(LocalTime.MAX).atZone(ZoneId.systemDefault()).toInstant());
-        List<Transaction> transactions = transactionRepository.findAllByCreatedAtBetweenAndFromAccountIban(startOfDay, endOfDay, iban);
-        return transactions.stream().mapToDouble(Transaction::getAmount).sum();
+    private void debitBalance(Account account, Transaction transaction) {
+        //  The absolute limit is checked again by the update itself, this catches a balance that changed after it was read
+        if (accountRepository.debitBalance(account.getIban(), transaction.getAmount()) == 0) {
+            throw new TransactionExceededAbsoluteLimitException("This transaction exceeds the absolute limit of this account.");
+        }
+        dailySpendService.add(account.getIban(), transaction.getAmount());
+    }
+
+    private void creditBalance(Account account, Transaction transaction) {
+        if (accountRepository.creditBalance(account.getIban(), transaction.getAmount()) == 0) {
+            throw new TransactionAccountNotValidException("The to account does not exist.");
+        }
     }
 
     private void validateDeposit(User user, Account toAccount) {
@@ -205,18 +850,72 @@ public class TransactionService {
 
     private void validateDailyLimit(Account account, Transaction transaction) {
         //Check if the transaction amount didn't exceed the total limit
-        if (account.getDailyLimit() < getTodaysAccumulatedTransactionAmount(account.getIban()) + transaction.getAmount()) {
+        //The holds that were placed today are part of the daily spend counter
+        if (account.getDailyLimit() < dailySpendService.getSpentToday(account.getIban()) + transaction.getAmount()) {
             throw new TransactionExceededDailyLimitException("This account exceeded the daily limit.");
         }
     }
 
     private void validateAbsoluteLimit(Account account, Transaction transaction) {
         //Check if transactions amount doesn't exceed the absolute limit of the account
-        if (account.getAbsoluteLimit() > account.getBalance() - transaction.getAmount()) {
+        //The available balance already has the active holds taken off
+        if (account.getAbsoluteLimit() > account.getAvailableBalance() - transaction.getAmount()) {
             throw new TransactionExceededAbsoluteLimitException("This transaction exceeds the absolute limit of this account.");
         }
     }
 
+    private void validateAmountFilter(String amountRelation, Long amount) {
+        if (!amountRelation.isEmpty() && !(amountRelation.equals(">") || amountRelation.equals("<") || amountRelation.equals("="))) {
+            throw new RuntimeException("The transaction amount relation is not valid.");
+        } else if (!amountRelation.isEmpty() && amount == 0) {
+            throw new RuntimeException("The amount filter can not be empty with the amount relation.");
+        }
+    }
+
+    //  One transaction more than the page size is read, that tells if there is a next page without counting the transactions
+    private CursorPageDTO<TransactionResponseDTO> getCursorPage(Specification<Transaction> specification, TransactionCursor after, Integer pageSize) {
+        validatePageSize(pageSize);
+        if (after != null) {
+            specification = specification.and(TransactionSpecifications.after(after.createdAt(), after.id()));
+        }
+        return toCursorPage(transactionRepository.findAllResponses(specification, CURSOR_SORT, pageSize + 1), pageSize);
+    }
+
+    private SlicePageDTO<TransactionResponseDTO> getSlicePage(Specification<Transaction> specification, TransactionCountCache.Key key, Pageable pageable) {
+        Slice<TransactionResponseDTO> transactions = transactionRepository.findSliceOfResponses(specification, pageable);
+
+        //  The last page tells the exact count, so it doesn't have to be counted
+        if (!transactions.hasNext() && (transactions.hasContent() || pageable.getOffset() == 0)) {
+            long count = pageable.getOffset() + transactions.getNumberOfElements();
+            transactionCountCache.put(key, count);
+            return new SlicePageDTO<>(transactions.getContent(), false, count);
+        }
+        return new SlicePageDTO<>(transactions.getContent(), transactions.hasNext(), transactionCountCache.get(key, specification));
+    }
+
+    private void validatePageSize(Integer pageSize) {
+        if (pageSize == null || pageSize < 1) {
+            throw new RuntimeException("The page size has to be more than zero.");
+        }
+    }
+
+    //  A transfer between two of the accounts is in both lists, it is only shown once
+    private CursorPageDTO<TransactionResponseDTO> toMergedCursorPage(List<TransactionResponseDTO> sent, List<TransactionResponseDTO> received, int pageSize) {
+        Map<Long, TransactionResponseDTO> transactions = new LinkedHashMap<>();
+        Stream.concat(sent.stream(), received.stream())
+                .sorted(CURSOR_ORDER)
+                .forEach(transaction -> transactions.putIfAbsent(transaction.getId(), transaction));
+
+        return toCursorPage(transactions.values().stream().limit(pageSize + 1).toList(), pageSize);
+    }
+
+    private CursorPageDTO<TransactionResponseDTO> toCursorPage(List<TransactionResponseDTO> transactions, int pageSize) {
+        boolean hasNextPage = transactions.size() > pageSize;
+        List<TransactionResponseDTO> page = hasNextPage ? transactions.subList(0, pageSize) : transactions;
+        String nextCursor = hasNextPage ? TransactionCursor.of(page.get(page.size() - 1)).encode() : null;
+        return new CursorPageDTO<>(page, nextCursor);
+    }
+
     private Date getStartOfDay(Date date) {
         return Date.from(date.toInstant()
                 .atZone(ZoneId.systemDefault())
@@ -248,4 +947,32 @@ public class TransactionService {
             throw new TransactionTransferSavingsException("It is not possible to transfer to a savings account from an account that is not your account.");
         }
     }
-}
\ No newline at end of file
+
+    //  The state of an account while a batch is being checked
+    private static final class BatchAccount {
+        private final Account account;
+        private long availableBalance;
+        private long spentToday;
+        private long spent;
+        private long balanceChange;
+
+        private BatchAccount(Account account, long spentToday) {
+            this.account = account;
+            this.availableBalance = account.getAvailableBalance();
+            this.spentToday = spentToday;
+        }
+
+        private void debit(long amount) {
+            if (account.getAbsoluteLimit() > availableBalance - amount) {
+                throw new TransactionExceededAbsoluteLimitException("This transaction exceeds the absolute limit of this account.");
+            }
+            if (account.getDailyLimit() < spentToday + amount) {
+                throw new TransactionExceededDailyLimitException("This account exceeded the daily limit.");
+            }
+            availableBalance -= amount;
+            spentToday += amount;
+            spent += amount;
+            balanceChange -= amount;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.models.TransactionStatus;
+import com.example.CodeGeneratieRestAPI.repositories.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//  Settles the transactions that were submitted asynchronously (POST /transactions?async=true)
+//  The workers take the ids of the PENDING transactions from a queue and settle them in batches
+@Service
+public class TransactionSettlementWorker {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionSettlementWorker.class);
+
+    //  The TransactionService also uses this worker, @Lazy breaks the circular dependency
+    @Autowired
+    @Lazy
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Value("${transactions.settlement.workers:2}")
+    private int workers;
+
+    @Value("${transactions.settlement.batch-size:32}")
+    private int batchSize;
+
+    //  The time to wait before a batch that failed is settled again, so a database that is down is not retried in a loop
+    @Value("${transactions.settlement.retry-delay-ms:1000}")
+    private long retryDelayMs;
+
+    private final BlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "transaction-settlement-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::run);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public void enqueue(Long transactionId) {
+        queue.add(transactionId);
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    //  Transactions that were still PENDING when the application stopped are settled after a restart
+    @EventListener(ApplicationReadyEvent.class)
+    public void enqueuePendingTransactions() {
+        queue.addAll(transactionRepository.findAllIdsByStatus(TransactionStatus.PENDING));
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            //  A new list for every batch, the ids of a batch that failed are added to the queue again
+            List<Long> batch = new ArrayList<>(batchSize);
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                transactionService.settle(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                //  Keep the worker alive, the transactions of this batch are settled again after a delay
+                logger.error("Settling transactions {} failed, retrying in {} ms", batch, retryDelayMs, e);
+                retryLater(batch);
+            }
+        }
+    }
+
+    private void retryLater(List<Long> batch) {
+        try {
+            Thread.sleep(retryDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        queue.addAll(batch);
+    }
+}
@@ -6,30 +6,34 @@ import com.example.CodeGeneratieRestAPI.exceptions.UserCreationException;
 import com.example.CodeGeneratieRestAPI.exceptions.UserDTOException;
 import com.example.CodeGeneratieRestAPI.exceptions.UserDeletionException;
 import com.example.CodeGeneratieRestAPI.exceptions.UserNotFoundException;
-import com.example.CodeGeneratieRestAPI.models.HashedPassword;
+import com.example.CodeGeneratieRestAPI.jwt.JwtPrincipal;
 import com.example.CodeGeneratieRestAPI.models.User;
-import com.example.CodeGeneratieRestAPI.models.UserType;
 import com.example.CodeGeneratieRestAPI.repositories.UserRepository;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.TypeMap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.List;
 import java.util.Optional;
 
 @Service
 public class UserService {
+    private static final Sort LIST_SORT = Sort.by("lastName", "firstName", "id");
 
     private final ModelMapper modelMapper;
     @Autowired
     JwtService jwtService;
     @Autowired
+    PasswordHashingService passwordHashingService;
+    @Autowired
     private UserRepository userRepository;
 
     public UserService() {
@@ -45,28 +49,27 @@ public class UserService {
         typeMap.addMappings(mapper -> mapper.skip(User::setPassword));
     }
 
+    //  A request with a JWT has the user in the claims of the token, that user only has the id, the username and the user type
+    //  The services that need the rest of the user read it from the database themselves
     public User getLoggedInUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal.toUser();
+        }
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         return userRepository.findUserByUsername(userDetails.getUsername()).orElseThrow(() -> new UserNotFoundException("User with username: " + userDetails.getUsername() + " does not exist"));
     }
 
-    public List<UserResponseDTO> getAll(Boolean hasNoAccounts) {
-        Iterable<User> users = userRepository.findAll();
-        if (users == null) {
-            throw new UserNotFoundException("No users found");
+    //  The users are sorted and paginated by the database, the filter on the accounts is a NOT EXISTS in the same query
+    public Page<UserResponseDTO> getAll(boolean hasNoAccounts, Integer pageNumber, Integer pageSize) {
+        if (pageNumber == null || pageNumber < 0) {
+            throw new RuntimeException("The page number can not be negative.");
         }
-        List<UserResponseDTO> userResponseDTOs = new ArrayList<>();
-        for (User user : users) {
-            if (hasNoAccounts) {
-                if (user.getAccounts().isEmpty() && !user.getUserType().equals(UserType.EMPLOYEE)) {
-                    userResponseDTOs.add(modelMapper.map(user, UserResponseDTO.class));
-                }
-                continue;
-            }
-            userResponseDTOs.add(modelMapper.map(user, UserResponseDTO.class));
+        if (pageSize == null || pageSize < 1) {
+            throw new RuntimeException("The page size has to be more than zero.");
         }
-        return userResponseDTOs;
+        Pageable pageable = PageRequest.of(pageNumber, pageSize, LIST_SORT);
+        return hasNoAccounts ? userRepository.findAllResponsesWithoutAccounts(pageable) : userRepository.findAllResponses(pageable);
     }
 
     public UserResponseDTO getMe(String bearerToken) {
@@ -84,7 +87,7 @@ public class UserService {
             throw new UserDTOException("Not all required fields are filled in");
         }
         User userToSave = modelMapper.map(user, User.class);
-        userToSave.setPassword(new HashedPassword(user.getPassword()));
+        userToSave.setPassword(passwordHashingService.hashAndWait(user.getPassword()));
         userToSave.setCreatedAt(CreationDate());
         userRepository.findUserByEmail(user.getEmail()).ifPresent(existingUser -> {
             throw new UserCreationException("User with email " + user.getEmail() + " already exists");
@@ -140,7 +143,7 @@ public class UserService {
         Optional.ofNullable(user.getLastName()).ifPresent(userToUpdate::setLastName);
         Optional.ofNullable(user.getUsername()).ifPresent(userToUpdate::setUsername);
         Optional.ofNullable(user.getEmail()).ifPresent(userToUpdate::setEmail);
-        Optional.ofNullable(user.getPassword()).map(HashedPassword::new).ifPresent(userToUpdate::setPassword);
+        Optional.ofNullable(user.getPassword()).map(passwordHashingService::hashAndWait).ifPresent(userToUpdate::setPassword);
         Optional.ofNullable(user.getUserType()).ifPresent(userToUpdate::setUserType);
         return userToUpdate;
     }
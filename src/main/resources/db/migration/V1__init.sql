@@ -0,0 +1,113 @@
+-- The schema of the bank, Hibernate only validates it (spring.jpa.hibernate.ddl-auto=validate)
+-- All the amounts are in cents
+
+create sequence users_seq start with 1 increment by 50;
+create sequence accounts_seq start with 1 increment by 50;
+create sequence transactions_seq start with 1 increment by 50;
+create sequence holds_seq start with 1 increment by 50;
+
+create table "users" (
+    id bigint not null,
+    first_name varchar(255),
+    last_name varchar(255),
+    username varchar(255),
+    password_hash blob,
+    password_salt blob,
+    email varchar(255),
+    user_type varchar(255),
+    created_at varchar(255),
+    primary key (id)
+);
+
+create table "accounts" (
+    id bigint not null,
+    iban varchar(255),
+    user_id bigint,
+    name varchar(255),
+    daily_limit bigint not null,
+    transaction_limit bigint not null,
+    absolute_limit bigint not null,
+    balance bigint not null,
+    available_balance bigint not null,
+    is_savings boolean,
+    created_at timestamp(6),
+    is_active boolean,
+    primary key (id),
+    constraint uk_accounts_iban unique (iban),
+    constraint fk_accounts_user foreign key (user_id) references "users"
+);
+
+-- from_iban and to_iban hold the id of the account, not the IBAN itself
+create table "transactions" (
+    id bigint not null,
+    user_id bigint,
+    from_iban bigint,
+    to_iban bigint,
+    transaction_type varchar(255),
+    label varchar(255),
+    description varchar(255),
+    amount bigint not null,
+    balance_before bigint not null,
+    created_at timestamp(6),
+    status varchar(255),
+    failure_reason varchar(255),
+    primary key (id),
+    constraint fk_transactions_user foreign key (user_id) references "users",
+    constraint fk_transactions_from_account foreign key (from_iban) references "accounts",
+    constraint fk_transactions_to_account foreign key (to_iban) references "accounts"
+);
+
+create table "holds" (
+    id bigint not null,
+    user_id bigint,
+    from_iban bigint not null,
+    to_iban bigint,
+    transaction_id bigint,
+    amount bigint not null,
+    captured_amount bigint not null,
+    description varchar(255),
+    status varchar(255),
+    created_at timestamp(6),
+    expires_at timestamp(6),
+    primary key (id),
+    constraint fk_holds_user foreign key (user_id) references "users",
+    constraint fk_holds_from_account foreign key (from_iban) references "accounts",
+    constraint fk_holds_to_account foreign key (to_iban) references "accounts",
+    constraint fk_holds_transaction foreign key (transaction_id) references "transactions"
+);
+
+create table "idempotency_keys" (
+    id varchar(255) not null,
+    request_hash varchar(255) not null,
+    status_code integer,
+    response_body clob,
+    created_at timestamp(6),
+    expires_at timestamp(6),
+    primary key (id)
+);
+
+-- The counters are always looked up by IBAN and day
+create table "daily_spend" (
+    iban varchar(255) not null,
+    spend_date date not null,
+    amount bigint not null,
+    primary key (iban, spend_date)
+);
+
+-- The transactions of an account within a date range, these also serve the foreign keys of the accounts
+create index idx_transactions_from_iban_created_at on "transactions" (from_iban, created_at);
+create index idx_transactions_to_iban_created_at on "transactions" (to_iban, created_at);
+-- The listing of all transactions within a date range, the id makes it match the order of the keyset pagination
+create index idx_transactions_created_at_id on "transactions" (created_at, id);
+create index idx_transactions_user_id on "transactions" (user_id);
+-- The settlement workers pick up the pending transactions
+create index idx_transactions_status on "transactions" (status);
+
+create index idx_accounts_user_id_is_active on "accounts" (user_id, is_active);
+
+create index idx_users_username on "users" (username);
+create index idx_users_email on "users" (email);
+
+create index idx_holds_status on "holds" (status);
+
+create index idx_idempotency_keys_expires_at on "idempotency_keys" (expires_at);
@@ -18,6 +18,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -72,14 +73,14 @@ public class AccountControllerTest {
         return user;
     }
 
-    private Account getMockAccount(String iban, Float balance, User user, Boolean isSavings) {
+    private Account getMockAccount(String iban, long balance, User user, Boolean isSavings) {
         Account account = new Account();
         account.setIban(iban);
         account.setUser(user);
         account.setBalance(balance);
-        account.setAbsoluteLimit(10F);
-        account.setDailyLimit(200F);
-        account.setTransactionLimit(100F);
+        account.setAbsoluteLimit(1000L);
+        account.setDailyLimit(20000L);
+        account.setTransactionLimit(10000L);
         account.setIsActive(true);
         account.setIsSavings(isSavings);
         return account;
@@ -87,16 +88,16 @@ public class AccountControllerTest {
 
     private AccountRequestDTO getMockAccountRequestDTO() {
         AccountRequestDTO accountRequestDTO = new AccountRequestDTO();
-        accountRequestDTO.setBalance(1000.0F);
-        accountRequestDTO.setAbsoluteLimit(10F);
-        accountRequestDTO.setDailyLimit(500F);
-        accountRequestDTO.setTransactionLimit(100F);
+        accountRequestDTO.setBalance(100000L);
+        accountRequestDTO.setAbsoluteLimit(1000L);
+        accountRequestDTO.setDailyLimit(50000L);
+        accountRequestDTO.setTransactionLimit(10000L);
         accountRequestDTO.setName("Test account");
         accountRequestDTO.setIsActive(true);
         return accountRequestDTO;
     }
 
-    private Transaction getMockTransaction(Long id, User user, Float amount, TransactionType transactionType, Account fromAccount, Account toAccount) {
+    private Transaction getMockTransaction(Long id, User user, long amount, TransactionType transactionType, Account fromAccount, Account toAccount) {
         Transaction transaction = new Transaction();
         transaction.setId(id);
         transaction.setAmount(amount);
@@ -149,12 +150,12 @@ public class AccountControllerTest {
     void getAllAccounts() throws Exception {
         User user = getMockUser(1L, UserType.USER, "Gerrit");
 
-        List<Account> accounts = new ArrayList<>();
-        accounts.add(getMockAccount("NL01-INHO-0000-0000-44", 1000F, user, false));
-        accounts.add(getMockAccount("NL01-INHO-0000-0000-45", 1000F, user, false));
+        List<AccountResponseDTO> accounts = new ArrayList<>();
+        accounts.add(new AccountResponseDTO(getMockAccount("NL01-INHO-0000-0000-44", 100000L, user, false)));
+        accounts.add(new AccountResponseDTO(getMockAccount("NL01-INHO-0000-0000-45", 100000L, user, false)));
 
         when(userService.getLoggedInUser()).thenReturn(user);
-        when(accountService.getAllAccounts("", null, user)).thenReturn(accounts);
+        when(accountService.getAllAccounts("", null, 0, 50, user)).thenReturn(new PageImpl<>(accounts));
 
         //  Check if we get a 200 OK
         //  And if the JSON content matches our expected object
@@ -162,7 +163,8 @@ public class AccountControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.data[0].iban").value("NL01-INHO-0000-0000-44"))
                 .andExpect(jsonPath("$.data[1].iban").value("NL01-INHO-0000-0000-45"))
-                .andExpect(jsonPath("$.data", hasSize(2)));
+                .andExpect(jsonPath("$.data", hasSize(2)))
+                .andExpect(jsonPath("$.message").value("2 Accounts retrieved"));
     }
 
     @Test
@@ -170,9 +172,9 @@ public class AccountControllerTest {
     void getAllAccountsByUserId() throws Exception {
         User user = getMockUser(1L, UserType.USER, "Gerrit");
 
-        List<Account> accounts = new ArrayList<>();
-        accounts.add(getMockAccount("NL01-INHO-0000-0000-44", 1000F, user, false));
-        accounts.add(getMockAccount("NL01-INHO-0000-0000-45", 1000F, user, false));
+        List<AccountResponseDTO> accounts = new ArrayList<>();
+        accounts.add(new AccountResponseDTO(getMockAccount("NL01-INHO-0000-0000-44", 100000L, user, false)));
+        accounts.add(new AccountResponseDTO(getMockAccount("NL01-INHO-0000-0000-45", 100000L, user, false)));
 
         when(userService.getLoggedInUser()).thenReturn(user);
         when(accountService.getAllAccountsByUserId(user.getId(), user)).thenReturn(accounts);
@@ -205,7 +207,7 @@ public class AccountControllerTest {
     @WithMockUser(username = "Dewi", password = "Dewi123", roles = "USER")
     void getAccountByIban() throws Exception {
         User user = getMockUser(1L, UserType.USER, "Gerrit");
-        Account account = getMockAccount("NL01-INHO-0000-0000-44", 1000F, user, false);
+        Account account = getMockAccount("NL01-INHO-0000-0000-44", 100000L, user, false);
 
         when(userService.getLoggedInUser()).thenReturn(user);
         when(accountService.getAccountByIban(account.getIban(), user)).thenReturn(new AccountData(new AccountResponseDTO(account), new AccountLimitsLeft()));
@@ -237,7 +239,7 @@ public class AccountControllerTest {
     void updateAccount() throws Exception {
         User user = getMockUser(1L, UserType.USER, "Patrick");
 
-        Account account = getMockAccount("NL01-INHO-0000-0000-44", 1000F, user, false);
+        Account account = getMockAccount("NL01-INHO-0000-0000-44", 100000L, user, false);
         AccountRequestDTO accountRequestDTO = getMockAccountRequestDTO();
         accountRequestDTO.setIban("NL01-INHO-0000-0000-44");
 
@@ -286,7 +288,7 @@ public class AccountControllerTest {
     void deleteAccount() throws Exception {
         User user = getMockUser(1L, UserType.USER, "Patrick");
 
-        Account account = getMockAccount("NL01-INHO-0000-0000-44", 1000F, user, false);
+        Account account = getMockAccount("NL01-INHO-0000-0000-44", 100000L, user, false);
 
         when(userService.getLoggedInUser()).thenReturn(user);
         when(accountService.delete(account.getIban(), user)).thenReturn("Account with IBAN: " + account.getIban() + " has been set to inactive");
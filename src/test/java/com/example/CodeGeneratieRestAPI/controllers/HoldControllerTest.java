@@ -0,0 +1,149 @@
+package com.example.CodeGeneratieRestAPI.controllers;
+
+import com.example.CodeGeneratieRestAPI.dtos.HoldRequestDTO;
+import com.example.CodeGeneratieRestAPI.exceptions.HoldNotActiveException;
+import com.example.CodeGeneratieRestAPI.jwt.JwTokenProvider;
+import com.example.CodeGeneratieRestAPI.models.*;
+import com.example.CodeGeneratieRestAPI.repositories.AccountRepository;
+import com.example.CodeGeneratieRestAPI.repositories.TransactionRepository;
+import com.example.CodeGeneratieRestAPI.repositories.UserRepository;
+import com.example.CodeGeneratieRestAPI.services.HoldService;
+import com.example.CodeGeneratieRestAPI.services.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Date;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(HoldController.class)
+@AutoConfigureMockMvc
+class HoldControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private HoldService holdService;
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private UserRepository userRepository;
+    @MockBean
+    private TransactionRepository transactionRepository;
+    @MockBean
+    private AccountRepository accountRepository;
+
+    @MockBean
+    private JwTokenProvider jwTokenProvider;
+
+    private User getMockUser(Long id, UserType userType, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUserType(userType);
+        user.setUsername(username);
+        user.setPassword(new HashedPassword("john"));
+        return user;
+    }
+
+    private Account getMockAccount(String iban, long balance, User user) {
+        Account account = new Account();
+        account.setIban(iban);
+        account.setUser(user);
+        account.setBalance(balance);
+        account.setAbsoluteLimit(1000L);
+        account.setDailyLimit(20000L);
+        account.setTransactionLimit(10000L);
+        account.setIsSavings(false);
+        return account;
+    }
+
+    private Hold getMockHold(User user, Account fromAccount, long amount, HoldStatus status) {
+        Hold hold = new Hold(user, fromAccount, null, amount, "", new Date());
+        hold.setId(1L);
+        hold.setStatus(status);
+        return hold;
+    }
+
+    @Test
+    @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
+    void placeHold() throws Exception {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user);
+        Hold hold = getMockHold(user, fromAccount, 6000L, HoldStatus.ACTIVE);
+
+        when(holdService.place(any(User.class), any(HoldRequestDTO.class))).thenReturn(hold);
+        when(userService.getLoggedInUser()).thenReturn(user);
+
+        String json = new ObjectMapper().writeValueAsString(new HoldRequestDTO(fromAccount.getIban(), null, 6000L, "", null));
+
+        this.mockMvc.perform(post("/transactions/holds").header("Authorization", "test").with(csrf()).contentType(MediaType.APPLICATION_JSON).content(json).accept(MediaType.APPLICATION_JSON)).andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.status").value("ACTIVE"))
+                .andExpect(jsonPath("$.data.fromAccountIban").value("123456"));
+    }
+
+    @Test
+    @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
+    void captureHold() throws Exception {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user);
+        Hold hold = getMockHold(user, fromAccount, 6000L, HoldStatus.CAPTURED);
+        hold.setCapturedAmount(4000L);
+
+        when(holdService.capture(any(User.class), eq(1L), eq(4000L))).thenReturn(hold);
+        when(userService.getLoggedInUser()).thenReturn(user);
+
+        this.mockMvc.perform(post("/transactions/holds/1/capture?amount=40").header("Authorization", "test").with(csrf())).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("CAPTURED"))
+                .andExpect(jsonPath("$.data.capturedAmount").value("40.0"));
+    }
+
+    @Test
+    @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
+    void releaseInactiveHold() throws Exception {
+        User user = getMockUser(1L, UserType.USER, "john");
+
+        when(holdService.release(any(User.class), eq(1L))).thenThrow(new HoldNotActiveException("This hold is already expired."));
+        when(userService.getLoggedInUser()).thenReturn(user);
+
+        this.mockMvc.perform(post("/transactions/holds/1/release").header("Authorization", "test").with(csrf())).andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("This hold is already expired."));
+    }
+
+    @Test
+    @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
+    void getHold() throws Exception {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user);
+        Hold hold = getMockHold(user, fromAccount, 6000L, HoldStatus.ACTIVE);
+
+        when(holdService.getById(any(User.class), eq(1L))).thenReturn(hold);
+        when(userService.getLoggedInUser()).thenReturn(user);
+
+        this.mockMvc.perform(get("/transactions/holds/1").header("Authorization", "test")).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.amount").value("60.0"));
+    }
+}
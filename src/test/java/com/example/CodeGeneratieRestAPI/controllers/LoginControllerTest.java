@@ -4,6 +4,9 @@ package com.example.CodeGeneratieRestAPI.controllers;
 
 import com.example.CodeGeneratieRestAPI.dtos.LoginRequestDTO;
 import com.example.CodeGeneratieRestAPI.dtos.LoginResponseDTO;
+import com.example.CodeGeneratieRestAPI.exceptions.LoginThrottledException;
+import com.example.CodeGeneratieRestAPI.exceptions.PasswordHashingBusyException;
+import com.example.CodeGeneratieRestAPI.exceptions.PasswordValidationException;
 import com.example.CodeGeneratieRestAPI.models.ApiResponse;
 import com.example.CodeGeneratieRestAPI.models.UserType;
 import com.example.CodeGeneratieRestAPI.services.LoginService;
@@ -12,8 +15,12 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.when;
@@ -26,6 +33,8 @@ class LoginControllerTest {
     @Mock
     private LoginService loginService;
 
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -62,12 +71,49 @@ class LoginControllerTest {
         LoginRequestDTO loginRequestDTO = getMockLoginRequestDTO();
         LoginResponseDTO loginResponseDTO = getMockLoginResponseDTO();
 
-        when(loginService.login(loginRequestDTO)).thenReturn(loginResponseDTO);
+        when(loginService.login(loginRequestDTO, "127.0.0.1")).thenReturn(CompletableFuture.completedFuture(loginResponseDTO));
 
-        ResponseEntity<ApiResponse<LoginResponseDTO>> responseEntity = loginController.login(loginRequestDTO);
+        ResponseEntity<ApiResponse<LoginResponseDTO>> responseEntity = loginController.login(loginRequestDTO, request).join();
 
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertEquals(loginResponseDTO, responseEntity.getBody().getData());
     }
+
+    @Test
+    void testLoginWithIncorrectPassword() {
+        LoginRequestDTO loginRequestDTO = getMockLoginRequestDTO();
+
+        when(loginService.login(loginRequestDTO, "127.0.0.1")).thenReturn(CompletableFuture.failedFuture(new PasswordValidationException("Password is incorrect")));
+
+        ResponseEntity<ApiResponse<LoginResponseDTO>> responseEntity = loginController.login(loginRequestDTO, request).join();
+
+        assertEquals(new PasswordValidationException("").getStatusCode(), responseEntity.getStatusCode());
+        assertEquals("Password is incorrect", responseEntity.getBody().getMessage());
+    }
+
+    //  When the hashing pool is full the client is told when to try again
+    @Test
+    void testLoginWhenHashingIsBusy() {
+        LoginRequestDTO loginRequestDTO = getMockLoginRequestDTO();
+
+        when(loginService.login(loginRequestDTO, "127.0.0.1")).thenThrow(new PasswordHashingBusyException("Too many requests at the moment, try again later", 2));
+
+        ResponseEntity<ApiResponse<LoginResponseDTO>> responseEntity = loginController.login(loginRequestDTO, request).join();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, responseEntity.getStatusCode());
+        assertEquals("2", responseEntity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void testLoginThrottled() {
+        LoginRequestDTO loginRequestDTO = getMockLoginRequestDTO();
+
+        when(loginService.login(loginRequestDTO, "127.0.0.1")).thenThrow(new LoginThrottledException("Too many login attempts, try again later", 6));
+
+        ResponseEntity<ApiResponse<LoginResponseDTO>> responseEntity = loginController.login(loginRequestDTO, request).join();
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, responseEntity.getStatusCode());
+        assertEquals("6", responseEntity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
 }
 // END: 1a2b3c4d5e6f
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.example.CodeGeneratieRestAPI.controllers;
+
+import com.example.CodeGeneratieRestAPI.helpers.QueryBudgetInterceptor;
+import com.example.CodeGeneratieRestAPI.helpers.QueryCounter;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//  Runs the endpoints with a @QueryBudget against the seeded database, a change that adds a query per row (N+1) fails these tests
+@SpringBootTest
+@AutoConfigureMockMvc
+public class QueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private String user;
+    private String employee;
+
+    @BeforeEach
+    public void init() throws Exception {
+        user = login("Dewi", "Dewi");
+        employee = login("admin", "admin");
+    }
+
+    private String login(String username, String password) throws Exception {
+        //  The login is asynchronous, the response is written when the password is checked
+        MvcResult login = mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"))
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(login))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return "Bearer " + JsonPath.read(body, "$.data.token");
+    }
+
+    private static ResultMatcher withinQueryBudget() {
+        return result -> {
+            QueryCounter.Count count = (QueryCounter.Count) result.getRequest().getAttribute(QueryBudgetInterceptor.COUNT_ATTRIBUTE);
+            Integer budget = (Integer) result.getRequest().getAttribute(QueryBudgetInterceptor.BUDGET_ATTRIBUTE);
+
+            Assertions.assertNotNull(budget, result.getRequest().getRequestURI() + " has no @QueryBudget");
+            Assertions.assertTrue(count.getStatements() <= budget, result.getRequest().getRequestURI() + " ran " + count.getStatements() + " SQL statements, the budget is " + budget);
+        };
+    }
+
+    @Test
+    public void testStatementsAreCounted() throws Exception {
+        QueryCounter.Count count = (QueryCounter.Count) mockMvc.perform(get("/users").param("hasNoAccounts", "true").header("Authorization", employee))
+                .andReturn().getRequest().getAttribute(QueryBudgetInterceptor.COUNT_ATTRIBUTE);
+
+        //  The first page is not full, so the page itself tells the count and the count query is skipped
+        Assertions.assertEquals(1, count.getStatements());
+    }
+
+    @Test
+    public void testGetAllUsers() throws Exception {
+        mockMvc.perform(get("/users").param("hasNoAccounts", "false").header("Authorization", employee))
+                .andExpect(status().isFound())
+                .andExpect(withinQueryBudget());
+        mockMvc.perform(get("/users").param("hasNoAccounts", "true").header("Authorization", employee))
+                .andExpect(status().isFound())
+                .andExpect(withinQueryBudget());
+    }
+
+    @Test
+    public void testGetAllAccounts() throws Exception {
+        mockMvc.perform(get("/accounts").header("Authorization", user))
+                .andExpect(status().isOk())
+                .andExpect(withinQueryBudget());
+        mockMvc.perform(get("/accounts").param("search", "").header("Authorization", employee))
+                .andExpect(status().isOk())
+                .andExpect(withinQueryBudget());
+    }
+
+    @Test
+    public void testGetAllTransactionsByUser() throws Exception {
+        mockMvc.perform(get("/transactions/user").header("Authorization", user))
+                .andExpect(status().isOk())
+                .andExpect(withinQueryBudget());
+    }
+
+    @Test
+    public void testGetAllTransactions() throws Exception {
+        mockMvc.perform(get("/transactions").header("Authorization", employee)
+                        .param("start_date", "2000-01-01").param("end_date", "2100-01-01").param("iban", "").param("amount_relation", "")
+                        .param("page_number", "0").param("page_size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(withinQueryBudget());
+    }
+
+    //  The page without a count, the count is done by another thread and not by the request
+    @Test
+    public void testGetAllTransactionsWithApproximateCount() throws Exception {
+        QueryCounter.Count count = (QueryCounter.Count) mockMvc.perform(get("/transactions").header("Authorization", employee)
+                        .param("start_date", "2000-01-01").param("end_date", "2100-01-01").param("iban", "").param("amount_relation", "")
+                        .param("page_number", "0").param("page_size", "1").param("approximate_count", "true"))
+                .andExpect(status().isOk())
+                .andExpect(withinQueryBudget())
+                .andReturn().getRequest().getAttribute(QueryBudgetInterceptor.COUNT_ATTRIBUTE);
+
+        //  Only the page, the logged-in user comes from the token
+        Assertions.assertEquals(1, count.getStatements());
+    }
+
+    @Test
+    public void testGetAllTransactionsByAccountIban() throws Exception {
+        String accounts = mockMvc.perform(get("/accounts").param("search", "").header("Authorization", user)).andReturn().getResponse().getContentAsString();
+        String iban = JsonPath.read(accounts, "$.data[0].iban");
+
+        mockMvc.perform(get("/transactions/accounts/" + iban).header("Authorization", user)
+                        .param("start_date", "2000-01-01").param("end_date", "2100-01-01").param("search_iban", "").param("amount_relation", "")
+                        .param("page_number", "0").param("page_size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(withinQueryBudget());
+    }
+}
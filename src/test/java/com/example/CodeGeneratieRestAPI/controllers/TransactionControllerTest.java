@@ -1,6 +1,12 @@
 package com.example.CodeGeneratieRestAPI.controllers;
 
+import com.example.CodeGeneratieRestAPI.dtos.CursorPageDTO;
+import com.example.CodeGeneratieRestAPI.dtos.SlicePageDTO;
+import com.example.CodeGeneratieRestAPI.dtos.TransactionBatchResultDTO;
 import com.example.CodeGeneratieRestAPI.dtos.TransactionRequestDTO;
+import com.example.CodeGeneratieRestAPI.dtos.TransactionResponseDTO;
+import com.example.CodeGeneratieRestAPI.exceptions.EmployeeOnlyException;
+import com.example.CodeGeneratieRestAPI.exceptions.IdempotencyKeyInUseException;
 import com.example.CodeGeneratieRestAPI.exceptions.TransactionAmountNotValidException;
 import com.example.CodeGeneratieRestAPI.exceptions.TransactionNotOwnedException;
 import com.example.CodeGeneratieRestAPI.jwt.JwTokenProvider;
@@ -8,6 +14,7 @@ import com.example.CodeGeneratieRestAPI.models.*;
 import com.example.CodeGeneratieRestAPI.repositories.AccountRepository;
 import com.example.CodeGeneratieRestAPI.repositories.TransactionRepository;
 import com.example.CodeGeneratieRestAPI.repositories.UserRepository;
+import com.example.CodeGeneratieRestAPI.services.IdempotencyService;
 import com.example.CodeGeneratieRestAPI.services.TransactionService;
 import com.example.CodeGeneratieRestAPI.services.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -16,6 +23,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
@@ -26,6 +34,7 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
@@ -33,23 +42,38 @@ import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 // IntelliJ probably already loads the spring context
 // Just in case, we use @ExtendWith to ensure the context is loaded.
 // We use @WebMvcTest because it allows us to only test the controller
 // and not load in anything else (repositories, services etc.)
+// The export is written by another thread, which adds headers to the response when it is committed
+// The automatic print of the result would read those headers at the same time, so only the tests that call print() print
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(TransactionController.class)
-@AutoConfigureMockMvc
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
 class TransactionControllerTest {
 
     // We use a unit test for controller methods to test any custom logic we have in there
@@ -66,6 +90,8 @@ class TransactionControllerTest {
     private TransactionService transactionService;
     @MockBean
     private UserService userService;
+    @MockBean
+    private IdempotencyService idempotencyService;
 
     @MockBean
     private UserRepository userRepository;
@@ -93,19 +119,19 @@ class TransactionControllerTest {
         return user;
     }
 
-    private Account getMockAccount(String iban, Float balance, User user, Boolean isSavings) {
+    private Account getMockAccount(String iban, long balance, User user, Boolean isSavings) {
         Account account = new Account();
         account.setIban(iban);
         account.setUser(user);
         account.setBalance(balance);
-        account.setAbsoluteLimit(10F);
-        account.setDailyLimit(200F);
-        account.setTransactionLimit(100F);
+        account.setAbsoluteLimit(1000L);
+        account.setDailyLimit(20000L);
+        account.setTransactionLimit(10000L);
         account.setIsSavings(isSavings);
         return account;
     }
 
-    private Transaction getMockTransaction(Long id, User user, Float amount, TransactionType transactionType, Account fromAccount, Account toAccount) {
+    private Transaction getMockTransaction(Long id, User user, long amount, TransactionType transactionType, Account fromAccount, Account toAccount) {
         Transaction transaction = new Transaction();
         transaction.setId(id);
         transaction.setAmount(amount);
@@ -121,23 +147,23 @@ class TransactionControllerTest {
     @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
     void getAll() throws Exception {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account fromAccount = getMockAccount("123456", 1000F, user, false);
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
 
         LocalDate today = LocalDate.now();
         Date startDate = Date.from(today.atStartOfDay(ZoneId.systemDefault()).toInstant());
         Date endDate = Date.from(today.atStartOfDay(ZoneId.systemDefault()).toInstant());
         String search = "";
-        List<Transaction> transactions = new ArrayList<>();
-        transactions.add(getMockTransaction(1L, user, 60F, TransactionType.WITHDRAW, fromAccount, null));
-        transactions.add(getMockTransaction(2L, user, 60F, TransactionType.WITHDRAW, fromAccount, null));
+        List<TransactionResponseDTO> transactions = new ArrayList<>();
+        transactions.add(new TransactionResponseDTO(getMockTransaction(1L, user, 6000L, TransactionType.WITHDRAW, fromAccount, null)));
+        transactions.add(new TransactionResponseDTO(getMockTransaction(2L, user, 6000L, TransactionType.WITHDRAW, fromAccount, null)));
 
         Integer pageNumber = 0, pageSize = 10;
 
         Pageable pageableRequest = PageRequest.of(pageNumber, pageSize);
 
-        Page<Transaction> pageTransactions = new PageImpl<>(transactions, pageableRequest, transactions.size());
+        Page<TransactionResponseDTO> pageTransactions = new PageImpl<>(transactions, pageableRequest, transactions.size());
 
-        when(transactionService.getAll(user, startDate, endDate, "", "", 0F, pageNumber, pageSize)).thenReturn(pageTransactions);
+        when(transactionService.getAll(user, startDate, endDate, "", "", 0L, pageNumber, pageSize)).thenReturn(pageTransactions);
         when(userService.getLoggedInUser()).thenReturn(user);
 
         SimpleDateFormat DateFormat = new SimpleDateFormat("yyyy-MM-dd");
@@ -150,34 +176,104 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.data[0].amount").value("60.0"));
     }
 
+    @Test
+    @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
+    void getAllWithApproximateCount() throws Exception {
+        User user = getMockUser(1L, UserType.EMPLOYEE, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+
+        LocalDate today = LocalDate.now();
+        Date startDate = Date.from(today.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        Date endDate = Date.from(today.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        List<TransactionResponseDTO> transactions = new ArrayList<>();
+        transactions.add(new TransactionResponseDTO(getMockTransaction(1L, user, 6000L, TransactionType.WITHDRAW, fromAccount, null)));
+
+        when(transactionService.getAllWithApproximateCount(user, startDate, endDate, "", "", 0L, 0, 1)).thenReturn(new SlicePageDTO<>(transactions, true, 42L));
+        when(userService.getLoggedInUser()).thenReturn(user);
+
+        SimpleDateFormat DateFormat = new SimpleDateFormat("yyyy-MM-dd");
+
+        this.mockMvc.perform(get("/transactions?start_date=" + DateFormat.format(startDate) + "&end_date=" + DateFormat.format(endDate) + "&iban=&amount_relation=&amount=&page_number=0&page_size=1&approximate_count=true").header("Authorization", "test")).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(1)))
+                .andExpect(jsonPath("$.data.has_next").value(true))
+                .andExpect(jsonPath("$.data.approximate_total").value(42));
+    }
+
+    @Test
+    @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
+    void getAllWithCursor() throws Exception {
+        User user = getMockUser(1L, UserType.EMPLOYEE, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+
+        LocalDate today = LocalDate.now();
+        Date startDate = Date.from(today.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        List<TransactionResponseDTO> transactions = List.of(new TransactionResponseDTO(getMockTransaction(2L, user, 6000L, TransactionType.WITHDRAW, fromAccount, null)));
+
+        when(transactionService.getAllAfterCursor(user, startDate, startDate, "", "", 0L, "abc", 1)).thenReturn(new CursorPageDTO<>(transactions, "def"));
+        when(userService.getLoggedInUser()).thenReturn(user);
+
+        SimpleDateFormat DateFormat = new SimpleDateFormat("yyyy-MM-dd");
+
+        // With a cursor the cursor of the next page is returned instead of the total amount of transactions
+        this.mockMvc.perform(get("/transactions?start_date=" + DateFormat.format(startDate) + "&end_date=" + DateFormat.format(startDate) + "&iban=&amount_relation=&amount=&page_size=1&cursor=abc").header("Authorization", "test")).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(1)))
+                .andExpect(jsonPath("$.data.next_cursor").value("def"));
+    }
+
+    @Test
+    @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
+    void getAllWithoutPageNumberReturnsFirstPage() throws Exception {
+        User user = getMockUser(1L, UserType.EMPLOYEE, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+
+        LocalDate today = LocalDate.now();
+        Date startDate = Date.from(today.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        List<TransactionResponseDTO> transactions = List.of(new TransactionResponseDTO(getMockTransaction(1L, user, 6000L, TransactionType.WITHDRAW, fromAccount, null)));
+
+        when(transactionService.getAll(user, startDate, startDate, "", "", 0L, 0, 10)).thenReturn(new PageImpl<>(transactions, PageRequest.of(0, 10), transactions.size()));
+        when(userService.getLoggedInUser()).thenReturn(user);
+
+        SimpleDateFormat DateFormat = new SimpleDateFormat("yyyy-MM-dd");
+
+        // Without a page number and a cursor the first page of the offset pagination is returned
+        this.mockMvc.perform(get("/transactions?start_date=" + DateFormat.format(startDate) + "&end_date=" + DateFormat.format(startDate) + "&iban=&amount_relation=&amount=&page_size=10").header("Authorization", "test")).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)));
+
+        verify(transactionService, never()).getAllAfterCursor(any(), any(), any(), any(), any(), anyLong(), any(), anyInt());
+    }
+
     @Test
     @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
     void getAllByUserId() throws Exception {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account fromAccount = getMockAccount("123456", 1000F, user, false);
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
 
-        List<Transaction> transactions = new ArrayList<>();
-        transactions.add(getMockTransaction(1L, user, 60F, TransactionType.WITHDRAW, fromAccount, null));
-        transactions.add(getMockTransaction(2L, user, 60F, TransactionType.WITHDRAW, fromAccount, null));
+        List<TransactionResponseDTO> transactions = new ArrayList<>();
+        transactions.add(new TransactionResponseDTO(getMockTransaction(1L, user, 6000L, TransactionType.WITHDRAW, fromAccount, null)));
+        transactions.add(new TransactionResponseDTO(getMockTransaction(2L, user, 6000L, TransactionType.WITHDRAW, fromAccount, null)));
 
-        when(transactionService.getAllByUser(user)).thenReturn(transactions);
+        when(transactionService.getAllByUser(user, null, null, "", null, 50)).thenReturn(new CursorPageDTO<>(transactions, "next"));
         when(userService.getLoggedInUser()).thenReturn(user);
 
         // Check if we get a 200 OK
         // And if the JSON content matches our expectations
         this.mockMvc.perform(get("/transactions/user").header("Authorization", "test")).andDo(print())
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.data", hasSize(transactions.size())))
-                .andExpect(jsonPath("$.data[0].amount").value("60.0"));
+                .andExpect(jsonPath("$.data.items", hasSize(transactions.size())))
+                .andExpect(jsonPath("$.data.items[0].amount").value("60.0"))
+                .andExpect(jsonPath("$.data.next_cursor").value("next"));
     }
 
     @Test
     @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
     void getById() throws Exception {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account fromAccount = getMockAccount("123456", 1000F, user, false);
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
 
-        Transaction transaction = getMockTransaction(1L, user, 60F, TransactionType.WITHDRAW, fromAccount, null);
+        Transaction transaction = getMockTransaction(1L, user, 6000L, TransactionType.WITHDRAW, fromAccount, null);
 
         when(transactionService.getById(user, transaction.getId())).thenReturn(transaction);
         when(userService.getLoggedInUser()).thenReturn(user);
@@ -193,23 +289,23 @@ class TransactionControllerTest {
     @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
     void getAllByAccountIban() throws Exception {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account fromAccount = getMockAccount("123456", 1000F, user, false);
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
 
         LocalDate today = LocalDate.now();
         Date startDate = Date.from(today.atStartOfDay(ZoneId.systemDefault()).toInstant());
         Date endDate = Date.from(today.atStartOfDay(ZoneId.systemDefault()).toInstant());
         String search = "";
-        List<Transaction> transactions = new ArrayList<>();
-        transactions.add(getMockTransaction(1L, user, 60F, TransactionType.WITHDRAW, fromAccount, null));
-        transactions.add(getMockTransaction(2L, user, 60F, TransactionType.WITHDRAW, fromAccount, null));
+        List<TransactionResponseDTO> transactions = new ArrayList<>();
+        transactions.add(new TransactionResponseDTO(getMockTransaction(1L, user, 6000L, TransactionType.WITHDRAW, fromAccount, null)));
+        transactions.add(new TransactionResponseDTO(getMockTransaction(2L, user, 6000L, TransactionType.WITHDRAW, fromAccount, null)));
 
         Integer pageNumber = 0, pageSize = 10;
 
         Pageable pageableRequest = PageRequest.of(pageNumber, pageSize);
 
-        Page<Transaction> pageTransactions = new PageImpl<>(transactions, pageableRequest, transactions.size());
+        Page<TransactionResponseDTO> pageTransactions = new PageImpl<>(transactions, pageableRequest, transactions.size());
 
-        when(transactionService.getAllByAccountIban(user, fromAccount.getIban(), startDate, endDate, "", "", 0F, 0, 10)).thenReturn(pageTransactions);
+        when(transactionService.getAllByAccountIban(user, fromAccount.getIban(), startDate, endDate, "", "", 0L, 0, 10)).thenReturn(pageTransactions);
         when(userService.getLoggedInUser()).thenReturn(user);
 
         SimpleDateFormat DateFormat = new SimpleDateFormat("yyyy-MM-dd");
@@ -226,9 +322,9 @@ class TransactionControllerTest {
     @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
     void transactionIsOwnedByUser() throws Exception {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account fromAccount = getMockAccount("123456", 1000F, user, false);
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
 
-        Transaction transaction = getMockTransaction(1L, user, 60F, TransactionType.WITHDRAW, fromAccount, null);
+        Transaction transaction = getMockTransaction(1L, user, 6000L, TransactionType.WITHDRAW, fromAccount, null);
 
         when(transactionService.transactionIsOwnedByUser(user, transaction.getId())).thenReturn(transaction);
         when(userService.getLoggedInUser()).thenReturn(user);
@@ -245,9 +341,9 @@ class TransactionControllerTest {
     void transactionIsNotOwnedByUser() throws Exception {
         User user = getMockUser(1L, UserType.USER, "john");
         User user1 = getMockUser(2L, UserType.USER, "john1");
-        Account fromAccount = getMockAccount("123456", 1000F, user, false);
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
 
-        Transaction transaction = getMockTransaction(1L, user1, 60F, TransactionType.WITHDRAW, fromAccount, null);
+        Transaction transaction = getMockTransaction(1L, user1, 6000L, TransactionType.WITHDRAW, fromAccount, null);
 
         when(transactionService.transactionIsOwnedByUser(user, transaction.getId())).thenThrow(new TransactionNotOwnedException("This user does not own the specified transaction"));
         when(userService.getLoggedInUser()).thenReturn(user);
@@ -263,9 +359,9 @@ class TransactionControllerTest {
     @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
     void addTransaction() throws Exception {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account fromAccount = getMockAccount("123456", 1000F, user, false);
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
 
-        Transaction transaction = getMockTransaction(1L, user, 60F, TransactionType.WITHDRAW, fromAccount, null);
+        Transaction transaction = getMockTransaction(1L, user, 6000L, TransactionType.WITHDRAW, fromAccount, null);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(transactionService.add(any(User.class), any(TransactionRequestDTO.class))).thenReturn(transaction);
@@ -280,13 +376,130 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.data.amount").value("60.0"));
     }
 
+    @Test
+    @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
+    void addTransactionAmountWithThreeDecimals() throws Exception {
+        String json = "{\"fromAccountIban\":\"123456\",\"transactionType\":\"WITHDRAW\",\"amount\":10.505}";
+
+        this.mockMvc.perform(post("/transactions").header("Authorization", "test").with(org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf()).contentType(MediaType.APPLICATION_JSON).content(json).accept(MediaType.APPLICATION_JSON)).andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("The amount can't have more than two decimals."));
+        verify(transactionService, never()).add(any(User.class), any(TransactionRequestDTO.class));
+    }
+
+    @Test
+    @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
+    void addTransactionAsync() throws Exception {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+
+        Transaction transaction = getMockTransaction(1L, user, 6000L, TransactionType.WITHDRAW, fromAccount, null);
+        transaction.setStatus(TransactionStatus.PENDING);
+        TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
+
+        when(transactionService.addPending(any(User.class), any(TransactionRequestDTO.class))).thenReturn(transaction);
+        when(userService.getLoggedInUser()).thenReturn(user);
+
+        String json = new ObjectMapper().writeValueAsString(transactionRequestDTO).replace("null", "\"\"");
+
+        // Check if we get a 202 Accepted with the PENDING transaction
+        this.mockMvc.perform(post("/transactions?async=true").header("Authorization", "test").with(org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf()).contentType(MediaType.APPLICATION_JSON).content(json).accept(MediaType.APPLICATION_JSON)).andDo(print())
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.data.status").value("PENDING"));
+    }
+
+    @Test
+    @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
+    void addTransactionIdempotentReplay() throws Exception {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+
+        Transaction transaction = getMockTransaction(1L, user, 6000L, TransactionType.WITHDRAW, fromAccount, null);
+        TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
+        ApiResponse<TransactionResponseDTO> storedBody = new ApiResponse<>(true, "Transaction added", new TransactionResponseDTO(transaction));
+
+        when(idempotencyService.begin(any(User.class), eq("retry-1"), any())).thenReturn(new IdempotencyService.StoredResponse("hash", 200, storedBody, Long.MAX_VALUE));
+        when(userService.getLoggedInUser()).thenReturn(user);
+
+        String json = new ObjectMapper().writeValueAsString(transactionRequestDTO).replace("null", "\"\"");
+
+        // Check if the stored response is returned without adding the transaction again
+        this.mockMvc.perform(post("/transactions").header("Authorization", "test").header("Idempotency-Key", "retry-1").with(org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf()).contentType(MediaType.APPLICATION_JSON).content(json).accept(MediaType.APPLICATION_JSON)).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.data.amount").value("60.0"));
+        verify(transactionService, never()).add(any(User.class), any(TransactionRequestDTO.class));
+    }
+
+    @Test
+    @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
+    void addTransactionIdempotencyKeyInUse() throws Exception {
+        User user = getMockUser(1L, UserType.USER, "john");
+        TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO("123456", null, "WITHDRAW", 6000L, "", "");
+
+        when(idempotencyService.begin(any(User.class), eq("retry-1"), any())).thenThrow(new IdempotencyKeyInUseException("A request with this Idempotency-Key is still being processed."));
+        when(userService.getLoggedInUser()).thenReturn(user);
+
+        String json = new ObjectMapper().writeValueAsString(transactionRequestDTO).replace("null", "\"\"");
+
+        // Check if a request that is still being processed with the same key gets a 409 Conflict
+        this.mockMvc.perform(post("/transactions").header("Authorization", "test").header("Idempotency-Key", "retry-1").with(org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf()).contentType(MediaType.APPLICATION_JSON).content(json).accept(MediaType.APPLICATION_JSON)).andDo(print())
+                .andExpect(status().isConflict());
+        verify(transactionService, never()).add(any(User.class), any(TransactionRequestDTO.class));
+    }
+
+    @Test
+    @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
+    void getStatus() throws Exception {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+
+        Transaction transaction = getMockTransaction(1L, user, 6000L, TransactionType.WITHDRAW, fromAccount, null);
+        transaction.setStatus(TransactionStatus.FAILED);
+        transaction.setFailureReason("The daily limit has been exceeded.");
+
+        when(transactionService.getStatus(any(User.class), any(Long.class))).thenReturn(transaction);
+        when(userService.getLoggedInUser()).thenReturn(user);
+
+        this.mockMvc.perform(get("/transactions/" + transaction.getId() + "/status").header("Authorization", "test")).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("FAILED"))
+                .andExpect(jsonPath("$.data.failureReason").value("The daily limit has been exceeded."));
+    }
+
+    @Test
+    @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
+    void addBatch() throws Exception {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+
+        Transaction transaction = getMockTransaction(1L, user, 6000L, TransactionType.WITHDRAW, fromAccount, null);
+        TransactionBatchResultDTO added = new TransactionBatchResultDTO(0, true, "Transaction added");
+        added.setTransaction(new TransactionResponseDTO(transaction));
+        TransactionBatchResultDTO failed = new TransactionBatchResultDTO(1, false, "The transaction amount can't be zero.");
+        List<TransactionRequestDTO> transactionsIn = List.of(
+                new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", 6000L, "", ""),
+                new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", 0L, "", ""));
+
+        when(transactionService.addBatch(any(User.class), any())).thenReturn(List.of(added, failed));
+        when(userService.getLoggedInUser()).thenReturn(user);
+
+        String json = new ObjectMapper().writeValueAsString(transactionsIn);
+
+        this.mockMvc.perform(post("/transactions/batch").header("Authorization", "test").with(org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf()).contentType(MediaType.APPLICATION_JSON).content(json).accept(MediaType.APPLICATION_JSON)).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("1 of 2 transactions added"))
+                .andExpect(jsonPath("$.data[0].transaction.amount").value("60.0"))
+                .andExpect(jsonPath("$.data[1].success").value(false));
+    }
+
     @Test
     @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
     void addInvalidTransaction() throws Exception {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account fromAccount = getMockAccount("123456", 1000F, user, false);
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
 
-        Transaction transaction = getMockTransaction(1L, user, 0F, TransactionType.WITHDRAW, fromAccount, null);
+        Transaction transaction = getMockTransaction(1L, user, 0L, TransactionType.WITHDRAW, fromAccount, null);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(transactionService.add(any(User.class), any(TransactionRequestDTO.class))).thenThrow(new TransactionAmountNotValidException("The transaction amount can't be zero."));
@@ -301,6 +514,59 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.message").value("The transaction amount can't be zero."));
     }
 
+    @Test
+    @WithMockUser(username = "Devon", password = "pwd", roles = "EMPLOYEE")
+    void export() throws Exception {
+        User user = getMockUser(1L, UserType.EMPLOYEE, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+
+        when(userService.getLoggedInUser()).thenReturn(user);
+        doAnswer(invocation -> {
+            Consumer<TransactionResponseDTO> consumer = invocation.getArgument(5);
+            consumer.accept(new TransactionResponseDTO(getMockTransaction(1L, user, 6000L, TransactionType.WITHDRAW, fromAccount, null)));
+            consumer.accept(new TransactionResponseDTO(getMockTransaction(2L, user, 1050L, TransactionType.WITHDRAW, fromAccount, null)));
+            return null;
+        }).when(transactionService).export(any(), any(), eq(""), eq(""), eq(0L), any());
+
+        //  The rows are written after the controller returns, so the response is read from the async dispatch
+        MvcResult result = this.mockMvc.perform(get("/transactions/export?start_date=2023-01-01&end_date=2023-12-31&format=csv").header("Authorization", "test"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(content().string(containsString("1,123456,,WITHDRAW,60.00,,,,COMPLETED\n2,123456,,WITHDRAW,10.50,,,,COMPLETED\n")));
+    }
+
+    @Test
+    @WithMockUser(username = "Devon", password = "pwd", roles = "USER")
+    void exportNotEmployee() throws Exception {
+        User user = getMockUser(1L, UserType.USER, "john");
+
+        when(userService.getLoggedInUser()).thenReturn(user);
+        doThrow(new EmployeeOnlyException("This user is not an employee.")).when(transactionService).validateExport(user, "", 0L);
+
+        MvcResult result = this.mockMvc.perform(get("/transactions/export?start_date=2023-01-01&end_date=2023-12-31").header("Authorization", "test")).andReturn();
+
+        this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("This user is not an employee."));
+        verify(transactionService, never()).export(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "Devon", password = "pwd", roles = "EMPLOYEE")
+    void exportFormatNotValid() throws Exception {
+        when(userService.getLoggedInUser()).thenReturn(getMockUser(1L, UserType.EMPLOYEE, "john"));
+
+        MvcResult result = this.mockMvc.perform(get("/transactions/export?start_date=2023-01-01&end_date=2023-12-31&format=xml").header("Authorization", "test")).andReturn();
+
+        this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("The export format has to be ndjson or csv."));
+    }
+
     // @Test
     // void add() throws Exception {
 
@@ -20,6 +20,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -99,13 +100,13 @@ public class UserControllerTest {
         List<UserResponseDTO> users = new ArrayList<>();
         users.add(getMockUserResponseDTO());
 
-        when(userService.getAll(false)).thenReturn(users);
+        when(userService.getAll(false, 0, 50)).thenReturn(new PageImpl<>(users));
 
-        ResponseEntity<ApiResponse<List<UserResponseDTO>>> response = userController.getAll(false);
+        ResponseEntity<ApiResponse<List<UserResponseDTO>>> response = userController.getAll(false, 0, 50);
 
         assertEquals(HttpStatus.FOUND, response.getStatusCode());
         assertEquals(true, response.getBody().isSuccess());
-        assertEquals("Users found!", response.getBody().getMessage());
+        assertEquals("1 Users found!", response.getBody().getMessage());
         assertEquals(users, response.getBody().getData());
     }
 
@@ -177,9 +178,9 @@ public class UserControllerTest {
 
     @Test
     public void testGetAllUserNotFoundException() throws UserNotFoundException {
-        when(userService.getAll(false)).thenThrow(new UserNotFoundException("No users found"));
+        when(userService.getAll(false, 0, 50)).thenThrow(new UserNotFoundException("No users found"));
 
-        ResponseEntity<ApiResponse<List<UserResponseDTO>>> response = userController.getAll(false);
+        ResponseEntity<ApiResponse<List<UserResponseDTO>>> response = userController.getAll(false, 0, 50);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertEquals(false, response.getBody().isSuccess());
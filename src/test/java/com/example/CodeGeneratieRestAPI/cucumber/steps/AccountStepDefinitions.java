@@ -110,9 +110,9 @@ public class AccountStepDefinitions extends BaseStepDefinitions {
         AccountRequestDTO account = new AccountRequestDTO();
         account.setUserId(1L);
         account.setName("Account name");
-        account.setDailyLimit(1000F);
-        account.setTransactionLimit(1000F);
-        account.setAbsoluteLimit(1000F);
+        account.setDailyLimit(100000L);
+        account.setTransactionLimit(100000L);
+        account.setAbsoluteLimit(100000L);
         account.setIsSavings(false);
         account.setIsActive(true);
         response = restTemplate.exchange(restTemplate.getRootUri() + "/accounts", HttpMethod.POST, new HttpEntity<>(account, httpHeaders), String.class);
@@ -130,9 +130,9 @@ public class AccountStepDefinitions extends BaseStepDefinitions {
         account.setIban(iban);
         account.setUserId(1L);
         account.setName("Account name");
-        account.setDailyLimit(1000F);
-        account.setTransactionLimit(1000F);
-        account.setAbsoluteLimit(1000F);
+        account.setDailyLimit(100000L);
+        account.setTransactionLimit(100000L);
+        account.setAbsoluteLimit(100000L);
         account.setIsSavings(false);
         account.setIsActive(true);
         response = restTemplate.exchange(restTemplate.getRootUri() + "/accounts", HttpMethod.POST, new HttpEntity<>(account, httpHeaders), String.class);
@@ -154,9 +154,9 @@ public class AccountStepDefinitions extends BaseStepDefinitions {
         account.setIban(iban);
         account.setUserId(1L);
         account.setName("Account name");
-        account.setDailyLimit(1000F);
-        account.setTransactionLimit(1000F);
-        account.setAbsoluteLimit(1000F);
+        account.setDailyLimit(100000L);
+        account.setTransactionLimit(100000L);
+        account.setAbsoluteLimit(100000L);
         account.setIsSavings(false);
         account.setIsActive(true);
         response = restTemplate.exchange(restTemplate.getRootUri() + "/accounts", HttpMethod.PUT, new HttpEntity<>(account, httpHeaders), String.class);
@@ -1,6 +1,7 @@
 package com.example.CodeGeneratieRestAPI.cucumber.steps;
 
 import com.example.CodeGeneratieRestAPI.dtos.TransactionRequestDTO;
+import com.example.CodeGeneratieRestAPI.helpers.Money;
 import com.example.CodeGeneratieRestAPI.models.Account;
 import com.example.CodeGeneratieRestAPI.models.Transaction;
 import com.example.CodeGeneratieRestAPI.models.User;
@@ -22,6 +23,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 
+import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.ZoneId;
@@ -93,9 +95,9 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
     }
 
     @When("I add a withdraw transaction of {float} from {string}")
-    public void iAddAWithdrawTransaction(Float amount, String fromIban) {
+    public void iAddAWithdrawTransaction(float amount, String fromIban) {
         transactionDTO = new TransactionRequestDTO();
-        transactionDTO.setAmount(amount);
+        transactionDTO.setAmount(cents(amount));
         transactionDTO.setFromAccountIban(fromIban);
         transactionDTO.setTransactionType("WITHDRAW");
 
@@ -103,9 +105,9 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
     }
 
     @When("I add a deposit transaction of {float} to {string}")
-    public void iAddADepositTransaction(Float amount, String toIban) {
+    public void iAddADepositTransaction(float amount, String toIban) {
         transactionDTO = new TransactionRequestDTO();
-        transactionDTO.setAmount(amount);
+        transactionDTO.setAmount(cents(amount));
         transactionDTO.setToAccountIban(toIban);
         transactionDTO.setTransactionType("DEPOSIT");
 
@@ -113,9 +115,9 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
     }
 
     @When("I add a transfer transaction of {float} from {string} to {string}")
-    public void iAddATransferTransaction(Float amount, String fromIban, String toIban) {
+    public void iAddATransferTransaction(float amount, String fromIban, String toIban) {
         transactionDTO = new TransactionRequestDTO();
-        transactionDTO.setAmount(amount);
+        transactionDTO.setAmount(cents(amount));
         transactionDTO.setToAccountIban(toIban);
         transactionDTO.setFromAccountIban(fromIban);
         transactionDTO.setTransactionType("TRANSFER");
@@ -124,27 +126,27 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
     }
 
     @When("I add a deposit transaction of {float} without a toAccountIban")
-    public void iAddADepositTransaction(Float amount) {
+    public void iAddADepositTransaction(float amount) {
         transactionDTO = new TransactionRequestDTO();
-        transactionDTO.setAmount(amount);
+        transactionDTO.setAmount(cents(amount));
         transactionDTO.setTransactionType("DEPOSIT");
 
         response = restTemplate.exchange(restTemplate.getRootUri() + "/transactions", HttpMethod.POST, new HttpEntity<>(transactionDTO, httpHeaders), String.class);
     }
 
     @When("I add a withdraw transaction of {float} without a fromAccountIban")
-    public void iAddAWithdrawTransaction(Float amount) {
+    public void iAddAWithdrawTransaction(float amount) {
         transactionDTO = new TransactionRequestDTO();
-        transactionDTO.setAmount(amount);
+        transactionDTO.setAmount(cents(amount));
         transactionDTO.setTransactionType("WITHDRAW");
 
         response = restTemplate.exchange(restTemplate.getRootUri() + "/transactions", HttpMethod.POST, new HttpEntity<>(transactionDTO, httpHeaders), String.class);
     }
 
     @When("I add a transfer transaction of {float} from {string} to no iban")
-    public void iAddATransferTransactionWithoutToIban(Float amount, String fromIban) {
+    public void iAddATransferTransactionWithoutToIban(float amount, String fromIban) {
         transactionDTO = new TransactionRequestDTO();
-        transactionDTO.setAmount(amount);
+        transactionDTO.setAmount(cents(amount));
         transactionDTO.setFromAccountIban(fromIban);
         transactionDTO.setTransactionType("TRANSFER");
 
@@ -152,9 +154,9 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
     }
 
     @When("I add a transfer transaction of {float} from no iban to {string}")
-    public void iAddATransferTransactionWithoutFromIban(Float amount, String toIban) {
+    public void iAddATransferTransactionWithoutFromIban(float amount, String toIban) {
         transactionDTO = new TransactionRequestDTO();
-        transactionDTO.setAmount(amount);
+        transactionDTO.setAmount(cents(amount));
         transactionDTO.setToAccountIban(toIban);
         transactionDTO.setTransactionType("TRANSFER");
 
@@ -220,10 +222,10 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
             account = new Account();
             account.setIban(iban);
             account.setUser(user);
-            account.setBalance(balance);
-            account.setTransactionLimit(transactionLimit);
-            account.setDailyLimit(dailyLimit);
-            account.setAbsoluteLimit(absoluteLimit);
+            account.setBalance(cents(balance));
+            account.setTransactionLimit(cents(transactionLimit));
+            account.setDailyLimit(cents(dailyLimit));
+            account.setAbsoluteLimit(cents(absoluteLimit));
             account.setIsSavings(isSavings.equals("savings"));
             accountRepository.save(account);
         }
@@ -239,10 +241,10 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
             anotherAccount = new Account();
             anotherAccount.setIban(iban);
             anotherAccount.setUser(anotherUser);
-            anotherAccount.setBalance(balance);
-            anotherAccount.setTransactionLimit(transactionLimit);
-            anotherAccount.setDailyLimit(dailyLimit);
-            anotherAccount.setAbsoluteLimit(absoluteLimit);
+            anotherAccount.setBalance(cents(balance));
+            anotherAccount.setTransactionLimit(cents(transactionLimit));
+            anotherAccount.setDailyLimit(cents(dailyLimit));
+            anotherAccount.setAbsoluteLimit(cents(absoluteLimit));
             anotherAccount.setIsSavings(isSavings.equals("savings"));
             accountRepository.save(anotherAccount);
         }
@@ -254,10 +256,10 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
         if (account == null) {
             account = new Account();
             account.setIban(iban);
-            account.setBalance(balance);
-            account.setTransactionLimit(transactionLimit);
-            account.setDailyLimit(dailyLimit);
-            account.setAbsoluteLimit(absoluteLimit);
+            account.setBalance(cents(balance));
+            account.setTransactionLimit(cents(transactionLimit));
+            account.setDailyLimit(cents(dailyLimit));
+            account.setAbsoluteLimit(cents(absoluteLimit));
             account.setIsSavings(isSavings.equals("savings"));
             accountRepository.save(account);
         }
@@ -266,7 +268,7 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
     @When("a withdraw transaction of {float} is added to the account")
     public void aWithdrawTransactionIsAddedToTheAccount(float amount) {
         transactionDTO = new TransactionRequestDTO();
-        transactionDTO.setAmount(amount);
+        transactionDTO.setAmount(cents(amount));
         transactionDTO.setFromAccountIban(account.getIban());
         transactionDTO.setTransactionType("WITHDRAW");
         try {
@@ -279,7 +281,7 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
     @When("a deposit transaction of {float} is added to the account")
     public void aDepositTransactionIsAddedToTheAccount(float amount) {
         transactionDTO = new TransactionRequestDTO();
-        transactionDTO.setAmount(amount);
+        transactionDTO.setAmount(cents(amount));
         transactionDTO.setToAccountIban(account.getIban());
         transactionDTO.setTransactionType("DEPOSIT");
         try {
@@ -295,7 +297,7 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
         anotherAccount = accountRepository.findByIban(toAccountIban);
 
         transactionDTO = new TransactionRequestDTO();
-        transactionDTO.setAmount(amount);
+        transactionDTO.setAmount(cents(amount));
         transactionDTO.setFromAccountIban(account.getIban());
         transactionDTO.setToAccountIban(anotherAccount.getIban());
         transactionDTO.setTransactionType("TRANSFER");
@@ -312,7 +314,7 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
         account = accountRepository.findByIban(toAccountIban);
 
         transactionDTO = new TransactionRequestDTO();
-        transactionDTO.setAmount(amount);
+        transactionDTO.setAmount(cents(amount));
         transactionDTO.setToAccountIban(account.getIban());
         transactionDTO.setTransactionType("DEPOSIT");
         //print transaction
@@ -328,7 +330,7 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
         account = accountRepository.findByIban(fromAccountIban);
 
         transactionDTO = new TransactionRequestDTO();
-        transactionDTO.setAmount(amount);
+        transactionDTO.setAmount(cents(amount));
         transactionDTO.setFromAccountIban(account.getIban());
         transactionDTO.setTransactionType("WITHDRAW");
         try {
@@ -344,7 +346,7 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
         Account fromAccount = accountRepository.findByIban(fromAccountIban);
 
         transactionDTO = new TransactionRequestDTO();
-        transactionDTO.setAmount(amount);
+        transactionDTO.setAmount(cents(amount));
         transactionDTO.setFromAccountIban(fromAccount.getIban());
         transactionDTO.setToAccountIban(account.getIban());
         transactionDTO.setTransactionType("TRANSFER");
@@ -359,7 +361,7 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
     @When("a deposit transaction of {float} is added to the account without a toAccountIban")
     public void aDepositTransactionIsAddedToTheAccountWithoutAToAccountIban(float amount) {
         transactionDTO = new TransactionRequestDTO();
-        transactionDTO.setAmount(amount);
+        transactionDTO.setAmount(cents(amount));
         transactionDTO.setTransactionType("DEPOSIT");
         try {
             transactionService.add(user, transactionDTO);
@@ -371,7 +373,7 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
     @When("a transfer transaction of {float} is added to the account without a toAccountIban")
     public void aTransferTransactionIsAddedToTheAccountWithoutAToAccountIban(float amount) {
         transactionDTO = new TransactionRequestDTO();
-        transactionDTO.setAmount(amount);
+        transactionDTO.setAmount(cents(amount));
         transactionDTO.setFromAccountIban(account.getIban());
         transactionDTO.setTransactionType("TRANSFER");
         try {
@@ -384,7 +386,7 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
     @When("a transfer transaction of {float} is added to the account without a fromAccountIban")
     public void aTransferTransactionIsAddedToTheAccountWithoutAFromAccountIban(float amount) {
         transactionDTO = new TransactionRequestDTO();
-        transactionDTO.setAmount(amount);
+        transactionDTO.setAmount(cents(amount));
         transactionDTO.setToAccountIban(account.getIban());
         transactionDTO.setTransactionType("TRANSFER");
         try {
@@ -397,7 +399,7 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
     @When("another deposit transaction of {float} is added to the account")
     public void anotherDepositTransactionIsAddedToTheAccount(float amount) {
         anotherTransactionDTO = new TransactionRequestDTO();
-        anotherTransactionDTO.setAmount(amount);
+        anotherTransactionDTO.setAmount(cents(amount));
         anotherTransactionDTO.setToAccountIban(account.getIban());
         anotherTransactionDTO.setTransactionType("DEPOSIT");
         try {
@@ -411,7 +413,7 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
     @When("another withdraw transaction of {float} is added to the account")
     public void anotherWithdrawTransactionIsAddedToTheAccount(float amount) {
         anotherTransactionDTO = new TransactionRequestDTO();
-        anotherTransactionDTO.setAmount(amount);
+        anotherTransactionDTO.setAmount(cents(amount));
         anotherTransactionDTO.setFromAccountIban(account.getIban());
         anotherTransactionDTO.setTransactionType("WITHDRAW");
         try {
@@ -427,7 +429,7 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
         anotherAccount = accountRepository.findByIban(toAccountIban);
 
         anotherTransactionDTO = new TransactionRequestDTO();
-        anotherTransactionDTO.setAmount(amount);
+        anotherTransactionDTO.setAmount(cents(amount));
         anotherTransactionDTO.setFromAccountIban(account.getIban());
         anotherTransactionDTO.setToAccountIban(anotherAccount.getIban());
         anotherTransactionDTO.setTransactionType("TRANSFER");
@@ -475,4 +477,9 @@ public class TransactionStepDefinitions extends BaseStepDefinitions {
         String returnedMessage = JsonPath.read(response.getBody(), "$.message");
         Assertions.assertEquals(message, returnedMessage);
     }
-}
\ No newline at end of file
+
+    //  The feature files use amounts in euros, the accounts and transactions store them in cents
+    private long cents(float amount) {
+        return Money.toCents(new BigDecimal(Float.toString(amount)));
+    }
+}
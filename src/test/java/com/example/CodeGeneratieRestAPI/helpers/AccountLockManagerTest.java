@@ -0,0 +1,106 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class AccountLockManagerTest {
+
+    private AccountLockManager accountLockManager;
+
+    @BeforeEach
+    void setUp() {
+        accountLockManager = new AccountLockManager(64);
+    }
+
+    @Test
+    void testStripeCountIsPowerOfTwo() {
+        Assertions.assertEquals(64, new AccountLockManager(64).getStripeCount());
+        Assertions.assertEquals(128, new AccountLockManager(65).getStripeCount());
+        Assertions.assertEquals(64, new AccountLockManager(1).getStripeCount());
+    }
+
+    @Test
+    void testLockIgnoresNullAndSameAccount() {
+        //  A deposit only has a to account and a transfer to the same account must not lock the stripe twice
+        try (AccountLockManager.AccountLock ignored = accountLockManager.lock(null, "NL61-INHO-0897-9124-90", "NL61-INHO-0897-9124-90")) {
+            Assertions.assertEquals(1, accountLockManager.getAcquisitions());
+        }
+    }
+
+    @Test
+    void testOppositeTransfersDoNotDeadlock() throws Exception {
+        //  Two threads transferring A -> B and B -> A at the same time would deadlock if the locks were taken in argument order
+        String ibanA = "NL61-INHO-0897-9124-90";
+        String ibanB = "NL61-INHO-0897-9124-91";
+        int iterations = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        long[] counter = new long[1];
+
+        Future<?> forward = executor.submit(() -> transfer(start, ibanA, ibanB, iterations, counter));
+        Future<?> backward = executor.submit(() -> transfer(start, ibanB, ibanA, iterations, counter));
+        start.countDown();
+
+        forward.get(10, TimeUnit.SECONDS);
+        backward.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        //  The counter is only updated while holding the locks, so no update may be lost
+        Assertions.assertEquals(2L * iterations, counter[0]);
+    }
+
+    @Test
+    void testContendedLockRecordsWaitTime() throws Exception {
+        String iban = "NL61-INHO-0897-9124-90";
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> {
+            try (AccountLockManager.AccountLock ignored = accountLockManager.lock(iban)) {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        holder.start();
+        locked.await();
+
+        Thread waiter = new Thread(() -> {
+            try (AccountLockManager.AccountLock ignored = accountLockManager.lock(iban)) {
+                //  Nothing to do, we only want to wait for the lock
+            }
+        });
+        waiter.start();
+        Thread.sleep(50);
+        release.countDown();
+        holder.join();
+        waiter.join();
+
+        Assertions.assertEquals(2, accountLockManager.getAcquisitions());
+        Assertions.assertEquals(1, accountLockManager.getContendedAcquisitions());
+        Assertions.assertTrue(accountLockManager.getTotalWaitNanos() > 0);
+        Assertions.assertEquals(accountLockManager.getTotalWaitNanos(), accountLockManager.getMaxWaitNanos());
+    }
+
+    private void transfer(CountDownLatch start, String fromIban, String toIban, int iterations, long[] counter) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (int i = 0; i < iterations; i++) {
+            try (AccountLockManager.AccountLock ignored = accountLockManager.lock(fromIban, toIban)) {
+                counter[0]++;
+            }
+        }
+    }
+}
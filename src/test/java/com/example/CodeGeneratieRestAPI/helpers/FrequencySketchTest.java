@@ -0,0 +1,34 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FrequencySketchTest {
+
+    @Test
+    public void testFrequencyIsNeverTooLow() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("anna");
+        }
+        sketch.increment("bram");
+
+        Assertions.assertTrue(sketch.frequency("anna") >= 5);
+        Assertions.assertTrue(sketch.frequency("bram") >= 1);
+        Assertions.assertTrue(sketch.frequency("anna") > sketch.frequency("bram"));
+    }
+
+    //  After a sample of increments the counters are halved, an old burst weighs less than recent attempts
+    @Test
+    public void testCountersAge() {
+        FrequencySketch sketch = new FrequencySketch(2);
+        for (int i = 0; i < 19; i++) {
+            sketch.increment("anna");
+        }
+        Assertions.assertEquals(19, sketch.frequency("anna"));
+
+        sketch.increment("anna");
+
+        Assertions.assertEquals(10, sketch.frequency("anna"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import com.example.CodeGeneratieRestAPI.dtos.TransactionRequestDTO;
+import com.example.CodeGeneratieRestAPI.dtos.TransactionResponseDTO;
+import com.example.CodeGeneratieRestAPI.exceptions.TransactionAmountNotValidException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+class MoneyTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testToCents() {
+        Assertions.assertEquals(1050L, Money.toCents(new BigDecimal("10.5")));
+        Assertions.assertEquals(1050L, Money.toCents(new BigDecimal("10.500")));
+        Assertions.assertEquals(-500L, Money.toCents(new BigDecimal("-5")));
+        Assertions.assertNull(Money.toCentsOrNull(null));
+        Assertions.assertEquals(new BigDecimal("10.50"), Money.toDecimal(1050L));
+    }
+
+    @Test
+        //  Amounts with more than two decimals are not rounded but refused
+    void testToCentsMoreThanTwoDecimals() {
+        TransactionAmountNotValidException exception = Assertions.assertThrows(TransactionAmountNotValidException.class, () -> Money.toCents(new BigDecimal("10.505")));
+        Assertions.assertEquals("The amount can't have more than two decimals.", exception.getMessage());
+        Assertions.assertThrows(TransactionAmountNotValidException.class, () -> Money.toCents(new BigDecimal("92233720368547758.08")));
+        Assertions.assertThrows(Exception.class, () -> objectMapper.readValue("{\"amount\":10.505}", TransactionRequestDTO.class));
+    }
+
+    @Test
+        //  The API keeps decimal amounts, only the stored value is in cents
+    void testJsonRoundTrip() throws Exception {
+        TransactionRequestDTO request = objectMapper.readValue("{\"amount\":\"12.34\"}", TransactionRequestDTO.class);
+        Assertions.assertEquals(1234L, request.getAmount());
+
+        request = objectMapper.readValue("{\"amount\":0.1}", TransactionRequestDTO.class);
+        Assertions.assertEquals(10L, request.getAmount());
+
+        TransactionResponseDTO response = new TransactionResponseDTO();
+        response.setAmount(1234L);
+        Assertions.assertTrue(objectMapper.writeValueAsString(response).contains("\"amount\":12.34"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class TimerWheelTest {
+
+    private TimerWheel<Long> timerWheel;
+
+    @BeforeEach
+    void setUp() {
+        //  8 buckets of 100 ms, so one turn of the wheel is 800 ms
+        timerWheel = new TimerWheel<>(8, 100, 0);
+    }
+
+    @Test
+    void testBucketCountIsPowerOfTwo() {
+        Assertions.assertEquals(8, new TimerWheel<Long>(8, 100, 0).getBucketCount());
+        Assertions.assertEquals(16, new TimerWheel<Long>(9, 100, 0).getBucketCount());
+    }
+
+    @Test
+    void testItemExpiresAtDeadline() {
+        timerWheel.schedule(1L, 250);
+
+        Assertions.assertEquals(List.of(), timerWheel.advance(200));
+        Assertions.assertEquals(List.of(1L), timerWheel.advance(300));
+        Assertions.assertEquals(0, timerWheel.size());
+    }
+
+    @Test
+    void testDeadlineAfterOneTurnWaitsForItsOwnTurn() {
+        //  Both items end up in the same bucket, the second one only expires on the next turn of the wheel
+        timerWheel.schedule(1L, 300);
+        timerWheel.schedule(2L, 1100);
+
+        Assertions.assertEquals(List.of(1L), timerWheel.advance(300));
+        Assertions.assertEquals(List.of(), timerWheel.advance(1000));
+        Assertions.assertEquals(List.of(2L), timerWheel.advance(1100));
+    }
+
+    @Test
+    void testPassedDeadlineExpiresOnNextTick() {
+        timerWheel.advance(500);
+        timerWheel.schedule(1L, 100);
+
+        Assertions.assertEquals(List.of(1L), timerWheel.advance(600));
+    }
+
+    @Test
+    void testAdvanceOverManyTicksExpiresEverything() {
+        for (long i = 1; i <= 100; i++) {
+            timerWheel.schedule(i, i * 37);
+        }
+
+        Assertions.assertEquals(100, timerWheel.advance(10_000).size());
+        Assertions.assertEquals(0, timerWheel.size());
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import com.example.CodeGeneratieRestAPI.exceptions.TransactionCursorNotValidException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+class TransactionCursorTest {
+
+    @Test
+        //  The cursor has to point to exactly the same timestamp, including the part below a millisecond
+    void testEncodeDecode() {
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.of(2023, 5, 1, 12, 30, 15, 123456000));
+        TransactionCursor cursor = new TransactionCursor(createdAt, 42L);
+
+        TransactionCursor decoded = TransactionCursor.decode(cursor.encode());
+
+        Assertions.assertEquals(createdAt, decoded.createdAt());
+        Assertions.assertEquals(42L, decoded.id());
+    }
+
+    @Test
+    void testDecodeNotValid() {
+        Assertions.assertThrows(TransactionCursorNotValidException.class, () -> TransactionCursor.decode("not a cursor"));
+        Assertions.assertThrows(TransactionCursorNotValidException.class, () -> TransactionCursor.decode("MTIzOmFiYw"));
+    }
+}
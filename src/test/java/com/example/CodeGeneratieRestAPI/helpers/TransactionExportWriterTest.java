@@ -0,0 +1,63 @@
+package com.example.CodeGeneratieRestAPI.helpers;
+
+import com.example.CodeGeneratieRestAPI.dtos.TransactionResponseDTO;
+import com.example.CodeGeneratieRestAPI.exceptions.TransactionExportFormatNotValidException;
+import com.example.CodeGeneratieRestAPI.models.TransactionStatus;
+import com.example.CodeGeneratieRestAPI.models.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+public class TransactionExportWriterTest {
+
+    private TransactionResponseDTO getTransaction(Long id, String label, String description) {
+        return new TransactionResponseDTO(id, "NL01INHO0000000001", null, TransactionType.WITHDRAW, 1050L, label, description, new Date(0), TransactionStatus.COMPLETED);
+    }
+
+    private String export(TransactionExportFormat format, TransactionResponseDTO... transactions) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        TransactionExportWriter writer = new TransactionExportWriter(format, outputStream, new ObjectMapper());
+        for (TransactionResponseDTO transaction : transactions) {
+            writer.write(transaction);
+        }
+        writer.flush();
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testCsv() throws Exception {
+        String csv = export(TransactionExportFormat.CSV, getTransaction(1L, "rent", "March"));
+
+        Assertions.assertEquals("id,from_account_iban,to_account_iban,transaction_type,amount,label,description,created_at,status\n" +
+                "1,NL01INHO0000000001,,WITHDRAW,10.50,rent,March,1970-01-01T00:00:00Z,COMPLETED\n", csv);
+    }
+
+    @Test
+    public void testCsvQuotesFields() throws Exception {
+        String csv = export(TransactionExportFormat.CSV, getTransaction(1L, "rent, March", "the \"big\" one\nsecond line"));
+
+        Assertions.assertTrue(csv.endsWith(",10.50,\"rent, March\",\"the \"\"big\"\" one\nsecond line\",1970-01-01T00:00:00Z,COMPLETED\n"));
+    }
+
+    @Test
+    public void testNdjson() throws Exception {
+        String ndjson = export(TransactionExportFormat.NDJSON, getTransaction(1L, "", ""), getTransaction(2L, "", ""));
+
+        String[] lines = ndjson.split("\n");
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertTrue(lines[0].startsWith("{\"id\":1,"));
+        Assertions.assertTrue(lines[1].startsWith("{\"id\":2,"));
+        Assertions.assertTrue(lines[1].contains("\"amount\":10.50"));
+    }
+
+    @Test
+    public void testFormat() {
+        Assertions.assertEquals(TransactionExportFormat.CSV, TransactionExportFormat.of("CSV"));
+        Assertions.assertEquals(TransactionExportFormat.NDJSON, TransactionExportFormat.of("ndjson"));
+        Assertions.assertThrows(TransactionExportFormatNotValidException.class, () -> TransactionExportFormat.of("xml"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.CodeGeneratieRestAPI.jwt;
+
+import com.example.CodeGeneratieRestAPI.models.UserType;
+import com.example.CodeGeneratieRestAPI.services.JwtService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class JwTokenFilterTest {
+
+    private JwTokenProvider jwTokenProvider;
+    private JwTokenFilter jwTokenFilter;
+    private JwtService jwtService;
+
+    @BeforeEach
+    public void init() {
+        JwtKeyProvider keyProvider = new JwtKeyProvider();
+        ReflectionTestUtils.setField(keyProvider, "keystore", "mrbanky.p12");
+        ReflectionTestUtils.setField(keyProvider, "password", "Gki8m021EZjfxK7rdijm");
+        ReflectionTestUtils.setField(keyProvider, "alias", "mrbanky");
+        keyProvider.init();
+
+        jwTokenProvider = spy(new JwTokenProvider());
+        jwTokenProvider.keyProvider = keyProvider;
+        jwTokenProvider.verifiedTokenCache = new VerifiedTokenCache(10);
+        jwTokenFilter = new JwTokenFilter();
+        jwTokenFilter.jwtTokenProvider = jwTokenProvider;
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "tokenProvider", jwTokenProvider);
+    }
+
+    @AfterEach
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    //  The services in the request get the claims the filter parsed, the token is not looked at again
+    @Test
+    public void testClaimsAreParsedOncePerRequest() throws Exception {
+        String token = jwTokenProvider.createToken(7L, "Dewi", UserType.EMPLOYEE);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        AtomicReference<Long> userId = new AtomicReference<>();
+        AtomicReference<Enum<UserType>> userType = new AtomicReference<>();
+
+        jwTokenFilter.doFilter(request, new MockHttpServletResponse(), (filteredRequest, filteredResponse) -> {
+            userId.set(jwtService.getUserIdFromJwtToken("Bearer " + token));
+            userType.set(jwtService.getUserTypeFromJwtToken("Bearer " + token));
+            Assertions.assertTrue(jwtService.validateJwtToken("Bearer " + token));
+        });
+
+        Assertions.assertEquals(7L, userId.get());
+        Assertions.assertEquals(UserType.EMPLOYEE, userType.get());
+        verify(jwTokenProvider, times(1)).getAuthentication(token);
+    }
+
+    @Test
+    public void testClaimsAreRemovedAfterTheRequest() throws Exception {
+        String token = jwTokenProvider.createToken(7L, "Dewi", UserType.USER);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+
+        jwTokenFilter.doFilter(request, new MockHttpServletResponse(), (filteredRequest, filteredResponse) ->
+                Assertions.assertNotNull(RequestClaims.get(token)));
+
+        Assertions.assertNull(RequestClaims.get(token));
+    }
+
+    //  Only the token of the request is taken from the claims, another token is verified
+    @Test
+    public void testOtherTokenIsVerified() throws Exception {
+        String token = jwTokenProvider.createToken(7L, "Dewi", UserType.USER);
+        String otherToken = jwTokenProvider.createToken(8L, "Bram", UserType.USER);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        AtomicReference<Long> userId = new AtomicReference<>();
+
+        jwTokenFilter.doFilter(request, new MockHttpServletResponse(), (filteredRequest, filteredResponse) ->
+                userId.set(jwtService.getUserIdFromJwtToken("Bearer " + otherToken)));
+
+        Assertions.assertEquals(8L, userId.get());
+        verify(jwTokenProvider, times(1)).getAuthentication(otherToken);
+    }
+}
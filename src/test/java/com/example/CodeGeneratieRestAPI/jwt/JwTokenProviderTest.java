@@ -0,0 +1,75 @@
+package com.example.CodeGeneratieRestAPI.jwt;
+
+import com.example.CodeGeneratieRestAPI.models.UserType;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JwTokenProviderTest {
+
+    private JwTokenProvider jwTokenProvider;
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @BeforeEach
+    public void init() {
+        JwtKeyProvider keyProvider = new JwtKeyProvider();
+        ReflectionTestUtils.setField(keyProvider, "keystore", "mrbanky.p12");
+        ReflectionTestUtils.setField(keyProvider, "password", "Gki8m021EZjfxK7rdijm");
+        ReflectionTestUtils.setField(keyProvider, "alias", "mrbanky");
+        keyProvider.init();
+
+        verifiedTokenCache = new VerifiedTokenCache(10);
+        jwTokenProvider = new JwTokenProvider();
+        jwTokenProvider.keyProvider = keyProvider;
+        jwTokenProvider.verifiedTokenCache = verifiedTokenCache;
+    }
+
+    //  The principal is made from the claims only, the provider has no way to read users from the database
+    @Test
+    public void testPrincipalFromClaims() {
+        Authentication authentication = jwTokenProvider.getAuthentication(jwTokenProvider.createToken(7L, "Dewi", UserType.EMPLOYEE));
+
+        JwtPrincipal principal = (JwtPrincipal) authentication.getPrincipal();
+        Assertions.assertEquals(7L, principal.getId());
+        Assertions.assertEquals("Dewi", principal.getUsername());
+        Assertions.assertEquals(UserType.EMPLOYEE, principal.getUserType());
+        Assertions.assertTrue(authentication.getAuthorities().stream().anyMatch(authority -> authority.getAuthority().equals("EMPLOYEE")));
+
+        Assertions.assertEquals(7L, principal.toUser().getId());
+        Assertions.assertEquals(UserType.EMPLOYEE, principal.toUser().getUserType());
+    }
+
+    @Test
+    public void testTokenNotValid() {
+        String token = jwTokenProvider.createToken(7L, "Dewi", UserType.USER);
+
+        Assertions.assertThrows(JwtException.class, () -> jwTokenProvider.getAuthentication(token.substring(0, token.length() - 2)));
+        Assertions.assertThrows(JwtException.class, () -> jwTokenProvider.getAuthentication("not a token"));
+    }
+
+    //  The second request with the same token gets the authentication of the first one, without verifying the token again
+    @Test
+    public void testVerifiedTokenIsCached() {
+        String token = jwTokenProvider.createToken(7L, "Dewi", UserType.USER);
+
+        Authentication first = jwTokenProvider.getAuthentication(token);
+        Authentication second = jwTokenProvider.getAuthentication(token);
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(1, verifiedTokenCache.getHits());
+        Assertions.assertEquals(1, verifiedTokenCache.getMisses());
+    }
+
+    @Test
+    public void testTokenNotValidIsNotCached() {
+        String token = jwTokenProvider.createToken(7L, "Dewi", UserType.USER);
+        String tokenNotValid = token.substring(0, token.length() - 2);
+
+        Assertions.assertThrows(JwtException.class, () -> jwTokenProvider.getAuthentication(tokenNotValid));
+        Assertions.assertThrows(JwtException.class, () -> jwTokenProvider.getAuthentication(tokenNotValid));
+        Assertions.assertEquals(0, verifiedTokenCache.getSize());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.CodeGeneratieRestAPI.jwt;
+
+import com.example.CodeGeneratieRestAPI.models.UserType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.Date;
+
+public class VerifiedTokenCacheTest {
+
+    private Authentication getAuthentication(Long id) {
+        JwtPrincipal principal = new JwtPrincipal(id, "user" + id, UserType.USER);
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    private Date inOneHour() {
+        return new Date(System.currentTimeMillis() + 3600000);
+    }
+
+    @Test
+    public void testHitAndMiss() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        Authentication authentication = getAuthentication(1L);
+
+        Assertions.assertNull(cache.get("token"));
+        cache.put("token", authentication, inOneHour());
+
+        Assertions.assertSame(authentication, cache.get("token"));
+        Assertions.assertNull(cache.get("other token"));
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(2, cache.getMisses());
+        Assertions.assertEquals(1.0 / 3, cache.getHitRate(), 0.0001);
+    }
+
+    @Test
+    public void testExpiredTokenIsEvicted() throws InterruptedException {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("token", getAuthentication(1L), new Date(System.currentTimeMillis() + 20));
+        Assertions.assertNotNull(cache.get("token"));
+
+        Thread.sleep(40);
+
+        Assertions.assertNull(cache.get("token"));
+        Assertions.assertEquals(1, cache.getExpiredEvictions());
+        Assertions.assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testTokenWithoutExpirationIsNotCached() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("token", getAuthentication(1L), null);
+        cache.put("expired token", getAuthentication(2L), new Date(System.currentTimeMillis() - 1000));
+
+        Assertions.assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testFullCacheEvictsExpiredTokensFirst() throws InterruptedException {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2);
+        cache.put("expiring token", getAuthentication(1L), new Date(System.currentTimeMillis() + 20));
+        cache.put("token", getAuthentication(2L), inOneHour());
+        Thread.sleep(40);
+
+        cache.put("new token", getAuthentication(3L), inOneHour());
+
+        Assertions.assertEquals(1, cache.getExpiredEvictions());
+        Assertions.assertEquals(0, cache.getCapacityEvictions());
+        Assertions.assertNotNull(cache.get("token"));
+        Assertions.assertNotNull(cache.get("new token"));
+
+        //  Without expired tokens one of the tokens makes room
+        cache.put("third token", getAuthentication(4L), inOneHour());
+
+        Assertions.assertEquals(1, cache.getCapacityEvictions());
+        Assertions.assertEquals(2, cache.getSize());
+        Assertions.assertNotNull(cache.get("third token"));
+    }
+
+    //  A full cache without expired tokens evicts the token that expires first
+    @Test
+    public void testFullCacheEvictsTokenThatExpiresFirst() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2);
+        cache.put("long token", getAuthentication(1L), new Date(System.currentTimeMillis() + 7200000));
+        cache.put("short token", getAuthentication(2L), inOneHour());
+
+        cache.put("new token", getAuthentication(3L), inOneHour());
+
+        Assertions.assertEquals(1, cache.getCapacityEvictions());
+        Assertions.assertNotNull(cache.get("long token"));
+        Assertions.assertNull(cache.get("short token"));
+        Assertions.assertNotNull(cache.get("new token"));
+    }
+
+    //  A token that is put again is only in the order once, so it is evicted only once
+    @Test
+    public void testTokenPutAgainIsEvictedOnce() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2);
+        cache.put("token", getAuthentication(1L), inOneHour());
+        cache.put("token", getAuthentication(1L), new Date(System.currentTimeMillis() + 7200000));
+        cache.put("other token", getAuthentication(2L), new Date(System.currentTimeMillis() + 10800000));
+
+        cache.put("new token", getAuthentication(3L), inOneHour());
+
+        Assertions.assertEquals(1, cache.getCapacityEvictions());
+        Assertions.assertNull(cache.get("token"));
+        Assertions.assertNotNull(cache.get("other token"));
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.CodeGeneratieRestAPI.repositories;
+
+import com.example.CodeGeneratieRestAPI.models.TransactionStatus;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+//  Checks with EXPLAIN that the hot queries use the indexes of the migrations instead of scanning the table
+//  The queries are run through the repositories and the SQL that Hibernate generated for them is explained, so the test follows the queries when they change
+@DataJpaTest
+public class SchemaIndexesTest {
+
+    private static final Timestamp START_DATE = Timestamp.valueOf("2023-01-01 00:00:00");
+    private static final Timestamp END_DATE = Timestamp.valueOf("2023-01-31 23:59:59");
+    private static final Sort CURSOR_SORT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    @TestConfiguration
+    static class StatementCaptureConfiguration {
+        @Bean
+        CapturedStatements capturedStatements() {
+            return new CapturedStatements();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer statementInspector(CapturedStatements capturedStatements) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, capturedStatements);
+        }
+    }
+
+    //  Hibernate hands every statement to the inspector before it is prepared
+    static class CapturedStatements implements StatementInspector {
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CapturedStatements capturedStatements;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DailySpendRepository dailySpendRepository;
+
+    @BeforeEach
+    public void clearStatements() {
+        capturedStatements.statements.clear();
+    }
+
+    //  Runs the query and explains the first select Hibernate generated for it
+    //  The plan is made when the statement is prepared, so the parameters are only bound to null to be able to run the EXPLAIN
+    private String explain(Runnable query) {
+        query.run();
+        String sql = capturedStatements.statements.stream()
+                .filter(statement -> statement.trim().toLowerCase().startsWith("select"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("The query did not run a select: " + capturedStatements.statements));
+
+        return jdbcTemplate.execute("EXPLAIN " + sql, (PreparedStatementCallback<String>) statement -> {
+            for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                statement.setObject(i, null);
+            }
+            try (ResultSet plan = statement.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        });
+    }
+
+    private void assertUsesIndex(String index, String plan) {
+        Assertions.assertTrue(plan.contains(index), "Expected the plan to use " + index + ":\n" + plan);
+        Assertions.assertFalse(plan.contains("tableScan"), "Expected the plan not to scan the table:\n" + plan);
+    }
+
+    //  An index on the column is used for the lookup, the plan names the index and the condition it looks up
+    private void assertLooksUpBy(String column, String plan) {
+        Assertions.assertTrue(Pattern.compile("/\\* PUBLIC\\.\\w+: " + column + " ").matcher(plan).find(), "Expected the plan to look up " + column + " with an index:\n" + plan);
+        Assertions.assertFalse(plan.contains("tableScan"), "Expected the plan not to scan the table:\n" + plan);
+    }
+
+    @Test
+    public void testTransactionsSentByUserInDateRange() {
+        String plan = explain(() -> transactionRepository.findAllResponses(TransactionSpecifications.sentByUser(1L)
+                .and(TransactionSpecifications.createdBetween(START_DATE, END_DATE)), CURSOR_SORT, 11));
+
+        assertUsesIndex("IDX_TRANSACTIONS_FROM_IBAN_CREATED_AT", plan);
+    }
+
+    @Test
+    public void testTransactionsReceivedByUserInDateRange() {
+        String plan = explain(() -> transactionRepository.findAllResponses(TransactionSpecifications.receivedByUser(1L)
+                .and(TransactionSpecifications.createdBetween(START_DATE, END_DATE)), CURSOR_SORT, 11));
+
+        assertUsesIndex("IDX_TRANSACTIONS_TO_IBAN_CREATED_AT", plan);
+    }
+
+    @Test
+    public void testTransactionsInDateRangeAfterCursor() {
+        String plan = explain(() -> transactionRepository.findAllResponses(TransactionSpecifications.matching(START_DATE, END_DATE, null, null, null)
+                .and(TransactionSpecifications.after(END_DATE, 100L)), CURSOR_SORT, 11));
+
+        assertUsesIndex("IDX_TRANSACTIONS_CREATED_AT_ID", plan);
+    }
+
+    //  The transactions of a user are read per account column, with the ids of the accounts of the user
+    //  The cursor is an OR on the creation date, so only the account column of the index can be used
+    @Test
+    public void testTransactionsSentByUserAfterCursor() {
+        String plan = explain(() -> transactionRepository.findAllResponses(TransactionSpecifications.sentByUser(1L)
+                .and(TransactionSpecifications.after(END_DATE, 1L)), CURSOR_SORT, 11));
+
+        assertLooksUpBy("FROM_IBAN", plan);
+    }
+
+    @Test
+    public void testTransactionsReceivedByUserAfterCursor() {
+        String plan = explain(() -> transactionRepository.findAllResponses(TransactionSpecifications.receivedByUser(1L)
+                .and(TransactionSpecifications.after(END_DATE, 1L)), CURSOR_SORT, 11));
+
+        assertLooksUpBy("TO_IBAN", plan);
+    }
+
+    //  The (from account OR to account) filter over the two left joined accounts can only be answered by scanning the transactions
+    @Test
+    public void testTransactionsInvolvingIbanScanTheTable() {
+        String plan = explain(() -> transactionRepository.findAllResponses(TransactionSpecifications.involvesIban("NL01INHO0000000002"), CURSOR_SORT, 11));
+
+        Assertions.assertTrue(plan.contains("transactions.tableScan"), "Expected the plan to scan the transactions:\n" + plan);
+    }
+
+    //  So the keyset listing of an account, as an employee or the owner reads it, runs one query per account column
+    @Test
+    public void testTransactionsSentFromIbanAfterCursor() {
+        String plan = explain(() -> transactionRepository.findAllResponses(TransactionSpecifications.sentFromIban("NL01INHO0000000002")
+                .and(TransactionSpecifications.matching(START_DATE, END_DATE, "NL01INHO0000000003", ">", 100L))
+                .and(TransactionSpecifications.after(END_DATE, 1L)), CURSOR_SORT, 11));
+
+        assertUsesIndex("IDX_TRANSACTIONS_FROM_IBAN_CREATED_AT", plan);
+    }
+
+    @Test
+    public void testTransactionsReceivedOnIbanAfterCursor() {
+        String plan = explain(() -> transactionRepository.findAllResponses(TransactionSpecifications.receivedOnIban("NL01INHO0000000002")
+                .and(TransactionSpecifications.matching(START_DATE, END_DATE, "NL01INHO0000000003", ">", 100L))
+                .and(TransactionSpecifications.after(END_DATE, 1L)), CURSOR_SORT, 11));
+
+        assertUsesIndex("IDX_TRANSACTIONS_TO_IBAN_CREATED_AT", plan);
+    }
+
+    @Test
+    public void testTransactionsByStatus() {
+        String plan = explain(() -> transactionRepository.findAllIdsByStatus(TransactionStatus.PENDING));
+
+        assertUsesIndex("IDX_TRANSACTIONS_STATUS", plan);
+    }
+
+    //  The active filter is optional in the query, (:isActive IS NULL OR ...), so only the user id is looked up with an index
+    @Test
+    public void testActiveAccountsOfUser() {
+        String plan = explain(() -> accountRepository.findAllBySearchTermAndUserId("", true, 1L, PageRequest.of(0, 10)));
+
+        assertLooksUpBy("USER_ID", plan);
+    }
+
+    //  The customers without an account, the users are listed but the accounts of every user are looked up with an index
+    @Test
+    public void testUsersWithoutAccounts() {
+        String plan = explain(() -> userRepository.findAllResponsesWithoutAccounts(PageRequest.of(0, 10)));
+
+        Assertions.assertTrue(plan.contains("FK_ACCOUNTS_USER_INDEX"), "Expected the accounts to be looked up with the index on the user id:\n" + plan);
+        Assertions.assertFalse(plan.contains("accounts.tableScan"), "Expected the accounts not to be scanned:\n" + plan);
+    }
+
+    @Test
+    public void testDailySpendOfAccount() {
+        String plan = explain(() -> dailySpendRepository.findAmount("NL01INHO0000000001", LocalDate.of(2023, 1, 1)));
+
+        assertUsesIndex("PRIMARY_KEY", plan);
+    }
+}
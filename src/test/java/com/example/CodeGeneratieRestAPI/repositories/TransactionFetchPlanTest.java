@@ -0,0 +1,85 @@
+package com.example.CodeGeneratieRestAPI.repositories;
+
+import com.example.CodeGeneratieRestAPI.models.Account;
+import com.example.CodeGeneratieRestAPI.models.Transaction;
+import com.example.CodeGeneratieRestAPI.models.TransactionType;
+import com.example.CodeGeneratieRestAPI.models.User;
+import com.example.CodeGeneratieRestAPI.models.UserType;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.Date;
+import java.util.List;
+
+@DataJpaTest
+public class TransactionFetchPlanTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Long transactionId;
+
+    @BeforeEach
+    public void init() {
+        User user = new User();
+        user.setUsername("john");
+        user.setUserType(UserType.USER);
+        entityManager.persist(user);
+
+        Account fromAccount = entityManager.persist(getAccount("NL01INHO0000000001", user));
+        Account toAccount = entityManager.persist(getAccount("NL01INHO0000000002", user));
+
+        Transaction transaction = new Transaction(fromAccount, toAccount, 1000L, "", "", TransactionType.TRANSFER);
+        transaction.setUser(user);
+        transaction.setCreatedAt(new Date());
+        transactionId = entityManager.persist(transaction).getId();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private Account getAccount(String iban, User user) {
+        Account account = new Account();
+        account.setIban(iban);
+        account.setUser(user);
+        account.setIsActive(true);
+        account.setIsSavings(false);
+        return account;
+    }
+
+    @Test
+    public void testFindByIdLeavesAssociationsLazy() {
+        Transaction transaction = transactionRepository.findById(transactionId).orElseThrow();
+
+        Assertions.assertFalse(Hibernate.isInitialized(transaction.getUser()));
+        Assertions.assertFalse(Hibernate.isInitialized(transaction.getFromAccount()));
+        Assertions.assertFalse(Hibernate.isInitialized(transaction.getToAccount()));
+    }
+
+    @Test
+    public void testFindWithAccountsById() {
+        Transaction transaction = transactionRepository.findWithAccountsById(transactionId).orElseThrow();
+
+        Assertions.assertTrue(Hibernate.isInitialized(transaction.getFromAccount()));
+        Assertions.assertTrue(Hibernate.isInitialized(transaction.getToAccount()));
+    }
+
+    //  The settlement worker has no session, so everything the checks use has to be loaded by the query itself
+    @Test
+    public void testFindAllForSettlementByIdIn() {
+        List<Transaction> transactions = transactionRepository.findAllForSettlementByIdIn(List.of(transactionId));
+        entityManager.clear();
+
+        Transaction transaction = transactions.get(0);
+        Assertions.assertEquals("john", transaction.getUser().getUsername());
+        Assertions.assertEquals("john", transaction.getFromAccount().getUser().getUsername());
+        Assertions.assertEquals("john", transaction.getToAccount().getUser().getUsername());
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.CodeGeneratieRestAPI.repositories;
+
+import com.example.CodeGeneratieRestAPI.dtos.TransactionResponseDTO;
+import com.example.CodeGeneratieRestAPI.models.Account;
+import com.example.CodeGeneratieRestAPI.models.Transaction;
+import com.example.CodeGeneratieRestAPI.models.TransactionType;
+import com.example.CodeGeneratieRestAPI.models.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+@DataJpaTest
+public class TransactionSpecificationsTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private User user;
+    private Account account;
+    private Account otherAccount;
+    private Date now;
+
+    @BeforeEach
+    public void init() {
+        user = entityManager.persist(new User());
+        account = getAccount("NL01INHO0000000001");
+        account.setUser(user);
+        account = entityManager.persist(account);
+        otherAccount = entityManager.persist(getAccount("NL01INHO0000000002"));
+        now = new Date();
+
+        //  A deposit has no from account and a withdrawal has no to account
+        persistTransaction(null, account, 1000L, TransactionType.DEPOSIT, new Date(now.getTime() - 3000));
+        persistTransaction(account, otherAccount, 2000L, TransactionType.TRANSFER, new Date(now.getTime() - 2000));
+        persistTransaction(otherAccount, null, 3000L, TransactionType.WITHDRAW, new Date(now.getTime() - 1000));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private Account getAccount(String iban) {
+        Account account = new Account();
+        account.setIban(iban);
+        account.setIsActive(true);
+        account.setIsSavings(false);
+        return account;
+    }
+
+    private void persistTransaction(Account fromAccount, Account toAccount, long amount, TransactionType transactionType, Date createdAt) {
+        Transaction transaction = new Transaction(fromAccount, toAccount, amount, "", "", transactionType);
+        transaction.setCreatedAt(createdAt);
+        entityManager.persist(transaction);
+    }
+
+    private List<Long> getAmounts(Specification<Transaction> specification) {
+        return transactionRepository.findAllResponses(specification, Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")), 10).stream().map(TransactionResponseDTO::getAmount).toList();
+    }
+
+    @Test
+    public void testNoFilters() {
+        Assertions.assertEquals(List.of(3000L, 2000L, 1000L), getAmounts(TransactionSpecifications.matching(null, null, "", "", null)));
+    }
+
+    @Test
+    public void testDateRange() {
+        Date startDate = new Date(now.getTime() - 2500);
+        Date endDate = new Date(now.getTime() - 1500);
+
+        Assertions.assertEquals(List.of(2000L), getAmounts(TransactionSpecifications.matching(startDate, endDate, "", "", null)));
+    }
+
+    @Test
+    public void testAmountRelation() {
+        Assertions.assertEquals(List.of(1000L), getAmounts(TransactionSpecifications.matching(null, null, "", "<", 2000L)));
+        Assertions.assertEquals(List.of(3000L), getAmounts(TransactionSpecifications.matching(null, null, "", ">", 2000L)));
+        Assertions.assertEquals(List.of(2000L), getAmounts(TransactionSpecifications.matching(null, null, "", "=", 2000L)));
+    }
+
+    @Test
+    public void testIbanMatchesFromAndToAccount() {
+        Assertions.assertEquals(List.of(2000L, 1000L), getAmounts(TransactionSpecifications.matching(null, null, account.getIban(), "", null)));
+        Assertions.assertEquals(List.of(3000L, 2000L), getAmounts(TransactionSpecifications.matching(null, null, otherAccount.getIban(), "", null)));
+    }
+
+    @Test
+    public void testIbanAndSearchIban() {
+        Specification<Transaction> specification = Specification.where(TransactionSpecifications.involvesIban(account.getIban()))
+                .and(TransactionSpecifications.matching(null, null, otherAccount.getIban(), "", null));
+
+        Assertions.assertEquals(List.of(2000L), getAmounts(specification));
+        Assertions.assertEquals(1, transactionRepository.findAllResponses(specification, PageRequest.of(0, 1)).getTotalElements());
+    }
+
+    @Test
+    public void testResponsesHaveAccountIbans() {
+        List<TransactionResponseDTO> transactions = transactionRepository.findAllResponses(TransactionSpecifications.matching(null, null, "", "", null), Sort.by(Sort.Order.desc("createdAt")), 10);
+
+        Assertions.assertEquals(otherAccount.getIban(), transactions.get(0).getFromAccountIban());
+        Assertions.assertNull(transactions.get(0).getToAccountIban());
+        Assertions.assertEquals(account.getIban(), transactions.get(1).getFromAccountIban());
+        Assertions.assertEquals(otherAccount.getIban(), transactions.get(1).getToAccountIban());
+        Assertions.assertEquals(TransactionType.TRANSFER, transactions.get(1).getTransactionType());
+    }
+
+    @Test
+    public void testScrollResponses() {
+        List<Long> amounts = new ArrayList<>();
+        transactionRepository.scrollResponses(TransactionSpecifications.matching(null, null, "", "", null), Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("id")), 2, transaction -> amounts.add(transaction.getAmount()));
+
+        Assertions.assertEquals(List.of(1000L, 2000L, 3000L), amounts);
+    }
+
+    @Test
+    public void testAfterCursor() {
+        TransactionResponseDTO newest = transactionRepository.findAllResponses(TransactionSpecifications.matching(null, null, "", "", null), Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")), 1).get(0);
+
+        Specification<Transaction> specification = Specification.where(TransactionSpecifications.matching(null, null, "", "", null))
+                .and(TransactionSpecifications.after(newest.getCreatedAt(), newest.getId()));
+
+        Assertions.assertEquals(List.of(2000L, 1000L), getAmounts(specification));
+    }
+
+    @Test
+    public void testSentAndReceivedByUser() {
+        Assertions.assertEquals(List.of(2000L), getAmounts(TransactionSpecifications.sentByUser(user.getId())));
+        Assertions.assertEquals(List.of(1000L), getAmounts(TransactionSpecifications.receivedByUser(user.getId())));
+        Assertions.assertEquals(List.of(), getAmounts(TransactionSpecifications.sentByUser(user.getId() + 1)));
+    }
+
+    @Test
+    public void testSentFromAndReceivedOnIban() {
+        Assertions.assertEquals(List.of(2000L), getAmounts(TransactionSpecifications.sentFromIban(account.getIban())));
+        Assertions.assertEquals(List.of(1000L), getAmounts(TransactionSpecifications.receivedOnIban(account.getIban())));
+        Assertions.assertEquals(List.of(3000L), getAmounts(TransactionSpecifications.sentFromIban(otherAccount.getIban())));
+        Assertions.assertEquals(List.of(), getAmounts(TransactionSpecifications.receivedOnIban("NL01INHO0000000003")));
+    }
+
+    @Test
+    public void testType() {
+        Assertions.assertEquals(List.of(1000L), getAmounts(TransactionSpecifications.hasType(TransactionType.DEPOSIT)));
+        Assertions.assertEquals(List.of(2000L), getAmounts(TransactionSpecifications.sentByUser(user.getId()).and(TransactionSpecifications.hasType(TransactionType.TRANSFER))));
+        Assertions.assertEquals(List.of(), getAmounts(TransactionSpecifications.sentByUser(user.getId()).and(TransactionSpecifications.hasType(TransactionType.DEPOSIT))));
+    }
+
+    @Test
+    public void testSliceOfResponses() {
+        Slice<TransactionResponseDTO> firstPage = transactionRepository.findSliceOfResponses(TransactionSpecifications.matching(null, null, "", "", null), PageRequest.of(0, 2, Sort.by(Sort.Order.desc("createdAt"))));
+        Slice<TransactionResponseDTO> lastPage = transactionRepository.findSliceOfResponses(TransactionSpecifications.matching(null, null, "", "", null), PageRequest.of(1, 2, Sort.by(Sort.Order.desc("createdAt"))));
+
+        Assertions.assertEquals(List.of(3000L, 2000L), firstPage.getContent().stream().map(TransactionResponseDTO::getAmount).toList());
+        Assertions.assertTrue(firstPage.hasNext());
+        Assertions.assertEquals(List.of(1000L), lastPage.getContent().stream().map(TransactionResponseDTO::getAmount).toList());
+        Assertions.assertFalse(lastPage.hasNext());
+    }
+
+    @Test
+    public void testCount() {
+        Assertions.assertEquals(3, transactionRepository.count(TransactionSpecifications.matching(null, null, "", "", null)));
+        Assertions.assertEquals(2, transactionRepository.count(TransactionSpecifications.involvesIban(account.getIban())));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.CodeGeneratieRestAPI.repositories;
+
+import com.example.CodeGeneratieRestAPI.dtos.UserResponseDTO;
+import com.example.CodeGeneratieRestAPI.models.Account;
+import com.example.CodeGeneratieRestAPI.models.User;
+import com.example.CodeGeneratieRestAPI.models.UserType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+@DataJpaTest
+public class UserRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    public void init() {
+        User customer = persistUser("anna", UserType.USER);
+        persistUser("bram", UserType.USER);
+        persistUser("carla", UserType.USER);
+        persistUser("employee", UserType.EMPLOYEE);
+
+        Account account = new Account();
+        account.setIban("NL01INHO0000000001");
+        account.setIsActive(true);
+        account.setIsSavings(false);
+        account.setUser(customer);
+        entityManager.persist(account);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private User persistUser(String username, UserType userType) {
+        User user = new User();
+        user.setUsername(username);
+        user.setUserType(userType);
+        return entityManager.persist(user);
+    }
+
+    @Test
+    public void testAllResponses() {
+        Page<UserResponseDTO> users = userRepository.findAllResponses(PageRequest.of(1, 3, Sort.by("username")));
+
+        Assertions.assertEquals(4, users.getTotalElements());
+        Assertions.assertEquals(List.of("employee"), users.getContent().stream().map(UserResponseDTO::getUsername).toList());
+    }
+
+    //  Employees and customers with an account are left out
+    @Test
+    public void testResponsesWithoutAccounts() {
+        Page<UserResponseDTO> users = userRepository.findAllResponsesWithoutAccounts(PageRequest.of(0, 1, Sort.by("username")));
+
+        Assertions.assertEquals(2, users.getTotalElements());
+        Assertions.assertEquals(List.of("bram"), users.getContent().stream().map(UserResponseDTO::getUsername).toList());
+    }
+}
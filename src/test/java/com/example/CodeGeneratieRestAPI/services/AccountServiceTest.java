@@ -4,6 +4,7 @@ import com.example.CodeGeneratieRestAPI.dtos.AccountData;
 import com.example.CodeGeneratieRestAPI.dtos.AccountRequestDTO;
 import com.example.CodeGeneratieRestAPI.dtos.AccountResponseDTO;
 import com.example.CodeGeneratieRestAPI.exceptions.*;
+import com.example.CodeGeneratieRestAPI.helpers.AccountLockManager;
 import com.example.CodeGeneratieRestAPI.helpers.IBANGenerator;
 import com.example.CodeGeneratieRestAPI.helpers.ServiceHelper;
 import com.example.CodeGeneratieRestAPI.models.Account;
@@ -17,10 +18,17 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -37,6 +45,12 @@ public class AccountServiceTest {
     private IBANGenerator ibanGenerator;
     @Mock
     private TransactionService transactionService;
+    @Mock
+    private DailySpendService dailySpendService;
+    @Spy
+    private AccountLockManager accountLockManager = new AccountLockManager();
+    @Mock
+    private LedgerEngine ledgerEngine;
     @InjectMocks
     private AccountService accountService;
 
@@ -50,10 +64,10 @@ public class AccountServiceTest {
         account.setIban("NL24-INHO-0288-9098-04");
         account.setUser(user);
         account.setUserId(account.getUserId());
-        account.setBalance(1000.0F);
-        account.setAbsoluteLimit(10F);
-        account.setDailyLimit(500F);
-        account.setTransactionLimit(100F);
+        account.setBalance(100000L);
+        account.setAbsoluteLimit(1000L);
+        account.setDailyLimit(50000L);
+        account.setTransactionLimit(10000L);
         account.setName("Test account");
         account.setIsActive(true);
         return account;
@@ -61,10 +75,10 @@ public class AccountServiceTest {
 
     private AccountRequestDTO getMockAccountRequestDTO() {
         AccountRequestDTO accountRequestDTO = new AccountRequestDTO();
-        accountRequestDTO.setBalance(1000.0F);
-        accountRequestDTO.setAbsoluteLimit(10F);
-        accountRequestDTO.setDailyLimit(500F);
-        accountRequestDTO.setTransactionLimit(100F);
+        accountRequestDTO.setBalance(100000L);
+        accountRequestDTO.setAbsoluteLimit(1000L);
+        accountRequestDTO.setDailyLimit(50000L);
+        accountRequestDTO.setTransactionLimit(10000L);
         accountRequestDTO.setName("Test account");
         accountRequestDTO.setIsActive(true);
         accountRequestDTO.setIsSavings(false);
@@ -88,18 +102,27 @@ public class AccountServiceTest {
         Account account2 = getMockAccount(user);
         accountList.add(account1);
         accountList.add(account2);
-        when(accountRepository.findAllBySearchTermAndUserId(anyString(), anyBoolean(), anyLong()))
-                .thenReturn(accountList);
+        when(accountRepository.findAllBySearchTermAndUserId(anyString(), anyBoolean(), anyLong(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(accountList.stream().map(AccountResponseDTO::new).toList()));
 
         // Run the test
-        final List<Account> result = accountService.getAllAccounts("Test", true, user);
-        // final List<Account> result =
-        // accountRepository.findAllBySearchTermAndUserId("Test", true, user.getId());
+        final List<AccountResponseDTO> result = accountService.getAllAccounts("Test", true, 0, 10, user).getContent();
 
         // Verify the results
         assertEquals(2, result.size());
-        assertTrue(result.contains(account1));
-        assertTrue(result.contains(account2));
+        assertTrue(result.contains(new AccountResponseDTO(account1)));
+        assertTrue(result.contains(new AccountResponseDTO(account2)));
+        verify(accountRepository).findAllBySearchTermAndUserId("Test", true, user.getId(), PageRequest.of(0, 10, Sort.by("iban")));
+        verify(accountRepository, never()).findAllBySearchTerm(anyString(), anyBoolean(), any(Pageable.class));
+    }
+
+    @Test
+    public void testGetAllAccountsAsEmployee() {
+        User user = getMockUser(UserType.EMPLOYEE);
+        when(accountRepository.findAllBySearchTerm(anyString(), any(), any(Pageable.class))).thenReturn(Page.empty());
+
+        assertEquals(0, accountService.getAllAccounts("", null, 0, 10, user).getTotalElements());
+        assertThrows(RuntimeException.class, () -> accountService.getAllAccounts("", null, 0, 0, user));
     }
 
     @Test
@@ -190,7 +213,7 @@ public class AccountServiceTest {
         Account account2 = getMockAccount(user1);
         accountList.add(account1);
         accountList.add(account2);
-        when(accountRepository.findAllByUserId(anyLong())).thenReturn(accountList);
+        when(accountRepository.findAllByUserId(anyLong())).thenReturn(accountList.stream().map(AccountResponseDTO::new).toList());
 
         // Verify the results
         AccountNotAccessibleException exception = Assertions.assertThrows(AccountNotAccessibleException.class, () -> accountService.getAllAccountsByUserId(user1.getId(), user2));
@@ -205,13 +228,13 @@ public class AccountServiceTest {
         Account account2 = getMockAccount(user1);
         accountList.add(account1);
         accountList.add(account2);
-        when(accountRepository.findAllByUserId(anyLong())).thenReturn(accountList);
+        when(accountRepository.findAllByUserId(anyLong())).thenReturn(accountList.stream().map(AccountResponseDTO::new).toList());
 
         // Verify the results
-        List<Account> result = accountService.getAllAccountsByUserId(user1.getId(), user1);
+        List<AccountResponseDTO> result = accountService.getAllAccountsByUserId(user1.getId(), user1);
         assertEquals(2, result.size());
-        assertTrue(result.contains(account1));
-        assertTrue(result.contains(account2));
+        assertTrue(result.contains(new AccountResponseDTO(account1)));
+        assertTrue(result.contains(new AccountResponseDTO(account2)));
     }
 
     @Test
@@ -224,13 +247,13 @@ public class AccountServiceTest {
         Account account2 = getMockAccount(user1);
         accountList.add(account1);
         accountList.add(account2);
-        when(accountRepository.findAllByUserId(anyLong())).thenReturn(accountList);
+        when(accountRepository.findAllByUserId(anyLong())).thenReturn(accountList.stream().map(AccountResponseDTO::new).toList());
 
         // Verify the results
-        List<Account> result = accountService.getAllAccountsByUserId(user1.getId(), user2);
+        List<AccountResponseDTO> result = accountService.getAllAccountsByUserId(user1.getId(), user2);
         assertEquals(2, result.size());
-        assertTrue(result.contains(account1));
-        assertTrue(result.contains(account2));
+        assertTrue(result.contains(new AccountResponseDTO(account1)));
+        assertTrue(result.contains(new AccountResponseDTO(account2)));
     }
 
     @Test
@@ -243,7 +266,7 @@ public class AccountServiceTest {
         Account account2 = getMockAccount(user1);
         accountList.add(account1);
         accountList.add(account2);
-        when(accountRepository.findAllByUserId(anyLong())).thenReturn(accountList);
+        when(accountRepository.findAllByUserId(anyLong())).thenReturn(accountList.stream().map(AccountResponseDTO::new).toList());
 
         // Verify the results
         AccountNotAccessibleException exception = Assertions.assertThrows(AccountNotAccessibleException.class, () -> accountService.getAllAccountsByUserId(user2.getId(), user1));
@@ -269,6 +292,8 @@ public class AccountServiceTest {
 
         Account accountToUpdate = accountService.update(accountRequestDTO, user1);
         assertEquals(accountToCheck.getBalance(), accountToUpdate.getBalance());
+        verify(accountRepository).updateSettings(accountToCheck.getIban(), accountToUpdate.getDailyLimit(), accountToUpdate.getTransactionLimit(), accountToUpdate.getAbsoluteLimit(), "Changed name", accountToUpdate.getIsSavings());
+        verify(accountLockManager).lock(accountToCheck.getIban());
     }
 
     @Test
@@ -281,7 +306,7 @@ public class AccountServiceTest {
         Account accountToCheck = accountService.add(account, user1);
         AccountRequestDTO accountRequestDTO = getMockAccountRequestDTO();
         accountRequestDTO.setIban(accountToCheck.getIban());
-        accountRequestDTO.setBalance(2000.0f);
+        accountRequestDTO.setBalance(200000L);
 
         when(accountRepository.checkIfAccountBelongsToUser(accountToCheck.getIban(), user1.getId())).thenReturn(true);
         when(serviceHelper.checkIfObjectExistsByIdentifier(any(), any())).thenReturn(true);
@@ -350,6 +375,34 @@ public class AccountServiceTest {
         when(accountRepository.getAccountByIban(account.getIban())).thenReturn(Optional.of(accountToCheck));
 
         assertEquals("Account with IBAN: " + accountToCheck.getIban() + " has been set to inactive", accountService.delete(account.getIban(), user1));
+        verify(accountRepository).deactivate(accountToCheck.getIban());
+    }
+
+    //  In the partitioned mode the engine has to read the account again after an update or a delete
+    @Test
+    void testUpdateAndDeleteInvalidateLedger() {
+        User user1 = getMockUser(UserType.USER);
+        AccountRequestDTO account = getMockAccountRequestDTO();
+
+        when(ibanGenerator.getUniqueIban()).thenReturn("NL01-INHO-0000-0000-05");
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+        when(ledgerEngine.invalidate(anyString())).thenReturn(CompletableFuture.completedFuture(null));
+
+        Account accountToCheck = accountService.add(account, user1);
+        AccountRequestDTO accountRequestDTO = getMockAccountRequestDTO();
+        accountRequestDTO.setIban(accountToCheck.getIban());
+        accountRequestDTO.setBalance(null);
+        accountRequestDTO.setName("Changed name");
+
+        when(accountRepository.checkIfAccountBelongsToUser(accountToCheck.getIban(), user1.getId())).thenReturn(true);
+        when(serviceHelper.checkIfObjectExistsByIdentifier(any(), any())).thenReturn(true);
+        when(accountRepository.getAccountByIban(account.getIban())).thenReturn(Optional.of(accountToCheck));
+
+        accountService.update(accountRequestDTO, user1);
+        verify(ledgerEngine).invalidate(accountToCheck.getIban());
+
+        accountService.delete(accountToCheck.getIban(), user1);
+        verify(ledgerEngine, times(2)).invalidate(accountToCheck.getIban());
     }
 
     @Test
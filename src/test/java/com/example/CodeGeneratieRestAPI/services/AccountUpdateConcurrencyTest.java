@@ -0,0 +1,85 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.dtos.AccountRequestDTO;
+import com.example.CodeGeneratieRestAPI.models.Account;
+import com.example.CodeGeneratieRestAPI.models.User;
+import com.example.CodeGeneratieRestAPI.repositories.AccountRepository;
+import com.example.CodeGeneratieRestAPI.repositories.UserRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+//  Account updates and deletes that race with a debit of the same account
+@SpringBootTest
+public class AccountUpdateConcurrencyTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @SpyBean
+    private AccountRepository accountRepository;
+
+    @Test
+    public void testUpdateKeepsConcurrentDebit() {
+        User employee = userRepository.findUserByUsername("admin").orElseThrow();
+        Account account = getAccounts().get(0);
+        debitAfterRead(account.getIban());
+
+        long balance = accountRepository.findByIban(account.getIban()).getBalance();
+
+        AccountRequestDTO request = new AccountRequestDTO();
+        request.setIban(account.getIban());
+        request.setDailyLimit(account.getDailyLimit() + 100);
+        accountService.update(request, employee);
+
+        Account updated = accountRepository.findByIban(account.getIban());
+        Assertions.assertEquals(balance - 100, updated.getBalance());
+        Assertions.assertEquals(account.getDailyLimit() + 100, updated.getDailyLimit());
+    }
+
+    @Test
+    public void testDeleteKeepsConcurrentDebit() {
+        User employee = userRepository.findUserByUsername("admin").orElseThrow();
+        Account account = getAccounts().get(1);
+        debitAfterRead(account.getIban());
+
+        long balance = accountRepository.findByIban(account.getIban()).getBalance();
+
+        accountService.delete(account.getIban(), employee);
+
+        Account deleted = accountRepository.findByIban(account.getIban());
+        Assertions.assertEquals(balance - 100, deleted.getBalance());
+        Assertions.assertFalse(deleted.getIsActive());
+    }
+
+    private List<Account> getAccounts() {
+        return accountRepository.findAll().stream()
+                .filter(account -> account.getUser() != null && !account.getIsSavings() && account.getIsActive())
+                .toList();
+    }
+
+    //  The debit is done by another thread right after the service has read the account, before it writes it back
+    private void debitAfterRead(String iban) {
+        AtomicBoolean debited = new AtomicBoolean();
+        doAnswer(invocation -> {
+            Optional<Account> account = Optional.ofNullable(accountRepository.findByIban(iban));
+            if (debited.compareAndSet(false, true)) {
+                CompletableFuture.runAsync(() -> accountRepository.debitBalance(iban, 100)).join();
+            }
+            return account;
+        }).when(accountRepository).getAccountByIban(eq(iban));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.models.DailySpend;
+import com.example.CodeGeneratieRestAPI.repositories.DailySpendRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DailySpendServiceTest {
+
+    @Mock
+    private DailySpendRepository dailySpendRepository;
+
+    @InjectMocks
+    private DailySpendService dailySpendService;
+
+    private final String iban = "NL61-INHO-0897-9124-90";
+
+    @BeforeEach
+    public void init() {
+        MockitoAnnotations.openMocks(this);
+        when(dailySpendRepository.findAmount(anyString(), any())).thenReturn(Optional.empty());
+        when(dailySpendRepository.addAmount(anyString(), any(), anyLong())).thenReturn(1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(dailySpendService);
+    }
+
+    @Test
+    public void testCounterIsReadOnceAndCached() {
+        when(dailySpendRepository.findAmount(iban, LocalDate.now())).thenReturn(Optional.of(20000L));
+
+        Assertions.assertEquals(20000L, dailySpendService.getSpentToday(iban));
+        Assertions.assertEquals(20000L, dailySpendService.getSpentToday(iban));
+        verify(dailySpendRepository, times(1)).findAmount(iban, LocalDate.now());
+    }
+
+    @Test
+    public void testAddWithoutTransaction() {
+        dailySpendService.add(iban, 6000L);
+        dailySpendService.add(iban, 4000L);
+
+        Assertions.assertEquals(10000L, dailySpendService.getSpentToday(iban));
+        verify(dailySpendRepository, times(1)).findAmount(iban, LocalDate.now());
+    }
+
+    @Test
+    public void testFirstSpendOfTheDayInsertsRow() {
+        when(dailySpendRepository.addAmount(iban, LocalDate.now(), 6000L)).thenReturn(0);
+
+        dailySpendService.add(iban, 6000L);
+
+        verify(dailySpendRepository).save(eq(new DailySpend(iban, LocalDate.now(), 6000L)));
+    }
+
+    @Test
+    public void testUncommittedSpendOnlyVisibleAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        dailySpendService.add(iban, 6000L);
+        dailySpendService.add(iban, 3000L);
+        //  The database transaction that made the change sees it
+        Assertions.assertEquals(9000L, dailySpendService.getSpentToday(iban));
+
+        TransactionSynchronization synchronization = TransactionSynchronizationManager.getSynchronizations().get(0);
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.unbindResource(dailySpendService);
+        //  Other database transactions don't see it until it is committed
+        Assertions.assertEquals(0L, dailySpendService.getSpentToday(iban));
+
+        synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        Assertions.assertEquals(9000L, dailySpendService.getSpentToday(iban));
+    }
+
+    @Test
+    public void testRolledBackSpendIsNotCached() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        dailySpendService.add(iban, 6000L);
+
+        TransactionSynchronization synchronization = TransactionSynchronizationManager.getSynchronizations().get(0);
+        synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        Assertions.assertEquals(0L, dailySpendService.getSpentToday(iban));
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.dtos.HoldRequestDTO;
+import com.example.CodeGeneratieRestAPI.exceptions.*;
+import com.example.CodeGeneratieRestAPI.helpers.AccountLockManager;
+import com.example.CodeGeneratieRestAPI.models.*;
+import com.example.CodeGeneratieRestAPI.repositories.AccountRepository;
+import com.example.CodeGeneratieRestAPI.repositories.HoldRepository;
+import com.example.CodeGeneratieRestAPI.repositories.TransactionRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HoldServiceTest {
+
+    @Mock
+    private HoldRepository holdRepository;
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private TransactionService transactionService;
+    @Spy
+    private AccountLockManager accountLockManager = new AccountLockManager();
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private LedgerEngine ledgerEngine;
+    @Mock
+    private HoldExpirySweeper holdExpirySweeper;
+    @Mock
+    private DailySpendService dailySpendService;
+
+    @InjectMocks
+    private HoldService holdService;
+
+    @BeforeEach
+    public void init() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(holdService, "defaultExpirySeconds", 900L);
+
+        //  Run the transaction callback directly and let the balance updates succeed by default
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+        when(accountRepository.reserveBalance(anyString(), anyLong())).thenReturn(1);
+        when(accountRepository.creditBalance(anyString(), anyLong())).thenReturn(1);
+        when(holdRepository.save(any(Hold.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private User getMockUser(Long id, UserType userType, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUserType(userType);
+        user.setUsername(username);
+        return user;
+    }
+
+    private Account getMockAccount(String iban, long balance, User user) {
+        Account account = new Account();
+        account.setIban(iban);
+        account.setUser(user);
+        account.setBalance(balance);
+        account.setAbsoluteLimit(1000L);
+        account.setDailyLimit(20000L);
+        account.setTransactionLimit(10000L);
+        account.setIsSavings(false);
+        when(accountRepository.findByIban(iban)).thenReturn(account);
+        return account;
+    }
+
+    private Hold getMockHold(User user, Account fromAccount, Account toAccount, long amount, HoldStatus status) {
+        Hold hold = new Hold(user, fromAccount, toAccount, amount, "", new Date(System.currentTimeMillis() + 60_000));
+        hold.setId(1L);
+        hold.setStatus(status);
+        when(holdRepository.findById(hold.getId())).thenReturn(Optional.of(hold));
+        return hold;
+    }
+
+    @Test
+    public void testPlace() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user);
+
+        Hold hold = holdService.place(user, new HoldRequestDTO(fromAccount.getIban(), null, 6000L, "", 60L));
+
+        Assertions.assertEquals(HoldStatus.ACTIVE, hold.getStatus());
+        Assertions.assertEquals(fromAccount, hold.getFromAccount());
+        verify(accountRepository).reserveBalance(fromAccount.getIban(), 6000L);
+        //  The hold counts towards the daily limit of today
+        verify(dailySpendService).add(fromAccount.getIban(), 6000L);
+        verify(holdExpirySweeper).schedule(hold);
+    }
+
+    @Test
+    public void testPlaceExceedAvailableBalance() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 5000L, user);
+
+        when(accountRepository.reserveBalance(fromAccount.getIban(), 6000L)).thenReturn(0);
+
+        Assertions.assertThrows(TransactionExceededAbsoluteLimitException.class, () -> holdService.place(user, new HoldRequestDTO(fromAccount.getIban(), null, 6000L, "", null)));
+        verify(holdRepository, never()).save(any(Hold.class));
+    }
+
+    @Test
+    public void testPlaceExpiryInThePast() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user);
+
+        Assertions.assertThrows(TransactionAmountNotValidException.class, () -> holdService.place(user, new HoldRequestDTO(fromAccount.getIban(), null, 6000L, "", -1L)));
+    }
+
+    @Test
+    public void testCaptureAsWithdraw() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user);
+        getMockHold(user, fromAccount, null, 6000L, HoldStatus.ACTIVE);
+
+        Hold hold = holdService.capture(user, 1L, null);
+
+        Assertions.assertEquals(HoldStatus.CAPTURED, hold.getStatus());
+        Assertions.assertEquals(6000L, hold.getCapturedAmount());
+        Assertions.assertEquals(TransactionType.WITHDRAW, hold.getTransaction().getTransactionType());
+        verify(accountRepository).captureReservedBalance(fromAccount.getIban(), 6000L, 6000L);
+    }
+
+    @Test
+    public void testCapturePartialAsTransfer() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user);
+        Account toAccount = getMockAccount("123457", 100000L, user);
+        getMockHold(user, fromAccount, toAccount, 6000L, HoldStatus.ACTIVE);
+
+        Hold hold = holdService.capture(user, 1L, 4000L);
+
+        Assertions.assertEquals(TransactionType.TRANSFER, hold.getTransaction().getTransactionType());
+        //  The 20 that was not captured is given back to the available balance
+        verify(accountRepository).captureReservedBalance(fromAccount.getIban(), 6000L, 4000L);
+        verify(accountRepository).creditBalance(toAccount.getIban(), 4000L);
+        //  The hold was counted when it was placed today, the part that was not captured is given back
+        verify(dailySpendService).add(fromAccount.getIban(), -2000L);
+    }
+
+    //  A hold of an earlier day counted on that day, capturing it today doesn't count it again
+    @Test
+    public void testCaptureHoldOfEarlierDay() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user);
+        Hold hold = getMockHold(user, fromAccount, null, 6000L, HoldStatus.ACTIVE);
+        hold.setCreatedAt(new Date(System.currentTimeMillis() - 2 * 24 * 3600 * 1000L));
+
+        holdService.capture(user, 1L, 4000L);
+
+        verify(dailySpendService, never()).add(anyString(), anyLong());
+    }
+
+    @Test
+    public void testCaptureMoreThanHold() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user);
+        getMockHold(user, fromAccount, null, 6000L, HoldStatus.ACTIVE);
+
+        Assertions.assertThrows(TransactionAmountNotValidException.class, () -> holdService.capture(user, 1L, 6100L));
+    }
+
+    @Test
+    public void testRelease() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user);
+        getMockHold(user, fromAccount, null, 6000L, HoldStatus.ACTIVE);
+
+        Hold hold = holdService.release(user, 1L);
+
+        Assertions.assertEquals(HoldStatus.RELEASED, hold.getStatus());
+        verify(accountRepository).releaseReservedBalance(fromAccount.getIban(), 6000L);
+        verify(dailySpendService).add(fromAccount.getIban(), -6000L);
+    }
+
+    //  The hold of an earlier day never counted towards the daily limit of today, so nothing is given back today
+    @Test
+    public void testReleaseHoldOfEarlierDay() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user);
+        Hold hold = getMockHold(user, fromAccount, null, 6000L, HoldStatus.ACTIVE);
+        hold.setCreatedAt(new Date(System.currentTimeMillis() - 2 * 24 * 3600 * 1000L));
+
+        holdService.release(user, 1L);
+
+        verify(accountRepository).releaseReservedBalance(fromAccount.getIban(), 6000L);
+        verify(dailySpendService, never()).add(anyString(), anyLong());
+    }
+
+    @Test
+    public void testReleaseCapturedHold() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user);
+        getMockHold(user, fromAccount, null, 6000L, HoldStatus.CAPTURED);
+
+        Assertions.assertThrows(HoldNotActiveException.class, () -> holdService.release(user, 1L));
+        verify(accountRepository, never()).releaseReservedBalance(anyString(), anyLong());
+    }
+
+    @Test
+    public void testExpire() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user);
+        Hold hold = getMockHold(user, fromAccount, null, 6000L, HoldStatus.ACTIVE);
+
+        Assertions.assertEquals(List.of(), holdService.expire(List.of(hold.getId())));
+        Assertions.assertEquals(HoldStatus.EXPIRED, hold.getStatus());
+        verify(accountRepository).releaseReservedBalance(fromAccount.getIban(), 6000L);
+    }
+
+    @Test
+    public void testExpireSkipsCapturedHold() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user);
+        Hold hold = getMockHold(user, fromAccount, null, 6000L, HoldStatus.CAPTURED);
+
+        Assertions.assertEquals(List.of(), holdService.expire(List.of(hold.getId())));
+        Assertions.assertEquals(HoldStatus.CAPTURED, hold.getStatus());
+        verify(accountRepository, never()).releaseReservedBalance(anyString(), anyLong());
+    }
+
+    @Test
+    public void testGetByIdNotOwned() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        User otherUser = getMockUser(2L, UserType.USER, "doe");
+        Account fromAccount = getMockAccount("123456", 100000L, otherUser);
+        getMockHold(otherUser, fromAccount, null, 6000L, HoldStatus.ACTIVE);
+
+        Assertions.assertThrows(TransactionNotOwnedException.class, () -> holdService.getById(user, 1L));
+    }
+}
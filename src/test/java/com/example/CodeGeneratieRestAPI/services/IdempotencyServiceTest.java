@@ -0,0 +1,214 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.dtos.TransactionRequestDTO;
+import com.example.CodeGeneratieRestAPI.exceptions.IdempotencyKeyInUseException;
+import com.example.CodeGeneratieRestAPI.exceptions.IdempotencyKeyNotValidException;
+import com.example.CodeGeneratieRestAPI.models.ApiResponse;
+import com.example.CodeGeneratieRestAPI.models.IdempotencyRecord;
+import com.example.CodeGeneratieRestAPI.models.User;
+import com.example.CodeGeneratieRestAPI.models.UserType;
+import com.example.CodeGeneratieRestAPI.repositories.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private IdempotencyService idempotencyService;
+    //  The keys that have a row, the mocked insert fails on a key that is in here like the primary key does
+    private final Set<String> rows = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    public void init() {
+        MockitoAnnotations.openMocks(this);
+        idempotencyService = new IdempotencyService(2, 60, 60, 600);
+        ReflectionTestUtils.setField(idempotencyService, "idempotencyRecordRepository", idempotencyRecordRepository);
+        ReflectionTestUtils.setField(idempotencyService, "objectMapper", new ObjectMapper());
+        idempotencyService.start();
+
+        when(idempotencyRecordRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.insertClaim(anyString(), anyString(), any(), any())).thenAnswer(invocation -> {
+            if (!rows.add(invocation.getArgument(0, String.class))) {
+                throw new DataIntegrityViolationException("Unique index or primary key violation");
+            }
+            return 1;
+        });
+        when(idempotencyRecordRepository.deleteClaim(anyString())).thenAnswer(invocation -> rows.remove(invocation.getArgument(0, String.class)) ? 1 : 0);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        idempotencyService.shutdown();
+    }
+
+    private User getMockUser(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUserType(UserType.USER);
+        return user;
+    }
+
+    private TransactionRequestDTO getRequest(long amount) {
+        return new TransactionRequestDTO("NL01INHO0000000001", null, "WITHDRAW", amount, "", "");
+    }
+
+    @Test
+    public void testStoredResponseIsReturned() {
+        User user = getMockUser(1L);
+        ApiResponse<String> body = new ApiResponse<>(true, "Transaction added", "data");
+
+        Assertions.assertNull(idempotencyService.begin(user, "key", getRequest(1000L)));
+        idempotencyService.complete(user, "key", getRequest(1000L), ResponseEntity.ok(body));
+
+        IdempotencyService.StoredResponse storedResponse = idempotencyService.begin(user, "key", getRequest(1000L));
+        Assertions.assertNotNull(storedResponse);
+        Assertions.assertEquals(200, storedResponse.statusCode());
+        Assertions.assertSame(body, storedResponse.body());
+        verify(idempotencyRecordRepository).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    public void testKeysAreScopedByUser() {
+        idempotencyService.begin(getMockUser(1L), "key", getRequest(1000L));
+        idempotencyService.complete(getMockUser(1L), "key", getRequest(1000L), ResponseEntity.ok(new ApiResponse<>(true, "Transaction added")));
+
+        Assertions.assertNull(idempotencyService.begin(getMockUser(2L), "key", getRequest(1000L)));
+    }
+
+    @Test
+    public void testKeyUsedForDifferentRequest() {
+        User user = getMockUser(1L);
+        idempotencyService.begin(user, "key", getRequest(1000L));
+        idempotencyService.complete(user, "key", getRequest(1000L), ResponseEntity.ok(new ApiResponse<>(true, "Transaction added")));
+
+        Assertions.assertThrows(IdempotencyKeyNotValidException.class, () -> idempotencyService.begin(user, "key", getRequest(2000L)));
+    }
+
+    @Test
+    public void testKeyInUse() {
+        User user = getMockUser(1L);
+        idempotencyService.begin(user, "key", getRequest(1000L));
+
+        Assertions.assertThrows(IdempotencyKeyInUseException.class, () -> idempotencyService.begin(user, "key", getRequest(1000L)));
+    }
+
+    //  Another instance claimed the key, it is only known from the row in the table
+    @Test
+    public void testKeyClaimedByOtherInstance() {
+        User user = getMockUser(1L);
+        rows.add("1:key");
+        long now = System.currentTimeMillis();
+        when(idempotencyRecordRepository.findById("1:key")).thenReturn(Optional.of(new IdempotencyRecord("1:key", "hash", 0, null, new Date(now), new Date(now + 60000))));
+
+        Assertions.assertThrows(IdempotencyKeyInUseException.class, () -> idempotencyService.begin(user, "key", getRequest(1000L)));
+    }
+
+    //  The request of the claim never completed, after the claim timed out the key can be claimed again
+    @Test
+    public void testTimedOutClaimIsTakenOver() {
+        User user = getMockUser(1L);
+        rows.add("1:key");
+        when(idempotencyRecordRepository.deleteExpired(eq("1:key"), any())).thenAnswer(invocation -> rows.remove("1:key") ? 1 : 0);
+
+        Assertions.assertNull(idempotencyService.begin(user, "key", getRequest(1000L)));
+        verify(idempotencyRecordRepository, times(2)).insertClaim(eq("1:key"), anyString(), any(), any());
+    }
+
+    //  The response could not be stored, it is still remembered in memory and the request does not fail
+    @Test
+    public void testResponseThatCanNotBeStoredIsRemembered() {
+        User user = getMockUser(1L);
+        when(idempotencyRecordRepository.save(any(IdempotencyRecord.class))).thenThrow(new DataAccessResourceFailureException("The database is not available"));
+
+        idempotencyService.begin(user, "key", getRequest(1000L));
+        idempotencyService.complete(user, "key", getRequest(1000L), ResponseEntity.ok(new ApiResponse<>(true, "Transaction added")));
+
+        Assertions.assertNotNull(idempotencyService.begin(user, "key", getRequest(1000L)));
+    }
+
+    @Test
+    public void testFailedResponseIsNotStored() {
+        User user = getMockUser(1L);
+        idempotencyService.begin(user, "key", getRequest(1000L));
+        idempotencyService.complete(user, "key", getRequest(1000L), ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse<>(false, "Error")));
+
+        //  The key is free again, so the request can be retried
+        Assertions.assertNull(idempotencyService.begin(user, "key", getRequest(1000L)));
+        verify(idempotencyRecordRepository).deleteClaim("1:key");
+        verify(idempotencyRecordRepository, never()).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedKeyIsEvicted() {
+        User user = getMockUser(1L);
+        for (String key : new String[]{"a", "b", "c"}) {
+            idempotencyService.begin(user, key, getRequest(1000L));
+            idempotencyService.complete(user, key, getRequest(1000L), ResponseEntity.ok(new ApiResponse<>(true, "Transaction added")));
+        }
+
+        Assertions.assertEquals(2, idempotencyService.getCachedCount());
+    }
+
+    @Test
+    public void testEvictedKeyIsReadFromTable() throws Exception {
+        User user = getMockUser(1L);
+        ArgumentCaptor<IdempotencyRecord> recordCaptor = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        for (String key : new String[]{"a", "b", "c"}) {
+            idempotencyService.begin(user, key, getRequest(1000L));
+            idempotencyService.complete(user, key, getRequest(1000L), ResponseEntity.ok(new ApiResponse<>(true, "Transaction added", Map.of("amount", new BigDecimal("10.50")))));
+        }
+        verify(idempotencyRecordRepository, times(3)).save(recordCaptor.capture());
+        IdempotencyRecord record = recordCaptor.getAllValues().get(0);
+        when(idempotencyRecordRepository.findById("1:a")).thenReturn(Optional.of(record));
+
+        IdempotencyService.StoredResponse storedResponse = idempotencyService.begin(user, "a", getRequest(1000L));
+        Assertions.assertNotNull(storedResponse);
+        ApiResponse<?> body = (ApiResponse<?>) storedResponse.body();
+        Assertions.assertEquals("Transaction added", body.getMessage());
+        //  The amount is written the same way as the first time
+        Assertions.assertEquals("{\"amount\":10.50}", new ObjectMapper().writeValueAsString((JsonNode) body.getData()));
+    }
+
+    @Test
+    public void testExpiredRecordIsIgnored() {
+        User user = getMockUser(1L);
+        IdempotencyRecord record = new IdempotencyRecord("1:key", "hash", 200, "{}", new Date(0), new Date(1));
+        when(idempotencyRecordRepository.findById("1:key")).thenReturn(Optional.of(record));
+
+        Assertions.assertNull(idempotencyService.begin(user, "key", getRequest(1000L)));
+    }
+
+    @Test
+    public void testKeyTooLong() {
+        Assertions.assertThrows(IdempotencyKeyNotValidException.class, () -> idempotencyService.begin(getMockUser(1L), "k".repeat(256), getRequest(1000L)));
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.models.Account;
+import com.example.CodeGeneratieRestAPI.models.Transaction;
+import com.example.CodeGeneratieRestAPI.models.TransactionType;
+import com.example.CodeGeneratieRestAPI.repositories.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LedgerEngineTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private DailySpendService dailySpendService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private SavepointRunner savepointRunner;
+
+    private LedgerEngine ledgerEngine;
+
+    @BeforeEach
+    public void init() {
+        MockitoAnnotations.openMocks(this);
+        //  Run the transaction callback directly
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+        when(savepointRunner.run(any(Supplier.class))).thenAnswer(invocation -> invocation.getArgument(0, Supplier.class).get());
+        when(accountRepository.debitBalance(anyString(), anyLong())).thenReturn(1);
+        when(accountRepository.creditBalance(anyString(), anyLong())).thenReturn(1);
+        ledgerEngine = new LedgerEngine(accountRepository, dailySpendService, transactionTemplate, savepointRunner, LedgerEngine.MODE_PARTITIONED, 4, 64);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ledgerEngine.shutdown();
+    }
+
+    private Account getMockAccount(String iban, long balance) {
+        Account account = new Account();
+        account.setIban(iban);
+        account.setBalance(balance);
+        account.setAbsoluteLimit(1000L);
+        account.setDailyLimit(20000L);
+        account.setTransactionLimit(10000L);
+        when(accountRepository.findByIban(iban)).thenReturn(account);
+        return account;
+    }
+
+    @Test
+    public void testEngineIsDisabledByDefault() {
+        LedgerEngine jpaEngine = new LedgerEngine(accountRepository, dailySpendService, transactionTemplate, savepointRunner, "jpa", 4, 64);
+
+        Assertions.assertFalse(jpaEngine.isEnabled());
+        Assertions.assertEquals(0, jpaEngine.getPartitionCount());
+    }
+
+    @Test
+    public void testDebitKeepsBalanceInPartition() {
+        Account account = getMockAccount("NL61-INHO-0897-9124-90", 10000L);
+
+        Assertions.assertEquals(LedgerEngine.LedgerResult.OK, ledgerEngine.debit(account, 6000L).join());
+        //  The second debit is rejected on the balance the partition owns, without asking the database again
+        Assertions.assertEquals(LedgerEngine.LedgerResult.ABSOLUTE_LIMIT_EXCEEDED, ledgerEngine.debit(account, 6000L).join());
+        verify(accountRepository).debitBalance(account.getIban(), 6000L);
+    }
+
+    //  The debits that come in while a group is being committed are committed together in the next database transaction
+    @Test
+    public void testWaitingCommandsAreCommittedTogether() throws InterruptedException {
+        Account account = getMockAccount("NL61-INHO-0897-9124-90", 100000L);
+        CountDownLatch firstGroupStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstGroup = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            firstGroupStarted.countDown();
+            releaseFirstGroup.await();
+            return invocation.getArgument(0, TransactionCallback.class).doInTransaction(null);
+        }).when(transactionTemplate).execute(any());
+
+        CompletableFuture<LedgerEngine.LedgerResult> first = ledgerEngine.debit(account, 1000L);
+        Assertions.assertTrue(firstGroupStarted.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<LedgerEngine.LedgerResult>> waiting = List.of(ledgerEngine.debit(account, 1000L), ledgerEngine.debit(account, 1000L), ledgerEngine.debit(account, 1000L));
+        releaseFirstGroup.countDown();
+
+        Assertions.assertEquals(LedgerEngine.LedgerResult.OK, first.join());
+        waiting.forEach(result -> Assertions.assertEquals(LedgerEngine.LedgerResult.OK, result.join()));
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(accountRepository, times(4)).debitBalance(account.getIban(), 1000L);
+    }
+
+    //  A database error rolls back the group, the other commands of the group are run again in their own transaction
+    @Test
+    public void testGroupIsRetriedPerCommandAfterDatabaseError() {
+        Account account = getMockAccount("NL61-INHO-0897-9124-90", 10000L);
+        when(accountRepository.debitBalance(account.getIban(), 1000L)).thenThrow(new DataAccessResourceFailureException("The database is not available"));
+
+        CompletionException exception = Assertions.assertThrows(CompletionException.class, () -> ledgerEngine.debit(account, 1000L).join());
+        Assertions.assertInstanceOf(DataAccessResourceFailureException.class, exception.getCause());
+
+        //  The cached balance was read again, the failed debit did not take anything from it
+        Assertions.assertEquals(LedgerEngine.LedgerResult.OK, ledgerEngine.debit(account, 9000L).join());
+    }
+
+    @Test
+    public void testDebitExceedsDailyLimit() {
+        Account account = getMockAccount("NL61-INHO-0897-9124-90", 100000L);
+
+        Assertions.assertEquals(LedgerEngine.LedgerResult.OK, ledgerEngine.debit(account, 10000L).join());
+        Assertions.assertEquals(LedgerEngine.LedgerResult.OK, ledgerEngine.debit(account, 10000L).join());
+        Assertions.assertEquals(LedgerEngine.LedgerResult.DAILY_LIMIT_EXCEEDED, ledgerEngine.debit(account, 100L).join());
+        verify(dailySpendService, times(2)).add(account.getIban(), 10000L);
+    }
+
+    @Test
+    public void testDebitUsesDailySpendCounter() {
+        Account account = getMockAccount("NL61-INHO-0897-9124-90", 100000L);
+        when(dailySpendService.getSpentToday(account.getIban())).thenReturn(15000L);
+
+        Assertions.assertEquals(LedgerEngine.LedgerResult.DAILY_LIMIT_EXCEEDED, ledgerEngine.debit(account, 6000L).join());
+        Assertions.assertEquals(LedgerEngine.LedgerResult.OK, ledgerEngine.debit(account, 5000L).join());
+    }
+
+    @Test
+    public void testTransferIsCompensatedWhenCreditFails() {
+        Account fromAccount = getMockAccount("NL61-INHO-0897-9124-90", 10000L);
+        Account toAccount = new Account();
+        toAccount.setIban("NL61-INHO-0897-9124-99");
+        when(accountRepository.creditBalance(eq(toAccount.getIban()), anyLong())).thenReturn(0);
+
+        Assertions.assertEquals(LedgerEngine.LedgerResult.ACCOUNT_NOT_FOUND, ledgerEngine.transfer(fromAccount, toAccount, 5000L).join());
+
+        //  The money that was taken from the from account is given back
+        verify(accountRepository).debitBalance(fromAccount.getIban(), 5000L);
+        verify(accountRepository).creditBalance(fromAccount.getIban(), 5000L);
+        verify(dailySpendService).add(fromAccount.getIban(), -5000L);
+        Assertions.assertEquals(LedgerEngine.LedgerResult.OK, ledgerEngine.debit(fromAccount, 9000L).join());
+    }
+
+    //  A database error of the credit is not a missing account, the debit is given back and the error is passed on
+    @Test
+    public void testTransferIsCompensatedWhenCreditThrows() {
+        Account fromAccount = getMockAccount("NL61-INHO-0897-9124-90", 10000L);
+        Account toAccount = new Account();
+        toAccount.setIban("NL61-INHO-0897-9124-99");
+        when(accountRepository.creditBalance(eq(toAccount.getIban()), anyLong())).thenThrow(new DataAccessResourceFailureException("The database is not available"));
+
+        CompletionException exception = Assertions.assertThrows(CompletionException.class, () -> ledgerEngine.transfer(fromAccount, toAccount, 5000L).join());
+
+        Assertions.assertInstanceOf(DataAccessResourceFailureException.class, exception.getCause());
+        verify(accountRepository).creditBalance(fromAccount.getIban(), 5000L);
+        verify(dailySpendService).add(fromAccount.getIban(), -5000L);
+    }
+
+    private Transaction getMockTransaction(TransactionType type, Account fromAccount, Account toAccount, long amount) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionType(type);
+        transaction.setFromAccount(fromAccount);
+        transaction.setToAccount(toAccount);
+        transaction.setAmount(amount);
+        return transaction;
+    }
+
+    @Test
+    public void testReverseDepositTakesCreditBack() {
+        Account account = getMockAccount("NL61-INHO-0897-9124-90", 3000L);
+
+        Assertions.assertEquals(LedgerEngine.LedgerResult.OK, ledgerEngine.credit(account.getIban(), 2000L).join());
+        Assertions.assertEquals(LedgerEngine.LedgerResult.OK, ledgerEngine.reverse(getMockTransaction(TransactionType.DEPOSIT, null, account, 2000L)).join());
+
+        verify(accountRepository).debitBalance(account.getIban(), 2000L);
+        verify(dailySpendService, never()).add(anyString(), anyLong());
+    }
+
+    //  The money of the transfer was already spent from the to account, taking it back would go below the absolute limit
+    @Test
+    public void testReverseTransferIsGuardedByAbsoluteLimit() {
+        Account fromAccount = getMockAccount("NL61-INHO-0897-9124-90", 10000L);
+        Account toAccount = getMockAccount("NL61-INHO-0897-9124-91", 3000L);
+
+        Assertions.assertEquals(LedgerEngine.LedgerResult.OK, ledgerEngine.debit(toAccount, 1500L).join());
+        Assertions.assertEquals(LedgerEngine.LedgerResult.OK, ledgerEngine.transfer(fromAccount, toAccount, 5000L).join());
+        Assertions.assertEquals(LedgerEngine.LedgerResult.OK, ledgerEngine.debit(toAccount, 5000L).join());
+
+        Assertions.assertEquals(LedgerEngine.LedgerResult.ABSOLUTE_LIMIT_EXCEEDED, ledgerEngine.reverse(getMockTransaction(TransactionType.TRANSFER, fromAccount, toAccount, 5000L)).join());
+
+        //  Only the debit of the to account itself was written, the from account is not refunded
+        verify(accountRepository).debitBalance(toAccount.getIban(), 5000L);
+        verify(accountRepository, never()).creditBalance(fromAccount.getIban(), 5000L);
+    }
+
+    @Test
+    public void testTransferRejectedDoesNotCredit() {
+        Account fromAccount = getMockAccount("NL61-INHO-0897-9124-90", 2000L);
+        Account toAccount = getMockAccount("NL61-INHO-0897-9124-91", 2000L);
+
+        Assertions.assertEquals(LedgerEngine.LedgerResult.ABSOLUTE_LIMIT_EXCEEDED, ledgerEngine.transfer(fromAccount, toAccount, 5000L).join());
+        verify(accountRepository, never()).creditBalance(anyString(), anyLong());
+    }
+}
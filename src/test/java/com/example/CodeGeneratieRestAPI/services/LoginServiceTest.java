@@ -3,13 +3,16 @@ package com.example.CodeGeneratieRestAPI.services;
 import com.example.CodeGeneratieRestAPI.dtos.LoginRequestDTO;
 import com.example.CodeGeneratieRestAPI.dtos.LoginResponseDTO;
 import com.example.CodeGeneratieRestAPI.exceptions.InvalidTokenException;
+import com.example.CodeGeneratieRestAPI.exceptions.LoginThrottledException;
 import com.example.CodeGeneratieRestAPI.exceptions.PasswordValidationException;
 import com.example.CodeGeneratieRestAPI.exceptions.UserNotFoundException;
 import com.example.CodeGeneratieRestAPI.jwt.JwTokenProvider;
+import com.example.CodeGeneratieRestAPI.jwt.JwtPrincipal;
 import com.example.CodeGeneratieRestAPI.models.HashedPassword;
 import com.example.CodeGeneratieRestAPI.models.User;
 import com.example.CodeGeneratieRestAPI.models.UserType;
 import com.example.CodeGeneratieRestAPI.repositories.LoginRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -17,8 +20,13 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class LoginServiceTest {
@@ -32,12 +40,24 @@ class LoginServiceTest {
     @Mock
     private JwtService jwtService;
 
+    @Mock
+    private LoginThrottle loginThrottle;
+
     @InjectMocks
     private LoginService loginService;
 
+    private PasswordHashingService passwordHashingService;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        passwordHashingService = new PasswordHashingService(1, 4, 1);
+        loginService.passwordHashingService = passwordHashingService;
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.shutdown();
     }
 
     private LoginRequestDTO getMockLoginRequestDTO() {
@@ -74,7 +94,7 @@ class LoginServiceTest {
         when(tokenProvider.createToken(user.getId(), user.getUsername(), user.getUserType())).thenReturn("token");
 
         // Act
-        LoginResponseDTO response = loginService.login(request);
+        LoginResponseDTO response = loginService.login(request, "127.0.0.1").join();
 
         // Assert
         assertNotNull(response);
@@ -97,7 +117,8 @@ class LoginServiceTest {
         when(loginRepository.findByUsername(request.getUsername())).thenReturn(Optional.of(user));
 
         // Act & Assert
-        assertThrows(PasswordValidationException.class, () -> loginService.login(request));
+        CompletionException exception = assertThrows(CompletionException.class, () -> loginService.login(request, "127.0.0.1").join());
+        assertInstanceOf(PasswordValidationException.class, exception.getCause());
     }
 
     @Test
@@ -107,15 +128,26 @@ class LoginServiceTest {
         when(loginRepository.findByUsername(request.getUsername())).thenReturn(Optional.empty());
 
         // Act & Assert
-        assertThrows(UserNotFoundException.class, () -> loginService.login(request));
+        assertThrows(UserNotFoundException.class, () -> loginService.login(request, "127.0.0.1"));
+    }
+
+    //  An attempt over the limit doesn't read the user and doesn't hash the password
+    @Test
+    void testLoginThrottled() {
+        // Arrange
+        LoginRequestDTO request = getMockLoginRequestDTO();
+        doThrow(new LoginThrottledException("Too many login attempts, try again later", 6)).when(loginThrottle).acquire("username", "127.0.0.1");
+
+        // Act & Assert
+        assertThrows(LoginThrottledException.class, () -> loginService.login(request, "127.0.0.1"));
+        verify(loginRepository, never()).findByUsername(any());
     }
 
     @Test
     void testValidateWithValidToken() {
         // Arrange
         String token = "valid_token";
-        when(jwtService.validateJwtToken(token)).thenReturn(true);
-        when(jwtService.getUserTypeFromJwtToken(token)).thenReturn(UserType.USER);
+        when(jwtService.getPrincipalFromJwtToken(token)).thenReturn(new JwtPrincipal(1L, "johndoe", UserType.USER));
 
         // Act
         Enum<UserType> userType = loginService.validate(token);
@@ -129,7 +161,7 @@ class LoginServiceTest {
     void testValidateWithInvalidToken() {
         // Arrange
         String token = "invalid_token";
-        when(jwtService.validateJwtToken(token)).thenReturn(false);
+        when(jwtService.getPrincipalFromJwtToken(token)).thenReturn(null);
 
         // Act & Assert
         assertThrows(InvalidTokenException.class, () -> loginService.validate(token));
@@ -0,0 +1,97 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.exceptions.LoginThrottledException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class LoginThrottleTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final LoginThrottle.Limit LIMIT = new LoginThrottle.Limit(3, SECOND);
+
+    @Test
+    public void testTokensComeBackOnePerInterval() {
+        LoginThrottle loginThrottle = new LoginThrottle(3, 1000, 3, 1000, 10);
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(0, loginThrottle.acquire("user:anna", LIMIT, now));
+        }
+        Assertions.assertEquals(SECOND, loginThrottle.acquire("user:anna", LIMIT, now));
+        Assertions.assertEquals(0, loginThrottle.acquire("user:anna", LIMIT, now + SECOND));
+        Assertions.assertTrue(loginThrottle.acquire("user:anna", LIMIT, now + SECOND) > 0);
+    }
+
+    //  The limit of the client holds however many usernames are tried from it
+    @Test
+    public void testClientIsThrottledAcrossUsernames() {
+        LoginThrottle loginThrottle = new LoginThrottle(10, 60000, 2, 60000, 100);
+
+        loginThrottle.acquire("anna", "10.0.0.1");
+        loginThrottle.acquire("bram", "10.0.0.1");
+        LoginThrottledException exception = Assertions.assertThrows(LoginThrottledException.class, () -> loginThrottle.acquire("carla", "10.0.0.1"));
+
+        Assertions.assertTrue(exception.getRetryAfterSeconds() > 0 && exception.getRetryAfterSeconds() <= 60);
+        Assertions.assertEquals(1, loginThrottle.getThrottled());
+        loginThrottle.acquire("carla", "10.0.0.2");
+    }
+
+    //  An attempt on a username that has no tokens left doesn't use up the tokens of the client
+    @Test
+    public void testRejectedUsernameDoesNotChargeClient() {
+        LoginThrottle loginThrottle = new LoginThrottle(1, 60000, 2, 60000, 100);
+
+        loginThrottle.acquire("anna", "10.0.0.1");
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertThrows(LoginThrottledException.class, () -> loginThrottle.acquire("anna", "10.0.0.1"));
+        }
+
+        loginThrottle.acquire("bram", "10.0.0.1");
+    }
+
+    //  An attempt from a client that has no tokens left doesn't use up the tokens of the username
+    @Test
+    public void testRejectedClientDoesNotChargeUsername() {
+        LoginThrottle loginThrottle = new LoginThrottle(2, 60000, 1, 60000, 100);
+
+        loginThrottle.acquire("anna", "10.0.0.1");
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertThrows(LoginThrottledException.class, () -> loginThrottle.acquire("anna", "10.0.0.1"));
+        }
+
+        loginThrottle.acquire("anna", "10.0.0.2");
+    }
+
+    //  A key that is seen once doesn't take the bucket of a key that is under attack
+    @Test
+    public void testFrequentKeyKeepsItsBucket() {
+        LoginThrottle loginThrottle = new LoginThrottle(3, 1000, 3, 1000, 2);
+        long now = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.acquire("user:anna", LIMIT, now);
+            loginThrottle.acquire("user:bram", LIMIT, now);
+        }
+
+        Assertions.assertEquals(0, loginThrottle.acquire("user:carla", LIMIT, now));
+
+        Assertions.assertEquals(2, loginThrottle.getSize());
+        Assertions.assertEquals(1, loginThrottle.getRejectedAdmissions());
+        Assertions.assertTrue(loginThrottle.acquire("user:anna", LIMIT, now) > 0);
+        Assertions.assertTrue(loginThrottle.acquire("user:bram", LIMIT, now) > 0);
+    }
+
+    //  A bucket that has filled up again has nothing to remember and makes room for a new key
+    @Test
+    public void testFullBucketMakesRoom() {
+        LoginThrottle loginThrottle = new LoginThrottle(3, 1000, 3, 1000, 1);
+        long now = System.nanoTime();
+        loginThrottle.acquire("user:anna", LIMIT, now);
+
+        Assertions.assertEquals(0, loginThrottle.acquire("user:bram", LIMIT, now + SECOND));
+
+        Assertions.assertEquals(1, loginThrottle.getSize());
+        Assertions.assertEquals(1, loginThrottle.getEvictions());
+    }
+}
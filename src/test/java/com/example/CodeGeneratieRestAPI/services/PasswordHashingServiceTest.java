@@ -0,0 +1,55 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.exceptions.PasswordHashingBusyException;
+import com.example.CodeGeneratieRestAPI.exceptions.PasswordValidationException;
+import com.example.CodeGeneratieRestAPI.models.HashedPassword;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class PasswordHashingServiceTest {
+
+    private PasswordHashingService passwordHashingService;
+
+    @AfterEach
+    public void shutdown() {
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    public void testHashIsValidated() {
+        passwordHashingService = new PasswordHashingService(1, 4, 1);
+
+        HashedPassword hashedPassword = passwordHashingService.hashAndWait("password");
+
+        Assertions.assertTrue(passwordHashingService.validate(hashedPassword, "password").join());
+        CompletionException exception = Assertions.assertThrows(CompletionException.class, () -> passwordHashingService.validate(hashedPassword, "wrongPassword").join());
+        Assertions.assertInstanceOf(PasswordValidationException.class, exception.getCause());
+    }
+
+    //  One hash runs and one waits in the queue, the third doesn't fit and is not hashed at all
+    @Test
+    public void testFullQueueIsRejected() {
+        passwordHashingService = new PasswordHashingService(1, 1, 3);
+        CompletableFuture<HashedPassword> running = passwordHashingService.hash("password");
+        CompletableFuture<HashedPassword> queued = passwordHashingService.hash("password");
+
+        PasswordHashingBusyException exception = null;
+        while (exception == null && !queued.isDone()) {
+            try {
+                passwordHashingService.hash("password");
+            } catch (PasswordHashingBusyException e) {
+                exception = e;
+            }
+        }
+
+        Assertions.assertNotNull(exception);
+        Assertions.assertEquals(3, exception.getRetryAfterSeconds());
+        Assertions.assertTrue(passwordHashingService.getRejected() >= 1);
+        Assertions.assertNotNull(running.join());
+        Assertions.assertNotNull(queued.join());
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.exceptions.TransactionExceededDailyLimitException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TransactionCommitPipelineTest {
+
+    private CountingTransactionManager transactionManager;
+    private SavepointRunner savepointRunner;
+    private TransactionCommitPipeline transactionCommitPipeline;
+    private ExecutorService callers;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void init() {
+        transactionManager = new CountingTransactionManager();
+        //  The savepoints are left out here, the writes of these tests don't change anything that would have to be rolled back
+        savepointRunner = mock(SavepointRunner.class);
+        when(savepointRunner.run(any(Supplier.class))).thenAnswer(invocation -> invocation.getArgument(0, Supplier.class).get());
+        //  A long delay makes sure that all the writes of a test end up in the same group
+        transactionCommitPipeline = new TransactionCommitPipeline(new TransactionTemplate(transactionManager), savepointRunner, true, 64, 200);
+        callers = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transactionCommitPipeline.shutdown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentWritesAreCommittedTogether() throws Exception {
+        List<Future<Integer>> results = submitAll(8, index -> index);
+
+        for (int i = 0; i < results.size(); i++) {
+            Assertions.assertEquals(i, results.get(i).get(5, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(1, transactionManager.commits.get());
+        Assertions.assertEquals(1, transactionCommitPipeline.getFlushedGroups());
+        Assertions.assertEquals(8, transactionCommitPipeline.getFlushedWrites());
+    }
+
+    @Test
+    public void testRejectedWriteDoesNotFailTheGroup() throws Exception {
+        List<Future<Integer>> results = submitAll(4, index -> {
+            if (index == 2) {
+                throw new TransactionExceededDailyLimitException("This account exceeded the daily limit.");
+            }
+            return index;
+        });
+
+        Assertions.assertEquals(0, results.get(0).get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, results.get(1).get(5, TimeUnit.SECONDS));
+        Exception exception = Assertions.assertThrows(Exception.class, () -> results.get(2).get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(TransactionExceededDailyLimitException.class, exception.getCause());
+        Assertions.assertEquals(3, results.get(3).get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, transactionManager.commits.get());
+    }
+
+    @Test
+    public void testDatabaseErrorRetriesWritesOneByOne() throws Exception {
+        List<Future<Integer>> results = submitAll(3, index -> {
+            if (index == 1) {
+                throw new DataIntegrityViolationException("Duplicate key");
+            }
+            return index;
+        });
+
+        Assertions.assertEquals(0, results.get(0).get(5, TimeUnit.SECONDS));
+        Exception exception = Assertions.assertThrows(Exception.class, () -> results.get(1).get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(DataIntegrityViolationException.class, exception.getCause());
+        Assertions.assertEquals(2, results.get(2).get(5, TimeUnit.SECONDS));
+
+        //  The group is rolled back, after that every write gets its own transaction
+        Assertions.assertEquals(2, transactionManager.rollbacks.get());
+        Assertions.assertEquals(2, transactionManager.commits.get());
+    }
+
+    @Test
+    public void testDisabledPipelineRejectsWrites() {
+        TransactionCommitPipeline disabled = new TransactionCommitPipeline(new TransactionTemplate(transactionManager), savepointRunner, false, 64, 5);
+
+        Assertions.assertFalse(disabled.isEnabled());
+        Assertions.assertThrows(IllegalStateException.class, () -> disabled.submit(() -> 1));
+    }
+
+    private List<Future<Integer>> submitAll(int count, Write write) throws InterruptedException {
+        CountDownLatch submitted = new CountDownLatch(count);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            results.add(callers.submit(() -> {
+                submitted.countDown();
+                return transactionCommitPipeline.submit(() -> write.apply(index));
+            }));
+        }
+        submitted.await();
+        return results;
+    }
+
+    private interface Write {
+        Integer apply(int index);
+    }
+
+    private static class CountingTransactionManager extends AbstractPlatformTransactionManager {
+        private final AtomicInteger commits = new AtomicInteger();
+        private final AtomicInteger rollbacks = new AtomicInteger();
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            commits.incrementAndGet();
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rollbacks.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.models.Transaction;
+import com.example.CodeGeneratieRestAPI.repositories.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TransactionCountCacheTest {
+
+    private static final TransactionCountCache.Key KEY = new TransactionCountCache.Key("", null, null, "", "", 0L);
+    private static final Specification<Transaction> ALL = (root, query, builder) -> null;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private TransactionCountCache transactionCountCache;
+
+    @BeforeEach
+    public void init() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        transactionCountCache.shutdown();
+    }
+
+    private TransactionCountCache createCache(long ttlSeconds, int maxEntries) {
+        TransactionCountCache cache = new TransactionCountCache(ttlSeconds, maxEntries, 1);
+        ReflectionTestUtils.setField(cache, "transactionRepository", transactionRepository);
+        return cache;
+    }
+
+    private Long awaitCount(TransactionCountCache.Key key, Long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        Long count = transactionCountCache.get(key, ALL);
+        while (!expected.equals(count) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            count = transactionCountCache.get(key, ALL);
+        }
+        return count;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCountedOnceInTheBackground() throws InterruptedException {
+        transactionCountCache = createCache(60, 10);
+        CountDownLatch counting = new CountDownLatch(1);
+        when(transactionRepository.count(any(Specification.class))).thenAnswer(invocation -> {
+            counting.await(5, TimeUnit.SECONDS);
+            return 5L;
+        });
+
+        //  The requests don't wait for the count, and the filters are only counted once
+        Assertions.assertNull(transactionCountCache.get(KEY, ALL));
+        Assertions.assertNull(transactionCountCache.get(KEY, ALL));
+        counting.countDown();
+
+        Assertions.assertEquals(5L, awaitCount(KEY, 5L));
+        verify(transactionRepository, times(1)).count((Specification<Transaction>) any(Specification.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testOldCountIsReturnedUntilItIsCountedAgain() throws InterruptedException {
+        transactionCountCache = createCache(0, 10);
+        when(transactionRepository.count(any(Specification.class))).thenReturn(7L);
+        transactionCountCache.put(KEY, 3L);
+
+        Assertions.assertEquals(3L, transactionCountCache.get(KEY, ALL));
+        Assertions.assertEquals(7L, awaitCount(KEY, 7L));
+    }
+
+    @Test
+    public void testOldestCountMakesRoom() throws InterruptedException {
+        transactionCountCache = createCache(60, 2);
+        TransactionCountCache.Key otherKey = new TransactionCountCache.Key("NL01INHO0000000001", null, null, "", "", 0L);
+        TransactionCountCache.Key thirdKey = new TransactionCountCache.Key("NL01INHO0000000002", null, null, "", "", 0L);
+
+        transactionCountCache.put(KEY, 1L);
+        Thread.sleep(5);
+        transactionCountCache.put(otherKey, 2L);
+        Thread.sleep(5);
+        transactionCountCache.put(thirdKey, 3L);
+
+        //  Asking for the first filters again counts them in the background, so they are checked last
+        Assertions.assertEquals(2L, transactionCountCache.get(otherKey, ALL));
+        Assertions.assertEquals(3L, transactionCountCache.get(thirdKey, ALL));
+        Assertions.assertNull(transactionCountCache.get(KEY, ALL));
+    }
+}
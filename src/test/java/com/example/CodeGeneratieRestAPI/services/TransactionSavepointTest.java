@@ -0,0 +1,104 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import com.example.CodeGeneratieRestAPI.dtos.TransactionRequestDTO;
+import com.example.CodeGeneratieRestAPI.exceptions.TransactionAccountNotValidException;
+import com.example.CodeGeneratieRestAPI.models.Account;
+import com.example.CodeGeneratieRestAPI.models.Transaction;
+import com.example.CodeGeneratieRestAPI.models.TransactionStatus;
+import com.example.CodeGeneratieRestAPI.models.User;
+import com.example.CodeGeneratieRestAPI.repositories.AccountRepository;
+import com.example.CodeGeneratieRestAPI.repositories.UserRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+
+//  Transfers whose credit fails after the debit was done, e.g. because the to account was deleted in the meantime
+@SpringBootTest(properties = {"transactions.group-commit.enabled=true", "transactions.group-commit.max-delay-ms=200"})
+public class TransactionSavepointTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private DailySpendService dailySpendService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @SpyBean
+    private AccountRepository accountRepository;
+
+    @Test
+    public void testFailedTransferInGroupIsRolledBack() {
+        User employee = userRepository.findUserByUsername("admin").orElseThrow();
+        List<Account> accounts = accountRepository.findAll().stream()
+                .filter(account -> account.getUser() != null && !account.getIsSavings() && account.getIsActive())
+                .toList();
+        Account from = accounts.get(0);
+        Account missing = accounts.get(1);
+        Account other = accounts.get(2);
+        doReturn(0).when(accountRepository).creditBalance(eq(missing.getIban()), anyLong());
+
+        long fromBalance = accountRepository.findByIban(from.getIban()).getBalance();
+        long otherBalance = accountRepository.findByIban(other.getIban()).getBalance();
+        long spentToday = dailySpendService.getSpentToday(from.getIban());
+
+        //  Both writes are in the same group, only the transfer fails
+        CompletableFuture<Void> transfer = CompletableFuture.runAsync(() -> transactionService.add(employee, request("TRANSFER", from.getIban(), missing.getIban())));
+        CompletableFuture<Void> deposit = CompletableFuture.runAsync(() -> transactionService.add(employee, request("DEPOSIT", null, other.getIban())));
+
+        Exception exception = Assertions.assertThrows(Exception.class, transfer::join);
+        Assertions.assertInstanceOf(TransactionAccountNotValidException.class, exception.getCause());
+        deposit.join();
+
+        Assertions.assertEquals(fromBalance, accountRepository.findByIban(from.getIban()).getBalance());
+        Assertions.assertEquals(fromBalance, accountRepository.findByIban(from.getIban()).getAvailableBalance() + transactionService.getHeldAmount(accountRepository.findByIban(from.getIban())));
+        Assertions.assertEquals(spentToday, dailySpendService.getSpentToday(from.getIban()));
+        Assertions.assertEquals(otherBalance + 100, accountRepository.findByIban(other.getIban()).getBalance());
+    }
+
+    //  A settled transaction that fails halfway is FAILED and leaves nothing of its debit behind
+    @Test
+    public void testFailedSettlementIsRolledBack() throws InterruptedException {
+        User employee = userRepository.findUserByUsername("admin").orElseThrow();
+        List<Account> accounts = accountRepository.findAll().stream()
+                .filter(account -> account.getUser() != null && !account.getIsSavings() && account.getIsActive())
+                .toList();
+        Account from = accounts.get(3);
+        Account missing = accounts.get(4);
+        doReturn(0).when(accountRepository).creditBalance(eq(missing.getIban()), anyLong());
+
+        long fromBalance = accountRepository.findByIban(from.getIban()).getBalance();
+        long spentToday = dailySpendService.getSpentToday(from.getIban());
+
+        Transaction pending = transactionService.addPending(employee, request("TRANSFER", from.getIban(), missing.getIban()));
+        Transaction settled = transactionService.getStatus(employee, pending.getId());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (settled.getStatus() == TransactionStatus.PENDING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            settled = transactionService.getStatus(employee, pending.getId());
+        }
+
+        Assertions.assertEquals(TransactionStatus.FAILED, settled.getStatus());
+        Assertions.assertEquals(fromBalance, accountRepository.findByIban(from.getIban()).getBalance());
+        Assertions.assertEquals(spentToday, dailySpendService.getSpentToday(from.getIban()));
+    }
+
+    private TransactionRequestDTO request(String type, String fromIban, String toIban) {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setTransactionType(type);
+        request.setFromAccountIban(fromIban);
+        request.setToAccountIban(toIban);
+        request.setAmount(100L);
+        return request;
+    }
+}
@@ -1,7 +1,13 @@
 package com.example.CodeGeneratieRestAPI.services;
 
+import com.example.CodeGeneratieRestAPI.dtos.CursorPageDTO;
+import com.example.CodeGeneratieRestAPI.dtos.SlicePageDTO;
+import com.example.CodeGeneratieRestAPI.dtos.TransactionBatchResultDTO;
 import com.example.CodeGeneratieRestAPI.dtos.TransactionRequestDTO;
+import com.example.CodeGeneratieRestAPI.dtos.TransactionResponseDTO;
 import com.example.CodeGeneratieRestAPI.exceptions.*;
+import com.example.CodeGeneratieRestAPI.helpers.AccountLockManager;
+import com.example.CodeGeneratieRestAPI.helpers.TransactionCursor;
 import com.example.CodeGeneratieRestAPI.models.*;
 import com.example.CodeGeneratieRestAPI.repositories.AccountRepository;
 import com.example.CodeGeneratieRestAPI.repositories.TransactionRepository;
@@ -11,22 +17,41 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class TransactionServiceTest {
@@ -35,6 +60,22 @@ public class TransactionServiceTest {
     private TransactionRepository transactionRepository;
     @Mock
     private AccountRepository accountRepository;
+    @Spy
+    private AccountLockManager accountLockManager = new AccountLockManager();
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private LedgerEngine ledgerEngine;
+    @Mock
+    private TransactionCommitPipeline transactionCommitPipeline;
+    @Mock
+    private TransactionSettlementWorker transactionSettlementWorker;
+    @Mock
+    private DailySpendService dailySpendService;
+    @Mock
+    private TransactionCountCache transactionCountCache;
+    @Mock
+    private SavepointRunner savepointRunner;
 
     @InjectMocks
     private TransactionService transactionService;
@@ -42,6 +83,21 @@ public class TransactionServiceTest {
     @BeforeEach
     public void init() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(transactionService, "maxBatchSize", 10);
+        ReflectionTestUtils.setField(transactionService, "batchChunkMaxAccounts", 2);
+
+        //  Run the transaction callback directly and let the atomic balance updates succeed by default
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Consumer.class).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Runnable.class).run();
+            return null;
+        }).when(savepointRunner).run(any(Runnable.class));
+        when(accountRepository.debitBalance(anyString(), anyLong())).thenReturn(1);
+        when(accountRepository.creditBalance(anyString(), anyLong())).thenReturn(1);
     }
 
     private User getMockUser(Long id, UserType userType, String username) {
@@ -52,19 +108,19 @@ public class TransactionServiceTest {
         return user;
     }
 
-    private Account getMockAccount(String iban, Float balance, User user, Boolean isSavings) {
+    private Account getMockAccount(String iban, long balance, User user, Boolean isSavings) {
         Account account = new Account();
         account.setIban(iban);
         account.setUser(user);
         account.setBalance(balance);
-        account.setAbsoluteLimit(10F);
-        account.setDailyLimit(200F);
-        account.setTransactionLimit(100F);
+        account.setAbsoluteLimit(1000L);
+        account.setDailyLimit(20000L);
+        account.setTransactionLimit(10000L);
         account.setIsSavings(isSavings);
         return account;
     }
 
-    private Transaction getMockTransaction(User user, Float amount, TransactionType transactionType, Account fromAccount, Account toAccount) {
+    private Transaction getMockTransaction(User user, long amount, TransactionType transactionType, Account fromAccount, Account toAccount) {
         Transaction transaction = new Transaction();
         transaction.setId(1L);
         transaction.setAmount(amount);
@@ -77,8 +133,8 @@ public class TransactionServiceTest {
     @Test
     public void testAddWrongTransactionType() {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account toAccount = getMockAccount("123456", 1000F, user, false);
-        Transaction transaction = getMockTransaction(user, 60F, null, null, toAccount);
+        Account toAccount = getMockAccount("123456", 100000L, user, false);
+        Transaction transaction = getMockTransaction(user, 6000L, null, null, toAccount);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(null, toAccount.getIban(), "", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(toAccount.getIban())).thenReturn(toAccount);
@@ -90,8 +146,8 @@ public class TransactionServiceTest {
     @Test
     public void testAddDeposit() {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account toAccount = getMockAccount("123456", 1000F, user, false);
-        Transaction transaction = getMockTransaction(user, 60F, TransactionType.DEPOSIT, null, toAccount);
+        Account toAccount = getMockAccount("123456", 100000L, user, false);
+        Transaction transaction = getMockTransaction(user, 6000L, TransactionType.DEPOSIT, null, toAccount);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(null, toAccount.getIban(), "DEPOSIT", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(toAccount.getIban())).thenReturn(toAccount);
@@ -100,11 +156,20 @@ public class TransactionServiceTest {
         Assertions.assertDoesNotThrow(() -> transactionService.add(user, transactionRequestDTO));
     }
 
+    @Test
+    public void testAddDepositUnknownAccount() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(null, "999999", "DEPOSIT", 6000L, "", "");
+
+        TransactionAccountNotValidException exception = Assertions.assertThrows(TransactionAccountNotValidException.class, () -> transactionService.add(user, transactionRequestDTO));
+        Assertions.assertEquals("The to account does not exist.", exception.getMessage());
+    }
+
     @Test
     public void testAddDepositAmountZero() {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account toAccount = getMockAccount("123456", 1000F, user, false);
-        Transaction transaction = getMockTransaction(user, 0F, TransactionType.DEPOSIT, null, toAccount);
+        Account toAccount = getMockAccount("123456", 100000L, user, false);
+        Transaction transaction = getMockTransaction(user, 0L, TransactionType.DEPOSIT, null, toAccount);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(null, toAccount.getIban(), "DEPOSIT", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(toAccount.getIban())).thenReturn(toAccount);
@@ -116,8 +181,8 @@ public class TransactionServiceTest {
     @Test
     public void testAddDepositAmountNegative() {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account toAccount = getMockAccount("123456", 1000F, user, false);
-        Transaction transaction = getMockTransaction(user, -10F, TransactionType.DEPOSIT, null, toAccount);
+        Account toAccount = getMockAccount("123456", 100000L, user, false);
+        Transaction transaction = getMockTransaction(user, -1000L, TransactionType.DEPOSIT, null, toAccount);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(null, toAccount.getIban(), "DEPOSIT", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(toAccount.getIban())).thenReturn(toAccount);
@@ -129,8 +194,8 @@ public class TransactionServiceTest {
     @Test
     public void testAddDepositMissingToAccount() {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account toAccount = getMockAccount("123456", 1000F, user, false);
-        Transaction transaction = getMockTransaction(user, 60F, TransactionType.DEPOSIT, null, null);
+        Account toAccount = getMockAccount("123456", 100000L, user, false);
+        Transaction transaction = getMockTransaction(user, 6000L, TransactionType.DEPOSIT, null, null);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(null, null, "DEPOSIT", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(toAccount.getIban())).thenReturn(toAccount);
@@ -143,8 +208,8 @@ public class TransactionServiceTest {
     public void testAddDepositNotYourAccount() {
         User user = getMockUser(1L, UserType.USER, "john");
         User user1 = getMockUser(2L, UserType.USER, "doe");
-        Account toAccount = getMockAccount("123456", 1000F, user1, false);
-        Transaction transaction = getMockTransaction(user1, 60F, TransactionType.DEPOSIT, null, toAccount);
+        Account toAccount = getMockAccount("123456", 100000L, user1, false);
+        Transaction transaction = getMockTransaction(user1, 6000L, TransactionType.DEPOSIT, null, toAccount);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(null, toAccount.getIban(), "DEPOSIT", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(toAccount.getIban())).thenReturn(toAccount);
@@ -156,21 +221,23 @@ public class TransactionServiceTest {
     @Test
     public void testAddWithdraw() {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account fromAccount = getMockAccount("123456", 1000F, user, false);
-        Transaction transaction = getMockTransaction(user, 60F, TransactionType.WITHDRAW, fromAccount, null);
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Transaction transaction = getMockTransaction(user, 6000L, TransactionType.WITHDRAW, fromAccount, null);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
         when(transactionRepository.save(transaction)).thenReturn(transaction);
 
         Assertions.assertDoesNotThrow(() -> transactionService.add(user, transactionRequestDTO));
+        //  The daily spend counter is updated together with the balance
+        verify(dailySpendService).add(fromAccount.getIban(), 6000L);
     }
 
     @Test
     public void testAddWithdrawMissingFromAccount() {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account fromAccount = getMockAccount("123456", 1000F, user, false);
-        Transaction transaction = getMockTransaction(user, 60F, TransactionType.WITHDRAW, null, null);
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Transaction transaction = getMockTransaction(user, 6000L, TransactionType.WITHDRAW, null, null);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(null, null, "WITHDRAW", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
@@ -182,8 +249,8 @@ public class TransactionServiceTest {
     @Test
     public void testAddWithdrawExceedTransactionLimit() {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account fromAccount = getMockAccount("123456", 1000F, user, false);
-        Transaction transaction = getMockTransaction(user, 200F, TransactionType.WITHDRAW, fromAccount, null);
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Transaction transaction = getMockTransaction(user, 20000L, TransactionType.WITHDRAW, fromAccount, null);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
@@ -195,8 +262,8 @@ public class TransactionServiceTest {
     @Test
     public void testAddWithdrawExceedAbsoluteLimit() {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account fromAccount = getMockAccount("123456", 100F, user, false);
-        Transaction transaction = getMockTransaction(user, 950F, TransactionType.WITHDRAW, fromAccount, null);
+        Account fromAccount = getMockAccount("123456", 10000L, user, false);
+        Transaction transaction = getMockTransaction(user, 95000L, TransactionType.WITHDRAW, fromAccount, null);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
@@ -206,37 +273,319 @@ public class TransactionServiceTest {
     }
 
     @Test
-    public void testAddWithdrawExceedDailyLimit() {
+    public void testAddWithdrawExceedAvailableBalance() {
+        //  The balance is high enough, but most of it is reserved by a hold
         User user = getMockUser(1L, UserType.USER, "john");
-        Account fromAccount = getMockAccount("123456", 1000F, user, false);
-        Transaction transaction = getMockTransaction(user, 90F, TransactionType.WITHDRAW, fromAccount, null);
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        fromAccount.setAvailableBalance(5000L);
+        Transaction transaction = getMockTransaction(user, 6000L, TransactionType.WITHDRAW, fromAccount, null);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
-        List<Transaction> transactions = new ArrayList<>();
-        transactions.add(transaction);
-        transactions.add(getMockTransaction(user, 90F, TransactionType.WITHDRAW, fromAccount, null));
-        transactions.add(getMockTransaction(user, 90F, TransactionType.WITHDRAW, fromAccount, null));
+        when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
 
-        LocalDate today = LocalDate.now();
-        Date startOfDay = Date.from(today.atStartOfDay(ZoneId.systemDefault()).toInstant());
-        Date endOfDay = Date.from(today.atTime(LocalTime.MAX).atZone(ZoneId.systemDefault()).toInstant());
+        Assertions.assertThrows(TransactionExceededAbsoluteLimitException.class, () -> transactionService.add(user, transactionRequestDTO));
+    }
+
+    //  Money that is still reserved by a hold of an earlier day doesn't count towards the daily limit of today
+    @Test
+    public void testAddWithdrawHoldOfEarlierDayNotInDailyLimit() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        fromAccount.setAvailableBalance(80000L);
+        Transaction transaction = getMockTransaction(user, 6000L, TransactionType.WITHDRAW, fromAccount, null);
+        TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Assertions.assertEquals(6000L, transactionService.add(user, transactionRequestDTO).getAmount());
+    }
+
+    @Test
+    public void testAddWithdrawBalanceChangedConcurrently() {
+        //  The balance that was read still allows the withdrawal, but the conditional update finds it no longer does
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Transaction transaction = getMockTransaction(user, 6000L, TransactionType.WITHDRAW, fromAccount, null);
+        TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
+
+        when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
+        when(accountRepository.debitBalance(fromAccount.getIban(), transaction.getAmount())).thenReturn(0);
+
+        Assertions.assertThrows(TransactionExceededAbsoluteLimitException.class, () -> transactionService.add(user, transactionRequestDTO));
+    }
+
+    @Test
+    public void testAddWithdrawExceedDailyLimit() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Transaction transaction = getMockTransaction(user, 9000L, TransactionType.WITHDRAW, fromAccount, null);
+        TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
+
         when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
-        when(transactionRepository.findAllByCreatedAtBetweenAndFromAccountIban(startOfDay, endOfDay, fromAccount.getIban())).thenReturn(transactions);
+        when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
+        //  27000 was already spent today, the daily limit is 20000
+        when(dailySpendService.getSpentToday(fromAccount.getIban())).thenReturn(27000L);
         when(transactionRepository.save(transaction)).thenReturn(transaction);
 
         Assertions.assertThrows(TransactionExceededDailyLimitException.class, () -> transactionService.add(user, transactionRequestDTO));
     }
 
+    @Test
+    public void testAddPending() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Transaction transaction = getMockTransaction(user, 6000L, TransactionType.WITHDRAW, fromAccount, null);
+        TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
+
+        when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
+
+        Assertions.assertEquals(transaction, transactionService.addPending(user, transactionRequestDTO));
+        //  The balance is only changed when the transaction is settled
+        verify(accountRepository, never()).debitBalance(anyString(), anyLong());
+        verify(transactionSettlementWorker).enqueue(transaction.getId());
+    }
+
+    @Test
+    public void testAddPendingExceedTransactionLimit() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Transaction transaction = getMockTransaction(user, 20000L, TransactionType.WITHDRAW, fromAccount, null);
+        TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
+
+        when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
+
+        Assertions.assertThrows(TransactionExceededTransactionLimitException.class, () -> transactionService.addPending(user, transactionRequestDTO));
+        verify(transactionSettlementWorker, never()).enqueue(any());
+    }
+
+    @Test
+    public void testSettle() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Transaction transaction = getMockTransaction(user, 6000L, TransactionType.WITHDRAW, fromAccount, null);
+        transaction.setUser(user);
+        transaction.setStatus(TransactionStatus.PENDING);
+
+        when(transactionRepository.findAllForSettlementByIdIn(List.of(transaction.getId()))).thenReturn(List.of(transaction));
+        when(transactionRepository.findForSettlementById(transaction.getId())).thenReturn(Optional.of(transaction));
+
+        transactionService.settle(List.of(transaction.getId()));
+
+        Assertions.assertEquals(TransactionStatus.COMPLETED, transaction.getStatus());
+        verify(accountRepository).debitBalance(fromAccount.getIban(), transaction.getAmount());
+    }
+
+    @Test
+    public void testSettleExceedAbsoluteLimit() {
+        //  The balance was spent by another transaction between accepting and settling this one
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Transaction transaction = getMockTransaction(user, 6000L, TransactionType.WITHDRAW, fromAccount, null);
+        transaction.setUser(user);
+        transaction.setStatus(TransactionStatus.PENDING);
+
+        when(transactionRepository.findAllForSettlementByIdIn(List.of(transaction.getId()))).thenReturn(List.of(transaction));
+        when(transactionRepository.findForSettlementById(transaction.getId())).thenReturn(Optional.of(transaction));
+        when(accountRepository.debitBalance(fromAccount.getIban(), transaction.getAmount())).thenReturn(0);
+
+        transactionService.settle(List.of(transaction.getId()));
+
+        Assertions.assertEquals(TransactionStatus.FAILED, transaction.getStatus());
+        Assertions.assertNotNull(transaction.getFailureReason());
+    }
+
+    //  In the partitioned mode a database error leaves the transaction PENDING and is thrown, so the worker settles it again
+    @Test
+    public void testSettlePartitionedDatabaseErrorIsThrown() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Transaction failing = getMockTransaction(user, 6000L, TransactionType.WITHDRAW, fromAccount, null);
+        failing.setId(1L);
+        failing.setUser(user);
+        failing.setStatus(TransactionStatus.PENDING);
+        Transaction settled = getMockTransaction(user, 1000L, TransactionType.WITHDRAW, fromAccount, null);
+        settled.setId(2L);
+        settled.setUser(user);
+        settled.setStatus(TransactionStatus.PENDING);
+
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+        when(ledgerEngine.debit(fromAccount, 6000L)).thenReturn(CompletableFuture.failedFuture(new DataAccessResourceFailureException("The database is not available")));
+        when(ledgerEngine.debit(fromAccount, 1000L)).thenReturn(CompletableFuture.completedFuture(LedgerEngine.LedgerResult.OK));
+        when(transactionRepository.findAllForSettlementByIdIn(List.of(1L, 2L))).thenReturn(List.of(failing, settled));
+
+        Assertions.assertThrows(DataAccessResourceFailureException.class, () -> transactionService.settle(List.of(1L, 2L)));
+
+        Assertions.assertEquals(TransactionStatus.PENDING, failing.getStatus());
+        Assertions.assertEquals(TransactionStatus.COMPLETED, settled.getStatus());
+        verify(transactionRepository, never()).save(failing);
+        verify(transactionRepository).save(settled);
+    }
+
+    //  The transaction could not be stored and its balances could not be changed back either, that is added to the error that is thrown
+    @Test
+    public void testSettlePartitionedReportsFailedReversal() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Account toAccount = getMockAccount("123457", 100000L, user, false);
+        Transaction transaction = getMockTransaction(user, 1000L, TransactionType.TRANSFER, fromAccount, toAccount);
+        transaction.setId(1L);
+        transaction.setUser(user);
+        transaction.setStatus(TransactionStatus.PENDING);
+
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+        when(ledgerEngine.transfer(fromAccount, toAccount, 1000L)).thenReturn(CompletableFuture.completedFuture(LedgerEngine.LedgerResult.OK));
+        when(ledgerEngine.reverse(transaction)).thenReturn(CompletableFuture.completedFuture(LedgerEngine.LedgerResult.ABSOLUTE_LIMIT_EXCEEDED));
+        when(transactionRepository.findAllForSettlementByIdIn(List.of(1L))).thenReturn(List.of(transaction));
+        when(transactionRepository.save(transaction)).thenThrow(new DataAccessResourceFailureException("The database is not available"));
+
+        DataAccessResourceFailureException exception = Assertions.assertThrows(DataAccessResourceFailureException.class, () -> transactionService.settle(List.of(1L)));
+
+        Assertions.assertEquals(1, exception.getSuppressed().length);
+        Assertions.assertTrue(exception.getSuppressed()[0].getMessage().contains("ABSOLUTE_LIMIT_EXCEEDED"));
+        Assertions.assertEquals(TransactionStatus.PENDING, transaction.getStatus());
+    }
+
+    @Test
+    public void testAddBatch() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        User user1 = getMockUser(2L, UserType.USER, "doe");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Account toAccount = getMockAccount("123457", 100000L, user1, false);
+        List<TransactionRequestDTO> transactionsIn = List.of(
+                new TransactionRequestDTO(fromAccount.getIban(), toAccount.getIban(), "TRANSFER", 9000L, "", ""),
+                new TransactionRequestDTO(toAccount.getIban(), null, "WITHDRAW", 1000L, "", ""),
+                new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", 9000L, "", ""),
+                //  The daily limit of 200 is reached by the two items before this one
+                new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", 3000L, "", ""));
+
+        when(accountRepository.findAllByIbanIn(any())).thenReturn(List.of(fromAccount, toAccount));
+        when(transactionRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<TransactionBatchResultDTO> results = transactionService.addBatch(user, transactionsIn);
+
+        Assertions.assertTrue(results.get(0).isSuccess());
+        Assertions.assertEquals("This account does not belong to this user.", results.get(1).getMessage());
+        Assertions.assertTrue(results.get(2).isSuccess());
+        Assertions.assertEquals("This account exceeded the daily limit.", results.get(3).getMessage());
+        Assertions.assertEquals(9000L, results.get(2).getTransaction().getAmount());
+        //  The balances are updated once per account with the net change of the batch
+        verify(accountRepository).debitBalance(fromAccount.getIban(), 18000L);
+        verify(accountRepository).creditBalance(toAccount.getIban(), 9000L);
+        verify(dailySpendService).add(fromAccount.getIban(), 18000L);
+    }
+
+    @Test
+    public void testAddBatchUnknownAccount() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        List<TransactionRequestDTO> transactionsIn = List.of(
+                new TransactionRequestDTO(null, "999999", "DEPOSIT", 1000L, "", ""),
+                new TransactionRequestDTO(fromAccount.getIban(), "999999", "TRANSFER", 1000L, "", ""));
+
+        when(accountRepository.findAllByIbanIn(any())).thenReturn(List.of(fromAccount));
+        when(transactionRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<TransactionBatchResultDTO> results = transactionService.addBatch(user, transactionsIn);
+
+        Assertions.assertEquals("The to account does not exist.", results.get(0).getMessage());
+        Assertions.assertEquals("The to account does not exist.", results.get(1).getMessage());
+    }
+
+    //  The balance changed after the batch read it, the net debit fails and the items are added one by one instead
+    @Test
+    public void testAddBatchNetDebitFailsAddsItemByItem() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        List<TransactionRequestDTO> transactionsIn = List.of(
+                new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", 9000L, "", ""),
+                new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", 8000L, "", ""));
+
+        when(accountRepository.findAllByIbanIn(any())).thenReturn(List.of(fromAccount));
+        when(transactionRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(accountRepository.debitBalance(fromAccount.getIban(), 17000L)).thenReturn(0);
+        when(accountRepository.debitBalance(fromAccount.getIban(), 8000L)).thenReturn(0);
+
+        List<TransactionBatchResultDTO> results = transactionService.addBatch(user, transactionsIn);
+
+        Assertions.assertEquals(0, results.get(0).getIndex());
+        Assertions.assertTrue(results.get(0).isSuccess());
+        Assertions.assertEquals(9000L, results.get(0).getTransaction().getAmount());
+        Assertions.assertEquals(1, results.get(1).getIndex());
+        Assertions.assertFalse(results.get(1).isSuccess());
+        Assertions.assertEquals("This transaction exceeds the absolute limit of this account.", results.get(1).getMessage());
+        verify(dailySpendService).add(fromAccount.getIban(), 9000L);
+        verify(dailySpendService, never()).add(fromAccount.getIban(), 8000L);
+    }
+
+    //  Only the accounts of one chunk are locked at a time, the results keep the index of the item in the whole batch
+    @Test
+    public void testAddBatchIsAppliedInChunks() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Account toAccount = getMockAccount("123457", 100000L, user, false);
+        Account otherAccount = getMockAccount("123458", 100000L, user, false);
+        List<TransactionRequestDTO> transactionsIn = List.of(
+                new TransactionRequestDTO(fromAccount.getIban(), toAccount.getIban(), "TRANSFER", 9000L, "", ""),
+                new TransactionRequestDTO(fromAccount.getIban(), null, "WITHDRAW", 1000L, "", ""),
+                new TransactionRequestDTO(otherAccount.getIban(), null, "WITHDRAW", 2000L, "", ""));
+
+        when(accountRepository.findAllByIbanIn(any())).thenAnswer(invocation -> Stream.of(fromAccount, toAccount, otherAccount)
+                .filter(account -> invocation.getArgument(0, Collection.class).contains(account.getIban())).toList());
+        when(transactionRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<TransactionBatchResultDTO> results = transactionService.addBatch(user, transactionsIn);
+
+        Assertions.assertEquals(List.of(0, 1, 2), results.stream().map(TransactionBatchResultDTO::getIndex).toList());
+        Assertions.assertTrue(results.stream().allMatch(TransactionBatchResultDTO::isSuccess));
+        verify(accountLockManager).lock(otherAccount.getIban());
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(accountRepository).debitBalance(fromAccount.getIban(), 10000L);
+        verify(accountRepository).debitBalance(otherAccount.getIban(), 2000L);
+    }
+
+    //  A database error in a chunk fails the items of that chunk, the chunks before it are already committed
+    @Test
+    public void testAddBatchChunkDatabaseErrorFailsItsItems() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Account otherAccount = getMockAccount("123458", 100000L, user, false);
+        Account thirdAccount = getMockAccount("123459", 100000L, user, false);
+        List<TransactionRequestDTO> transactionsIn = List.of(
+                new TransactionRequestDTO(fromAccount.getIban(), otherAccount.getIban(), "TRANSFER", 1000L, "", ""),
+                new TransactionRequestDTO(thirdAccount.getIban(), null, "WITHDRAW", 2000L, "", ""));
+
+        when(accountRepository.findAllByIbanIn(any())).thenReturn(List.of(fromAccount, otherAccount, thirdAccount));
+        when(transactionRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(accountRepository.debitBalance(thirdAccount.getIban(), 2000L)).thenThrow(new DataAccessResourceFailureException("The database is not available"));
+
+        List<TransactionBatchResultDTO> results = transactionService.addBatch(user, transactionsIn);
+
+        Assertions.assertTrue(results.get(0).isSuccess());
+        Assertions.assertEquals(1, results.get(1).getIndex());
+        Assertions.assertEquals("The database is not available", results.get(1).getMessage());
+    }
+
+    @Test
+    public void testAddBatchTooLarge() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        List<TransactionRequestDTO> transactionsIn = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            transactionsIn.add(new TransactionRequestDTO("123456", null, "WITHDRAW", 100L, "", ""));
+        }
+
+        Assertions.assertThrows(TransactionBatchNotValidException.class, () -> transactionService.addBatch(user, transactionsIn));
+    }
+
     @Test
     public void testAddTransferFromNotOwn() {
         User user = getMockUser(1L, UserType.USER, "john");
         User user1 = getMockUser(2L, UserType.USER, "doe");
-        Account fromAccount = getMockAccount("123456", 1000F, user1, false);
-        Account toAccount = getMockAccount("123457", 1000F, user, false);
+        Account fromAccount = getMockAccount("123456", 100000L, user1, false);
+        Account toAccount = getMockAccount("123457", 100000L, user, false);
 
-        Transaction transaction = getMockTransaction(user, 60F, TransactionType.TRANSFER, fromAccount, toAccount);
+        Transaction transaction = getMockTransaction(user, 6000L, TransactionType.TRANSFER, fromAccount, toAccount);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), toAccount.getIban(), "TRANSFER", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
@@ -249,10 +598,10 @@ public class TransactionServiceTest {
     @Test
     public void testAddTransferFromOwnSavingsToPayment() {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account fromAccount = getMockAccount("123456", 1000F, user, true);
-        Account toAccount = getMockAccount("123457", 1000F, user, false);
+        Account fromAccount = getMockAccount("123456", 100000L, user, true);
+        Account toAccount = getMockAccount("123457", 100000L, user, false);
 
-        Transaction transaction = getMockTransaction(user, 60F, TransactionType.TRANSFER, fromAccount, toAccount);
+        Transaction transaction = getMockTransaction(user, 6000L, TransactionType.TRANSFER, fromAccount, toAccount);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), toAccount.getIban(), "TRANSFER", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
@@ -265,10 +614,10 @@ public class TransactionServiceTest {
     @Test
     public void testAddTransferFromOwnPaymentToSavings() {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account fromAccount = getMockAccount("123456", 1000F, user, false);
-        Account toAccount = getMockAccount("123457", 1000F, user, true);
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Account toAccount = getMockAccount("123457", 100000L, user, true);
 
-        Transaction transaction = getMockTransaction(user, 60F, TransactionType.TRANSFER, fromAccount, toAccount);
+        Transaction transaction = getMockTransaction(user, 6000L, TransactionType.TRANSFER, fromAccount, toAccount);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), toAccount.getIban(), "TRANSFER", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
@@ -283,10 +632,10 @@ public class TransactionServiceTest {
         User user = getMockUser(1L, UserType.USER, "john");
         User user1 = getMockUser(2L, UserType.USER, "doe");
 
-        Account fromAccount = getMockAccount("123456", 1000F, user, false);
-        Account toAccount = getMockAccount("123457", 1000F, user1, true);
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Account toAccount = getMockAccount("123457", 100000L, user1, true);
 
-        Transaction transaction = getMockTransaction(user, 60F, TransactionType.TRANSFER, fromAccount, toAccount);
+        Transaction transaction = getMockTransaction(user, 6000L, TransactionType.TRANSFER, fromAccount, toAccount);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), toAccount.getIban(), "TRANSFER", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
@@ -301,10 +650,10 @@ public class TransactionServiceTest {
         User user = getMockUser(1L, UserType.USER, "john");
         User user1 = getMockUser(2L, UserType.USER, "doe");
 
-        Account fromAccount = getMockAccount("123456", 1000F, user, true);
-        Account toAccount = getMockAccount("123457", 1000F, user1, false);
+        Account fromAccount = getMockAccount("123456", 100000L, user, true);
+        Account toAccount = getMockAccount("123457", 100000L, user1, false);
 
-        Transaction transaction = getMockTransaction(user, 60F, TransactionType.TRANSFER, fromAccount, toAccount);
+        Transaction transaction = getMockTransaction(user, 6000L, TransactionType.TRANSFER, fromAccount, toAccount);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), toAccount.getIban(), "TRANSFER", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
@@ -317,10 +666,10 @@ public class TransactionServiceTest {
     @Test
     public void testAddTransferExceedingTransactionLimit() {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account fromAccount = getMockAccount("123456", 1000F, user, false);
-        Account toAccount = getMockAccount("123457", 1000F, user, false);
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Account toAccount = getMockAccount("123457", 100000L, user, false);
 
-        Transaction transaction = getMockTransaction(user, 110F, TransactionType.TRANSFER, fromAccount, toAccount);
+        Transaction transaction = getMockTransaction(user, 11000L, TransactionType.TRANSFER, fromAccount, toAccount);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), toAccount.getIban(), "TRANSFER", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
@@ -333,10 +682,10 @@ public class TransactionServiceTest {
     @Test
     public void testAddTransferExceedingAbsoluteLimit() {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account fromAccount = getMockAccount("123456", 60F, user, false);
-        Account toAccount = getMockAccount("123457", 60F, user, false);
+        Account fromAccount = getMockAccount("123456", 6000L, user, false);
+        Account toAccount = getMockAccount("123457", 6000L, user, false);
 
-        Transaction transaction = getMockTransaction(user, 90F, TransactionType.TRANSFER, fromAccount, toAccount);
+        Transaction transaction = getMockTransaction(user, 9000L, TransactionType.TRANSFER, fromAccount, toAccount);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), toAccount.getIban(), "TRANSFER", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
         when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
@@ -349,43 +698,62 @@ public class TransactionServiceTest {
     @Test
     public void testAddTransferExceedingDailyLimit() {
         User user = getMockUser(1L, UserType.USER, "john");
-        Account fromAccount = getMockAccount("123456", 1000F, user, false);
-        Account toAccount = getMockAccount("123457", 1000F, user, false);
+        Account fromAccount = getMockAccount("123456", 100000L, user, false);
+        Account toAccount = getMockAccount("123457", 100000L, user, false);
 
-        Transaction transaction = getMockTransaction(user, 90F, TransactionType.TRANSFER, fromAccount, toAccount);
+        Transaction transaction = getMockTransaction(user, 9000L, TransactionType.TRANSFER, fromAccount, toAccount);
         TransactionRequestDTO transactionRequestDTO = new TransactionRequestDTO(fromAccount.getIban(), toAccount.getIban(), "TRANSFER", transaction.getAmount(), transaction.getLabel(), transaction.getDescription());
 
-        List<Transaction> transactions = new ArrayList<>();
-        transactions.add(getMockTransaction(user, 90F, TransactionType.WITHDRAW, fromAccount, toAccount));
-        transactions.add(getMockTransaction(user, 90F, TransactionType.WITHDRAW, fromAccount, toAccount));
-        transactions.add(getMockTransaction(user, 90F, TransactionType.WITHDRAW, fromAccount, toAccount));
-
-        LocalDate today = LocalDate.now();
-        Date startOfDay = Date.from(today.atStartOfDay(ZoneId.systemDefault()).toInstant());
-        Date endOfDay = Date.from(today.atTime(LocalTime.MAX).atZone(ZoneId.systemDefault()).toInstant());
-
         when(accountRepository.findByIban(fromAccount.getIban())).thenReturn(fromAccount);
         when(accountRepository.findByIban(toAccount.getIban())).thenReturn(toAccount);
-        when(transactionRepository.findAllByCreatedAtBetweenAndFromAccountIban(startOfDay, endOfDay, fromAccount.getIban())).thenReturn(transactions);
+        //  27000 was already spent today, the daily limit is 20000
+        when(dailySpendService.getSpentToday(fromAccount.getIban())).thenReturn(27000L);
         when(transactionRepository.save(transaction)).thenReturn(transaction);
 
         Assertions.assertThrows(TransactionExceededDailyLimitException.class, () -> transactionService.add(user, transactionRequestDTO));
     }
 
+    private TransactionResponseDTO getMockTransactionResponse(User user, long id) {
+        Transaction transaction = getMockTransaction(user, 1000L, TransactionType.TRANSFER, null, null);
+        transaction.setId(id);
+        transaction.setCreatedAt(new Timestamp(1000000L + id));
+        return new TransactionResponseDTO(transaction);
+    }
+
     @Test
     public void testGetAllByUser() {
-        User user = new User();
-        user.setId(1L);
+        User user = getMockUser(1L, UserType.USER, "john");
 
-        List<Transaction> transactions = new ArrayList<>();
-        transactions.add(new Transaction());
-        transactions.add(new Transaction());
+        //  Transaction 3 is a transfer between two accounts of the user, so it is sent and received
+        List<TransactionResponseDTO> sent = List.of(getMockTransactionResponse(user, 5L), getMockTransactionResponse(user, 3L), getMockTransactionResponse(user, 1L));
+        List<TransactionResponseDTO> received = List.of(getMockTransactionResponse(user, 4L), getMockTransactionResponse(user, 3L), getMockTransactionResponse(user, 2L));
+        when(transactionRepository.findAllResponses(any(Specification.class), any(Sort.class), eq(4))).thenReturn(sent, received);
 
-        when(transactionRepository.findAllByUserId(user.getId())).thenReturn(transactions);
+        CursorPageDTO<TransactionResponseDTO> result = transactionService.getAllByUser(user, null, null, "", null, 3);
 
-        List<Transaction> result = transactionService.getAllByUser(user);
+        Assertions.assertEquals(List.of(5L, 4L, 3L), result.getItems().stream().map(TransactionResponseDTO::getId).toList());
+        Assertions.assertEquals(3L, TransactionCursor.decode(result.getNextCursor()).id());
+        verify(transactionRepository, times(2)).findAllResponses(any(Specification.class), any(Sort.class), eq(4));
+    }
 
-        Assertions.assertEquals(transactions.size(), result.size());
+    @Test
+    public void testGetAllByUserLastPage() {
+        User user = getMockUser(1L, UserType.USER, "john");
+
+        when(transactionRepository.findAllResponses(any(Specification.class), any(Sort.class), eq(4))).thenReturn(List.of(getMockTransactionResponse(user, 2L)), List.of(getMockTransactionResponse(user, 1L)));
+
+        CursorPageDTO<TransactionResponseDTO> result = transactionService.getAllByUser(user, new Date(), new Date(), "TRANSFER", null, 3);
+
+        Assertions.assertEquals(List.of(2L, 1L), result.getItems().stream().map(TransactionResponseDTO::getId).toList());
+        Assertions.assertNull(result.getNextCursor());
+    }
+
+    @Test
+    public void testGetAllByUserNotValid() {
+        User user = getMockUser(1L, UserType.USER, "john");
+
+        Assertions.assertThrows(TransactionTypeNotValidException.class, () -> transactionService.getAllByUser(user, null, null, "GIFT", null, 3));
+        Assertions.assertThrows(RuntimeException.class, () -> transactionService.getAllByUser(user, null, null, "", null, 0));
     }
 
     @Test
@@ -399,21 +767,150 @@ public class TransactionServiceTest {
         Date endDate = Date.from(today.atTime(LocalTime.MAX).atZone(ZoneId.systemDefault()).toInstant());
         String search = "test";
 
-        List<Transaction> transactions = new ArrayList<>();
-        transactions.add(new Transaction());
-        transactions.add(new Transaction());
+        List<TransactionResponseDTO> transactions = new ArrayList<>();
+        transactions.add(new TransactionResponseDTO());
+        transactions.add(new TransactionResponseDTO());
 
         Pageable pageableRequest = PageRequest.of(0, 10);
 
-        Page<Transaction> pageTransactions = new PageImpl<>(transactions, pageableRequest, transactions.size());
+        Page<TransactionResponseDTO> pageTransactions = new PageImpl<>(transactions, pageableRequest, transactions.size());
 
-        when(transactionRepository.findAll(endDate, startDate, "", "", 0F, pageableRequest)).thenReturn(pageTransactions);
+        when(transactionRepository.findAllResponses(any(Specification.class), eq(pageableRequest))).thenReturn(pageTransactions);
 
-        Page<Transaction> result = transactionService.getAll(user, startDate, endDate, "", "", 0F, 0, 10);
+        Page<TransactionResponseDTO> result = transactionService.getAll(user, startDate, endDate, "", "", 0L, 0, 10);
 
         Assertions.assertEquals(transactions.size(), result.getContent().size());
     }
 
+    @Test
+    public void testGetAllAfterCursor() {
+        User user = getMockUser(1L, UserType.EMPLOYEE, "employee");
+
+        LocalDate today = LocalDate.now();
+        Date startDate = Date.from(today.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        Date endDate = Date.from(today.atTime(LocalTime.MAX).atZone(ZoneId.systemDefault()).toInstant());
+
+        //  One transaction more than the page size means there is a next page
+        List<TransactionResponseDTO> transactions = new ArrayList<>();
+        for (long id = 3; id > 0; id--) {
+            Transaction transaction = getMockTransaction(user, 1000L, TransactionType.DEPOSIT, null, null);
+            transaction.setId(id);
+            transaction.setCreatedAt(new Timestamp(1000000L + id));
+            transactions.add(new TransactionResponseDTO(transaction));
+        }
+        when(transactionRepository.findAllResponses(any(Specification.class), any(Sort.class), eq(3))).thenReturn(transactions);
+
+        CursorPageDTO<TransactionResponseDTO> result = transactionService.getAllAfterCursor(user, startDate, endDate, "", "", 0L, null, 2);
+
+        Assertions.assertEquals(2, result.getItems().size());
+        Assertions.assertNotNull(result.getNextCursor());
+
+        //  The next page starts after the last transaction of this page
+        TransactionCursor cursor = TransactionCursor.decode(result.getNextCursor());
+        Assertions.assertEquals(2L, cursor.id());
+        Assertions.assertEquals(new Timestamp(1000002L), cursor.createdAt());
+        when(transactionRepository.findAllResponses(any(Specification.class), any(Sort.class), eq(3))).thenReturn(transactions.subList(2, 3));
+
+        CursorPageDTO<TransactionResponseDTO> lastPage = transactionService.getAllAfterCursor(user, startDate, endDate, "", "", 0L, result.getNextCursor(), 2);
+
+        Assertions.assertEquals(1, lastPage.getItems().size());
+        Assertions.assertNull(lastPage.getNextCursor());
+    }
+
+    @Test
+    public void testGetAllWithApproximateCount() {
+        User user = getMockUser(1L, UserType.EMPLOYEE, "employee");
+        List<TransactionResponseDTO> transactions = List.of(getMockTransactionResponse(user, 2L), getMockTransactionResponse(user, 1L));
+
+        //  The page isn't the last one, so the total comes from the cache
+        when(transactionRepository.findSliceOfResponses(any(Specification.class), eq(PageRequest.of(0, 2)))).thenReturn(new SliceImpl<>(transactions, PageRequest.of(0, 2), true));
+        when(transactionCountCache.get(any(TransactionCountCache.Key.class), any(Specification.class))).thenReturn(42L);
+
+        SlicePageDTO<TransactionResponseDTO> result = transactionService.getAllWithApproximateCount(user, new Date(), new Date(), "", "", 0L, 0, 2);
+
+        Assertions.assertEquals(2, result.getItems().size());
+        Assertions.assertTrue(result.isHasNext());
+        Assertions.assertEquals(42L, result.getApproximateTotal());
+        verify(transactionRepository, never()).findAllResponses(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    public void testGetAllWithApproximateCountLastPage() {
+        User user = getMockUser(1L, UserType.EMPLOYEE, "employee");
+        List<TransactionResponseDTO> transactions = List.of(getMockTransactionResponse(user, 1L));
+
+        //  The last page tells the exact count, it is put in the cache instead of counting
+        when(transactionRepository.findSliceOfResponses(any(Specification.class), eq(PageRequest.of(2, 2)))).thenReturn(new SliceImpl<>(transactions, PageRequest.of(2, 2), false));
+
+        SlicePageDTO<TransactionResponseDTO> result = transactionService.getAllWithApproximateCount(user, new Date(), new Date(), "", "", 0L, 2, 2);
+
+        Assertions.assertFalse(result.isHasNext());
+        Assertions.assertEquals(5L, result.getApproximateTotal());
+        verify(transactionCountCache).put(any(TransactionCountCache.Key.class), eq(5L));
+        verify(transactionCountCache, never()).get(any(TransactionCountCache.Key.class), any(Specification.class));
+    }
+
+    @Test
+    public void testGetAllWithApproximateCountNotEmployee() {
+        Assertions.assertThrows(EmployeeOnlyException.class, () -> transactionService.getAllWithApproximateCount(getMockUser(1L, UserType.USER, "john"), new Date(), new Date(), "", "", 0L, 0, 2));
+    }
+
+    @Test
+    public void testValidateExport() {
+        Assertions.assertDoesNotThrow(() -> transactionService.validateExport(getMockUser(1L, UserType.EMPLOYEE, "employee"), "", 0L));
+        Assertions.assertThrows(EmployeeOnlyException.class, () -> transactionService.validateExport(getMockUser(1L, UserType.USER, "john"), "", 0L));
+        Assertions.assertThrows(RuntimeException.class, () -> transactionService.validateExport(getMockUser(1L, UserType.EMPLOYEE, "employee"), "<", 0L));
+    }
+
+    @Test
+    public void testExport() {
+        TransactionResponseDTO transaction = new TransactionResponseDTO();
+        doAnswer(invocation -> {
+            invocation.getArgument(3, Consumer.class).accept(transaction);
+            return null;
+        }).when(transactionRepository).scrollResponses(any(), any(), anyInt(), any());
+
+        List<TransactionResponseDTO> exported = new ArrayList<>();
+        transactionService.export(new Date(), new Date(), "", "", 0L, exported::add);
+
+        Assertions.assertEquals(List.of(transaction), exported);
+        verify(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    public void testGetAllAfterCursorNotValid() {
+        User user = getMockUser(1L, UserType.EMPLOYEE, "employee");
+        Date date = new Date();
+
+        Assertions.assertThrows(TransactionCursorNotValidException.class, () -> transactionService.getAllAfterCursor(user, date, date, "", "", 0L, "not a cursor", 10));
+        Assertions.assertThrows(RuntimeException.class, () -> transactionService.getAllAfterCursor(user, date, date, "", "", 0L, null, 0));
+    }
+
+    @Test
+    public void testGetAllByAccountIbanAfterCursor() {
+        User user = getMockUser(1L, UserType.EMPLOYEE, "admin");
+        Date date = new Date();
+
+        //  Transaction 3 is a transfer from the account to itself, so it is sent and received
+        List<TransactionResponseDTO> sent = List.of(getMockTransactionResponse(user, 4L), getMockTransactionResponse(user, 3L));
+        List<TransactionResponseDTO> received = List.of(getMockTransactionResponse(user, 3L), getMockTransactionResponse(user, 2L), getMockTransactionResponse(user, 1L));
+        when(transactionRepository.findAllResponses(any(Specification.class), any(Sort.class), eq(3))).thenReturn(sent, received);
+
+        CursorPageDTO<TransactionResponseDTO> result = transactionService.getAllByAccountIbanAfterCursor(user, "123456", date, date, "", "", 0L, null, 2);
+
+        Assertions.assertEquals(List.of(4L, 3L), result.getItems().stream().map(TransactionResponseDTO::getId).toList());
+        Assertions.assertEquals(3L, TransactionCursor.decode(result.getNextCursor()).id());
+        verify(transactionRepository, times(2)).findAllResponses(any(Specification.class), any(Sort.class), eq(3));
+    }
+
+    @Test
+    public void testGetAllByAccountIbanAfterCursorNotOwned() {
+        User user = getMockUser(1L, UserType.USER, "john");
+        Date date = new Date();
+
+        Assertions.assertThrows(AccountNotOwnedException.class, () -> transactionService.getAllByAccountIbanAfterCursor(user, "123456", date, date, "", "", 0L, null, 10));
+    }
+
     @Test
     public void testGetAllNonEmployee() {
         User user = new User();
@@ -427,7 +924,7 @@ public class TransactionServiceTest {
         String search = "test";
 
         Assertions.assertThrows(EmployeeOnlyException.class, () -> {
-            transactionService.getAll(user, startDate, endDate, "", "", 0F, 0, 10);
+            transactionService.getAll(user, startDate, endDate, "", "", 0L, 0, 10);
         });
     }
 
@@ -445,10 +942,10 @@ public class TransactionServiceTest {
 
         Transaction transaction = new Transaction();
         transaction.setId(1L);
-        transaction.setAmount(100.0F);
+        transaction.setAmount(10000L);
         transaction.setFromAccount(account);
 
-        when(transactionRepository.findById(transaction.getId())).thenReturn(Optional.of(transaction));
+        when(transactionRepository.findWithAccountsById(transaction.getId())).thenReturn(Optional.of(transaction));
 
         Assertions.assertDoesNotThrow(() -> transactionService.getById(user, transaction.getId()));
     }
@@ -466,10 +963,10 @@ public class TransactionServiceTest {
 
         Transaction transaction = new Transaction();
         transaction.setId(1L);
-        transaction.setAmount(100.0F);
+        transaction.setAmount(10000L);
         transaction.setFromAccount(account);
 
-        when(transactionRepository.findById(transaction.getId())).thenReturn(Optional.of(transaction));
+        when(transactionRepository.findWithAccountsById(transaction.getId())).thenReturn(Optional.of(transaction));
 
         Assertions.assertDoesNotThrow(() -> transactionService.transactionIsOwnedByUser(user, transaction.getId()));
     }
@@ -479,11 +976,11 @@ public class TransactionServiceTest {
         User user = getMockUser(1L, UserType.USER, "john");
         User user1 = getMockUser(2L, UserType.USER, "john1");
 
-        Account toAccount = getMockAccount("1234567890", 1000F, user1, false);
+        Account toAccount = getMockAccount("1234567890", 100000L, user1, false);
 
-        Transaction transaction = getMockTransaction(user1, 90F, TransactionType.DEPOSIT, null, toAccount);
+        Transaction transaction = getMockTransaction(user1, 9000L, TransactionType.DEPOSIT, null, toAccount);
 
-        when(transactionRepository.findById(transaction.getId())).thenReturn(Optional.of(transaction));
+        when(transactionRepository.findWithAccountsById(transaction.getId())).thenReturn(Optional.of(transaction));
 
         Assertions.assertThrows(TransactionNotOwnedException.class, () -> transactionService.transactionIsOwnedByUser(user, transaction.getId()));
     }
@@ -493,11 +990,11 @@ public class TransactionServiceTest {
         User user = getMockUser(1L, UserType.USER, "john");
         User user1 = getMockUser(2L, UserType.USER, "john1");
 
-        Account toAccount = getMockAccount("1234567890", 1000F, user1, false);
+        Account toAccount = getMockAccount("1234567890", 100000L, user1, false);
 
-        Transaction transaction = getMockTransaction(user1, 90F, TransactionType.WITHDRAW, toAccount, null);
+        Transaction transaction = getMockTransaction(user1, 9000L, TransactionType.WITHDRAW, toAccount, null);
 
-        when(transactionRepository.findById(transaction.getId())).thenReturn(Optional.of(transaction));
+        when(transactionRepository.findWithAccountsById(transaction.getId())).thenReturn(Optional.of(transaction));
 
         Assertions.assertThrows(TransactionNotOwnedException.class, () -> transactionService.transactionIsOwnedByUser(user, transaction.getId()));
     }
@@ -510,7 +1007,7 @@ public class TransactionServiceTest {
         user.setUsername("john");
         Long id = 1L;
 
-        when(transactionRepository.findById(id)).thenReturn(Optional.empty());
+        when(transactionRepository.findWithAccountsById(id)).thenReturn(Optional.empty());
 
         Assertions.assertThrows(TransactionNotFoundException.class, () -> transactionService.transactionIsOwnedByUser(user, id));
     }
@@ -525,25 +1022,25 @@ public class TransactionServiceTest {
         Date endDate = Date.from(today.atTime(LocalTime.MAX).atZone(ZoneId.systemDefault()).toInstant());
 
         List<Account> accounts = new ArrayList<>();
-        Account account = getMockAccount(iban, 1000F, user, false);
+        Account account = getMockAccount(iban, 100000L, user, false);
         accounts.add(account);
         user.setAccounts(accounts);
 
-        List<Transaction> transactions = new ArrayList<>();
+        List<TransactionResponseDTO> transactions = new ArrayList<>();
 
-        Transaction transaction = getMockTransaction(user, 100F, TransactionType.DEPOSIT, null, account);
+        Transaction transaction = getMockTransaction(user, 10000L, TransactionType.DEPOSIT, null, account);
         transaction.setLabel("test");
-        transactions.add(transaction);
-        transactions.add(getMockTransaction(user, 100F, TransactionType.DEPOSIT, null, account));
+        transactions.add(new TransactionResponseDTO(transaction));
+        transactions.add(new TransactionResponseDTO(getMockTransaction(user, 10000L, TransactionType.DEPOSIT, null, account)));
 
         Pageable pageableRequest = PageRequest.of(0, 10);
 
-        Page<Transaction> pageTransactions = new PageImpl<>(transactions, pageableRequest, transactions.size());
+        Page<TransactionResponseDTO> pageTransactions = new PageImpl<>(transactions, pageableRequest, transactions.size());
 
-        when(transactionRepository.findAllByIban(endDate, startDate, iban, "", "", 0F, pageableRequest)).thenReturn(pageTransactions);
+        when(accountRepository.checkIfAccountBelongsToUser(iban, user.getId())).thenReturn(true);
+        when(transactionRepository.findAllResponses(any(Specification.class), eq(pageableRequest))).thenReturn(pageTransactions);
 
-
-        Page<Transaction> result = transactionService.getAllByAccountIban(user, iban, startDate, endDate, "", "", 0F, 0, 10);
+        Page<TransactionResponseDTO> result = transactionService.getAllByAccountIban(user, iban, startDate, endDate, "", "", 0L, 0, 10);
 
         Assertions.assertEquals(pageTransactions, result);
     }
@@ -559,56 +1056,22 @@ public class TransactionServiceTest {
         Date endDate = Date.from(today.atTime(LocalTime.MAX).atZone(ZoneId.systemDefault()).toInstant());
 
         List<Account> accounts = new ArrayList<>();
-        Account account = getMockAccount(iban, 1000F, user1, false);
+        Account account = getMockAccount(iban, 100000L, user1, false);
         accounts.add(account);
         user1.setAccounts(accounts);
 
-        List<Transaction> transactions = new ArrayList<>();
+        List<TransactionResponseDTO> transactions = new ArrayList<>();
 
-        Transaction transaction = getMockTransaction(user1, 100F, TransactionType.DEPOSIT, null, account);
+        Transaction transaction = getMockTransaction(user1, 10000L, TransactionType.DEPOSIT, null, account);
         transaction.setLabel("test");
-        transactions.add(transaction);
-        transactions.add(getMockTransaction(user1, 100F, TransactionType.DEPOSIT, null, account));
+        transactions.add(new TransactionResponseDTO(transaction));
+        transactions.add(new TransactionResponseDTO(getMockTransaction(user1, 10000L, TransactionType.DEPOSIT, null, account)));
 
         Pageable pageableRequest = PageRequest.of(0, 10);
-        Page<Transaction> pageTransactions = new PageImpl<>(transactions, pageableRequest, transactions.size());
-
-        when(transactionRepository.findAllByIban(endDate, startDate, iban, "", "", 0F, pageableRequest)).thenReturn(pageTransactions);
-
-        Assertions.assertThrows(AccountNotOwnedException.class, () -> transactionService.getAllByAccountIban(user, iban, startDate, endDate, "", "", 0F, 0, 10));
-    }
-
-    @Test
-    public void testGetTodaysAccumulatedTransactionAmount() {
-        try {
-            Method GetTodaysAccumulatedTransactionAmountMethod = TransactionService.class.getDeclaredMethod("getTodaysAccumulatedTransactionAmount", String.class);
-            GetTodaysAccumulatedTransactionAmountMethod.setAccessible(true);
+        Page<TransactionResponseDTO> pageTransactions = new PageImpl<>(transactions, pageableRequest, transactions.size());
 
-            String iban = "1234567890";
+        when(transactionRepository.findAllResponses(any(Specification.class), eq(pageableRequest))).thenReturn(pageTransactions);
 
-            LocalDate today = LocalDate.now();
-            LocalDateTime startOfDay = LocalDateTime.of(today, LocalTime.MIN);
-            LocalDateTime endOfDay = LocalDateTime.of(today, LocalTime.MAX);
-
-            Date startDate = Date.from(startOfDay.atZone(ZoneId.systemDefault()).toInstant());
-            Date endDate = Date.from(endOfDay.atZone(ZoneId.systemDefault()).toInstant());
-
-            Account account = new Account();
-            account.setIban(iban);
-            List<Transaction> transactions = new ArrayList<>();
-            Transaction transaction = new Transaction();
-            transaction.setAmount(100.0F);
-            transaction.setFromAccount(account);
-            transactions.add(transaction);
-            transactions.add(transaction);
-
-            when(transactionRepository.findAllByCreatedAtBetweenAndFromAccountIban(startDate, endDate, iban)).thenReturn(transactions);
-
-            Double result = (Double) GetTodaysAccumulatedTransactionAmountMethod.invoke(transactionService, iban);
-
-            Assertions.assertEquals(200.0, result);
-        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-            e.printStackTrace();
-        }
+        Assertions.assertThrows(AccountNotOwnedException.class, () -> transactionService.getAllByAccountIban(user, iban, startDate, endDate, "", "", 0L, 0, 10));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package com.example.CodeGeneratieRestAPI.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class TransactionSettlementWorkerTest {
+
+    @Mock
+    private TransactionService transactionService;
+
+    private TransactionSettlementWorker transactionSettlementWorker;
+
+    @BeforeEach
+    public void init() {
+        MockitoAnnotations.openMocks(this);
+        transactionSettlementWorker = new TransactionSettlementWorker();
+        ReflectionTestUtils.setField(transactionSettlementWorker, "transactionService", transactionService);
+        ReflectionTestUtils.setField(transactionSettlementWorker, "workers", 1);
+        ReflectionTestUtils.setField(transactionSettlementWorker, "batchSize", 32);
+        ReflectionTestUtils.setField(transactionSettlementWorker, "retryDelayMs", 10L);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        transactionSettlementWorker.shutdown();
+    }
+
+    //  A batch that fails on a database error stays PENDING and is settled again, not only after a restart
+    @Test
+    public void testFailedBatchIsSettledAgain() {
+        doThrow(new DataAccessResourceFailureException("The database is down")).doNothing().when(transactionService).settle(List.of(1L));
+
+        transactionSettlementWorker.start();
+        transactionSettlementWorker.enqueue(1L);
+
+        verify(transactionService, timeout(5000).times(2)).settle(List.of(1L));
+    }
+}
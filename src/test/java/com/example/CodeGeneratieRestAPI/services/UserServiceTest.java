@@ -4,6 +4,7 @@ import com.example.CodeGeneratieRestAPI.dtos.UserRequestDTO;
 import com.example.CodeGeneratieRestAPI.dtos.UserResponseDTO;
 import com.example.CodeGeneratieRestAPI.exceptions.UserNotFoundException;
 import com.example.CodeGeneratieRestAPI.jwt.JwTokenProvider;
+import com.example.CodeGeneratieRestAPI.jwt.JwtPrincipal;
 import com.example.CodeGeneratieRestAPI.models.HashedPassword;
 import com.example.CodeGeneratieRestAPI.models.User;
 import com.example.CodeGeneratieRestAPI.models.UserType;
@@ -14,6 +15,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Page;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -37,6 +45,9 @@ public class UserServiceTest {
     @Mock
     private ModelMapper modelMapper;
 
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
     @InjectMocks
     private UserService userService;
 
@@ -85,25 +96,47 @@ public class UserServiceTest {
 
     @Test
     public void testGetAll() {
-        List<User> users = new ArrayList<>();
-        users.add(getMockUser());
-        when(userRepository.findAll()).thenReturn(users);
-        when(modelMapper.map(any(User.class), eq(UserResponseDTO.class))).thenReturn(getMockUserResponseDTO());
+        Page<UserResponseDTO> users = new PageImpl<>(List.of(getMockUserResponseDTO()));
+        when(userRepository.findAllResponses(any(Pageable.class))).thenReturn(users);
 
-        List<UserResponseDTO> result = userService.getAll(false);
+        Page<UserResponseDTO> result = userService.getAll(false, 0, 10);
 
-        assertEquals(1, result.size());
-        verify(userRepository, times(1)).findAll();
+        assertEquals(1, result.getContent().size());
+        verify(userRepository, times(1)).findAllResponses(PageRequest.of(0, 10, Sort.by("lastName", "firstName", "id")));
+        verify(userRepository, never()).findAllResponsesWithoutAccounts(any(Pageable.class));
     }
 
     @Test
-    public void testGetAllNoUsersFound() {
-        when(userRepository.findAll()).thenReturn(new ArrayList<>());
+    public void testGetAllWithoutAccounts() {
+        when(userRepository.findAllResponsesWithoutAccounts(any(Pageable.class))).thenReturn(Page.empty());
+
+        Page<UserResponseDTO> result = userService.getAll(true, 0, 10);
+
+        assertEquals(0, result.getContent().size());
+        verify(userRepository, times(1)).findAllResponsesWithoutAccounts(any(Pageable.class));
+        verify(userRepository, never()).findAllResponses(any(Pageable.class));
+    }
 
-        List<UserResponseDTO> result = userService.getAll(false);
+    @Test
+    public void testGetAllPageNotValid() {
+        assertThrows(RuntimeException.class, () -> userService.getAll(false, -1, 10));
+        assertThrows(RuntimeException.class, () -> userService.getAll(false, 0, 0));
+    }
 
-        assertEquals(0, result.size());
-        verify(userRepository, times(1)).findAll();
+    @Test
+    public void testGetLoggedInUserFromClaims() {
+        JwtPrincipal principal = new JwtPrincipal(1L, "johndoe", UserType.USER);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        try {
+            User user = userService.getLoggedInUser();
+
+            assertEquals(1L, user.getId());
+            assertEquals("johndoe", user.getUsername());
+            assertEquals(UserType.USER, user.getUserType());
+            verifyNoInteractions(userRepository);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
     }
 
     @Test